@@ -0,0 +1,41 @@
+package com.example.account.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+
+//AccountException 생성 비용 (대부분 fillInStackTrace), 잔액 부족/lock 실패처럼 정상 흐름에서 자주 던져진다
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountExceptionBenchmark {
+	
+	@Benchmark
+	public AccountException construct() {
+		return new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+	}
+	
+	//실제 호출 깊이에 가깝게 스택을 쌓은 뒤 생성
+	@Benchmark
+	public AccountException constructDeepStack() {
+		return construct(20);
+	}
+	
+	private AccountException construct(int depth) {
+		if(depth == 0) {
+			return new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+		}
+		return construct(depth - 1);
+	}
+}
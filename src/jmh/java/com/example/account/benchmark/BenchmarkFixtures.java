@@ -0,0 +1,45 @@
+package com.example.account.benchmark;
+
+import java.time.LocalDateTime;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.service.TransactionIdGenerator;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+//벤치마크 공통 입력 데이터 (DB 없이 엔티티만 만든다)
+final class BenchmarkFixtures {
+	
+	private BenchmarkFixtures() {
+	}
+	
+	static Transaction useTransaction() {
+		AccountUser accountUser = AccountUser.builder()
+				.id(1L)
+				.name("Pororo")
+				.build();
+		
+		Account account = Account.builder()
+				.id(1L)
+				.accountUser(accountUser)
+				.accountNumber("1000000000")
+				.accountStatus(AccountStatus.IN_USE)
+				.balance(10000L)
+				.registeredAt(LocalDateTime.now())
+				.build();
+		
+		return Transaction.builder()
+				.id(1L)
+				.account(account)
+				.transactionType(TransactionType.USE)
+				.transactionResultType(TransactionResultType.S)
+				.amount(1000L)
+				.balanceSnapshot(9000L)
+				.transactionId(TransactionIdGenerator.generate())
+				.transactedAt(LocalDateTime.now())
+				.build();
+	}
+}
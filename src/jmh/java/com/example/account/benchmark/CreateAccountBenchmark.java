@@ -0,0 +1,103 @@
+package com.example.account.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.account.AccountApplication;
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountDTO;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.service.AccountService;
+import com.example.account.type.AccountStatus;
+
+/*
+ AccountService.createAccount (in-memory H2, 트랜잭션/JPA flush 포함)
+ 1. 웹 서버 없이 애플리케이션 컨텍스트만 띄우고, 내장 Redis는 다른 포트를 쓴다 (application.yml보다 우선하도록 명령행 인자로 넘긴다)
+ 2. 사용자당 계좌 10개 제한이 있으므로 호출마다 새 사용자를 만든다 (측정 시간에서는 제외되지만 -prof gc의 B/op에는 포함됨)
+ 3. 계좌번호가 +1로 증가하도록 10자리 계좌를 하나 미리 넣어둔다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreateAccountBenchmark {
+	
+	private ConfigurableApplicationContext context;
+	private AccountService accountService;
+	private AccountUserRepository accountUserRepository;
+	
+	private Long userId;
+	
+	@Setup(Level.Trial)
+	public void startApplication() {
+		context = new SpringApplicationBuilder(AccountApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(
+						"--spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+						"--spring.redis.port=16379",
+						"--spring.sql.init.mode=never",
+						"--spring.jpa.show-sql=false",
+						"--spring.jpa.properties.hibernate.show_sql=false",
+						"--spring.jpa.properties.hibernate.format_sql=false",
+						"--read-model.enabled=false",
+						"--outbox.relay.enabled=false",
+						"--failed-transaction.wal-path=./build/jmh/failed-transaction.wal",
+						"--outbox.log.path=./build/jmh/balance-events.log",
+						"--logging.level.root=WARN");
+		
+		accountService = context.getBean(AccountService.class);
+		accountUserRepository = context.getBean(AccountUserRepository.class);
+		
+		AccountUser seedUser = newUser();
+		context.getBean(AccountRepository.class).save(Account.builder()
+				.accountUser(seedUser)
+				.accountStatus(AccountStatus.IN_USE)
+				.accountNumber("1000000000")
+				.balance(0L)
+				.registeredAt(LocalDateTime.now())
+				.build());
+	}
+	
+	@Setup(Level.Invocation)
+	public void prepareUser() {
+		userId = newUser().getId();
+	}
+	
+	@TearDown(Level.Trial)
+	public void stopApplication() {
+		context.close();
+	}
+	
+	@Benchmark
+	public AccountDTO createAccount() {
+		return accountService.createAccount(userId, 10000L);
+	}
+	
+	private AccountUser newUser() {
+		return accountUserRepository.save(AccountUser.builder()
+				.name("benchmark")
+				.createdAt(LocalDateTime.now())
+				.updatedAt(LocalDateTime.now())
+				.build());
+	}
+}
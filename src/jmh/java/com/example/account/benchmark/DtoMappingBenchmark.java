@@ -0,0 +1,52 @@
+package com.example.account.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDTO;
+import com.example.account.dto.UseBalance;
+
+//컨트롤러 응답 경로: Transaction -> TransactionDTO.fromEntity -> UseBalance.Response.from
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+	
+	private Transaction transaction;
+	private TransactionDTO transactionDTO;
+	
+	@Setup
+	public void setUp() {
+		transaction = BenchmarkFixtures.useTransaction();
+		transactionDTO = TransactionDTO.fromEntity(transaction);
+	}
+	
+	@Benchmark
+	public TransactionDTO fromEntity() {
+		return TransactionDTO.fromEntity(transaction);
+	}
+	
+	@Benchmark
+	public UseBalance.Response responseFrom() {
+		return UseBalance.Response.from(transactionDTO);
+	}
+	
+	@Benchmark
+	public UseBalance.Response entityToResponse() {
+		return UseBalance.Response.from(TransactionDTO.fromEntity(transaction));
+	}
+}
@@ -0,0 +1,80 @@
+package com.example.account.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.account.dto.AccountInfo;
+import com.example.account.dto.CancelBalance;
+import com.example.account.dto.QueryTransactionResponse;
+import com.example.account.dto.TransactionDTO;
+import com.example.account.dto.UseBalance;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+//응답 DTO의 Jackson 직렬화, ObjectMapper는 Spring MVC와 같은 설정(Jackson2ObjectMapperBuilder)으로 만든다
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+	
+	private ObjectMapper objectMapper;
+	private UseBalance.Response useBalanceResponse;
+	private CancelBalance.Response cancelBalanceResponse;
+	private QueryTransactionResponse queryTransactionResponse;
+	private List<AccountInfo> accountInfos;
+	
+	@Setup
+	public void setUp() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		
+		TransactionDTO transactionDTO = TransactionDTO.fromEntity(BenchmarkFixtures.useTransaction());
+		useBalanceResponse = UseBalance.Response.from(transactionDTO);
+		cancelBalanceResponse = CancelBalance.Response.from(transactionDTO);
+		queryTransactionResponse = QueryTransactionResponse.from(transactionDTO);
+		
+		//사용자당 최대 계좌 10개
+		accountInfos = new ArrayList<>();
+		for(int i = 0; i < 10; i++) {
+			accountInfos.add(AccountInfo.builder()
+					.accountNumber(String.valueOf(1000000000L + i))
+					.balance(10000L * i)
+					.build());
+		}
+	}
+	
+	@Benchmark
+	public byte[] useBalanceResponse() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(useBalanceResponse);
+	}
+	
+	@Benchmark
+	public byte[] cancelBalanceResponse() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(cancelBalanceResponse);
+	}
+	
+	@Benchmark
+	public byte[] queryTransactionResponse() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(queryTransactionResponse);
+	}
+	
+	@Benchmark
+	public byte[] accountInfos() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(accountInfos);
+	}
+}
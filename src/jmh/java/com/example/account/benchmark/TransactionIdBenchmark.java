@@ -0,0 +1,41 @@
+package com.example.account.benchmark;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.account.service.TransactionIdGenerator;
+
+//거래 ID 생성, UUID.randomUUID()는 SecureRandom을 공유하므로 멀티 스레드 결과도 같이 본다
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionIdBenchmark {
+	
+	@Benchmark
+	public String generate() {
+		return TransactionIdGenerator.generate();
+	}
+	
+	@Benchmark
+	@Threads(4)
+	public String generate4Threads() {
+		return TransactionIdGenerator.generate();
+	}
+	
+	//대쉬 제거 비용을 따로 보기 위한 기준값
+	@Benchmark
+	public UUID randomUuidOnly() {
+		return UUID.randomUUID();
+	}
+}
@@ -0,0 +1,179 @@
+package com.example.account.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.account.AccountApplication;
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionSummary;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.service.TransactionService;
+import com.example.account.type.AccountStatus;
+
+/*
+ TransactionService.summarizeTransactions (in-memory H2, 거래 수백만 건인 계좌)
+ 1. 대상 계좌에 transactions 건, 다른 계좌에 그 1/10을 30초 간격으로 넣는다 (1,000,000건이면 약 347일치)
+ 2. summarize: 집계 쿼리 한 번, rangeDays 기간
+ 3. pageEntities: 비교용, 클라이언트가 하던 것처럼 같은 기간의 거래 엔티티를 page-size씩 읽어서 더한다
+ - H2는 같은 쿼리를 같은 인자로 다시 실행하면 이전 결과를 돌려주므로 호출마다 from을 1us씩 옮긴다
+ - 데이터는 SQL(system_range)로 직접 넣는다 (JPA로 넣으면 준비만 몇 분 걸림)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class TransactionSummaryBenchmark {
+	
+	private static final String ACCOUNT_NUMBER = "1000000000";
+	private static final int SEED_CHUNK = 100_000;
+	private static final int PAGE_SIZE = 1000;
+	
+	@Param({"1000000"})
+	public int transactions;
+	
+	@Param({"1", "31", "365"})
+	public int rangeDays;
+	
+	private ConfigurableApplicationContext context;
+	private TransactionService transactionService;
+	private TransactionTemplate readOnlyTransaction;
+	private EntityManager entityManager;
+	
+	private Long accountId;
+	private LocalDateTime from;
+	private LocalDateTime to;
+	private int invocation;
+	
+	@Setup(Level.Trial)
+	public void startApplication() {
+		context = new SpringApplicationBuilder(AccountApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(
+						"--spring.datasource.url=jdbc:h2:mem:jmh-summary;DB_CLOSE_DELAY=-1",
+						"--spring.redis.port=16379",
+						"--spring.sql.init.mode=never",
+						"--spring.jpa.show-sql=false",
+						"--spring.jpa.properties.hibernate.show_sql=false",
+						"--spring.jpa.properties.hibernate.format_sql=false",
+						"--read-model.enabled=false",
+						"--outbox.relay.enabled=false",
+						"--archive.enabled=false",
+						"--balance-checkpoint.enabled=false",
+						"--failed-transaction.wal-path=./build/jmh/failed-transaction.wal",
+						"--outbox.log.path=./build/jmh/balance-events.log",
+						"--archive.dir=./build/jmh/archive",
+						"--logging.level.root=WARN");
+		
+		transactionService = context.getBean(TransactionService.class);
+		entityManager = context.getBean(EntityManager.class);
+		readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		readOnlyTransaction.setReadOnly(true);
+		
+		AccountUser user = context.getBean(AccountUserRepository.class).save(AccountUser.builder()
+				.name("benchmark")
+				.createdAt(LocalDateTime.now())
+				.updatedAt(LocalDateTime.now())
+				.build());
+		accountId = newAccount(user, ACCOUNT_NUMBER).getId();
+		Long otherAccountId = newAccount(user, "1000000001").getId();
+		
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+		seed(jdbcTemplate, accountId, 0, transactions);
+		seed(jdbcTemplate, otherAccountId, 1, transactions / 10);
+		jdbcTemplate.execute("analyze");
+		
+		to = LocalDateTime.now();
+		from = to.minusDays(rangeDays);
+	}
+	
+	@TearDown(Level.Trial)
+	public void stopApplication() {
+		context.close();
+	}
+	
+	@Benchmark
+	public TransactionSummary summarize() {
+		return transactionService.summarizeTransactions(ACCOUNT_NUMBER, nextFrom(), to);
+	}
+	
+	@Benchmark
+	public long pageEntities() {
+		LocalDateTime pageFrom = nextFrom();
+		return readOnlyTransaction.execute(status -> {
+			long sum = 0;
+			for(int page = 0; ; page++) {
+				List<Transaction> transactions = entityManager.createQuery("select t from Transaction t"
+						+ " where t.account.id = :accountId and t.transactedAt >= :from and t.transactedAt < :to order by t.transactedAt", Transaction.class)
+						.setParameter("accountId", accountId)
+						.setParameter("from", pageFrom)
+						.setParameter("to", to)
+						.setFirstResult(page * PAGE_SIZE)
+						.setMaxResults(PAGE_SIZE)
+						.getResultList();
+				for(Transaction transaction : transactions) {
+					sum += transaction.getAmount();
+				}
+				entityManager.clear();
+				if(transactions.size() < PAGE_SIZE) {
+					return sum;
+				}
+			}
+		});
+	}
+	
+	private LocalDateTime nextFrom() {
+		invocation = (invocation + 1) % 1000;
+		return from.plusNanos(invocation * 1000L);
+	}
+	
+	private Account newAccount(AccountUser user, String accountNumber) {
+		return context.getBean(AccountRepository.class).save(Account.builder()
+				.accountUser(user)
+				.accountStatus(AccountStatus.IN_USE)
+				.accountNumber(accountNumber)
+				.balance(10000L)
+				.registeredAt(LocalDateTime.now())
+				.build());
+	}
+	
+	//id는 시퀀스와 겹치지 않는 범위, 10건 중 1건 실패, 7건 중 1건 취소
+	private void seed(JdbcTemplate jdbcTemplate, Long accountId, int idBlock, int count) {
+		for(int low = 1; low <= count; low += SEED_CHUNK) {
+			int high = Math.min(count, low + SEED_CHUNK - 1);
+			jdbcTemplate.update("insert into transaction (id, account_id, amount, balance_snapshot, transaction_id, transaction_result_type, transaction_type, transacted_at)"
+					+ " select ? + x, ?, mod(x, 997) + 1, 10000, 'jmh-' || ? || '-' || x,"
+					+ " case when mod(x, 10) = 0 then 'F' else 'S' end, case when mod(x, 7) = 0 then 'CANCEL' else 'USE' end,"
+					+ " dateadd('SECOND', -x * 30, current_timestamp) from system_range(?, ?)",
+					1_000_000_000L + idBlock * 100_000_000L, accountId, idBlock, low, high);
+		}
+	}
+}
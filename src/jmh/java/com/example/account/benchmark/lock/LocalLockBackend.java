@@ -0,0 +1,43 @@
+package com.example.account.benchmark.lock;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+
+//기준값: 프로세스 안의 ReentrantLock, 대기 시간은 LockService와 같은 1초
+class LocalLockBackend implements LockBackend {
+	private final ConcurrentMap<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+	
+	@Override
+	public String name() {
+		return "local";
+	}
+	
+	@Override
+	public void lock(String accountNumber) {
+		ReentrantLock lock = locks.computeIfAbsent(accountNumber, key -> new ReentrantLock());
+		
+		try {
+			if(!lock.tryLock(1, TimeUnit.SECONDS)) {
+				throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+		}
+	}
+	
+	@Override
+	public void unlock(String accountNumber) {
+		locks.get(accountNumber).unlock();
+	}
+	
+	@Override
+	public void close() {
+		locks.clear();
+	}
+}
@@ -0,0 +1,14 @@
+package com.example.account.benchmark.lock;
+
+//비교 대상 lock 구현, LockService.lock/unlock과 같은 계약 (대기 시간 초과 시 AccountException)
+interface LockBackend extends AutoCloseable {
+	
+	String name();
+	
+	void lock(String accountNumber);
+	
+	void unlock(String accountNumber);
+	
+	@Override
+	void close();
+}
@@ -0,0 +1,209 @@
+package com.example.account.benchmark.lock;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.account.exception.AccountException;
+import com.example.account.service.LockService;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import ch.qos.logback.classic.Level;
+
+/*
+ Lock 백엔드 비교 (./gradlew lockHarness -PlockHarness.args="--threads=1,16 --accounts=distinct,1")
+ 1. backend(redis, local) x threads x accounts 조합마다 warmup 후 duration 동안 lock -> (hold) -> unlock 반복
+ 2. lock 취득 지연은 HdrHistogram에 나노초로 기록, 대기 시간(1초) 초과는 timeout, 그 외 예외는 error로 센다
+ 3. 결과는 실행마다 lock-harness-<시각>.json/.csv로 남겨서 이전 실행과 비교한다
+
+ 옵션 (기본값)
+ --backends=redis,local --threads=1,4,16,64 --accounts=distinct,64,8,1 --hold-micros=0
+ --warmup-seconds=3 --duration-seconds=10 --redis-port=16379 --out=build/reports/lock-harness
+ */
+public class LockHarness {
+	private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+	private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+	
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = parseOptions(args);
+		List<String> backends = list(options.getOrDefault("backends", "redis,local"));
+		List<Integer> threadCounts = list(options.getOrDefault("threads", "1,4,16,64")).stream().map(Integer::parseInt).collect(Collectors.toList());
+		List<String> accounts = list(options.getOrDefault("accounts", "distinct,64,8,1"));
+		long holdMicros = Long.parseLong(options.getOrDefault("hold-micros", "0"));
+		int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup-seconds", "3"));
+		int durationSeconds = Integer.parseInt(options.getOrDefault("duration-seconds", "10"));
+		int redisPort = Integer.parseInt(options.getOrDefault("redis-port", "16379"));
+		Path outDir = Paths.get(options.getOrDefault("out", "build/reports/lock-harness"));
+		
+		quietLogging();
+		
+		LocalDateTime startedAt = LocalDateTime.now();
+		List<LockHarnessResult> results = new ArrayList<>();
+		
+		for(String backendName : backends) {
+			try (LockBackend backend = createBackend(backendName, redisPort)) {
+				for(int threads : threadCounts) {
+					for(String account : accounts) {
+						LockScenario scenario = new LockScenario(backend.name(), threads, account, holdMicros);
+						
+						run(backend, scenario, warmupSeconds); //warmup 결과는 버린다
+						LockHarnessResult result = run(backend, scenario, durationSeconds);
+						results.add(result);
+						
+						System.out.printf("%-40s ops/s=%10.1f p50=%8.1fus p99=%8.1fus p999=%8.1fus timeoutRate=%.4f%n",
+								scenario, result.throughputPerSecond, result.p50Micros, result.p99Micros, result.p999Micros, result.timeoutRate);
+					}
+				}
+			}
+		}
+		
+		writeResults(outDir, startedAt, options, results);
+	}
+	
+	static LockHarnessResult run(LockBackend backend, LockScenario scenario, int seconds) throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(scenario.threads);
+		List<Histogram> histograms = new ArrayList<>();
+		LongAdder timeouts = new LongAdder();
+		LongAdder errors = new LongAdder();
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(scenario.threads);
+		long[] window = new long[2];
+		
+		for(int i = 0; i < scenario.threads; i++) {
+			Histogram histogram = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+			histograms.add(histogram);
+			int threadIndex = i;
+			
+			executor.execute(() -> {
+				try {
+					start.await();
+					long deadline = window[1];
+					
+					while(System.nanoTime() < deadline) {
+						String accountNumber = scenario.nextAccountNumber(threadIndex);
+						long begin = System.nanoTime();
+						
+						try {
+							backend.lock(accountNumber);
+						} catch (AccountException e) {
+							if(e.getErrorCode() == ErrorCode.ACCOUNT_TRANSACTION_LOCK) {
+								timeouts.increment();
+							} else {
+								errors.increment();
+							}
+							continue;
+						} catch (RuntimeException e) {
+							errors.increment();
+							continue;
+						}
+						
+						histogram.recordValue(Math.min(System.nanoTime() - begin, HIGHEST_TRACKABLE_NANOS));
+						
+						try {
+							if(scenario.holdMicros > 0) {
+								LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(scenario.holdMicros)); //거래 처리 시간 흉내
+							}
+						} finally {
+							backend.unlock(accountNumber);
+						}
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (RuntimeException e) {
+					errors.increment();
+				} finally {
+					done.countDown();
+				}
+			});
+		}
+		
+		window[0] = System.nanoTime();
+		window[1] = window[0] + TimeUnit.SECONDS.toNanos(seconds);
+		start.countDown(); //CountDownLatch가 window 값의 가시성도 보장한다
+		done.await();
+		long elapsed = System.nanoTime() - window[0];
+		executor.shutdown();
+		
+		Histogram total = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+		histograms.forEach(total::add);
+		return LockHarnessResult.of(scenario, total, timeouts.sum(), errors.sum(), elapsed / 1_000_000_000.0);
+	}
+	
+	private static LockBackend createBackend(String name, int redisPort) {
+		switch (name) {
+		case "redis":
+			return new RedisLockBackend(redisPort);
+		case "local":
+			return new LocalLockBackend();
+		default:
+			throw new IllegalArgumentException("Unknown lock backend : " + name);
+		}
+	}
+	
+	private static void writeResults(Path outDir, LocalDateTime startedAt, Map<String, String> options, List<LockHarnessResult> results) throws IOException {
+		Files.createDirectories(outDir);
+		String baseName = "lock-harness-" + startedAt.format(FILE_TIMESTAMP);
+		
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("startedAt", startedAt.toString());
+		report.put("javaVersion", System.getProperty("java.version"));
+		report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+		report.put("options", options);
+		report.put("results", results);
+		
+		Path json = outDir.resolve(baseName + ".json");
+		new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(json.toFile(), report);
+		
+		List<String> lines = new ArrayList<>();
+		lines.add(LockHarnessResult.CSV_HEADER);
+		results.forEach(result -> lines.add(result.toCsvLine()));
+		Path csv = outDir.resolve(baseName + ".csv");
+		Files.write(csv, lines, StandardCharsets.UTF_8);
+		
+		System.out.println("Results written to " + json.toAbsolutePath() + " and " + csv.getFileName());
+	}
+	
+	//Spring Boot 로깅 설정 없이 실행되므로 직접 줄인다, timeout마다 찍히는 LockService 에러 로그는 끈다
+	private static void quietLogging() {
+		((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+		((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(LockService.class)).setLevel(Level.OFF);
+	}
+	
+	private static Map<String, String> parseOptions(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for(String arg : args) {
+			if(!arg.startsWith("--") || !arg.contains("=")) {
+				throw new IllegalArgumentException("Options must look like --name=value : " + arg);
+			}
+			options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+		return options;
+	}
+	
+	private static List<String> list(String value) {
+		return Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,53 @@
+package com.example.account.benchmark.lock;
+
+import org.HdrHistogram.Histogram;
+
+//시나리오 하나의 결과 (JSON/CSV 한 행), 지연 시간은 lock 취득까지 걸린 시간(마이크로초)
+class LockHarnessResult {
+	static final String CSV_HEADER = "backend,threads,accounts,holdMicros,durationSeconds,operations,timeouts,errors,"
+			+ "throughputPerSecond,timeoutRate,p50Micros,p99Micros,p999Micros,maxMicros";
+	
+	public String backend;
+	public int threads;
+	public String accounts;
+	public long holdMicros;
+	public double durationSeconds;
+	public long operations;
+	public long timeouts;
+	public long errors;
+	public double throughputPerSecond;
+	public double timeoutRate;
+	public double p50Micros;
+	public double p99Micros;
+	public double p999Micros;
+	public double maxMicros;
+	
+	static LockHarnessResult of(LockScenario scenario, Histogram latencies, long timeouts, long errors, double durationSeconds) {
+		LockHarnessResult result = new LockHarnessResult();
+		result.backend = scenario.backend;
+		result.threads = scenario.threads;
+		result.accounts = scenario.accounts;
+		result.holdMicros = scenario.holdMicros;
+		result.durationSeconds = durationSeconds;
+		result.operations = latencies.getTotalCount();
+		result.timeouts = timeouts;
+		result.errors = errors;
+		
+		long attempts = result.operations + timeouts + errors;
+		result.throughputPerSecond = result.operations / durationSeconds;
+		result.timeoutRate = attempts == 0 ? 0 : (double) timeouts / attempts;
+		result.p50Micros = latencies.getValueAtPercentile(50) / 1000.0;
+		result.p99Micros = latencies.getValueAtPercentile(99) / 1000.0;
+		result.p999Micros = latencies.getValueAtPercentile(99.9) / 1000.0;
+		result.maxMicros = latencies.getMaxValue() / 1000.0;
+		return result;
+	}
+	
+	String toCsvLine() {
+		return String.join(",", backend, String.valueOf(threads), accounts, String.valueOf(holdMicros),
+				String.valueOf(durationSeconds), String.valueOf(operations), String.valueOf(timeouts), String.valueOf(errors),
+				String.format("%.1f", throughputPerSecond), String.format("%.6f", timeoutRate),
+				String.format("%.1f", p50Micros), String.format("%.1f", p99Micros),
+				String.format("%.1f", p999Micros), String.format("%.1f", maxMicros));
+	}
+}
@@ -0,0 +1,34 @@
+package com.example.account.benchmark.lock;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+//backend x 스레드 수 x 경합 수준
+//accounts: distinct = 스레드마다 자기 계좌만 사용 (경합 없음), 숫자 N = N개 계좌 중 무작위 (1이면 단일 hot 계좌)
+class LockScenario {
+	static final String DISTINCT = "distinct";
+	
+	final String backend;
+	final int threads;
+	final String accounts;
+	final long holdMicros;
+	
+	private final int accountCount;
+	
+	LockScenario(String backend, int threads, String accounts, long holdMicros) {
+		this.backend = backend;
+		this.threads = threads;
+		this.accounts = accounts;
+		this.holdMicros = holdMicros;
+		this.accountCount = DISTINCT.equals(accounts) ? 0 : Integer.parseInt(accounts);
+	}
+	
+	String nextAccountNumber(int threadIndex) {
+		long offset = accountCount == 0 ? threadIndex : ThreadLocalRandom.current().nextInt(accountCount);
+		return String.valueOf(1000000000L + offset);
+	}
+	
+	@Override
+	public String toString() {
+		return backend + " threads=" + threads + " accounts=" + accounts + " hold=" + holdMicros + "us";
+	}
+}
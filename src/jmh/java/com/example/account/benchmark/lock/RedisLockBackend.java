@@ -0,0 +1,52 @@
+package com.example.account.benchmark.lock;
+
+import java.util.Map;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import com.example.account.breaker.RedisCircuitBreaker;
+import com.example.account.cluster.LocalLockRegistry;
+import com.example.account.config.LocalRedisConfig;
+import com.example.account.config.RedisRepositoryConfig;
+import com.example.account.fencing.FencingTokenIssuer;
+import com.example.account.redlock.QuorumLock;
+import com.example.account.service.LockService;
+
+//애플리케이션과 같은 구성: LocalRedisConfig(내장 Redis) + RedisRepositoryConfig(Redisson) + LockService와 그 의존 빈
+class RedisLockBackend implements LockBackend {
+	private final AnnotationConfigApplicationContext context;
+	private final LockService lockService;
+	
+	RedisLockBackend(int redisPort) {
+		context = new AnnotationConfigApplicationContext();
+		context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("lock-harness", Map.of(
+				"spring.redis.host", "127.0.0.1",
+				"spring.redis.port", String.valueOf(redisPort))));
+		context.register(LocalRedisConfig.class, RedisRepositoryConfig.class, LockService.class,
+				LocalLockRegistry.class, QuorumLock.class, FencingTokenIssuer.class, RedisCircuitBreaker.class);
+		context.refresh();
+		
+		lockService = context.getBean(LockService.class);
+	}
+	
+	@Override
+	public String name() {
+		return "redis";
+	}
+	
+	@Override
+	public void lock(String accountNumber) {
+		lockService.lock(accountNumber);
+	}
+	
+	@Override
+	public void unlock(String accountNumber) {
+		lockService.unlock(accountNumber);
+	}
+	
+	@Override
+	public void close() {
+		context.close();
+	}
+}
@@ -0,0 +1,61 @@
+package com.example.account.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ 계좌 선택 분포
+ uniform: 모든 계좌가 같은 확률
+ zipf:<s>: 순위 k인 계좌가 1/k^s 에 비례하는 확률 (s가 클수록 소수의 hot 계좌에 몰린다)
+ */
+abstract class AccountPopularity {
+	
+	abstract int nextIndex();
+	
+	static AccountPopularity of(String spec, int accounts) {
+		if("uniform".equals(spec)) {
+			return new Uniform(accounts);
+		}
+		if(spec.startsWith("zipf")) {
+			double exponent = spec.contains(":") ? Double.parseDouble(spec.substring(spec.indexOf(':') + 1)) : 1.0;
+			return new Zipf(accounts, exponent);
+		}
+		throw new IllegalArgumentException("Unknown account distribution : " + spec);
+	}
+	
+	private static class Uniform extends AccountPopularity {
+		private final int accounts;
+		
+		Uniform(int accounts) {
+			this.accounts = accounts;
+		}
+		
+		@Override
+		int nextIndex() {
+			return ThreadLocalRandom.current().nextInt(accounts);
+		}
+	}
+	
+	//누적 확률을 미리 계산해두고 이진 탐색
+	private static class Zipf extends AccountPopularity {
+		private final double[] cdf;
+		
+		Zipf(int accounts, double exponent) {
+			cdf = new double[accounts];
+			double sum = 0;
+			for(int rank = 1; rank <= accounts; rank++) {
+				sum += 1 / Math.pow(rank, exponent);
+				cdf[rank - 1] = sum;
+			}
+			for(int i = 0; i < accounts; i++) {
+				cdf[i] /= sum;
+			}
+		}
+		
+		@Override
+		int nextIndex() {
+			int index = Arrays.binarySearch(cdf, ThreadLocalRandom.current().nextDouble());
+			return Math.min(index >= 0 ? index : -index - 1, cdf.length - 1);
+		}
+	}
+}
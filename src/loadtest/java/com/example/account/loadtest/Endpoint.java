@@ -0,0 +1,34 @@
+package com.example.account.loadtest;
+
+//부하 대상 API
+enum Endpoint {
+	ACCOUNT("account", "GET /account?user_id="),
+	USE("use", "POST /transaction/use"),
+	CANCEL("cancel", "POST /transaction/cancel"),
+	QUERY("query", "GET /transaction/{transactionId}");
+	
+	private final String key;
+	private final String description;
+	
+	Endpoint(String key, String description) {
+		this.key = key;
+		this.description = description;
+	}
+	
+	String getKey() {
+		return key;
+	}
+	
+	String getDescription() {
+		return description;
+	}
+	
+	static Endpoint fromKey(String key) {
+		for(Endpoint endpoint : values()) {
+			if(endpoint.key.equals(key)) {
+				return endpoint;
+			}
+		}
+		throw new IllegalArgumentException("Unknown endpoint : " + key);
+	}
+}
@@ -0,0 +1,48 @@
+package com.example.account.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+//요청 비율, "account:20,use:50,cancel:10,query:20" 형식 (가중치 합이 100일 필요는 없다)
+class EndpointMix {
+	private final Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+	private final Endpoint[] endpoints;
+	private final int[] cumulative;
+	
+	EndpointMix(String spec) {
+		for(String part : spec.split(",")) {
+			String[] pair = part.trim().split(":");
+			int weight = Integer.parseInt(pair[1]);
+			if(weight > 0) {
+				weights.put(Endpoint.fromKey(pair[0]), weight);
+			}
+		}
+		if(weights.isEmpty()) {
+			throw new IllegalArgumentException("Endpoint mix is empty : " + spec);
+		}
+		
+		endpoints = weights.keySet().toArray(new Endpoint[0]);
+		cumulative = new int[endpoints.length];
+		int sum = 0;
+		for(int i = 0; i < endpoints.length; i++) {
+			sum += weights.get(endpoints[i]);
+			cumulative[i] = sum;
+		}
+	}
+	
+	Endpoint next() {
+		int value = ThreadLocalRandom.current().nextInt(cumulative[cumulative.length - 1]);
+		for(int i = 0; i < cumulative.length; i++) {
+			if(value < cumulative[i]) {
+				return endpoints[i];
+			}
+		}
+		return endpoints[endpoints.length - 1];
+	}
+	
+	@Override
+	public String toString() {
+		return weights.toString();
+	}
+}
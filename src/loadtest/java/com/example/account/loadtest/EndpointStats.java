@@ -0,0 +1,100 @@
+package com.example.account.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.SynchronizedHistogram;
+
+/*
+ API 하나의 결과
+ 지연 시간은 요청을 "보냈어야 하는" 시각부터 응답까지 (open model이므로 서버가 밀리면 대기 시간도 포함된다)
+ 이 API는 오류도 HTTP 200 + errorCode 로 응답하므로 errorCode 별로 따로 센다
+ */
+class EndpointStats {
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.SECONDS.toMicros(120);
+	
+	private final Endpoint endpoint;
+	private final SynchronizedHistogram latencies = new SynchronizedHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+	private final LongAdder ok = new LongAdder();
+	private final LongAdder httpErrors = new LongAdder();
+	private final LongAdder ioErrors = new LongAdder();
+	private final Map<String, LongAdder> businessErrors = new ConcurrentHashMap<>();
+	
+	EndpointStats(Endpoint endpoint) {
+		this.endpoint = endpoint;
+	}
+	
+	void recordOk(long latencyMicros) {
+		record(latencyMicros);
+		ok.increment();
+	}
+	
+	void recordBusinessError(String errorCode, long latencyMicros) {
+		record(latencyMicros);
+		businessErrors.computeIfAbsent(errorCode, key -> new LongAdder()).increment();
+	}
+	
+	void recordHttpError(long latencyMicros) {
+		record(latencyMicros);
+		httpErrors.increment();
+	}
+	
+	//연결 실패, 타임아웃 (지연 시간 분포에는 넣지 않는다)
+	void recordIoError() {
+		ioErrors.increment();
+	}
+	
+	private void record(long latencyMicros) {
+		latencies.recordValue(Math.min(Math.max(latencyMicros, 0), HIGHEST_TRACKABLE_MICROS));
+	}
+	
+	long getCount() {
+		return latencies.getTotalCount() + ioErrors.sum();
+	}
+	
+	Map<String, Object> toSummary(double measuredSeconds) {
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("endpoint", endpoint.getDescription());
+		summary.put("count", getCount());
+		summary.put("ok", ok.sum());
+		summary.put("businessErrors", toCounts(businessErrors));
+		summary.put("httpErrors", httpErrors.sum());
+		summary.put("ioErrors", ioErrors.sum());
+		summary.put("throughputPerSecond", round(latencies.getTotalCount() / measuredSeconds));
+		summary.put("p50Millis", percentileMillis(50));
+		summary.put("p90Millis", percentileMillis(90));
+		summary.put("p99Millis", percentileMillis(99));
+		summary.put("p999Millis", percentileMillis(99.9));
+		summary.put("maxMillis", round(latencies.getMaxValue() / 1000.0));
+		return summary;
+	}
+	
+	//HdrHistogram 표준 .hgrm 형식 (HistogramLogAnalyzer 등으로 그래프를 그릴 수 있다)
+	String toPercentileDistribution() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (PrintStream printStream = new PrintStream(out, true, StandardCharsets.UTF_8)) {
+			latencies.outputPercentileDistribution(printStream, 1000.0); //밀리초 단위
+		}
+		return out.toString(StandardCharsets.UTF_8);
+	}
+	
+	private double percentileMillis(double percentile) {
+		return round(latencies.getValueAtPercentile(percentile) / 1000.0);
+	}
+	
+	private static Map<String, Long> toCounts(Map<String, LongAdder> adders) {
+		Map<String, Long> counts = new LinkedHashMap<>();
+		adders.forEach((key, value) -> counts.put(key, value.sum()));
+		return counts;
+	}
+	
+	private static double round(double value) {
+		return Math.round(value * 1000) / 1000.0;
+	}
+}
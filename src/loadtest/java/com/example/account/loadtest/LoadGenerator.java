@@ -0,0 +1,305 @@
+package com.example.account.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/*
+ HTTP 부하 생성기 (./gradlew loadTest -PloadTest.args="--rate=200 --distribution=zipf:1.1")
+ 1. 내장 H2/Redis로 애플리케이션을 띄우고 계좌를 미리 넣는다
+ 2. open model: 응답을 기다리지 않고 포아송 도착(평균 rate 요청/초)으로 요청을 보낸다
+ 3. API별 지연 시간을 HdrHistogram에 기록하고 요약(JSON)과 분포(.hgrm)를 남긴다
+
+ 옵션 (기본값)
+ --rate=50 --warmup-seconds=10 --duration-seconds=60 --mix=account:20,use:50,cancel:10,query:20
+ --accounts=1000 --distribution=uniform (zipf:<s>) --max-in-flight=2000 --amount=100
+ --redis-port=16380 --out=build/reports/loadtest
+ */
+public class LoadGenerator {
+	private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+	private static final int RECENT_TRANSACTIONS = 10000;
+	
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final HttpClient httpClient = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+	
+	private final LoadTestServer server;
+	private final EndpointMix mix;
+	private final AccountPopularity popularity;
+	private final long amount;
+	
+	private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+	private final ConcurrentLinkedDeque<UsedTransaction> cancellable = new ConcurrentLinkedDeque<>();
+	private final ConcurrentLinkedDeque<String> recentTransactionIds = new ConcurrentLinkedDeque<>();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final LongAdder dropped = new LongAdder();
+	
+	private volatile long measureFromNanos;
+	
+	LoadGenerator(LoadTestServer server, EndpointMix mix, AccountPopularity popularity, long amount) {
+		this.server = server;
+		this.mix = mix;
+		this.popularity = popularity;
+		this.amount = amount;
+		for(Endpoint endpoint : Endpoint.values()) {
+			stats.put(endpoint, new EndpointStats(endpoint));
+		}
+	}
+	
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = Options.parse(args);
+		double rate = Double.parseDouble(options.getOrDefault("rate", "50"));
+		int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup-seconds", "10"));
+		int durationSeconds = Integer.parseInt(options.getOrDefault("duration-seconds", "60"));
+		int accounts = Integer.parseInt(options.getOrDefault("accounts", "1000"));
+		int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "2000"));
+		long amount = Long.parseLong(options.getOrDefault("amount", "100"));
+		int redisPort = Integer.parseInt(options.getOrDefault("redis-port", "16380"));
+		Path outDir = Paths.get(options.getOrDefault("out", "build/reports/loadtest"));
+		EndpointMix mix = new EndpointMix(options.getOrDefault("mix", "account:20,use:50,cancel:10,query:20"));
+		AccountPopularity popularity = AccountPopularity.of(options.getOrDefault("distribution", "uniform"), accounts);
+		
+		LocalDateTime startedAt = LocalDateTime.now();
+		Files.createDirectories(outDir);
+		
+		try (LoadTestServer server = new LoadTestServer(redisPort, outDir.toString())) {
+			server.seedSequential(accounts, 1_000_000_000L);
+			System.out.printf("Target %s, %d accounts, mix %s, %.1f req/s%n", server.getBaseUrl(), accounts, mix, rate);
+			
+			LoadGenerator generator = new LoadGenerator(server, mix, popularity, amount);
+			double measuredSeconds = generator.run(rate, warmupSeconds, durationSeconds, maxInFlight);
+			generator.report(outDir, startedAt, options, rate, measuredSeconds);
+		}
+	}
+	
+	//open model: 도착 시각은 미리 정해지고, 서버가 느려도 보내는 속도는 줄지 않는다
+	double run(double rate, int warmupSeconds, int durationSeconds, int maxInFlight) throws InterruptedException {
+		double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+		long start = System.nanoTime();
+		measureFromNanos = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+		long end = measureFromNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+		long next = start;
+		
+		while(true) {
+			next += (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanIntervalNanos);
+			if(next >= end) {
+				break;
+			}
+			
+			long wait = next - System.nanoTime();
+			if(wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			
+			if(inFlight.get() >= maxInFlight) {
+				if(next >= measureFromNanos) {
+					dropped.increment(); //클라이언트 보호, 결과에 따로 표시
+				}
+				continue;
+			}
+			send(mix.next(), next);
+		}
+		
+		//남은 요청이 끝날 때까지 대기 (최대 60초)
+		long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+		while(inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+			Thread.sleep(100);
+		}
+		return (end - measureFromNanos) / 1_000_000_000.0;
+	}
+	
+	private void send(Endpoint endpoint, long intendedNanos) {
+		int accountIndex = popularity.nextIndex();
+		String accountNumber = server.getAccountNumber(accountIndex);
+		UsedTransaction cancelTarget = null;
+		HttpRequest request;
+		
+		//취소/조회할 거래가 아직 없으면 사용 요청으로 대신한다
+		if(endpoint == Endpoint.CANCEL && (cancelTarget = cancellable.pollFirst()) == null) {
+			endpoint = Endpoint.USE;
+		}
+		String transactionId = endpoint == Endpoint.QUERY ? recentTransactionIds.peekLast() : null;
+		if(endpoint == Endpoint.QUERY && transactionId == null) {
+			endpoint = Endpoint.USE;
+		}
+		
+		switch (endpoint) {
+		case ACCOUNT:
+			request = get("/account?user_id=" + server.getUserId(accountIndex));
+			break;
+		case USE:
+			request = post("/transaction/use", Map.of(
+					"userId", server.getUserId(accountIndex),
+					"accountNumber", accountNumber,
+					"amount", amount));
+			break;
+		case CANCEL:
+			request = post("/transaction/cancel", Map.of(
+					"transactionId", cancelTarget.transactionId,
+					"accountNumber", cancelTarget.accountNumber,
+					"amount", cancelTarget.amount));
+			break;
+		default:
+			request = get("/transaction/" + transactionId);
+			break;
+		}
+		
+		Endpoint target = endpoint;
+		inFlight.incrementAndGet();
+		httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+				.whenComplete((response, error) -> {
+					try {
+						onResponse(target, intendedNanos, response, error);
+					} finally {
+						inFlight.decrementAndGet();
+					}
+				});
+	}
+	
+	private void onResponse(Endpoint endpoint, long intendedNanos, HttpResponse<String> response, Throwable error) {
+		boolean measured = intendedNanos >= measureFromNanos;
+		EndpointStats endpointStats = stats.get(endpoint);
+		long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedNanos);
+		
+		if(error != null) {
+			if(measured) {
+				endpointStats.recordIoError();
+			}
+			return;
+		}
+		if(response.statusCode() != 200) {
+			if(measured) {
+				endpointStats.recordHttpError(latencyMicros);
+			}
+			return;
+		}
+		
+		JsonNode body = readBody(response.body());
+		if(body != null && body.has("errorCode")) {
+			if(measured) {
+				endpointStats.recordBusinessError(body.get("errorCode").asText(), latencyMicros);
+			}
+			return;
+		}
+		if(measured) {
+			endpointStats.recordOk(latencyMicros);
+		}
+		
+		if(endpoint == Endpoint.USE && body != null) {
+			rememberTransaction(body);
+		}
+	}
+	
+	private void rememberTransaction(JsonNode body) {
+		String transactionId = body.get("transactionId").asText();
+		cancellable.addLast(new UsedTransaction(transactionId, body.get("accountNumber").asText(), body.get("amount").asLong()));
+		recentTransactionIds.addLast(transactionId);
+		
+		//최근 거래만 유지 (size()는 O(n)이라 가끔만 확인한다)
+		if(ThreadLocalRandom.current().nextInt(100) == 0) {
+			while(recentTransactionIds.size() > RECENT_TRANSACTIONS) {
+				recentTransactionIds.pollFirst();
+			}
+			while(cancellable.size() > RECENT_TRANSACTIONS) {
+				cancellable.pollFirst();
+			}
+		}
+	}
+	
+	private void report(Path outDir, LocalDateTime startedAt, Map<String, String> options, double rate, double measuredSeconds) throws IOException {
+		String baseName = "loadtest-" + startedAt.format(FILE_TIMESTAMP);
+		
+		Map<String, Object> endpoints = new LinkedHashMap<>();
+		long completed = 0;
+		for(Endpoint endpoint : Endpoint.values()) {
+			EndpointStats endpointStats = stats.get(endpoint);
+			if(endpointStats.getCount() == 0) {
+				continue;
+			}
+			completed += endpointStats.getCount();
+			
+			Map<String, Object> summary = endpointStats.toSummary(measuredSeconds);
+			endpoints.put(endpoint.getKey(), summary);
+			System.out.printf("%-34s count=%8d ok=%8d p50=%9.2fms p99=%9.2fms p999=%9.2fms max=%9.2fms errors=%s%n",
+					endpoint.getDescription(), summary.get("count"), summary.get("ok"), summary.get("p50Millis"),
+					summary.get("p99Millis"), summary.get("p999Millis"), summary.get("maxMillis"), summary.get("businessErrors"));
+			
+			Files.writeString(outDir.resolve(baseName + "-" + endpoint.getKey() + ".hgrm"), endpointStats.toPercentileDistribution(), StandardCharsets.UTF_8);
+		}
+		
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("startedAt", startedAt.toString());
+		report.put("options", options);
+		report.put("offeredRatePerSecond", rate);
+		report.put("achievedRatePerSecond", Math.round(completed / measuredSeconds * 10) / 10.0);
+		report.put("droppedByClient", dropped.sum());
+		report.put("endpoints", endpoints);
+		
+		Path json = outDir.resolve(baseName + ".json");
+		objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(json.toFile(), report);
+		System.out.println("Results written to " + json.toAbsolutePath());
+	}
+	
+	private HttpRequest get(String path) {
+		return HttpRequest.newBuilder(URI.create(server.getBaseUrl() + path))
+				.timeout(Duration.ofSeconds(30))
+				.GET()
+				.build();
+	}
+	
+	private HttpRequest post(String path, Map<String, Object> body) {
+		try {
+			return HttpRequest.newBuilder(URI.create(server.getBaseUrl() + path))
+					.timeout(Duration.ofSeconds(30))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+					.build();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private JsonNode readBody(String body) {
+		try {
+			return objectMapper.readTree(body);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+	
+	//취소 대상이 될 사용 거래
+	private static class UsedTransaction {
+		private final String transactionId;
+		private final String accountNumber;
+		private final long amount;
+		
+		UsedTransaction(String transactionId, String accountNumber, long amount) {
+			this.transactionId = transactionId;
+			this.accountNumber = accountNumber;
+			this.amount = amount;
+		}
+	}
+}
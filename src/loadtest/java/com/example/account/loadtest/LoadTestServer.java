@@ -0,0 +1,127 @@
+package com.example.account.loadtest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.account.AccountApplication;
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.service.AccountReadModel;
+import com.example.account.type.AccountStatus;
+
+/*
+ 부하 대상 애플리케이션 (내장 H2 + 내장 Redis, 임의 포트), 설정은 application.yml보다 우선하도록 명령행 인자로 넘긴다
+ 계좌는 API가 아니라 repository로 직접 넣는다 (10자리 계좌번호)
+ */
+class LoadTestServer implements AutoCloseable {
+	static final int ACCOUNTS_PER_USER = 10;
+	
+	private final ConfigurableApplicationContext context;
+	private final String baseUrl;
+	private String[] accountNumbers;
+	private long[] userIds;
+	
+	LoadTestServer(int redisPort, String workDir) {
+		context = new SpringApplicationBuilder(AccountApplication.class)
+				.run(
+						"--server.port=0",
+						"--spring.redis.port=" + redisPort,
+						"--spring.sql.init.mode=never",
+						"--spring.h2.console.enabled=false",
+						"--spring.jpa.show-sql=false",
+						"--spring.jpa.properties.hibernate.show_sql=false",
+						"--spring.jpa.properties.hibernate.format_sql=false",
+						"--failed-transaction.wal-path=" + workDir + "/failed-transaction.wal",
+						"--outbox.log.path=" + workDir + "/balance-events.log",
+						"--logging.level.root=WARN",
+						"--logging.level.org.apache.catalina.loader=ERROR"); //종료 시 Redisson 스레드 경고
+		baseUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+	}
+	
+	//1000000000부터 연속된 계좌, 사용자당 10개
+	void seedSequential(int accounts, long initialBalance) {
+		List<AccountUser> users = saveUsers((accounts + ACCOUNTS_PER_USER - 1) / ACCOUNTS_PER_USER);
+		
+		accountNumbers = new String[accounts];
+		userIds = new long[accounts];
+		List<Account> batch = new ArrayList<>();
+		for(int i = 0; i < accounts; i++) {
+			AccountUser user = users.get(i / ACCOUNTS_PER_USER);
+			accountNumbers[i] = String.valueOf(1000000000L + i);
+			userIds[i] = user.getId();
+			batch.add(newAccount(user, accountNumbers[i], initialBalance));
+		}
+		saveAccounts(batch);
+	}
+	
+	//재생용: 캡처의 사용자 ID별로 사용자를 하나씩 만들고 (캡처 사용자 ID -> 새 사용자 ID) 를 돌려준다
+	Map<Long, Long> seedUsers(Map<Long, Set<String>> accountsByUser, long initialBalance) {
+		List<Long> capturedUserIds = new ArrayList<>(accountsByUser.keySet());
+		List<AccountUser> users = saveUsers(capturedUserIds.size());
+		
+		Map<Long, Long> userIdMapping = new HashMap<>();
+		List<Account> batch = new ArrayList<>();
+		for(int i = 0; i < capturedUserIds.size(); i++) {
+			AccountUser user = users.get(i);
+			userIdMapping.put(capturedUserIds.get(i), user.getId());
+			for(String accountNumber : accountsByUser.get(capturedUserIds.get(i))) {
+				batch.add(newAccount(user, accountNumber, initialBalance));
+			}
+		}
+		saveAccounts(batch);
+		return userIdMapping;
+	}
+	
+	private List<AccountUser> saveUsers(int count) {
+		List<AccountUser> users = new ArrayList<>();
+		for(int i = 0; i < count; i++) {
+			users.add(AccountUser.builder()
+					.name("load-" + i)
+					.createdAt(LocalDateTime.now())
+					.updatedAt(LocalDateTime.now())
+					.build());
+		}
+		return context.getBean(AccountUserRepository.class).saveAll(users);
+	}
+	
+	private Account newAccount(AccountUser user, String accountNumber, long initialBalance) {
+		return Account.builder()
+				.accountUser(user)
+				.accountStatus(AccountStatus.IN_USE)
+				.accountNumber(accountNumber)
+				.balance(initialBalance)
+				.registeredAt(LocalDateTime.now())
+				.build();
+	}
+	
+	private void saveAccounts(List<Account> accounts) {
+		context.getBean(AccountRepository.class).saveAll(accounts);
+		context.getBean(AccountReadModel.class).rebuild();
+	}
+	
+	String getBaseUrl() {
+		return baseUrl;
+	}
+	
+	String getAccountNumber(int index) {
+		return accountNumbers[index];
+	}
+	
+	long getUserId(int index) {
+		return userIds[index];
+	}
+	
+	@Override
+	public void close() {
+		context.close();
+	}
+}
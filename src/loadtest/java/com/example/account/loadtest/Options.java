@@ -0,0 +1,22 @@
+package com.example.account.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//--name=value 형식의 명령행 옵션
+final class Options {
+	
+	private Options() {
+	}
+	
+	static Map<String, String> parse(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for(String arg : args) {
+			if(!arg.startsWith("--") || !arg.contains("=")) {
+				throw new IllegalArgumentException("Options must look like --name=value : " + arg);
+			}
+			options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+		return options;
+	}
+}
@@ -0,0 +1,74 @@
+package com.example.account.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.SynchronizedHistogram;
+
+//재생 결과 (API 경로 패턴별): 캡처 당시와 결과가 같은지, 지연 시간 분포가 어떻게 달라졌는지
+class ReplayStats {
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.SECONDS.toMicros(120);
+	
+	private final String route;
+	private final SynchronizedHistogram capturedLatencies = new SynchronizedHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+	private final SynchronizedHistogram replayedLatencies = new SynchronizedHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+	private final LongAdder matched = new LongAdder();
+	private final LongAdder ioErrors = new LongAdder();
+	private final Map<String, LongAdder> divergences = new ConcurrentHashMap<>();
+	
+	ReplayStats(String route) {
+		this.route = route;
+	}
+	
+	void record(String capturedOutcome, String replayedOutcome, long capturedLatencyMicros, long replayedLatencyMicros) {
+		capturedLatencies.recordValue(clamp(capturedLatencyMicros));
+		replayedLatencies.recordValue(clamp(replayedLatencyMicros));
+		
+		if(capturedOutcome.equals(replayedOutcome)) {
+			matched.increment();
+		} else {
+			divergences.computeIfAbsent(capturedOutcome + " -> " + replayedOutcome, key -> new LongAdder()).increment();
+		}
+	}
+	
+	void recordIoError() {
+		ioErrors.increment();
+	}
+	
+	long getDiverged() {
+		return divergences.values().stream().mapToLong(LongAdder::sum).sum();
+	}
+	
+	Map<String, Object> toSummary() {
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("route", route);
+		summary.put("count", replayedLatencies.getTotalCount() + ioErrors.sum());
+		summary.put("matched", matched.sum());
+		summary.put("diverged", getDiverged());
+		summary.put("ioErrors", ioErrors.sum());
+		
+		Map<String, Long> divergenceCounts = new LinkedHashMap<>();
+		divergences.forEach((key, value) -> divergenceCounts.put(key, value.sum()));
+		summary.put("divergences", divergenceCounts);
+		
+		summary.put("captured", latencySummary(capturedLatencies));
+		summary.put("replayed", latencySummary(replayedLatencies));
+		return summary;
+	}
+	
+	private static Map<String, Double> latencySummary(SynchronizedHistogram histogram) {
+		Map<String, Double> summary = new LinkedHashMap<>();
+		summary.put("p50Millis", histogram.getValueAtPercentile(50) / 1000.0);
+		summary.put("p99Millis", histogram.getValueAtPercentile(99) / 1000.0);
+		summary.put("p999Millis", histogram.getValueAtPercentile(99.9) / 1000.0);
+		summary.put("maxMillis", histogram.getMaxValue() / 1000.0);
+		return summary;
+	}
+	
+	private static long clamp(long micros) {
+		return Math.min(Math.max(micros, 0), HIGHEST_TRACKABLE_MICROS);
+	}
+}
@@ -0,0 +1,311 @@
+package com.example.account.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.example.account.capture.TrafficLog;
+import com.example.account.capture.TrafficOutcome;
+import com.example.account.capture.TrafficPaths;
+import com.example.account.capture.TrafficRecord;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/*
+ 캡처 재생 (./gradlew replayTraffic -PreplayTraffic.args="--log=data/capture/traffic-xxx.tlog --speed=4")
+ 1. 캡처에 나온 사용자/계좌로 로컬 애플리케이션(내장 H2/Redis)을 채운다
+ 2. 캡처의 상대 시각 / speed 에 맞춰 같은 순서로 요청을 보낸다 (응답을 기다리지 않음)
+ 3. 사용자 ID, 재생 중 새로 생긴 transactionId/계좌번호는 캡처 값 -> 재생 값으로 바꿔서 보낸다 (본문과 경로 모두)
+ 4. API별로 캡처 당시와 결과(errorCode/결과 타입)가 다른 건수, 지연 시간 분포 차이를 보고한다
+
+ 옵션 (기본값)
+ --log=<필수> --speed=1 --initial-balance=1000000000 --redis-port=16382 --out=build/reports/replay
+ */
+public class TrafficReplay {
+	private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+	private static final Pattern USER_ID_QUERY = Pattern.compile("user_id=(\\d+)");
+	private static final Pattern ACCOUNT_ID_PATH = Pattern.compile("/account/\\d+");
+	private static final long UNKNOWN_OWNER = -1L; //사용자 없이 계좌번호만 나온 경우 (취소 요청 등)
+	
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+	private final HttpClient httpClient = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+	
+	private final String baseUrl;
+	private final Map<Long, Long> userIds;
+	private final Map<String, String> transactionIds = new ConcurrentHashMap<>();
+	private final Map<String, String> accountNumbers = new ConcurrentHashMap<>();
+	private final Map<String, ReplayStats> stats = new ConcurrentHashMap<>();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final LongAdder unmappedIds = new LongAdder();
+	
+	TrafficReplay(String baseUrl, Map<Long, Long> userIds) {
+		this.baseUrl = baseUrl;
+		this.userIds = userIds;
+	}
+	
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = Options.parse(args);
+		if(!options.containsKey("log")) {
+			throw new IllegalArgumentException("--log=<capture file> is required");
+		}
+		Path logPath = Paths.get(options.get("log"));
+		double speed = Double.parseDouble(options.getOrDefault("speed", "1"));
+		long initialBalance = Long.parseLong(options.getOrDefault("initial-balance", "1000000000"));
+		int redisPort = Integer.parseInt(options.getOrDefault("redis-port", "16382"));
+		Path outDir = Paths.get(options.getOrDefault("out", "build/reports/replay"));
+		
+		List<TrafficRecord> records = TrafficLog.readAll(logPath);
+		System.out.printf("Replaying %d requests from %s at %.1fx%n", records.size(), logPath, speed);
+		
+		LocalDateTime startedAt = LocalDateTime.now();
+		Files.createDirectories(outDir);
+		
+		try (LoadTestServer server = new LoadTestServer(redisPort, outDir.toString())) {
+			Map<Long, Long> userIds = server.seedUsers(accountsByUser(records), initialBalance);
+			
+			TrafficReplay replay = new TrafficReplay(server.getBaseUrl(), userIds);
+			replay.run(records, speed);
+			replay.report(outDir, startedAt, options, records.size());
+		}
+	}
+	
+	//캡처 전에 이미 있던 계좌를 사용자별로 모은다 (캡처 중에 생성된 계좌는 재생 중에 다시 생성된다)
+	static Map<Long, Set<String>> accountsByUser(List<TrafficRecord> records) {
+		Map<Long, Set<String>> accountsByUser = new TreeMap<>();
+		Set<String> createdAccounts = new HashSet<>();
+		
+		for(TrafficRecord record : records) {
+			JsonNode body = readJson(record.getRequestBody());
+			Long userId = userIdOf(record.getPath(), body);
+			if(userId != null) {
+				accountsByUser.computeIfAbsent(userId, key -> new HashSet<>());
+			}
+			
+			if(isCreateAccount(record)) {
+				createdAccounts.add(record.getResponseId());
+			} else if(body != null && body.hasNonNull("accountNumber")) {
+				String accountNumber = body.get("accountNumber").asText();
+				accountsByUser.computeIfAbsent(userId == null ? UNKNOWN_OWNER : userId, key -> new HashSet<>()).add(accountNumber);
+			}
+			
+			//경로에 계좌번호만 나오는 조회
+			for(String accountNumber : TrafficPaths.accountNumbersOf(record.getPath())) {
+				accountsByUser.computeIfAbsent(userId == null ? UNKNOWN_OWNER : userId, key -> new HashSet<>()).add(accountNumber);
+			}
+		}
+		
+		//다른 사용자 아래에도 나온 계좌는 주인이 없는 목록에서 뺀다
+		Set<String> owned = new HashSet<>();
+		accountsByUser.forEach((userId, accounts) -> {
+			if(userId != UNKNOWN_OWNER) {
+				owned.addAll(accounts);
+			}
+		});
+		if(accountsByUser.containsKey(UNKNOWN_OWNER)) {
+			accountsByUser.get(UNKNOWN_OWNER).removeAll(owned);
+		}
+		accountsByUser.values().forEach(accounts -> accounts.removeAll(createdAccounts));
+		return accountsByUser;
+	}
+	
+	void run(List<TrafficRecord> records, double speed) throws InterruptedException {
+		long start = System.nanoTime();
+		
+		for(TrafficRecord record : records) {
+			long intendedNanos = start + (long) (TimeUnit.MICROSECONDS.toNanos(record.getOffsetMicros()) / speed);
+			long wait = intendedNanos - System.nanoTime();
+			if(wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			send(record, intendedNanos);
+		}
+		
+		long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+		while(inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+			Thread.sleep(100);
+		}
+	}
+	
+	private void send(TrafficRecord record, long intendedNanos) {
+		ReplayStats routeStats = stats.computeIfAbsent(route(record), ReplayStats::new);
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + rewritePath(record.getPath())))
+				.timeout(Duration.ofSeconds(30));
+		
+		String body = rewriteBody(record.getRequestBody());
+		if(body.isEmpty()) {
+			builder.method(record.getMethod(), HttpRequest.BodyPublishers.noBody());
+		} else {
+			builder.header("Content-Type", "application/json")
+					.method(record.getMethod(), HttpRequest.BodyPublishers.ofString(body));
+		}
+		
+		inFlight.incrementAndGet();
+		httpClient.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofString())
+				.whenComplete((response, error) -> {
+					try {
+						if(error != null) {
+							routeStats.recordIoError();
+							return;
+						}
+						
+						JsonNode responseBody = readJson(response.body());
+						long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedNanos);
+						String outcome = response.statusCode() == 200 ? TrafficOutcome.of(responseBody) : "HTTP_" + response.statusCode();
+						routeStats.record(record.getOutcome(), outcome, record.getLatencyMicros(), latencyMicros);
+						rememberId(record, TrafficOutcome.responseId(responseBody));
+					} finally {
+						inFlight.decrementAndGet();
+					}
+				});
+	}
+	
+	//캡처 때 받은 ID -> 재생에서 받은 ID
+	private void rememberId(TrafficRecord record, String replayedId) {
+		if(record.getResponseId().isEmpty() || replayedId.isEmpty()) {
+			return;
+		}
+		if(isCreateAccount(record)) {
+			accountNumbers.put(record.getResponseId(), replayedId);
+		} else if(record.getPath().startsWith("/transaction/use") || record.getPath().startsWith("/transaction/cancel")) {
+			transactionIds.put(record.getResponseId(), replayedId);
+		}
+	}
+	
+	private String rewritePath(String path) {
+		Matcher matcher = USER_ID_QUERY.matcher(path);
+		if(matcher.find()) {
+			path = matcher.replaceFirst("user_id=" + mapUserId(Long.parseLong(matcher.group(1))));
+		}
+		
+		if(path.startsWith("/transaction/") && !isTransactionCommand(path)) {
+			path = "/transaction/" + mapTransactionId(path.substring("/transaction/".length()));
+		}
+		return TrafficPaths.replaceAccountNumbers(path, accountNumber -> accountNumbers.getOrDefault(accountNumber, accountNumber));
+	}
+	
+	private String rewriteBody(String requestBody) {
+		JsonNode body = readJson(requestBody);
+		if(!(body instanceof ObjectNode)) {
+			return requestBody;
+		}
+		
+		ObjectNode node = (ObjectNode) body;
+		if(node.hasNonNull("userId")) {
+			node.put("userId", mapUserId(node.get("userId").asLong()));
+		}
+		if(node.hasNonNull("transactionId")) {
+			node.put("transactionId", mapTransactionId(node.get("transactionId").asText()));
+		}
+		if(node.hasNonNull("accountNumber")) {
+			String accountNumber = node.get("accountNumber").asText();
+			node.put("accountNumber", accountNumbers.getOrDefault(accountNumber, accountNumber));
+		}
+		return node.toString();
+	}
+	
+	private long mapUserId(long capturedUserId) {
+		return userIds.getOrDefault(capturedUserId, capturedUserId);
+	}
+	
+	//재생에서 아직 응답을 못 받은 거래는 캡처 ID 그대로 보낸다 (보통 TRANSACTION_NOT_FOUND로 어긋남에 잡힌다)
+	private String mapTransactionId(String capturedTransactionId) {
+		String replayed = transactionIds.get(capturedTransactionId);
+		if(replayed == null) {
+			unmappedIds.increment();
+			return capturedTransactionId;
+		}
+		return replayed;
+	}
+	
+	private void report(Path outDir, LocalDateTime startedAt, Map<String, String> options, int records) throws IOException {
+		Map<String, Object> routes = new TreeMap<>();
+		long diverged = 0;
+		for(ReplayStats routeStats : stats.values()) {
+			Map<String, Object> summary = routeStats.toSummary();
+			routes.put((String) summary.get("route"), summary);
+			diverged += routeStats.getDiverged();
+			System.out.printf("%-36s count=%7d matched=%7d diverged=%6d captured p99=%9.2fms replayed p99=%9.2fms %s%n",
+					summary.get("route"), summary.get("count"), summary.get("matched"), summary.get("diverged"),
+					((Map<?, ?>) summary.get("captured")).get("p99Millis"), ((Map<?, ?>) summary.get("replayed")).get("p99Millis"),
+					summary.get("divergences"));
+		}
+		
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("startedAt", startedAt.toString());
+		report.put("options", options);
+		report.put("records", records);
+		report.put("diverged", diverged);
+		report.put("unmappedIds", unmappedIds.sum());
+		report.put("routes", routes);
+		
+		Path json = outDir.resolve("replay-" + startedAt.format(FILE_TIMESTAMP) + ".json");
+		OBJECT_MAPPER.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(json.toFile(), report);
+		System.out.println("Results written to " + json.toAbsolutePath());
+	}
+	
+	//경로의 ID를 지운 API 단위
+	private static String route(TrafficRecord record) {
+		String uri = record.getPath().contains("?") ? record.getPath().substring(0, record.getPath().indexOf('?')) : record.getPath();
+		if(uri.startsWith("/transaction/") && !isTransactionCommand(uri)) {
+			uri = "/transaction/{transactionId}";
+		} else if(ACCOUNT_ID_PATH.matcher(uri).matches()) {
+			uri = "/account/{id}";
+		}
+		return record.getMethod() + " " + TrafficPaths.replaceAccountNumbers(uri, accountNumber -> "{accountNumber}");
+	}
+	
+	//거래 ID가 아닌 고정 경로
+	private static boolean isTransactionCommand(String path) {
+		return path.startsWith("/transaction/use") || path.startsWith("/transaction/cancel")
+				|| path.startsWith("/transaction/summary")
+				|| path.startsWith("/transaction/reserve") || path.startsWith("/transaction/capture") || path.startsWith("/transaction/release");
+	}
+	
+	private static boolean isCreateAccount(TrafficRecord record) {
+		return "POST".equals(record.getMethod()) && record.getPath().equals("/account");
+	}
+	
+	private static Long userIdOf(String path, JsonNode body) {
+		if(body != null && body.hasNonNull("userId")) {
+			return body.get("userId").asLong();
+		}
+		Matcher matcher = USER_ID_QUERY.matcher(path);
+		return matcher.find() ? Long.parseLong(matcher.group(1)) : null;
+	}
+	
+	private static JsonNode readJson(String content) {
+		if(content == null || content.isEmpty()) {
+			return null;
+		}
+		try {
+			return OBJECT_MAPPER.readTree(content);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+}
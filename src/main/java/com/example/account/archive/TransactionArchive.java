@@ -0,0 +1,116 @@
+package com.example.account.archive;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.account.dto.TransactionDTO;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 보관된 거래 조회
+ - archive.dir 아래의 세그먼트(*.seg) index를 시작 시 모두 읽어 둔다
+ - 최신 세그먼트부터 찾는다, 같은 거래가 두 세그먼트에 있으면 (보관 후 삭제 전에 죽은 경우) 한 건만 돌려준다
+ */
+@Slf4j
+@Component
+public class TransactionArchive {
+	private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+
+	@Value("${archive.dir:./data/archive}")
+	private String dir;
+
+	@Value("${archive.block-records:512}")
+	private int blockRecords;
+
+	private final List<TransactionSegment> segments = new CopyOnWriteArrayList<>(); //최신 세그먼트가 앞
+
+	@PostConstruct
+	public void load() throws IOException {
+		Path directory = Paths.get(dir);
+		if(!Files.isDirectory(directory)) {
+			return;
+		}
+
+		List<Path> paths;
+		try (Stream<Path> files = Files.list(directory)) {
+			paths = files.filter(path -> path.getFileName().toString().endsWith(".seg")).sorted().collect(Collectors.toList());
+		}
+
+		for(Path path : paths) {
+			try {
+				segments.add(0, TransactionSegment.open(path));
+			} catch (IOException e) {
+				log.error("Skip unreadable transaction segment {}", path, e);
+			}
+		}
+		log.info("Loaded {} transaction segments from {}", segments.size(), directory);
+	}
+
+	//새 세그먼트로 쓴다, 반환된 뒤에는 디스크에 남아 있다
+	public synchronized TransactionSegment append(List<TransactionDTO> transactions) throws IOException {
+		Path directory = Paths.get(dir);
+		Files.createDirectories(directory);
+
+		String name = "transactions-" + LocalDateTime.now().format(FILE_TIME);
+		Path path = directory.resolve(name + ".seg");
+		for(int suffix = 1; Files.exists(path); suffix++) {
+			path = directory.resolve(name + "-" + suffix + ".seg");
+		}
+
+		TransactionSegment segment = TransactionSegment.write(path, transactions, blockRecords);
+		segments.add(0, segment);
+		return segment;
+	}
+
+	public Optional<TransactionDTO> findByTransactionId(String transactionId) {
+		for(TransactionSegment segment : segments) {
+			try {
+				Optional<TransactionDTO> found = segment.findByTransactionId(transactionId);
+				if(found.isPresent()) {
+					return found;
+				}
+			} catch (IOException e) {
+				log.error("Failed to read transaction segment {}", segment.getPath(), e);
+			}
+		}
+		return Optional.empty();
+	}
+
+	//거래 시각 순
+	public List<TransactionDTO> findByAccountNumber(String accountNumber) {
+		Map<String, TransactionDTO> found = new LinkedHashMap<>();
+		for(TransactionSegment segment : segments) {
+			try {
+				segment.findByAccountNumber(accountNumber).forEach(transaction -> found.putIfAbsent(transaction.getTransactionId(), transaction));
+			} catch (IOException e) {
+				log.error("Failed to read transaction segment {}", segment.getPath(), e);
+			}
+		}
+
+		List<TransactionDTO> transactions = new ArrayList<>(found.values());
+		transactions.sort((a, b) -> a.getTransactedAt().compareTo(b.getTransactedAt()));
+		return transactions;
+	}
+
+	public int getSegmentCount() {
+		return segments.size();
+	}
+}
@@ -0,0 +1,94 @@
+package com.example.account.archive;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDTO;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardExecutor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 오래된 거래 보관
+ 1. transactedAt이 max-age-days보다 오래된 거래를 id 순서로 segment-records 건씩 읽는다
+ 2. 세그먼트 파일로 쓰고 (fsync 후 이름 변경)
+ 3. 그 다음에 hot 테이블에서 지운다, 지우기 전에 죽으면 다음 실행에서 다시 보관된다 (조회 시 중복 제거)
+ - 1년이 지난 거래는 취소할 수 없으므로 max-age-days는 365일 이상이어야 한다 (보관된 거래는 취소 대상이 아님)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionArchiver {
+	static final long MIN_AGE_DAYS = 365;
+
+	private final TransactionRepository transactionRepository;
+	private final TransactionArchive transactionArchive;
+	private final ShardExecutor shardExecutor;
+
+	@Value("${archive.enabled:true}")
+	private boolean enabled;
+
+	@Value("${archive.max-age-days:365}")
+	private long maxAgeDays;
+
+	@Value("${archive.segment-records:10000}")
+	private int segmentRecords;
+
+	@PostConstruct
+	public void validate() {
+		if(maxAgeDays < MIN_AGE_DAYS) {
+			throw new IllegalStateException("archive.max-age-days must be at least " + MIN_AGE_DAYS + " (cancellable transactions must stay in the hot table)");
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${archive.interval-millis:3600000}", initialDelayString = "${archive.interval-millis:3600000}")
+	public void archive() {
+		if(!enabled) {
+			return;
+		}
+
+		LocalDateTime cutoff = LocalDateTime.now().minusDays(maxAgeDays);
+		shardExecutor.forEachShard(shard -> {
+			int archived = 0;
+			int segment;
+			do {
+				segment = archiveSegment(cutoff);
+				archived += segment;
+			} while(segment == segmentRecords);
+
+			if(archived > 0) {
+				log.info("Archived {} transactions older than {} on shard {}", archived, cutoff, shard);
+			}
+		});
+	}
+
+	//보관한 거래 수를 반환, 세그먼트를 쓰지 못하면 지우지 않고 0
+	int archiveSegment(LocalDateTime cutoff) {
+		List<Transaction> transactions = transactionRepository.findByTransactedAtBeforeOrderByIdAsc(cutoff, PageRequest.of(0, segmentRecords));
+		if(transactions.isEmpty()) {
+			return 0;
+		}
+
+		try {
+			transactionArchive.append(transactions.stream().map(TransactionDTO::fromEntity).collect(Collectors.toList()));
+		} catch (IOException e) {
+			log.error("Failed to write transaction segment, keeping {} transactions in the table", transactions.size(), e);
+			return 0;
+		}
+
+		transactionRepository.deleteAllByIdInBatch(transactions.stream().map(Transaction::getId).collect(Collectors.toList()));
+		return transactions.size();
+	}
+}
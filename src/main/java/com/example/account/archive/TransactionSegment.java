@@ -0,0 +1,324 @@
+package com.example.account.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.example.account.dto.TransactionDTO;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+import lombok.Getter;
+
+/*
+ 보관 세그먼트 파일 형식 (한 번 쓰면 바꾸지 않는다)
+ block  : gzip(record * blockRecords), 거래는 계좌번호, 거래 시각 순으로 정렬
+ record : transactionId(UTF) | accountNumber(UTF) | transactionType(UTF) | resultType(UTF)
+          | amount(long) | balanceSnapshot(long) | transactedAt(epoch second long, nano int, UTC)
+ index  : magic(int "ACTS") | version(byte) | records(int) | 최소/최대 transactedAt | blocks(int)
+          | block마다 offset(long) | length(int) | 첫/마지막 계좌번호(UTF) | transactionId bloom filter(long[BLOOM_WORDS])
+ footer : index offset(long)
+ - 계좌번호는 block의 첫/마지막 값만 두는 sparse index, transactionId는 block마다 bloom filter로 읽을 block을 고른다
+ - index만 메모리에 두고 record는 필요한 block만 풀어서 읽는다
+ */
+public final class TransactionSegment {
+	static final int MAGIC = 0x41435453;
+	static final byte VERSION = 1;
+	static final int BLOOM_WORDS = 128; //block당 8192 bit
+	private static final int BLOOM_HASHES = 4;
+
+	@Getter
+	private final Path path;
+	@Getter
+	private final int records;
+	@Getter
+	private final LocalDateTime minTransactedAt;
+	@Getter
+	private final LocalDateTime maxTransactedAt;
+	private final List<Block> blocks;
+
+	private TransactionSegment(Path path, int records, LocalDateTime minTransactedAt, LocalDateTime maxTransactedAt, List<Block> blocks) {
+		this.path = path;
+		this.records = records;
+		this.minTransactedAt = minTransactedAt;
+		this.maxTransactedAt = maxTransactedAt;
+		this.blocks = blocks;
+	}
+
+	//임시 파일에 쓰고 fsync 한 뒤 이름을 바꾼다 (반쯤 쓰인 세그먼트가 보이지 않도록)
+	public static TransactionSegment write(Path path, List<TransactionDTO> transactions, int blockRecords) throws IOException {
+		List<TransactionDTO> sorted = new ArrayList<>(transactions);
+		sorted.sort(Comparator.comparing(TransactionDTO::getAccountNumber).thenComparing(TransactionDTO::getTransactedAt));
+
+		List<Block> blocks = new ArrayList<>();
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			long offset = 0;
+			for(int from = 0; from < sorted.size(); from += blockRecords) {
+				List<TransactionDTO> blockTransactions = sorted.subList(from, Math.min(from + blockRecords, sorted.size()));
+				byte[] compressed = compress(blockTransactions);
+				writeFully(channel, ByteBuffer.wrap(compressed));
+
+				long[] bloom = new long[BLOOM_WORDS];
+				blockTransactions.forEach(transaction -> addToBloom(bloom, transaction.getTransactionId()));
+				blocks.add(new Block(offset, compressed.length,
+						blockTransactions.get(0).getAccountNumber(), blockTransactions.get(blockTransactions.size() - 1).getAccountNumber(), bloom));
+				offset += compressed.length;
+			}
+
+			LocalDateTime min = sorted.stream().map(TransactionDTO::getTransactedAt).min(Comparator.naturalOrder()).orElse(LocalDateTime.MIN);
+			LocalDateTime max = sorted.stream().map(TransactionDTO::getTransactedAt).max(Comparator.naturalOrder()).orElse(LocalDateTime.MIN);
+			writeFully(channel, ByteBuffer.wrap(index(sorted.size(), min, max, blocks)));
+			writeFully(channel, ByteBuffer.allocate(Long.BYTES).putLong(offset).flip());
+			channel.force(true);
+
+			Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+			return new TransactionSegment(path, sorted.size(), min, max, blocks);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	//index만 읽는다
+	public static TransactionSegment open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			ByteBuffer footer = readFully(channel, size - Long.BYTES, Long.BYTES);
+			long indexOffset = footer.getLong();
+			if(indexOffset < 0 || indexOffset > size - Long.BYTES) {
+				throw new IOException("Corrupt segment footer : " + path);
+			}
+
+			ByteBuffer indexBuffer = readFully(channel, indexOffset, (int) (size - Long.BYTES - indexOffset));
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(indexBuffer.array()));
+			if(in.readInt() != MAGIC) {
+				throw new IOException("Not a transaction segment : " + path);
+			}
+			byte version = in.readByte();
+			if(version != VERSION) {
+				throw new IOException("Unsupported segment version " + version + " : " + path);
+			}
+
+			int records = in.readInt();
+			LocalDateTime min = readDateTime(in);
+			LocalDateTime max = readDateTime(in);
+			int blockCount = in.readInt();
+			List<Block> blocks = new ArrayList<>(blockCount);
+			for(int i = 0; i < blockCount; i++) {
+				long offset = in.readLong();
+				int length = in.readInt();
+				String firstAccountNumber = in.readUTF();
+				String lastAccountNumber = in.readUTF();
+				long[] bloom = new long[BLOOM_WORDS];
+				for(int word = 0; word < BLOOM_WORDS; word++) {
+					bloom[word] = in.readLong();
+				}
+				blocks.add(new Block(offset, length, firstAccountNumber, lastAccountNumber, bloom));
+			}
+			return new TransactionSegment(path, records, min, max, blocks);
+		}
+	}
+
+	//bloom filter에 걸린 block만 풀어서 찾는다
+	public Optional<TransactionDTO> findByTransactionId(String transactionId) throws IOException {
+		for(Block block : blocks) {
+			if(!mightContain(block.bloom, transactionId)) {
+				continue;
+			}
+			for(TransactionDTO transaction : readBlock(block)) {
+				if(transaction.getTransactionId().equals(transactionId)) {
+					return Optional.of(transaction);
+				}
+			}
+		}
+		return Optional.empty();
+	}
+
+	//계좌번호 범위가 겹치는 block만 읽는다 (block은 계좌번호 순이라 처음 겹친 block부터 연속)
+	public List<TransactionDTO> findByAccountNumber(String accountNumber) throws IOException {
+		List<TransactionDTO> found = new ArrayList<>();
+		for(int i = firstBlockFor(accountNumber); i < blocks.size(); i++) {
+			Block block = blocks.get(i);
+			if(block.firstAccountNumber.compareTo(accountNumber) > 0) {
+				break;
+			}
+			for(TransactionDTO transaction : readBlock(block)) {
+				if(transaction.getAccountNumber().equals(accountNumber)) {
+					found.add(transaction);
+				}
+			}
+		}
+		return found;
+	}
+
+	public int getBlockCount() {
+		return blocks.size();
+	}
+
+	//마지막 계좌번호가 accountNumber 이상인 첫 block (binary search)
+	private int firstBlockFor(String accountNumber) {
+		int low = 0;
+		int high = blocks.size();
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			if(blocks.get(mid).lastAccountNumber.compareTo(accountNumber) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private List<TransactionDTO> readBlock(Block block) throws IOException {
+		ByteBuffer compressed;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			compressed = readFully(channel, block.offset, block.length);
+		}
+
+		List<TransactionDTO> transactions = new ArrayList<>();
+		try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(compressed.array())))) {
+			int count = in.readInt();
+			for(int i = 0; i < count; i++) {
+				transactions.add(TransactionDTO.builder()
+						.transactionId(in.readUTF())
+						.accountNumber(in.readUTF())
+						.transactionType(TransactionType.valueOf(in.readUTF()))
+						.transactionResultType(TransactionResultType.valueOf(in.readUTF()))
+						.amount(in.readLong())
+						.balanceSnapshot(in.readLong())
+						.transactedAt(readDateTime(in))
+						.build());
+			}
+		}
+		return transactions;
+	}
+
+	private static byte[] compress(List<TransactionDTO> transactions) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+			out.writeInt(transactions.size());
+			for(TransactionDTO transaction : transactions) {
+				out.writeUTF(transaction.getTransactionId());
+				out.writeUTF(transaction.getAccountNumber());
+				out.writeUTF(transaction.getTransactionType().name());
+				out.writeUTF(transaction.getTransactionResultType().name());
+				out.writeLong(transaction.getAmount());
+				out.writeLong(transaction.getBalanceSnapshot());
+				writeDateTime(out, transaction.getTransactedAt());
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private static byte[] index(int records, LocalDateTime min, LocalDateTime max, List<Block> blocks) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeInt(records);
+			writeDateTime(out, min);
+			writeDateTime(out, max);
+			out.writeInt(blocks.size());
+			for(Block block : blocks) {
+				out.writeLong(block.offset);
+				out.writeInt(block.length);
+				out.writeUTF(block.firstAccountNumber);
+				out.writeUTF(block.lastAccountNumber);
+				for(long word : block.bloom) {
+					out.writeLong(word);
+				}
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void writeDateTime(DataOutputStream out, LocalDateTime dateTime) throws IOException {
+		out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+		out.writeInt(dateTime.getNano());
+	}
+
+	private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+		return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+	}
+
+	//double hashing으로 BLOOM_HASHES개의 bit
+	private static void addToBloom(long[] bloom, String transactionId) {
+		int h1 = transactionId.hashCode();
+		int h2 = mix(h1);
+		for(int i = 0; i < BLOOM_HASHES; i++) {
+			int bit = Math.floorMod(h1 + i * h2, BLOOM_WORDS * Long.SIZE);
+			bloom[bit >>> 6] |= 1L << bit;
+		}
+	}
+
+	private static boolean mightContain(long[] bloom, String transactionId) {
+		int h1 = transactionId.hashCode();
+		int h2 = mix(h1);
+		for(int i = 0; i < BLOOM_HASHES; i++) {
+			int bit = Math.floorMod(h1 + i * h2, BLOOM_WORDS * Long.SIZE);
+			if((bloom[bit >>> 6] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int mix(int hash) {
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		hash *= 0xc2b2ae35;
+		hash ^= hash >>> 16;
+		return hash | 1;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while(buffer.hasRemaining()) {
+			if(channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of segment");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	private static class Block {
+		private final long offset;
+		private final int length;
+		private final String firstAccountNumber;
+		private final String lastAccountNumber;
+		private final long[] bloom;
+
+		Block(long offset, int length, String firstAccountNumber, String lastAccountNumber, long[] bloom) {
+			this.offset = offset;
+			this.length = length;
+			this.firstAccountNumber = firstAccountNumber;
+			this.lastAccountNumber = lastAccountNumber;
+			this.bloom = bloom;
+		}
+	}
+}
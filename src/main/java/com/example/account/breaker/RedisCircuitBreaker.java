@@ -0,0 +1,107 @@
+package com.example.account.breaker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 계좌 lock용 레디스 호출의 circuit breaker (LockService)
+ - fencing token 발급은 따로 만든 breaker를 쓴다 (FencingTokenIssuer, 발급 실패가 lock을 fallback으로 돌리지 않게)
+ - CLOSED : 그대로 호출, failure-threshold번 연달아 실패하면 OPEN
+ - OPEN : open-millis 동안 호출하지 않는다 (요청이 레디스 timeout을 기다리지 않고 바로 fallback)
+ - HALF_OPEN : open-millis가 지나면 요청 하나만 레디스를 불러 본다(probe), 성공하면 CLOSED, 실패하면 다시 OPEN
+   (probe를 보낸 요청이 결과를 알리지 못한 채 끝나도 open-millis 뒤에는 다음 probe를 보낸다)
+ */
+@Slf4j
+@Component
+public class RedisCircuitBreaker {
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	@Value("${account-lock.breaker.failure-threshold:5}")
+	private int failureThreshold;
+
+	@Value("${account-lock.breaker.open-millis:5000}")
+	private long openMillis;
+
+	private final String name; //로그에 남기는 이름
+
+	LongSupplier clock = System::currentTimeMillis; //테스트에서 시각을 바꿀 수 있게
+
+	private final AtomicReference<Snapshot> current = new AtomicReference<>(new Snapshot(State.CLOSED, 0L));
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+	public RedisCircuitBreaker() {
+		this.name = "Redis lock";
+	}
+
+	//빈과 상태를 따로 두는 breaker
+	public RedisCircuitBreaker(String name, int failureThreshold, long openMillis) {
+		this.name = name;
+		this.failureThreshold = failureThreshold;
+		this.openMillis = openMillis;
+	}
+
+	//false 이면 레디스를 부르지 말고 fallback
+	public boolean tryAcquirePermission() {
+		Snapshot snapshot = current.get();
+		if(snapshot.state == State.CLOSED) {
+			return true;
+		}
+		if(clock.getAsLong() - snapshot.since < openMillis) {
+			return false; //OPEN이거나 probe가 진행 중
+		}
+		//이 요청이 probe, 동시에 온 다른 요청은 계속 fallback
+		return transition(snapshot, State.HALF_OPEN);
+	}
+
+	public void onSuccess() {
+		consecutiveFailures.set(0);
+		Snapshot snapshot = current.get();
+		if(snapshot.state != State.CLOSED && transition(snapshot, State.CLOSED)) {
+			log.info("{} circuit closed", name);
+		}
+	}
+
+	public void onFailure() {
+		Snapshot snapshot = current.get();
+		if(snapshot.state == State.HALF_OPEN) {
+			if(transition(snapshot, State.OPEN)) {
+				log.warn("{} probe failed, circuit stays open for {}ms", name, openMillis);
+			}
+		} else if(snapshot.state == State.CLOSED && consecutiveFailures.incrementAndGet() >= failureThreshold && transition(snapshot, State.OPEN)) {
+			log.error("{} circuit opened after {} consecutive failures, using fallback for {}ms", name, failureThreshold, openMillis);
+		}
+	}
+
+	public State getState() {
+		return current.get().state;
+	}
+
+	//상태와 바뀐 시각을 함께 바꾼다 (다른 요청이 먼저 바꿨으면 false)
+	private boolean transition(Snapshot from, State to) {
+		if(!current.compareAndSet(from, new Snapshot(to, clock.getAsLong()))) {
+			return false;
+		}
+		if(to == State.CLOSED) {
+			consecutiveFailures.set(0);
+		}
+		return true;
+	}
+
+	private static final class Snapshot {
+		private final State state;
+		private final long since;
+
+		private Snapshot(State state, long since) {
+			this.state = state;
+			this.since = since;
+		}
+	}
+}
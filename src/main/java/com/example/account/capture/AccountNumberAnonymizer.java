@@ -0,0 +1,37 @@
+package com.example.account.capture;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//계좌번호 익명화, 같은 계좌는 항상 같은 10자리 번호로 바뀌므로 계좌별 쏠림(경합 패턴)은 그대로 남는다
+class AccountNumberAnonymizer {
+	private final byte[] salt;
+	private final Map<String, String> cache = new ConcurrentHashMap<>();
+	
+	AccountNumberAnonymizer(String salt) {
+		this.salt = salt.getBytes(StandardCharsets.UTF_8);
+	}
+	
+	String anonymize(String accountNumber) {
+		return cache.computeIfAbsent(accountNumber, this::hash);
+	}
+	
+	private String hash(String accountNumber) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(salt);
+			byte[] hashed = digest.digest(accountNumber.getBytes(StandardCharsets.UTF_8));
+			
+			long value = 0;
+			for(int i = 0; i < 8; i++) {
+				value = (value << 8) | (hashed[i] & 0xff);
+			}
+			return String.valueOf(1_000_000_000L + Math.floorMod(value, 9_000_000_000L)); //10자리 유지
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package com.example.account.capture;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 계좌/거래 API 요청 캡처 (traffic-capture.enabled=true 일 때만 등록)
+ 1. 요청(메서드, 경로, 본문)과 상대 시각, 당시 결과(errorCode/결과 타입)와 지연 시간을 기록한다
+ 2. anonymize=true 이면 요청 본문, 경로(TrafficPaths)와 응답 ID의 계좌번호를 익명화한다
+ 3. 재생 도구(loadtest의 TrafficReplay)가 같은 순서/간격으로 다시 보낸다
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "traffic-capture.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class TrafficCaptureFilter extends OncePerRequestFilter {
+	private final TrafficCaptureWriter trafficCaptureWriter;
+	private final ObjectMapper objectMapper;
+	
+	@Value("${traffic-capture.anonymize:false}")
+	private boolean anonymize;
+	
+	@Value("${traffic-capture.anonymize-salt:}")
+	private String anonymizeSalt;
+	
+	private AccountNumberAnonymizer anonymizer;
+	
+	@PostConstruct
+	public void init() {
+		//salt를 주지 않으면 실행마다 달라진다 (같은 캡처 안에서는 일관됨)
+		anonymizer = new AccountNumberAnonymizer(anonymizeSalt.isEmpty() ? UUID.randomUUID().toString() : anonymizeSalt);
+	}
+	
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		String uri = request.getRequestURI();
+		return !(uri.startsWith("/account") || uri.startsWith("/transaction")) || uri.endsWith("/stream");
+	}
+	
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+		ContentCachingRequestWrapper requestWrapper = new ContentCachingRequestWrapper(request);
+		ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+		long start = System.nanoTime();
+		
+		try {
+			filterChain.doFilter(requestWrapper, responseWrapper);
+		} finally {
+			long latencyNanos = System.nanoTime() - start;
+			try {
+				trafficCaptureWriter.enqueue(toRecord(requestWrapper, responseWrapper, start, latencyNanos));
+			} catch (RuntimeException e) {
+				log.warn("Failed to capture request {} {}", request.getMethod(), request.getRequestURI(), e);
+			}
+			responseWrapper.copyBodyToResponse();
+		}
+	}
+	
+	private TrafficRecord toRecord(ContentCachingRequestWrapper request, ContentCachingResponseWrapper response, long startNanos, long latencyNanos) {
+		String path = request.getQueryString() == null ? request.getRequestURI() : request.getRequestURI() + "?" + request.getQueryString();
+		String requestBody = new String(request.getContentAsByteArray(), StandardCharsets.UTF_8);
+		JsonNode responseBody = readJson(response.getContentAsByteArray());
+		
+		String responseId = TrafficOutcome.responseId(responseBody);
+		if(TrafficOutcome.isAccountNumberId(responseBody)) {
+			responseId = anonymizeAccountNumber(responseId);
+		}
+		
+		return TrafficRecord.builder()
+				.offsetMicros(trafficCaptureWriter.offsetMicros(startNanos))
+				.method(request.getMethod())
+				.path(anonymize ? TrafficPaths.replaceAccountNumbers(path, anonymizer::anonymize) : path)
+				.requestBody(anonymize ? anonymizeBody(requestBody) : requestBody)
+				.status(response.getStatus())
+				.outcome(TrafficOutcome.of(responseBody))
+				.responseId(responseId)
+				.latencyMicros(latencyNanos / 1_000L)
+				.build();
+	}
+	
+	private String anonymizeBody(String requestBody) {
+		JsonNode body = readJson(requestBody.getBytes(StandardCharsets.UTF_8));
+		if(!(body instanceof ObjectNode) || !body.hasNonNull("accountNumber")) {
+			return requestBody;
+		}
+		
+		((ObjectNode) body).put("accountNumber", anonymizer.anonymize(body.get("accountNumber").asText()));
+		return body.toString();
+	}
+	
+	private String anonymizeAccountNumber(String accountNumber) {
+		return anonymize ? anonymizer.anonymize(accountNumber) : accountNumber;
+	}
+	
+	private JsonNode readJson(byte[] content) {
+		if(content.length == 0) {
+			return null;
+		}
+		try {
+			return objectMapper.readTree(content);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+}
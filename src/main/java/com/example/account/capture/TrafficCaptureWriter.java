@@ -0,0 +1,106 @@
+package com.example.account.capture;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 캡처 레코드를 파일에 쓰는 백그라운드 스레드
+ 요청 스레드는 큐에 넣기만 하고, 큐가 가득 차면 버린다 (캡처 때문에 응답이 느려지면 안 된다)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "traffic-capture.enabled", havingValue = "true")
+public class TrafficCaptureWriter {
+	private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+	
+	@Value("${traffic-capture.dir:./data/capture}")
+	private String dir;
+	
+	@Value("${traffic-capture.queue-capacity:10000}")
+	private int queueCapacity;
+	
+	private BlockingQueue<TrafficRecord> queue;
+	private DataOutputStream out;
+	private Path path;
+	private long startNanos;
+	private Thread writerThread;
+	private volatile boolean running;
+	private final AtomicLong dropped = new AtomicLong();
+	
+	@PostConstruct
+	public void start() throws IOException {
+		queue = new ArrayBlockingQueue<>(queueCapacity);
+		path = Paths.get(dir, "traffic-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".tlog");
+		startNanos = System.nanoTime();
+		out = TrafficLog.openForWrite(path, System.currentTimeMillis());
+		log.info("Capturing traffic to {}", path.toAbsolutePath());
+		
+		running = true;
+		writerThread = new Thread(this::runLoop, "traffic-capture-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+	
+	@PreDestroy
+	public void stop() throws InterruptedException, IOException {
+		running = false;
+		if(writerThread != null) {
+			writerThread.interrupt();
+			writerThread.join(TimeUnit.SECONDS.toMillis(5));
+		}
+		
+		TrafficRecord record;
+		while((record = queue.poll()) != null) {
+			TrafficLog.write(out, record);
+		}
+		out.close(); //gzip trailer까지 기록
+		log.info("Traffic capture closed : {} (dropped {})", path.toAbsolutePath(), dropped.get());
+	}
+	
+	//캡처 시작 시점부터의 상대 시각
+	public long offsetMicros(long nanoTime) {
+		return TimeUnit.NANOSECONDS.toMicros(nanoTime - startNanos);
+	}
+	
+	public void enqueue(TrafficRecord record) {
+		if(!queue.offer(record) && dropped.incrementAndGet() % 1000 == 1) {
+			log.warn("Traffic capture queue is full, {} records dropped so far", dropped.get());
+		}
+	}
+	
+	private void runLoop() {
+		while(running) {
+			try {
+				TrafficRecord record = queue.poll(1, TimeUnit.SECONDS);
+				if(record == null) {
+					out.flush(); //한가할 때 버퍼를 비운다
+					continue;
+				}
+				TrafficLog.write(out, record);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (IOException e) {
+				log.error("Failed to write traffic capture, stopping capture", e);
+				running = false;
+			}
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.example.account.capture;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ 캡처 파일 형식 (gzip 압축)
+ header : magic(int "ACTL") | version(byte) | 캡처 시작 시각(long, epoch millis)
+ record : offsetMicros(long) | method(byte) | path(UTF) | body 길이(int) + UTF-8 bytes
+          | status(short) | outcome(UTF) | responseId(UTF) | latencyMicros(long)
+ */
+public final class TrafficLog {
+	static final int MAGIC = 0x4143544C;
+	static final byte VERSION = 1;
+	
+	private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "PATCH"};
+	
+	private TrafficLog() {
+	}
+	
+	public static DataOutputStream openForWrite(Path path, long startedAtMillis) throws IOException {
+		if(path.getParent() != null) {
+			Files.createDirectories(path.getParent());
+		}
+		
+		OutputStream out = new GZIPOutputStream(Files.newOutputStream(path), 64 * 1024);
+		DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+		dataOut.writeInt(MAGIC);
+		dataOut.writeByte(VERSION);
+		dataOut.writeLong(startedAtMillis);
+		return dataOut;
+	}
+	
+	public static void write(DataOutputStream out, TrafficRecord record) throws IOException {
+		out.writeLong(record.getOffsetMicros());
+		out.writeByte(methodCode(record.getMethod()));
+		out.writeUTF(record.getPath());
+		
+		byte[] body = record.getRequestBody() == null ? new byte[0] : record.getRequestBody().getBytes(StandardCharsets.UTF_8);
+		out.writeInt(body.length);
+		out.write(body);
+		
+		out.writeShort(record.getStatus());
+		out.writeUTF(record.getOutcome());
+		out.writeUTF(record.getResponseId() == null ? "" : record.getResponseId());
+		out.writeLong(record.getLatencyMicros());
+	}
+	
+	public static List<TrafficRecord> readAll(Path path) throws IOException {
+		List<TrafficRecord> records = new ArrayList<>();
+		
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path)), 64 * 1024))) {
+			if(in.readInt() != MAGIC) {
+				throw new IOException("Not a traffic capture file : " + path);
+			}
+			byte version = in.readByte();
+			if(version != VERSION) {
+				throw new IOException("Unsupported traffic capture version : " + version);
+			}
+			in.readLong(); //캡처 시작 시각
+			
+			while(true) {
+				long offsetMicros;
+				try {
+					offsetMicros = in.readLong();
+				} catch (EOFException e) {
+					break; //정상 종료
+				}
+				
+				String method = METHODS[in.readByte()];
+				String requestPath = in.readUTF();
+				byte[] body = new byte[in.readInt()];
+				in.readFully(body);
+				
+				records.add(TrafficRecord.builder()
+						.offsetMicros(offsetMicros)
+						.method(method)
+						.path(requestPath)
+						.requestBody(new String(body, StandardCharsets.UTF_8))
+						.status(in.readShort())
+						.outcome(in.readUTF())
+						.responseId(in.readUTF())
+						.latencyMicros(in.readLong())
+						.build());
+			}
+		} catch (EOFException e) {
+			//비정상 종료로 마지막 레코드가 잘린 경우, 그 앞까지만 사용
+		}
+		return records;
+	}
+	
+	private static int methodCode(String method) {
+		for(int i = 0; i < METHODS.length; i++) {
+			if(METHODS[i].equals(method)) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Unsupported method : " + method);
+	}
+}
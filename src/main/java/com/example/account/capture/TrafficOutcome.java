@@ -0,0 +1,42 @@
+package com.example.account.capture;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+//응답 본문에서 비교용 결과/ID 추출, 캡처와 재생이 같은 규칙을 쓴다 (오류도 HTTP 200 + errorCode 로 내려온다)
+public final class TrafficOutcome {
+	public static final String OK = "OK";
+	
+	private TrafficOutcome() {
+	}
+	
+	//errorCode > transactionResultType > OK
+	public static String of(JsonNode responseBody) {
+		if(responseBody instanceof ObjectNode) {
+			if(responseBody.hasNonNull("errorCode")) {
+				return responseBody.get("errorCode").asText();
+			}
+			if(responseBody.hasNonNull("transactionResultType")) {
+				return responseBody.get("transactionResultType").asText();
+			}
+		}
+		return OK;
+	}
+	
+	//transactionId가 있으면 transactionId, 없으면 accountNumber (계좌 생성/해지 응답)
+	public static String responseId(JsonNode responseBody) {
+		if(responseBody instanceof ObjectNode && !responseBody.hasNonNull("errorCode")) {
+			if(responseBody.hasNonNull("transactionId")) {
+				return responseBody.get("transactionId").asText();
+			}
+			if(responseBody.hasNonNull("accountNumber")) {
+				return responseBody.get("accountNumber").asText();
+			}
+		}
+		return "";
+	}
+	
+	public static boolean isAccountNumberId(JsonNode responseBody) {
+		return responseBody instanceof ObjectNode && !responseBody.hasNonNull("transactionId") && responseBody.hasNonNull("accountNumber");
+	}
+}
@@ -0,0 +1,41 @@
+package com.example.account.capture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//경로나 쿼리에 계좌번호가 들어가는 API, 캡처(익명화)와 재생(계좌번호 바꾸기, API 단위 집계)이 같은 목록을 쓴다
+public final class TrafficPaths {
+	//첫 번째 그룹이 계좌번호
+	private static final List<Pattern> ACCOUNT_NUMBER_PATTERNS = List.of(
+			Pattern.compile("^/account/(\\d+)/balance(?=$|\\?)"), //특정 시각의 잔액
+			Pattern.compile("^/account/(\\d+)/rollups(?=$|\\?)"), //일별 거래 합계
+			Pattern.compile("^/transaction/summary\\?(?:.*&)?account_number=(\\d+)") //기간 합계 (쿼리 파라미터)
+	);
+	
+	private TrafficPaths() {
+	}
+	
+	public static List<String> accountNumbersOf(String path) {
+		List<String> accountNumbers = new ArrayList<>();
+		for(Pattern pattern : ACCOUNT_NUMBER_PATTERNS) {
+			Matcher matcher = pattern.matcher(path);
+			if(matcher.find()) {
+				accountNumbers.add(matcher.group(1));
+			}
+		}
+		return accountNumbers;
+	}
+	
+	public static String replaceAccountNumbers(String path, UnaryOperator<String> replacer) {
+		for(Pattern pattern : ACCOUNT_NUMBER_PATTERNS) {
+			Matcher matcher = pattern.matcher(path);
+			if(matcher.find()) {
+				path = path.substring(0, matcher.start(1)) + replacer.apply(matcher.group(1)) + path.substring(matcher.end(1));
+			}
+		}
+		return path;
+	}
+}
@@ -0,0 +1,20 @@
+package com.example.account.capture;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+//캡처된 요청 하나 (요청 + 당시 결과), 재생 시 결과/지연 시간 비교에 쓴다
+@Getter
+@AllArgsConstructor
+@Builder
+public class TrafficRecord {
+	private long offsetMicros; //캡처 시작 시점부터의 상대 시각
+	private String method;
+	private String path; //쿼리 문자열 포함
+	private String requestBody;
+	private int status;
+	private String outcome; //errorCode, transactionResultType 또는 OK
+	private String responseId; //응답의 transactionId (없으면 accountNumber), 재생 시 ID 매핑용
+	private long latencyMicros;
+}
@@ -0,0 +1,221 @@
+package com.example.account.cluster;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.account.dto.ErrorResponse;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 거래 요청을 계좌 담당 노드로 넘긴다 (cluster.enabled=true 일 때만 등록)
+ 1. 본문의 accountNumber 또는 account_number 파라미터로 담당 노드를 찾는다 (계좌번호가 없는 요청은 그대로 처리)
+ 2. 이 노드 담당이면 그대로 처리, 아니면 같은 메서드/경로/본문으로 담당 노드에 보내고 응답(상태, 헤더, 본문)을 그대로 돌려준다
+ 3. 넘겨받은 요청(FORWARDED_HEADER)은 다시 넘기지 않는다 (링이 잠깐 어긋나도 왕복하지 않도록 한 번만)
+ 4. 이 노드의 lease가 끊겼으면(holdsLease) 계좌번호가 있는 요청은 처리도, 넘기기도 하지 않고 ACCOUNT_OWNER_UNAVAILABLE
+ - 담당 노드에 닿지 않으면 ACCOUNT_OWNER_UNAVAILABLE, 죽은 노드라면 lease가 만료된 뒤 다시 시도하면 다른 노드가 받는다
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE) //다른 필터(캡처, Server-Timing)는 실제로 처리하는 노드에서만 거친다
+@ConditionalOnProperty(name = "cluster.enabled", havingValue = "true")
+public class ClusterForwardingFilter extends OncePerRequestFilter {
+	static final String FORWARDED_HEADER = "X-Cluster-Forwarded-By";
+	//연결마다 정해지는 헤더는 이 노드의 컨테이너가 다시 정한다
+	private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+			"connection", "keep-alive", "transfer-encoding", "te", "trailer", "upgrade", "proxy-authenticate", "proxy-authorization", "content-length");
+
+	private final ClusterMembership clusterMembership;
+	private final ObjectMapper objectMapper;
+	private final RestTemplate restTemplate;
+
+	public ClusterForwardingFilter(ClusterMembership clusterMembership, ObjectMapper objectMapper, RestTemplateBuilder restTemplateBuilder,
+			@Value("${cluster.forward-timeout-millis:5000}") long forwardTimeoutMillis) {
+		this.clusterMembership = clusterMembership;
+		this.objectMapper = objectMapper;
+		this.restTemplate = restTemplateBuilder
+				.setConnectTimeout(Duration.ofSeconds(1))
+				.setReadTimeout(Duration.ofMillis(forwardTimeoutMillis))
+				.errorHandler(new PassThroughErrorHandler())
+				.build();
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !request.getRequestURI().startsWith("/transaction/");
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+		byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+		String accountNumber = accountNumberOf(request, body);
+		if(accountNumber != null && !clusterMembership.holdsLease()) {
+			log.warn("Cluster lease of {} is not renewed, rejecting {} {} of {}",
+					clusterMembership.getNodeId(), request.getMethod(), request.getRequestURI(), accountNumber);
+			writeError(response, ErrorCode.ACCOUNT_OWNER_UNAVAILABLE);
+			return;
+		}
+
+		boolean forwarded = request.getHeader(FORWARDED_HEADER) != null;
+		String ownerUrl = accountNumber == null || forwarded ? null : clusterMembership.ownerUrl(accountNumber);
+
+		if(ownerUrl == null) {
+			filterChain.doFilter(new CachedBodyRequest(request, body), response); //본문은 이미 읽었으므로 다시 읽을 수 있게
+			return;
+		}
+
+		log.debug("Forwarding {} {} of {} to {}", request.getMethod(), request.getRequestURI(), accountNumber, ownerUrl);
+		try {
+			copyResponse(forward(request, body, ownerUrl), response);
+		} catch (RestClientException e) {
+			log.error("Account owner {} of {} is unavailable", ownerUrl, accountNumber, e);
+			writeError(response, ErrorCode.ACCOUNT_OWNER_UNAVAILABLE);
+		}
+	}
+
+	private ResponseEntity<byte[]> forward(HttpServletRequest request, byte[] body, String ownerUrl) {
+		String path = request.getQueryString() == null ? request.getRequestURI() : request.getRequestURI() + "?" + request.getQueryString();
+
+		HttpHeaders headers = new HttpHeaders();
+		if(request.getContentType() != null) {
+			headers.set(HttpHeaders.CONTENT_TYPE, request.getContentType());
+		}
+		headers.set(FORWARDED_HEADER, clusterMembership.getNodeId());
+
+		//쿼리 문자열은 이미 인코딩된 그대로 넘긴다
+		return restTemplate.exchange(URI.create(ownerUrl + path), HttpMethod.resolve(request.getMethod()),
+				new HttpEntity<>(body.length == 0 ? null : body, headers), byte[].class);
+	}
+
+	//담당 노드의 Server-Timing 등 응답 헤더도 함께 (이 노드에서는 다른 필터를 거치지 않음)
+	private void copyResponse(ResponseEntity<byte[]> forwarded, HttpServletResponse response) throws IOException {
+		response.setStatus(forwarded.getStatusCodeValue());
+		forwarded.getHeaders().forEach((name, values) -> {
+			if(!HOP_BY_HOP_HEADERS.contains(name.toLowerCase())) {
+				values.forEach(value -> response.addHeader(name, value));
+			}
+		});
+		if(forwarded.getBody() != null) {
+			response.getOutputStream().write(forwarded.getBody());
+		}
+	}
+
+	//다른 에러처럼 200 + ErrorResponse (GlobalExceptionHandler와 같은 모양)
+	private void writeError(HttpServletResponse response, ErrorCode errorCode) throws IOException {
+		response.setStatus(HttpServletResponse.SC_OK);
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(errorCode, errorCode.getDescription()));
+	}
+
+	private String accountNumberOf(HttpServletRequest request, byte[] body) {
+		String param = request.getParameter("account_number");
+		if(param != null) {
+			return param;
+		}
+		if(body.length == 0) {
+			return null;
+		}
+
+		try {
+			JsonNode node = objectMapper.readTree(body);
+			return node != null && node.hasNonNull("accountNumber") ? node.get("accountNumber").asText() : null;
+		} catch (IOException e) {
+			return null; //잘못된 본문은 이 노드의 컨트롤러가 검증 에러로 응답한다
+		}
+	}
+
+	//4xx/5xx도 예외 없이 그대로 돌려준다 (응답 전달은 copyResponse)
+	private static final class PassThroughErrorHandler extends DefaultResponseErrorHandler {
+		@Override
+		public boolean hasError(ClientHttpResponse response) {
+			return false;
+		}
+	}
+
+	private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+		private final byte[] body;
+
+		private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+			super(request);
+			this.body = body;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			ByteArrayInputStream input = new ByteArrayInputStream(body);
+			return new ServletInputStream() {
+				@Override
+				public int read() {
+					return input.read();
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) {
+					return input.read(b, off, len);
+				}
+
+				@Override
+				public boolean isFinished() {
+					return input.available() == 0;
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				//본문은 이미 메모리에 있으므로 바로 모두 읽을 수 있다고 알린다
+				@Override
+				public void setReadListener(ReadListener readListener) {
+					try {
+						readListener.onDataAvailable();
+						readListener.onAllDataRead();
+					} catch (IOException e) {
+						readListener.onError(e);
+					}
+				}
+			};
+		}
+
+		@Override
+		public BufferedReader getReader() {
+			return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+		}
+	}
+}
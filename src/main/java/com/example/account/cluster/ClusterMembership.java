@@ -0,0 +1,144 @@
+package com.example.account.cluster;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 클러스터 멤버십 (cluster.enabled=true 일 때만 등록)
+ 1. 노드마다 CLUS:NODE:{nodeId} = 주소 를 lease-millis 만료로 heartbeat-millis마다 다시 쓴다 (lease)
+    (첫 heartbeat는 기동 중에, 이후는 전용 스레드에서, 공유 스케줄러의 다른 작업이 길어져도 lease 갱신이 밀리지 않도록)
+ 2. 같은 주기에 살아 있는 lease를 모두 읽어 멤버가 바뀌었으면 해시 링을 새로 만든다
+ 3. 노드가 죽으면 lease가 만료되고, 다음 heartbeat에 다른 노드들이 그 노드의 계좌를 나눠 맡는다
+    (정상 종료 시에는 lease를 바로 지워서 기다리지 않는다)
+ - 마지막으로 lease를 쓴 지 lease-millis가 지나면 다른 노드가 이미 계좌를 가져갔을 수 있으므로
+   다시 lease를 쓸 때까지 거래를 처리하지도, 넘기지도 않는다 (holdsLease)
+ - 링이 바뀌는 순간 노드마다 반영 시점이 heartbeat 한 주기 정도 어긋날 수 있다,
+   그 사이 한 계좌를 두 노드가 자기 것으로 보고 동시에 처리할 수 있다 (로컬 lock끼리는 서로 막지 못함)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cluster.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ClusterMembership {
+	private static final String NODE_KEY_PREFIX = "CLUS:NODE:";
+
+	private final RedissonClient redissonClient;
+
+	@Value("${cluster.node-id:}")
+	private String nodeId;
+
+	@Value("${cluster.advertise-url:http://localhost:${server.port:8080}}")
+	private String advertiseUrl;
+
+	@Value("${cluster.lease-millis:3000}")
+	private long leaseMillis;
+
+	@Value("${cluster.heartbeat-millis:1000}")
+	private long heartbeatMillis;
+
+	@Value("${cluster.virtual-nodes:64}")
+	private int virtualNodes;
+
+	private volatile ConsistentHashRing ring;
+	private volatile long lastRenewedAt = Long.MIN_VALUE; //lease를 마지막으로 쓴 시각 (쓰기 요청을 보내기 전)
+	private ScheduledExecutorService heartbeatExecutor;
+
+	LongSupplier clock = System::currentTimeMillis; //테스트에서 시각을 바꿀 수 있게
+
+	@PostConstruct
+	public void init() {
+		if(nodeId.isEmpty()) {
+			nodeId = advertiseUrl;
+		}
+		ring = new ConsistentHashRing(Map.of(nodeId, advertiseUrl), virtualNodes);
+		heartbeat();
+
+		heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "cluster-heartbeat");
+			thread.setDaemon(true);
+			return thread;
+		});
+		heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public void heartbeat() {
+		Map<String, String> members = new HashMap<>();
+		try {
+			//레디스가 받은 시각보다 앞선 시각으로 기록해야 lease가 남았다고 잘못 보지 않는다
+			long renewedAt = clock.getAsLong();
+			nodeBucket(nodeId).set(advertiseUrl, leaseMillis, TimeUnit.MILLISECONDS);
+			lastRenewedAt = renewedAt;
+
+			for(String key : redissonClient.getKeys().getKeysByPattern(NODE_KEY_PREFIX + "*")) {
+				String url = redissonClient.<String>getBucket(key, StringCodec.INSTANCE).get();
+				if(url != null) { //읽는 사이에 만료됨
+					members.put(key.substring(NODE_KEY_PREFIX.length()), url);
+				}
+			}
+		} catch (Exception e) {
+			//Redis에 닿지 않으면 마지막으로 본 멤버로 계속 (lease는 다른 노드에서 곧 만료된다)
+			log.error("Cluster heartbeat failed, keeping members {}", ring.getMembers().keySet(), e);
+			return;
+		}
+		members.put(nodeId, advertiseUrl); //자기 lease를 방금 썼으므로 항상 포함
+
+		if(!members.equals(ring.getMembers())) {
+			log.info("Cluster members changed: {} -> {}", ring.getMembers().keySet(), members.keySet());
+			ring = new ConsistentHashRing(members, virtualNodes);
+		}
+	}
+
+	@PreDestroy
+	public void leave() {
+		if(heartbeatExecutor != null) {
+			heartbeatExecutor.shutdownNow();
+		}
+		try {
+			nodeBucket(nodeId).delete();
+		} catch (Exception e) {
+			log.warn("Failed to release cluster lease of {}, it will expire in {}ms", nodeId, leaseMillis, e);
+		}
+	}
+
+	//lease가 아직 살아 있어 링을 믿을 수 있는지
+	public boolean holdsLease() {
+		long renewedAt = lastRenewedAt;
+		return renewedAt != Long.MIN_VALUE && clock.getAsLong() - renewedAt < leaseMillis;
+	}
+
+	//이 노드가 담당하는 계좌면 null, 아니면 담당 노드 주소
+	public String ownerUrl(String accountNumber) {
+		ConsistentHashRing current = ring;
+		String owner = current.ownerOf(accountNumber);
+		return owner.equals(nodeId) ? null : current.urlOf(owner);
+	}
+
+	public String getNodeId() {
+		return nodeId;
+	}
+
+	public Map<String, String> getMembers() {
+		return ring.getMembers();
+	}
+
+	private RBucket<String> nodeBucket(String id) {
+		return redissonClient.getBucket(NODE_KEY_PREFIX + id, StringCodec.INSTANCE);
+	}
+}
@@ -0,0 +1,50 @@
+package com.example.account.cluster;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/*
+ 계좌번호 -> 담당 노드 (consistent hashing)
+ - 노드마다 virtualNodes개의 점을 링 위에 찍고, 계좌번호 해시에서 시계 방향으로 처음 만나는 점의 노드가 담당한다
+ - 노드가 빠지거나 들어와도 그 노드의 구간만 옮겨간다 (나머지 계좌의 담당 노드는 그대로)
+ - 만든 뒤에는 바뀌지 않으므로 여러 스레드가 그대로 읽는다
+ */
+public final class ConsistentHashRing {
+	private final NavigableMap<Integer, String> ring = new TreeMap<>();
+	private final Map<String, String> members; //노드 id -> 요청을 넘길 주소
+
+	public ConsistentHashRing(Map<String, String> members, int virtualNodes) {
+		this.members = Collections.unmodifiableMap(new TreeMap<>(members));
+		for(String nodeId : this.members.keySet()) {
+			for(int i = 0; i < virtualNodes; i++) {
+				ring.put(hash(nodeId + "#" + i), nodeId);
+			}
+		}
+	}
+
+	public String ownerOf(String accountNumber) {
+		Map.Entry<Integer, String> entry = ring.ceilingEntry(hash(accountNumber));
+		return (entry != null ? entry : ring.firstEntry()).getValue();
+	}
+
+	public String urlOf(String nodeId) {
+		return members.get(nodeId);
+	}
+
+	public Map<String, String> getMembers() {
+		return members;
+	}
+
+	//ShardExecutor.shardOf와 같은 murmur3 finalizer (연속된 계좌번호가 한 구간에 몰리지 않도록)
+	private static int hash(String key) {
+		int hash = key.hashCode();
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		hash *= 0xc2b2ae35;
+		hash ^= hash >>> 16;
+		return hash;
+	}
+}
@@ -0,0 +1,39 @@
+package com.example.account.cluster;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.stereotype.Component;
+
+/*
+ 계좌별 로컬 lock (클러스터 모드에서 이 노드가 담당하는 계좌의 작업을 한 줄로 세운다)
+ - 계좌 수만큼 lock을 만들지 않고 STRIPES개를 계좌번호 해시로 나눠 쓴다 (메모리 고정)
+ - 같은 stripe에 걸린 다른 계좌끼리도 기다리지만, 한 건의 lock 구간이 짧아서 충분하다
+ - lock을 잡은 스레드에서 풀어야 한다 (ReentrantLock)
+ */
+@Component
+public class LocalLockRegistry {
+	private static final int STRIPES = 4096;
+
+	private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+	public LocalLockRegistry() {
+		for(int i = 0; i < STRIPES; i++) {
+			locks[i] = new ReentrantLock();
+		}
+	}
+
+	public boolean tryLock(String accountNumber, long waitTime, TimeUnit unit) throws InterruptedException {
+		return lockOf(accountNumber).tryLock(waitTime, unit);
+	}
+
+	public void unlock(String accountNumber) {
+		lockOf(accountNumber).unlock();
+	}
+
+	private ReentrantLock lockOf(String accountNumber) {
+		int hash = accountNumber.hashCode();
+		hash ^= hash >>> 16;
+		return locks[hash & (STRIPES - 1)];
+	}
+}
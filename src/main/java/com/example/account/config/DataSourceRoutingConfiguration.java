@@ -0,0 +1,81 @@
+package com.example.account.config;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.example.account.datasource.DataSourceRole;
+import com.example.account.datasource.ReplicaLagMonitor;
+import com.example.account.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+//datasource-routing.enabled=true 이면 spring.datasource는 주 DB, datasource-routing.replica는 복제본으로 쓴다
+@Configuration
+@ConditionalOnProperty(name = "datasource-routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfiguration {
+
+	@Bean
+	public DataSource primaryDataSource(DataSourceProperties properties) {
+		HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("primary");
+		return dataSource;
+	}
+
+	@Bean
+	public DataSource replicaDataSource(
+			@Value("${datasource-routing.replica.url}") String url,
+			@Value("${datasource-routing.replica.username:sa}") String username,
+			@Value("${datasource-routing.replica.password:}") String password) {
+		HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+				.url(url).username(username).password(password).build();
+		dataSource.setPoolName("replica");
+		dataSource.setReadOnly(true);
+		return dataSource;
+	}
+
+	@Bean
+	public ReplicaLagMonitor replicaLagMonitor(
+			@Qualifier("primaryDataSource") DataSource primaryDataSource,
+			@Qualifier("replicaDataSource") DataSource replicaDataSource,
+			@Value("${datasource-routing.max-lag-millis:2000}") long maxLagMillis,
+			@Value("${datasource-routing.heartbeat-millis:1000}") long heartbeatMillis) {
+		return new ReplicaLagMonitor(primaryDataSource, replicaDataSource, maxLagMillis, heartbeatMillis);
+	}
+
+	//JPA와 sql init은 이 데이터소스를 쓴다
+	@Bean
+	@Primary
+	public DataSource dataSource(
+			@Qualifier("primaryDataSource") DataSource primaryDataSource,
+			@Qualifier("replicaDataSource") DataSource replicaDataSource,
+			ReplicaLagMonitor replicaLagMonitor) {
+		ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(replicaLagMonitor);
+		routingDataSource.setTargetDataSources(Map.of(
+				DataSourceRole.PRIMARY, primaryDataSource,
+				DataSourceRole.REPLICA, replicaDataSource));
+		routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+		routingDataSource.afterPropertiesSet();
+		return new LazyConnectionDataSourceProxy(routingDataSource);
+	}
+
+	@Bean
+	public MeterBinder replicaLagMetrics(ReplicaLagMonitor replicaLagMonitor) {
+		return registry -> {
+			Gauge.builder("datasource.replica.lag", replicaLagMonitor, ReplicaLagMonitor::getLagMillis).baseUnit("milliseconds").register(registry);
+			Gauge.builder("datasource.replica.usable", replicaLagMonitor, monitor -> monitor.isReplicaUsable() ? 1 : 0).register(registry);
+		};
+	}
+}
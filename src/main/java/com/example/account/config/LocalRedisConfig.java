@@ -13,6 +13,9 @@ public class LocalRedisConfig {
 	
 	@Value("${spring.redis.port}") //value: 프로퍼티 파일(설정 파일)을 불러들여서 값을 지정함
 	private int redisPort;
+	
+	@Value("${spring.redis.embedded:true}") //false 이면 이미 떠 있는 레디스에 붙는다 (같은 PC에서 노드를 여러 개 띄울 때)
+	private boolean embedded;
 
 	private RedisServer redisServer;
 	
@@ -21,6 +24,9 @@ public class LocalRedisConfig {
 	//@PostConstruct : bean 생성된 후 수행 (의존성 주입이 끝난 후, service를 수행하기 전에 발생함) 
 	@PostConstruct
 	public void startRedis() {
+		if(!embedded) {
+			return;
+		}
 		redisServer = new RedisServer(redisPort); //래디스 서버 생성
 		redisServer.start(); //래디스 서버 실행
 	}
@@ -0,0 +1,45 @@
+package com.example.account.config;
+
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.account.ledger.RedisLedgerPersister;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+//Hikari 커넥션 풀(hikaricp.*)은 자동으로 수집되고, Redisson 게이지만 직접 등록한다
+//Redisson 3.17은 풀 사용량을 공개 API로 주지 않고 설정값은 바뀌지 않으므로 풀 게이지는 두지 않는다
+//노드 응답 여부와 서버가 보는 연결 수만 보여준다, RedisNodeMonitor가 주기마다 확인해 둔 값이라 scrape 때 레디스를 부르지 않는다
+@Configuration
+public class MetricsConfiguration {
+
+	@Bean
+	public RedisNodeMonitor redisNodeMonitor(RedissonClient redissonClient,
+			@Value("${spring.redis.metrics-check-millis:10000}") long checkMillis) {
+		return new RedisNodeMonitor(redissonClient, checkMillis);
+	}
+
+	@Bean
+	public MeterBinder redissonNodeMetrics(RedissonClient redissonClient, RedisNodeMonitor redisNodeMonitor) {
+		return registry -> {
+			if(redissonClient.getConfig().isClusterConfig() || redissonClient.getConfig().isSentinelConfig()) {
+				return; //단일 서버 설정만 사용한다
+			}
+
+			Gauge.builder("redisson.nodes.failed", redisNodeMonitor, monitor -> monitor.isAvailable() ? 0 : 1).register(registry);
+			Gauge.builder("redis.connected.clients", redisNodeMonitor, RedisNodeMonitor::getConnectedClients).register(registry);
+		};
+	}
+
+	//Redis 원장 journal에 남은 항목 (DB에 늦게 반영되는 양), dead-letter 항목, persister가 주기마다 읽어 둔 값
+	@Bean
+	public MeterBinder redisLedgerMetrics(RedisLedgerPersister redisLedgerPersister) {
+		return registry -> {
+			Gauge.builder("redis.ledger.journal.length", redisLedgerPersister, RedisLedgerPersister::getJournalLength).register(registry);
+			Gauge.builder("redis.ledger.dead.letter.length", redisLedgerPersister, RedisLedgerPersister::getDeadLetterLength).register(registry);
+		};
+	}
+}
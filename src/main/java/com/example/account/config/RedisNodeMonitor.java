@@ -0,0 +1,89 @@
+package com.example.account.config;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.redisson.api.RedissonClient;
+import org.redisson.api.redisnode.RedisNode;
+import org.redisson.api.redisnode.RedisNodes;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 레디스 노드 상태 (게이지용)
+ - check-millis마다 전용 스레드에서 PING, INFO clients를 보내고 결과만 남겨 둔다
+ - scrape는 남겨 둔 값을 읽기만 하므로 레디스가 느리거나 내려가 있어도 scrape가 기다리지 않는다
+ */
+@Slf4j
+public class RedisNodeMonitor {
+	private static final long PING_TIMEOUT_MILLIS = 500L;
+
+	private final RedissonClient redissonClient;
+	private final long checkMillis;
+
+	private volatile boolean available;
+	private volatile double connectedClients = Double.NaN; //응답이 없으면 NaN
+	private ScheduledExecutorService checker;
+
+	public RedisNodeMonitor(RedissonClient redissonClient, long checkMillis) {
+		this.redissonClient = redissonClient;
+		this.checkMillis = checkMillis;
+	}
+
+	@PostConstruct
+	public void start() {
+		check(); //첫 scrape 전에 값이 있도록
+
+		checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "redis-node-monitor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		checker.scheduleWithFixedDelay(this::check, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		checker.shutdownNow();
+	}
+
+	//INFO에는 timeout을 줄 수 없어서 먼저 ping으로 확인한다 (레디스가 내려가 있으면 재시도 동안 멈춤)
+	public void check() {
+		available = ping();
+		connectedClients = available ? readConnectedClients() : Double.NaN;
+	}
+
+	public boolean isAvailable() {
+		return available;
+	}
+
+	//INFO clients의 connected_clients (다른 노드의 연결도 포함)
+	public double getConnectedClients() {
+		return connectedClients;
+	}
+
+	private boolean ping() {
+		try {
+			return node().ping(PING_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	private double readConnectedClients() {
+		try {
+			return Double.parseDouble(node().info(RedisNode.InfoSection.CLIENTS).get("connected_clients"));
+		} catch (RuntimeException e) {
+			log.debug("Failed to read redis connected clients", e);
+			return Double.NaN;
+		}
+	}
+
+	private RedisNode node() {
+		return redissonClient.getRedisNodes(RedisNodes.SINGLE).getInstance();
+	}
+}
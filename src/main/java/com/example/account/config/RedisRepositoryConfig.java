@@ -6,6 +6,7 @@ import org.redisson.config.Config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 
 //레디스 클라이언트 설정파일
 @Configuration
@@ -18,8 +19,10 @@ public class RedisRepositoryConfig {
 	private int redisPort;
 	 
 	@Bean
+	@DependsOn("localRedisConfig") //내장 레디스가 먼저 떠 있어야 연결된다 (메트릭 등에서 먼저 찾더라도)
 	public RedissonClient redissonClient() {
 		Config config = new Config();
 		config.useSingleServer().setAddress("redis://" + redisHost + ":" + redisPort);
+		config.setUseScriptCache(true); //Lua 스크립트는 EVALSHA로 보낸다 (Redis 원장 모드, 없으면 한 번 EVAL)
 		return Redisson.create(config);
 	}}
@@ -0,0 +1,12 @@
+package com.example.account.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+//@Scheduled가 붙은 메서드를 주기적으로 실행 (outbox relay 등)
+//스케줄러 스레드 수는 spring.task.scheduling.pool.size (작업마다 한 스레드, 기본값 1이면 모든 작업이 한 줄로 기다린다)
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+
+}
@@ -0,0 +1,80 @@
+package com.example.account.config;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.account.shard.ShardExecutor;
+import com.example.account.shard.ShardRoutingDataSource;
+import com.example.account.shard.ShardSchemaInitializer;
+import com.zaxxer.hikari.HikariDataSource;
+
+//sharding.enabled=true 이면 spring.datasource 대신 sharding.shards의 DB들에 계좌번호 해시로 나눠 저장한다
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfiguration {
+
+	@Bean
+	@ConditionalOnProperty(name = "sharding.enabled", havingValue = "false", matchIfMissing = true)
+	public ShardExecutor shardExecutor() {
+		return ShardExecutor.single();
+	}
+
+	@Configuration
+	@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+	static class Sharded {
+
+		//JPA와 sql init은 이 데이터소스를 쓴다 (샤드를 지정하지 않으면 0번)
+		@Bean
+		@Primary
+		public ShardRoutingDataSource dataSource(ShardingProperties properties) {
+			if(properties.getShards().size() < 2) {
+				throw new IllegalStateException("sharding.shards needs at least 2 shards");
+			}
+
+			AtomicInteger index = new AtomicInteger();
+			List<DataSource> shards = properties.getShards().stream()
+					.map(shard -> {
+						HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+								.url(shard.getUrl()).username(shard.getUsername()).password(shard.getPassword()).build();
+						dataSource.setPoolName("shard-" + index.getAndIncrement());
+						return dataSource;
+					})
+					.collect(Collectors.toList());
+			return new ShardRoutingDataSource(shards);
+		}
+
+		@Bean
+		public ShardExecutor shardExecutor(ShardingProperties properties, ShardRoutingDataSource dataSource, PlatformTransactionManager transactionManager) {
+			AtomicInteger threadNumber = new AtomicInteger();
+			ExecutorService queryExecutor = Executors.newFixedThreadPool(properties.getQueryThreads(), runnable -> {
+				Thread thread = new Thread(runnable, "shard-query-" + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+
+			TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+			newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+			return new ShardExecutor(dataSource.getShardCount(), queryExecutor, newTransaction);
+		}
+
+		@Bean
+		public ShardSchemaInitializer shardSchemaInitializer(ShardRoutingDataSource dataSource) {
+			return new ShardSchemaInitializer(dataSource);
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package com.example.account.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+//sharding.* 설정, shards의 순서가 샤드 번호이므로 샤드를 추가하면 계좌가 다른 샤드로 옮겨져야 한다
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "sharding")
+public class ShardingProperties {
+	private boolean enabled;
+	private List<Shard> shards = new ArrayList<>();
+	private int queryThreads = 8; //모든 샤드 조회를 병렬로 보내는 스레드 수
+
+	@Getter
+	@Setter
+	public static class Shard {
+		private String url;
+		private String username = "sa";
+		private String password = "";
+	}
+}
@@ -1,10 +1,14 @@
 package com.example.account.controller;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import javax.validation.Valid;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,12 +16,19 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.example.account.domain.Account;
+import com.example.account.dto.AccountBalanceAt;
+import com.example.account.dto.AccountDTO;
 import com.example.account.dto.AccountInfo;
 import com.example.account.dto.CreateAccount;
+import com.example.account.dto.DailyRollupDTO;
 import com.example.account.dto.DeleteAccount;
+import com.example.account.service.AccountReadModel;
 import com.example.account.service.AccountService;
+import com.example.account.service.BalanceStreamService;
+import com.example.account.service.DailyRollupService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -31,6 +42,9 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor //초기화 되지않은 final 필드나, @NonNull이 붙은 필드에 대해 생성자를 생성한다.
 public class AccountController {
 	private final AccountService accountService; 
+	private final BalanceStreamService balanceStreamService;
+	private final AccountReadModel accountReadModel;
+	private final DailyRollupService dailyRollupService;
 	
 	@PostMapping("/account")
 	public CreateAccount.Response createAccount(@RequestBody @Valid CreateAccount.Request request) { //Valid : 제약 조건을 검증
@@ -47,12 +61,38 @@ public class AccountController {
 		return DeleteAccount.Response.from(accountService.deleteAccount(request.getUserId(), request.getAccountNumber()));
 	}
 	
-	//계좌 확인
+	//계좌 확인 (읽기 모델에 있으면 DB를 거치지 않는다)
 	@GetMapping("/account")
 	public List<AccountInfo> getAccountsByUserId(@RequestParam("user_id") Long userId){
-		//accountDTO를 accountInfo로 바꿈
-		return accountService.getAccountsByUserId(userId).stream().map(accountDTO -> AccountInfo.builder().accountNumber(accountDTO.getAccountNumber())
-																									.balance(accountDTO.getBalance()).build()).collect(Collectors.toList());		
+		return accountReadModel.getAccountInfos(userId).orElseGet(() -> {
+			List<AccountDTO> accountDTOs = accountService.getAccountsByUserId(userId);
+			accountReadModel.load(userId, accountDTOs);
+			
+			//accountDTO를 accountInfo로 바꿈
+			return accountDTOs.stream().map(accountDTO -> AccountInfo.builder().accountNumber(accountDTO.getAccountNumber())
+																	.balance(accountDTO.getBalance()).build()).collect(Collectors.toList());
+		});
+	}
+	
+	//특정 시각의 잔액 (at이 없으면 지금), 예: /account/1000000000/balance?at=2024-01-01T00:00:00
+	@GetMapping("/account/{accountNumber}/balance")
+	public AccountBalanceAt getBalanceAt(@PathVariable String accountNumber,
+			@RequestParam(value = "at", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+		return accountService.getBalanceAt(accountNumber, at == null ? LocalDateTime.now() : at);
+	}
+	
+	//일별 거래 합계 (from ~ to 포함), 예: /account/1000000000/rollups?from=2024-01-01&to=2024-01-31
+	@GetMapping("/account/{accountNumber}/rollups")
+	public List<DailyRollupDTO> getDailyRollups(@PathVariable String accountNumber,
+			@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+		return dailyRollupService.getRollups(accountNumber, from, to);
+	}
+	
+	//잔액 변경 스트림 (SSE), 폴링 대신 변경될 때마다 AccountInfo를 받는다
+	@GetMapping(value = "/account/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamAccountsByUserId(@RequestParam("user_id") Long userId) {
+		return balanceStreamService.subscribe(userId, () -> getAccountsByUserId(userId)); //등록한 뒤 현재 잔액을 먼저 보낸다 (없는 사용자면 USER_NOT_FOUND)
 	}
 	
 
@@ -0,0 +1,59 @@
+package com.example.account.controller;
+
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.account.dto.HotAccounts;
+import com.example.account.dto.RebuildRollups;
+import com.example.account.dto.ReconcileLedger;
+import com.example.account.hotspot.HotAccountMetric;
+import com.example.account.hotspot.HotAccountTracker;
+import com.example.account.ledger.RedisLedger;
+import com.example.account.service.DailyRollupRebuildJob;
+
+import lombok.RequiredArgsConstructor;
+
+//운영용 작업 (재계산 등)
+@RestController
+@RequiredArgsConstructor
+public class AdminController {
+	private final DailyRollupRebuildJob dailyRollupRebuildJob;
+	private final HotAccountTracker hotAccountTracker;
+	private final RedisLedger redisLedger;
+	
+	//일별 합계 재계산 (어제까지), 예: POST /admin/rollups/rebuild?from=2024-01-01&to=2024-01-31
+	@PostMapping("/admin/rollups/rebuild")
+	public RebuildRollups.Response rebuildRollups(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+		return RebuildRollups.Response.builder()
+				.from(from)
+				.to(to)
+				.rows(dailyRollupRebuildJob.rebuild(from, to))
+				.build();
+	}
+	
+	//부하가 몰리는 계좌, 예: GET /admin/hot-accounts?metric=LOCK_WAIT&window_seconds=60&limit=20
+	@GetMapping("/admin/hot-accounts")
+	public HotAccounts.Response getHotAccounts(@RequestParam(value = "metric", defaultValue = "REQUESTS") HotAccountMetric metric,
+			@RequestParam(value = "window_seconds", defaultValue = "60") Integer windowSeconds,
+			@RequestParam(value = "limit", defaultValue = "20") Integer limit) {
+		return HotAccounts.Response.builder()
+				.metric(metric)
+				.windowSeconds(windowSeconds)
+				.accounts(hotAccountTracker.topAccounts(metric, windowSeconds, limit))
+				.build();
+	}
+	
+	//Redis 원장과 DB를 맞춘다 (Redis/앱 장애 후), 예: POST /admin/redis-ledger/reconcile
+	@PostMapping("/admin/redis-ledger/reconcile")
+	public ReconcileLedger.Response reconcileRedisLedger() {
+		return ReconcileLedger.Response.builder()
+				.accounts(redisLedger.reconcileAll())
+				.build();
+	}
+}
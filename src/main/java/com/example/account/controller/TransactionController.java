@@ -1,19 +1,31 @@
 package com.example.account.controller;
 
+import java.time.LocalDateTime;
+
 import javax.validation.Valid;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.account.aop.AccountLock;
 import com.example.account.dto.CancelBalance;
+import com.example.account.dto.CaptureHold;
 import com.example.account.dto.QueryTransactionResponse;
+import com.example.account.dto.ReleaseHold;
+import com.example.account.dto.ReserveBalance;
+import com.example.account.dto.TransactionSummary;
 import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
+import com.example.account.ledger.RedisLedger;
+import com.example.account.service.FailedTransactionWriter;
 import com.example.account.service.TransactionService;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,27 +35,34 @@ import lombok.extern.slf4j.Slf4j;
  1. 잔액 사용
  2. 잔액 사용 취소
  3. 거래 확인
+ 4. 기간 합계
+ 5. 가승인, 확정, 해제
  */
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 public class TransactionController {
 	private final TransactionService transactionService; //주입
+	private final FailedTransactionWriter failedTransactionWriter; //실패 이력은 비동기로 저장
+	private final RedisLedger redisLedger; //Redis 원장 모드 계좌는 DB 트랜잭션 없이 Lua 스크립트로
 	
 	
 	@PostMapping("/transaction/use")
 	@AccountLock
-	public UseBalance.Response useBalance(@Valid @RequestBody UseBalance.Request request ) throws InterruptedException {
+	public UseBalance.Response useBalance(@Valid @RequestBody UseBalance.Request request ) {
 		
 		try {
-			Thread.sleep(5000L);
+			if(redisLedger.handles(request.getAccountNumber())) {
+				return UseBalance.Response.from(redisLedger.useBalance(request.getUserId(), request.getAccountNumber(), request.getAmount()));
+			}
+			
 			return UseBalance.Response.from(
 			transactionService.useBalance(request.getUserId(), request.getAccountNumber(), request.getAmount()));
 		} catch (AccountException e) {
 			log.error("Failed to use balance");
 			
-			//service 도중 오류 나면 실패한 이력 저장
-			transactionService.saveFailedUseTransaction(request.getAccountNumber(), request.getAmount());
+			//service 도중 오류 나면 실패한 이력 저장 (큐에 넣고 바로 반환)
+			failedTransactionWriter.enqueue(TransactionType.USE, request.getAccountNumber(), request.getAmount());
 			
 			throw e; 
 		}
@@ -54,19 +73,66 @@ public class TransactionController {
 	public CancelBalance.Response cancelBalance(@Valid @RequestBody CancelBalance.Request request ) {
 		
 		try {
+			if(redisLedger.handles(request.getAccountNumber())) {
+				return CancelBalance.Response.from(redisLedger.cancelBalance(request.getTransactionId(), request.getAccountNumber(), request.getAmount()));
+			}
+			
 			return CancelBalance.Response.from(
 			transactionService.cancelBalance(request.getTransactionId(), request.getAccountNumber(), request.getAmount()));
 		} catch (AccountException e) {
 			log.error("Failed to use balance");
 			
-			transactionService.saveFailedCancelTransaction(request.getAccountNumber(), request.getAmount());
+			failedTransactionWriter.enqueue(TransactionType.CANCEL, request.getAccountNumber(), request.getAmount());
 			
 			throw e; 
 		}
 	}
 	
+	//가승인과 확정은 각각 lock을 잡는다, 사이에는 lock 없이 사용 가능 잔액으로 막는다 (실패 이력은 남기지 않음)
+	@PostMapping("/transaction/reserve")
+	@AccountLock
+	public ReserveBalance.Response reserveBalance(@Valid @RequestBody ReserveBalance.Request request) {
+		validateNotRedisLedger(request.getAccountNumber());
+		
+		return ReserveBalance.Response.from(
+				transactionService.reserveBalance(request.getUserId(), request.getAccountNumber(), request.getAmount()));
+	}
+	
+	@PostMapping("/transaction/capture")
+	@AccountLock
+	public CaptureHold.Response captureHold(@Valid @RequestBody CaptureHold.Request request) {
+		validateNotRedisLedger(request.getAccountNumber());
+		
+		return CaptureHold.Response.from(
+				transactionService.captureHold(request.getHoldId(), request.getAccountNumber(), request.getAmount()));
+	}
+	
+	@PostMapping("/transaction/release")
+	@AccountLock
+	public ReleaseHold.Response releaseHold(@Valid @RequestBody ReleaseHold.Request request) {
+		validateNotRedisLedger(request.getAccountNumber());
+		
+		return ReleaseHold.Response.from(
+				transactionService.releaseHold(request.getHoldId(), request.getAccountNumber()));
+	}
+	
+	//Redis 원장 모드 계좌의 잔액은 Lua 스크립트가 관리하므로 DB의 잡아둔 금액으로는 막을 수 없다
+	private void validateNotRedisLedger(String accountNumber) {
+		if(redisLedger.handles(accountNumber)) {
+			throw new AccountException(ErrorCode.REDIS_LEDGER_HOLD);
+		}
+	}
+	
 	@GetMapping("/transaction/{transactionId}")
 	public QueryTransactionResponse queryTransaction(@PathVariable String transactionId) {
 		return QueryTransactionResponse.from(transactionService.queryTransaction(transactionId));
 	}
+	
+	//계좌의 기간 합계 (from 이상 to 미만), 예: /transaction/summary?account_number=1000000000&from=2024-03-01T00:00:00&to=2024-04-01T00:00:00
+	@GetMapping("/transaction/summary")
+	public TransactionSummary summarizeTransactions(@RequestParam("account_number") String accountNumber,
+			@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+			@RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+		return transactionService.summarizeTransactions(accountNumber, from, to);
+	}
 }
@@ -0,0 +1,7 @@
+package com.example.account.datasource;
+
+//라우팅 데이터소스의 조회 키
+public enum DataSourceRole {
+	PRIMARY,
+	REPLICA
+}
@@ -0,0 +1,102 @@
+package com.example.account.datasource;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 복제 지연 감시
+ 1. 주 DB의 replica_heartbeat 행에 현재 시각을 주기적으로 쓴다
+ 2. 복제본에서 같은 행을 읽어 (지금 - 읽은 시각)을 지연으로 본다
+ 3. 지연이 max-lag-millis 이하일 때만 복제본을 읽기에 쓴다 (처음 측정 전이나 오류가 나면 주 DB 사용)
+ - 측정은 전용 스레드에서 heartbeat-millis마다 (공유 스케줄러의 다른 작업이 길어져도 밀리지 않게)
+ - 그래도 마지막 측정이 max-lag-millis + heartbeat-millis보다 오래되면 지연을 모르는 것이므로 주 DB 사용
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+	private static final int HEARTBEAT_ID = 1;
+
+	private final JdbcTemplate primary;
+	private final JdbcTemplate replica;
+	private final long maxLagMillis;
+	private final long heartbeatMillis;
+
+	private volatile boolean replicaUsable;
+	private volatile long lagMillis = -1;
+	private volatile long lastCheckedAt; //마지막으로 지연을 잰 시각
+	private ScheduledExecutorService checker;
+
+	LongSupplier clock = System::currentTimeMillis; //테스트에서 시각을 바꿀 수 있게
+
+	public ReplicaLagMonitor(DataSource primaryDataSource, DataSource replicaDataSource, long maxLagMillis, long heartbeatMillis) {
+		this.primary = new JdbcTemplate(primaryDataSource);
+		this.replica = new JdbcTemplate(replicaDataSource);
+		this.maxLagMillis = maxLagMillis;
+		this.heartbeatMillis = heartbeatMillis;
+	}
+
+	@PostConstruct
+	public void start() {
+		checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "replica-lag-monitor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		checker.scheduleWithFixedDelay(this::check, 0L, heartbeatMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		checker.shutdownNow();
+	}
+
+	public void check() {
+		try {
+			writeHeartbeat();
+			Long beatMillis = replica.queryForObject(
+					"select beat_millis from replica_heartbeat where id = ?", Long.class, HEARTBEAT_ID);
+
+			long now = clock.getAsLong();
+			lagMillis = now - beatMillis;
+			lastCheckedAt = now;
+			boolean usable = lagMillis <= maxLagMillis;
+			if(usable != replicaUsable) {
+				log.info("Replica {} (lag {}ms)", usable ? "in sync, routing reads to replica" : "lagging, routing reads to primary", lagMillis);
+			}
+			replicaUsable = usable;
+		} catch (Exception e) {
+			//복제본에 아직 행이 없거나 연결 실패
+			if(replicaUsable) {
+				log.warn("Replica heartbeat check failed, routing reads to primary", e);
+			}
+			replicaUsable = false;
+			lagMillis = -1;
+		}
+	}
+
+	private void writeHeartbeat() {
+		primary.execute("create table if not exists replica_heartbeat (id int primary key, beat_millis bigint not null)");
+		long now = clock.getAsLong();
+		if(primary.update("update replica_heartbeat set beat_millis = ? where id = ?", now, HEARTBEAT_ID) == 0) {
+			primary.update("insert into replica_heartbeat (id, beat_millis) values (?, ?)", HEARTBEAT_ID, now);
+		}
+	}
+
+	public boolean isReplicaUsable() {
+		return replicaUsable && clock.getAsLong() - lastCheckedAt <= maxLagMillis + heartbeatMillis;
+	}
+
+	//마지막으로 측정한 지연, 측정 실패 시 -1
+	public long getLagMillis() {
+		return lagMillis;
+	}
+}
@@ -0,0 +1,25 @@
+package com.example.account.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ 읽기 전용 트랜잭션은 복제본으로, 나머지는 주 DB로 보낸다
+ - 트랜잭션 시작 시점에는 readOnly 플래그가 아직 없으므로 LazyConnectionDataSourceProxy로 감싸서
+   첫 쿼리 때 커넥션을 얻도록 해야 한다
+ - 복제본이 지연되었거나 상태를 모르면 읽기도 주 DB로 보낸다
+ */
+@RequiredArgsConstructor
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+	private final ReplicaLagMonitor replicaLagMonitor;
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if(TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaLagMonitor.isReplicaUsable()) {
+			return DataSourceRole.REPLICA;
+		}
+		return DataSourceRole.PRIMARY;
+	}
+}
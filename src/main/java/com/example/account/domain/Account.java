@@ -8,13 +8,17 @@ import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.Version;
 
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import com.example.account.exception.AccountException;
+import com.example.account.jfr.BalanceMutationEvent;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 
@@ -37,6 +41,7 @@ import lombok.Setter;
 @Builder //하나의 return하는 방식이다. 필요한 것만 담아서 객체를 생성할 수 있다.
 @Entity
 @EntityListeners(AuditingEntityListener.class)
+@Table(indexes = @Index(name = "idx_account_account_number", columnList = "accountNumber")) //계좌번호로 찾는 조회
 public class Account {
 	@Id //Account 테이블에 기본키(PK)를 지정함
 	@GeneratedValue //생성 전략을 정의하기 위함, 없을 시 기본키가 바로 할당됨
@@ -59,6 +64,12 @@ public class Account {
 	@Enumerated(EnumType.STRING)
 	private AccountStatus accountStatus;
 	private Long balance;
+	private Long heldAmount; //가승인으로 잡아둔 금액 합계, 잔액에서 빼지 않고 사용 가능 잔액에서만 뺀다 (null은 0)
+	private Long ledgerSeq; //Redis 원장 모드에서 DB에 반영한 마지막 journal 순번 (그 밖의 계좌는 null)
+	private Long lastFencingToken; //마지막으로 잔액을 바꾼 lock의 fencing token (이보다 작은 token의 쓰기는 거부)
+	
+	@Version //레디스 lock 없이(fallback) 여러 노드가 같은 계좌를 바꾸면 늦게 커밋하는 쪽이 실패한다
+	private long version;
 	
 	private LocalDateTime registeredAt;
 	private LocalDateTime unregiteredAt;	
@@ -71,12 +82,13 @@ public class Account {
 	
 	//잔액 변경 (중요 로직은 객체 안에서 직접 수행하도록 함)
 	public void useBalance(Long amount) {
-		if(amount > balance) {
+		if(amount > getAvailableBalance()) {
 			throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
 		}
 		
+		long before = balance;
 		balance -= amount;
-		
+		recordBalanceMutation("USE", amount, before);
 	}
 	
 	public void cancelBalance(Long amount) {
@@ -84,8 +96,56 @@ public class Account {
 			throw new AccountException(ErrorCode.INVALID_REQUEST);
 		}
 		
+		long before = balance;
 		balance += amount;
+		recordBalanceMutation("CANCEL", amount, before);
+	}
+	
+	//잔액에서 가승인 금액을 뺀 나머지
+	public long getAvailableBalance() {
+		return balance - held();
+	}
+	
+	//가승인, 잔액은 그대로 두고 잡아둔 금액만 늘린다
+	public void reserveBalance(Long amount) {
+		if(amount > getAvailableBalance()) {
+			throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+		}
 		
+		heldAmount = held() + amount;
+	}
+	
+	//가승인 확정, 잡아둔 금액(holdAmount)을 모두 풀고 그중 capturedAmount만 잔액에서 뺀다
+	public void captureHold(Long holdAmount, Long capturedAmount) {
+		if(capturedAmount > holdAmount) {
+			throw new AccountException(ErrorCode.CAPTURE_EXCEEDS_HOLD);
+		}
+		
+		releaseHold(holdAmount);
+		long before = balance;
+		balance -= capturedAmount;
+		recordBalanceMutation("USE", capturedAmount, before);
+	}
+	
+	public void releaseHold(Long amount) {
+		heldAmount = Math.max(0L, held() - amount);
+	}
+	
+	private long held() {
+		return heldAmount == null ? 0L : heldAmount;
+	}
+	
+	//JFR 이벤트, 기록 중이 아니면 필드를 채우지도 않는다
+	private void recordBalanceMutation(String mutationType, Long amount, long before) {
+		BalanceMutationEvent event = new BalanceMutationEvent();
+		if(event.shouldCommit()) {
+			event.accountNumber = accountNumber;
+			event.mutationType = mutationType;
+			event.amount = amount;
+			event.balanceBefore = before;
+			event.balanceAfter = balance;
+			event.commit();
+		}
 	}
 	
 	
@@ -0,0 +1,43 @@
+package com.example.account.domain;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//checkpointAt 시각부터 다음 거래 전까지의 잔액, 거래 이력이 보관(archive)되어도 특정 시각의 잔액을 바로 찾기 위함
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+@Table(indexes = @Index(name = "idx_balance_checkpoint_account_at", columnList = "account_id, checkpointAt"))
+public class BalanceCheckpoint {
+	@Id
+	@GeneratedValue
+	private Long id;
+	
+	@ManyToOne
+	private Account account;
+	private Long balance;
+	private LocalDateTime checkpointAt; //계좌 개설 시각 혹은 잔액이 바뀐 거래의 시각
+	
+	@CreatedDate
+	private LocalDateTime createdAt;
+}
@@ -0,0 +1,67 @@
+package com.example.account.domain;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import com.example.account.type.HoldStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//가승인 (잔액은 그대로, 계좌의 heldAmount에만 더해서 사용 가능 잔액을 줄인다)
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+@Table(indexes = {
+		@Index(name = "idx_balance_hold_hold_id", columnList = "holdId"), //확정/해제 요청
+		@Index(name = "idx_balance_hold_status_expires_at", columnList = "holdStatus, expiresAt") //만료 작업
+})
+public class BalanceHold {
+	@Id
+	@GeneratedValue
+	private Long id;
+	
+	@ManyToOne
+	private Account account;
+	private String holdId;
+	
+	@Enumerated(EnumType.STRING)
+	private HoldStatus holdStatus;
+	private Long amount; //잡아둔 금액
+	private Long capturedAmount; //확정한 금액 (나머지는 확정과 함께 풀린다)
+	private String transactionId; //확정으로 생긴 USE 거래
+	
+	private LocalDateTime expiresAt;
+	private LocalDateTime closedAt; //확정, 해제, 만료된 시각
+	
+	@CreatedDate
+	private LocalDateTime createdAt;
+	
+	@LastModifiedDate
+	private LocalDateTime updatedAt;
+	
+	public void close(HoldStatus holdStatus, LocalDateTime closedAt) {
+		this.holdStatus = holdStatus;
+		this.closedAt = closedAt;
+	}
+}
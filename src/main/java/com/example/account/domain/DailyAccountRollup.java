@@ -0,0 +1,41 @@
+package com.example.account.domain;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//계좌의 일별 거래 합계, 거래를 저장할 때마다 증분으로 갱신한다 (리포트가 Transaction을 훑지 않도록)
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_daily_account_rollup_account_date", columnNames = {"account_id", "rollupDate"}))
+public class DailyAccountRollup {
+	@Id
+	@GeneratedValue
+	private Long id;
+	
+	@ManyToOne
+	private Account account;
+	private LocalDate rollupDate;
+	
+	private Long usedAmount; //성공한 사용 금액 합계
+	private Long cancelledAmount; //성공한 취소 금액 합계
+	private Long failedCount; //실패한 거래 수 (사용, 취소)
+	private Long closingBalance; //그날 마지막 거래 후 잔액
+	private LocalDateTime lastTransactedAt; //closingBalance가 된 거래의 시각
+}
@@ -0,0 +1,64 @@
+package com.example.account.domain;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import com.example.account.type.TransactionType;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//잔액 변경 이벤트 (transactional outbox), 거래와 같은 DB 트랜잭션에서 저장된다
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+@Table(indexes = @Index(name = "idx_outbox_event_sent_at", columnList = "sentAt, id")) //아직 전달하지 않은 이벤트 조회
+public class OutboxEvent {
+	@Id
+	@GeneratedValue
+	private Long id; //relay는 id 순서대로 읽는다
+	
+	private String accountNumber;
+	private String transactionId;
+	
+	@Enumerated(EnumType.STRING)
+	private TransactionType transactionType;
+	private Long amount;
+	private Long balanceSnapshot;
+	private LocalDateTime transactedAt;
+	
+	@CreatedDate
+	private LocalDateTime createdAt;
+	
+	private LocalDateTime sentAt; //sink에 전달한 시각, null이면 아직 전달 전
+	
+	//Transaction -> OutboxEvent
+	public static OutboxEvent fromTransaction(Transaction transaction) {
+		return OutboxEvent.builder()
+				.accountNumber(transaction.getAccount().getAccountNumber())
+				.transactionId(transaction.getTransactionId())
+				.transactionType(transaction.getTransactionType())
+				.amount(transaction.getAmount())
+				.balanceSnapshot(transaction.getBalanceSnapshot())
+				.transactedAt(transaction.getTransactedAt())
+				.build();
+	}
+}
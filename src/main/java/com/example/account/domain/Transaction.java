@@ -8,7 +8,9 @@ import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
 
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
@@ -30,6 +32,11 @@ import lombok.Setter;
 @Builder
 @Entity
 @EntityListeners(AuditingEntityListener.class) //자동으로 생성일자, 수정일자 업데이트
+@Table(indexes = {
+		@Index(name = "idx_transaction_transacted_at", columnList = "transactedAt"), //보관 대상 조회
+		//특정 시각의 잔액 조회, 기간 합계 (유형, 결과, 금액까지 담아서 합계는 테이블을 읽지 않는다)
+		@Index(name = "idx_transaction_account_transacted_at", columnList = "account_id, transactedAt, transactionType, transactionResultType, amount")
+})
 public class Transaction {
 	@Id 
 	@GeneratedValue 
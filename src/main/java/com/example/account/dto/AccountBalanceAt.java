@@ -0,0 +1,31 @@
+package com.example.account.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//특정 시각의 계좌 잔액
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AccountBalanceAt {
+	
+	private String accountNumber;
+	private LocalDateTime at; //요청한 시각
+	private Long balance;
+	private LocalDateTime asOf; //이 잔액이 된 시각 (거래 혹은 체크포인트)
+	private Source source;
+	
+	public enum Source {
+		TRANSACTION, //at 이전의 마지막 성공 거래
+		CHECKPOINT, //at 이전의 마지막 체크포인트
+		ARCHIVE, //at 이전의 마지막 성공 거래가 보관(archive)되어 보관 파일에서 찾음
+		CURRENT //체크포인트가 없는 기존 계좌, 거래에서 역산하거나 현재 잔액
+	}
+}
@@ -0,0 +1,44 @@
+package com.example.account.dto;
+
+import java.time.LocalDateTime;
+
+import com.example.account.domain.BalanceHold;
+import com.example.account.type.HoldStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceHoldDTO {
+	
+	private String accountNumber;
+	private String holdId;
+	private HoldStatus holdStatus;
+	private Long amount;
+	private Long capturedAmount;
+	private String transactionId;
+	private Long availableBalance; //처리 후 계좌의 사용 가능 잔액
+	private LocalDateTime expiresAt;
+	private LocalDateTime closedAt;
+	
+	public static BalanceHoldDTO fromEntity(BalanceHold hold) {
+		return BalanceHoldDTO.builder()
+				.accountNumber(hold.getAccount().getAccountNumber())
+				.holdId(hold.getHoldId())
+				.holdStatus(hold.getHoldStatus())
+				.amount(hold.getAmount())
+				.capturedAmount(hold.getCapturedAmount())
+				.transactionId(hold.getTransactionId())
+				.availableBalance(hold.getAccount().getAvailableBalance())
+				.expiresAt(hold.getExpiresAt())
+				.closedAt(hold.getClosedAt())
+				.build();
+	}
+}
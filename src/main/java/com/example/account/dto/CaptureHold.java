@@ -0,0 +1,67 @@
+package com.example.account.dto;
+
+import java.time.LocalDateTime;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.type.HoldStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//가승인 확정 (가승인 금액 이하로 부분 확정 가능, 나머지는 풀린다)
+public class CaptureHold {
+	@Getter
+	@Setter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@Builder
+	public static class Request implements AccountLockIdInterface {
+		@NotBlank
+		private String holdId;
+		
+		@NotBlank
+		@Size(min = 10, max = 10)
+		private String accountNumber;
+		
+		@NotNull
+		@Min(10)
+		@Max(1000_000_000) //최대거래금액 10억
+		private Long amount;
+	}
+	
+	@Getter
+	@Setter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@Builder
+	public static class Response {
+		private String accountNumber;
+		private String holdId;
+		private HoldStatus holdStatus;
+		private String transactionId; //확정으로 생긴 USE 거래 (잔액 사용 취소로 되돌린다)
+		private Long capturedAmount;
+		private Long availableBalance;
+		private LocalDateTime capturedAt;
+		
+		public static Response from(BalanceHoldDTO balanceHoldDTO) {
+			return Response.builder()
+					.accountNumber(balanceHoldDTO.getAccountNumber())
+					.holdId(balanceHoldDTO.getHoldId())
+					.holdStatus(balanceHoldDTO.getHoldStatus())
+					.transactionId(balanceHoldDTO.getTransactionId())
+					.capturedAmount(balanceHoldDTO.getCapturedAmount())
+					.availableBalance(balanceHoldDTO.getAvailableBalance())
+					.capturedAt(balanceHoldDTO.getClosedAt())
+					.build();
+		}
+	}
+}
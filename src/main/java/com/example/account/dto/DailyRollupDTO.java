@@ -0,0 +1,25 @@
+package com.example.account.dto;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//계좌의 하루 거래 합계
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DailyRollupDTO {
+	
+	private String accountNumber;
+	private LocalDate date;
+	private Long usedAmount;
+	private Long cancelledAmount;
+	private Long failedCount;
+	private Long closingBalance;
+}
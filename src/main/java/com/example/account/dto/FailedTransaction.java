@@ -0,0 +1,40 @@
+package com.example.account.dto;
+
+import java.time.LocalDateTime;
+
+import com.example.account.type.TransactionType;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//실패한 거래 이력 (비동기 저장 큐에 담기는 단위)
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FailedTransaction {
+	private TransactionType transactionType;
+	private String accountNumber;
+	private Long amount;
+	private LocalDateTime transactedAt; //실패가 발생한 시각 (DB에 기록되는 시각이 아님)
+
+	//WAL 파일의 한 줄 -> FailedTransaction
+	public static FailedTransaction fromWalLine(String line) {
+		String[] fields = line.split(",");
+		return FailedTransaction.builder()
+				.transactionType(TransactionType.valueOf(fields[0]))
+				.accountNumber(fields[1])
+				.amount(Long.parseLong(fields[2]))
+				.transactedAt(LocalDateTime.parse(fields[3]))
+				.build();
+	}
+
+	//FailedTransaction -> WAL 파일의 한 줄
+	public String toWalLine() {
+		return transactionType + "," + accountNumber + "," + amount + "," + transactedAt;
+	}
+}
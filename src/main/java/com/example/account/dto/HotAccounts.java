@@ -0,0 +1,39 @@
+package com.example.account.dto;
+
+import java.util.List;
+
+import com.example.account.hotspot.HotAccountMetric;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+public class HotAccounts {
+	@Getter
+	@Setter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@Builder
+	public static class Response {
+		private HotAccountMetric metric; //정렬 기준
+		private Integer windowSeconds;
+		private List<Entry> accounts;
+	}
+	
+	//계좌 하나의 기간 합계 (count-min sketch 추정값이라 실제보다 조금 클 수 있다)
+	@Getter
+	@Setter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@Builder
+	public static class Entry {
+		private String accountNumber;
+		private Long requests;
+		private Long lockWaitMicros;
+		private Long lockFailures;
+		private Long failures;
+		private Double failureRate; //(lock 실패 + 거래 실패) / 요청 수
+	}
+}
@@ -0,0 +1,51 @@
+package com.example.account.dto;
+
+import java.time.LocalDateTime;
+
+import com.example.account.type.TransactionType;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//Redis 원장 모드의 거래 하나 (Redis journal 리스트의 한 항목, Lua 스크립트가 같은 형식으로 만든다)
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LedgerEntry {
+	private TransactionType transactionType;
+	private String accountNumber;
+	private Long amount;
+	private Long balanceAfter; //이 거래 직후 잔액 (DB에는 더하지 않고 그대로 쓴다)
+	private Long seq; //계좌별 순번, 1부터 빈틈없이 증가
+	private String transactionId;
+	private LocalDateTime transactedAt;
+
+	//journal 한 줄 -> LedgerEntry
+	public static LedgerEntry fromJournalLine(String line) {
+		String[] fields = line.split(",");
+		return LedgerEntry.builder()
+				.transactionType(TransactionType.valueOf(fields[0]))
+				.accountNumber(fields[1])
+				.amount(Long.parseLong(fields[2]))
+				.balanceAfter(Long.parseLong(fields[3]))
+				.seq(Long.parseLong(fields[4]))
+				.transactionId(fields[5])
+				.transactedAt(LocalDateTime.parse(fields[6]))
+				.build();
+	}
+
+	//LedgerEntry -> journal 한 줄
+	public String toJournalLine() {
+		return transactionType + "," + accountNumber + "," + amount + "," + balanceAfter + "," + seq + "," + transactionId + "," + transactedAt;
+	}
+
+	//잔액에 더해지는 값
+	public long delta() {
+		return transactionType == TransactionType.USE ? -amount : amount;
+	}
+}
@@ -0,0 +1,22 @@
+package com.example.account.dto;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+public class RebuildRollups {
+	@Getter
+	@Setter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@Builder
+	public static class Response {
+		private LocalDate from;
+		private LocalDate to;
+		private Integer rows; //다시 쓴 일별 합계 행 수
+	}
+}
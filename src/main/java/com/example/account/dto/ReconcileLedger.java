@@ -0,0 +1,38 @@
+package com.example.account.dto;
+
+import java.util.List;
+
+import com.example.account.ledger.ReconcileOutcome;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+public class ReconcileLedger {
+	@Getter
+	@Setter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@Builder
+	public static class Response {
+		private List<Result> accounts;
+	}
+	
+	//계좌 하나를 맞춘 결과
+	@Getter
+	@Setter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@Builder
+	public static class Result {
+		private String accountNumber;
+		private ReconcileOutcome outcome;
+		private Long databaseBalance;
+		private Long databaseSeq; //DB에 반영된 마지막 journal 순번
+		private Long pendingEntries; //아직 DB에 반영되지 않은 journal 항목 수
+		private Long redisBalance; //맞춘 뒤의 Redis 잔액
+		private Long redisSeq;
+	}
+}
@@ -0,0 +1,57 @@
+package com.example.account.dto;
+
+import java.time.LocalDateTime;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.type.HoldStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//가승인 해제 (확정하지 않고 잡아둔 금액을 모두 푼다)
+public class ReleaseHold {
+	@Getter
+	@Setter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@Builder
+	public static class Request implements AccountLockIdInterface {
+		@NotBlank
+		private String holdId;
+		
+		@NotBlank
+		@Size(min = 10, max = 10)
+		private String accountNumber;
+	}
+	
+	@Getter
+	@Setter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@Builder
+	public static class Response {
+		private String accountNumber;
+		private String holdId;
+		private HoldStatus holdStatus;
+		private Long amount;
+		private Long availableBalance;
+		private LocalDateTime releasedAt;
+		
+		public static Response from(BalanceHoldDTO balanceHoldDTO) {
+			return Response.builder()
+					.accountNumber(balanceHoldDTO.getAccountNumber())
+					.holdId(balanceHoldDTO.getHoldId())
+					.holdStatus(balanceHoldDTO.getHoldStatus())
+					.amount(balanceHoldDTO.getAmount())
+					.availableBalance(balanceHoldDTO.getAvailableBalance())
+					.releasedAt(balanceHoldDTO.getClosedAt())
+					.build();
+		}
+	}
+}
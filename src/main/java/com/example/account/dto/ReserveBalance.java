@@ -0,0 +1,66 @@
+package com.example.account.dto;
+
+import java.time.LocalDateTime;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.type.HoldStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//가승인 (잔액 사용과 같은 검증, 잔액은 확정할 때 빠진다)
+public class ReserveBalance {
+	@Getter
+	@Setter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@Builder
+	public static class Request implements AccountLockIdInterface {
+		@NotNull
+		@Min(1)
+		private Long userId;
+		
+		@NotBlank
+		@Size(min = 10, max = 10)
+		private String accountNumber;
+		
+		@NotNull
+		@Min(10)
+		@Max(1000_000_000) //최대거래금액 10억
+		private Long amount;
+	}
+	
+	@Getter
+	@Setter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@Builder
+	public static class Response {
+		private String accountNumber;
+		private String holdId;
+		private HoldStatus holdStatus;
+		private Long amount;
+		private Long availableBalance;
+		private LocalDateTime expiresAt;
+		
+		public static Response from(BalanceHoldDTO balanceHoldDTO) {
+			return Response.builder()
+					.accountNumber(balanceHoldDTO.getAccountNumber())
+					.holdId(balanceHoldDTO.getHoldId())
+					.holdStatus(balanceHoldDTO.getHoldStatus())
+					.amount(balanceHoldDTO.getAmount())
+					.availableBalance(balanceHoldDTO.getAvailableBalance())
+					.expiresAt(balanceHoldDTO.getExpiresAt())
+					.build();
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.example.account.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//계좌의 기간(from 이상 to 미만) 거래 합계, (유형, 결과)별로 하나씩
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TransactionSummary {
+	
+	private String accountNumber;
+	private LocalDateTime from;
+	private LocalDateTime to;
+	private List<Group> groups;
+	
+	@Getter
+	@Setter
+	@AllArgsConstructor
+	@NoArgsConstructor
+	@Builder
+	public static class Group {
+		private TransactionType transactionType;
+		private TransactionResultType transactionResultType;
+		private Long sum;
+		private Long count;
+		private Long min;
+		private Long max;
+		
+		public Group plus(Group other) {
+			return Group.builder()
+					.transactionType(transactionType)
+					.transactionResultType(transactionResultType)
+					.sum(sum + other.sum)
+					.count(count + other.count)
+					.min(Math.min(min, other.min))
+					.max(Math.max(max, other.max))
+					.build();
+		}
+	}
+}
@@ -0,0 +1,11 @@
+package com.example.account.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//사용자의 계좌 목록이 바뀜 (계좌 생성, 해지), 커밋 후 읽기 모델에서 해당 사용자를 다시 읽도록 한다
+@Getter
+@AllArgsConstructor
+public class AccountsChangedEvent {
+	private final Long userId;
+}
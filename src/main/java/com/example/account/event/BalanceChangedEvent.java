@@ -0,0 +1,32 @@
+package com.example.account.event;
+
+import java.time.LocalDateTime;
+
+import com.example.account.domain.Transaction;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+//잔액 변경 애플리케이션 이벤트, 커밋된 뒤(@TransactionalEventListener AFTER_COMMIT)에만 리스너가 받는다
+@Getter
+@AllArgsConstructor
+@Builder
+public class BalanceChangedEvent {
+	private final Long userId;
+	private final String accountNumber;
+	private final Long balance;
+	private final String transactionId;
+	private final LocalDateTime transactedAt;
+	
+	//Transaction -> BalanceChangedEvent
+	public static BalanceChangedEvent fromTransaction(Transaction transaction) {
+		return BalanceChangedEvent.builder()
+				.userId(transaction.getAccount().getAccountUser().getId())
+				.accountNumber(transaction.getAccount().getAccountNumber())
+				.balance(transaction.getBalanceSnapshot())
+				.transactionId(transaction.getTransactionId())
+				.transactedAt(transaction.getTransactedAt())
+				.build();
+	}
+}
@@ -0,0 +1,12 @@
+package com.example.account.event;
+
+import java.util.List;
+
+import com.example.account.domain.OutboxEvent;
+
+//outbox relay가 잔액 변경 이벤트를 전달하는 대상 (outbox.sink 설정으로 하나를 고른다)
+public interface BalanceEventSink {
+	
+	//events는 id 순서대로 들어온다, 예외가 나면 relay가 같은 batch를 다시 전달한다
+	void deliver(List<OutboxEvent> events) throws Exception;
+}
@@ -0,0 +1,44 @@
+package com.example.account.event;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.account.domain.OutboxEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+//로컬 파일에 한 줄에 이벤트 하나씩 JSON으로 기록 (기본값)
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "log", matchIfMissing = true)
+@RequiredArgsConstructor
+public class LogFileBalanceEventSink implements BalanceEventSink {
+	private final ObjectMapper objectMapper;
+	
+	@Value("${outbox.log.path:./data/balance-events.log}")
+	private String path;
+
+	@Override
+	public synchronized void deliver(List<OutboxEvent> events) throws Exception {
+		Path logPath = Paths.get(path);
+		if(logPath.getParent() != null) {
+			Files.createDirectories(logPath.getParent());
+		}
+		
+		try (BufferedWriter writer = Files.newBufferedWriter(logPath, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			for(OutboxEvent event : events) {
+				writer.write(objectMapper.writeValueAsString(event));
+				writer.newLine();
+			}
+		}
+	}
+}
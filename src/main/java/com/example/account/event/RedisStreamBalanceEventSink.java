@@ -0,0 +1,42 @@
+package com.example.account.event;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.redisson.api.RStream;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.stream.StreamAddArgs;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.account.domain.OutboxEvent;
+
+//Redis stream에 XADD (Redis 5.0 이상 필요, 내장 레디스(2.8)에서는 사용할 수 없다)
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "redis")
+public class RedisStreamBalanceEventSink implements BalanceEventSink {
+	private final RStream<String, String> stream;
+	
+	public RedisStreamBalanceEventSink(RedissonClient redissonClient, @Value("${outbox.redis.stream:balance-events}") String streamName) {
+		this.stream = redissonClient.getStream(streamName, StringCodec.INSTANCE);
+	}
+
+	@Override
+	public void deliver(List<OutboxEvent> events) {
+		for(OutboxEvent event : events) {
+			Map<String, String> fields = new HashMap<>();
+			fields.put("eventId", String.valueOf(event.getId()));
+			fields.put("accountNumber", event.getAccountNumber());
+			fields.put("transactionId", event.getTransactionId());
+			fields.put("transactionType", event.getTransactionType().name());
+			fields.put("amount", String.valueOf(event.getAmount()));
+			fields.put("balanceSnapshot", String.valueOf(event.getBalanceSnapshot()));
+			fields.put("transactedAt", String.valueOf(event.getTransactedAt()));
+			
+			stream.add(StreamAddArgs.entries(fields));
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package com.example.account.event;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import com.example.account.domain.OutboxEvent;
+
+//HTTP webhook으로 batch 단위 POST (2xx가 아니면 RestTemplate이 예외를 던져 재전달된다)
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "webhook")
+public class WebhookBalanceEventSink implements BalanceEventSink {
+	private final RestTemplate restTemplate;
+	private final String url;
+	
+	public WebhookBalanceEventSink(RestTemplateBuilder restTemplateBuilder, @Value("${outbox.webhook.url}") String url) {
+		this.restTemplate = restTemplateBuilder
+				.setConnectTimeout(Duration.ofSeconds(2))
+				.setReadTimeout(Duration.ofSeconds(5))
+				.build();
+		this.url = url;
+	}
+
+	@Override
+	public void deliver(List<OutboxEvent> events) {
+		restTemplate.postForEntity(url, events, Void.class);
+	}
+}
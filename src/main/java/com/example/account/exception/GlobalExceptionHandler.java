@@ -1,33 +1,52 @@
 package com.example.account.exception;
 
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import com.example.account.dto.ErrorResponse;
 import com.example.account.type.ErrorCode;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @RestControllerAdvice //전역적으로 예외를 처리할 수 있는 어노테이션
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
+	private final MeterRegistry meterRegistry; //ErrorCode별 에러 수 (account.errors)
 	
 	@ExceptionHandler(AccountException.class) //accountException이 발생했을 때 처리하는 예외핸들러
 	public ErrorResponse handleAccountException(AccountException e) {
 		log.error("{} is occurred", e.getErrorCode());
+		countError(e.getErrorCode());
 		return new ErrorResponse(e.getErrorCode(), e.getErrorMessage());
 	}
 	
 	@ExceptionHandler(DataIntegrityViolationException.class) //DB의 유니크 키 중복 등의 예외
 	public ErrorResponse handlerDataIntegrityViolationException(DataIntegrityViolationException e) {
 		log.error("DataIntegrityVioleationException is occurred", e);
+		countError(ErrorCode.INVALID_REQUEST);
 		return new ErrorResponse(ErrorCode.INVALID_REQUEST, ErrorCode.INVALID_REQUEST.getDescription());
 	}
 	
+	@ExceptionHandler(ObjectOptimisticLockingFailureException.class) //같은 계좌를 다른 노드가 먼저 바꿨다 (Account.version)
+	public ErrorResponse handleObjectOptimisticLockingFailureException(ObjectOptimisticLockingFailureException e) {
+		log.error("{} is occurred", ErrorCode.ACCOUNT_TRANSACTION_LOCK, e);
+		countError(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+		return new ErrorResponse(ErrorCode.ACCOUNT_TRANSACTION_LOCK, ErrorCode.ACCOUNT_TRANSACTION_LOCK.getDescription());
+	}
+	
 	@ExceptionHandler(Exception.class) //accountException 말고 다른 모든 exception (우리가 모르는 내부 서버의 문제)
 	public ErrorResponse handleException(Exception e) {
 		log.error("Exception is occurred", e);
+		countError(ErrorCode.INTERNAL_SERVER_ERROR);
 		return new ErrorResponse(ErrorCode.INTERNAL_SERVER_ERROR, ErrorCode.INTERNAL_SERVER_ERROR.getDescription());
 	}
+	
+	private void countError(ErrorCode errorCode) {
+		meterRegistry.counter("account.errors", "errorCode", errorCode.name()).increment();
+	}
 }
@@ -0,0 +1,63 @@
+package com.example.account.fault;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.account.service.LockAopAspect;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ lock 바깥 / repository / 커밋 직전 지점에 장애 주입
+ LockAopAspect보다 먼저(바깥에서) 실행되어야 BEFORE_LOCK이 lock 취득 전에 걸린다
+ */
+@Aspect
+@Component
+@Profile("fault-injection")
+@Order(LockAopAspect.ORDER - 1)
+@RequiredArgsConstructor
+public class FaultInjectionAspect {
+	private static final Object BEFORE_COMMIT_REGISTERED = new Object(); //트랜잭션당 한 번만 등록
+	
+	private final FaultInjector faultInjector;
+	
+	@Around("@annotation(com.example.account.aop.AccountLock)")
+	public Object beforeLock(ProceedingJoinPoint pjp) throws Throwable {
+		faultInjector.inject(FaultPoint.BEFORE_LOCK);
+		return pjp.proceed();
+	}
+	
+	@Around("execution(* com.example.account.repository..*(..))")
+	public Object aroundRepository(ProceedingJoinPoint pjp) throws Throwable {
+		registerBeforeCommit();
+		faultInjector.inject(FaultPoint.REPOSITORY);
+		return pjp.proceed();
+	}
+	
+	//repository를 처음 호출할 때 현재 트랜잭션에 커밋 직전 훅을 건다
+	private void registerBeforeCommit() {
+		if(!TransactionSynchronizationManager.isSynchronizationActive()
+				|| TransactionSynchronizationManager.hasResource(BEFORE_COMMIT_REGISTERED)) {
+			return;
+		}
+		
+		TransactionSynchronizationManager.bindResource(BEFORE_COMMIT_REGISTERED, Boolean.TRUE);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void beforeCommit(boolean readOnly) {
+				faultInjector.inject(FaultPoint.BEFORE_COMMIT);
+			}
+			
+			@Override
+			public void afterCompletion(int status) {
+				TransactionSynchronizationManager.unbindResourceIfPossible(BEFORE_COMMIT_REGISTERED);
+			}
+		});
+	}
+}
@@ -0,0 +1,49 @@
+package com.example.account.fault;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 지점별 지연/오류 주입 (fault-injection 프로필에서만 등록되므로 운영에는 빈도, aspect도 없다)
+ fault-injection.<point>.latency : LatencyDistribution 형식
+ fault-injection.<point>.error-rate : 0.0 ~ 1.0, 지연 후 이 확률로 InjectedFaultException
+ */
+@Slf4j
+@Component
+@Profile("fault-injection")
+public class FaultInjector {
+	private final Map<FaultPoint, LatencyDistribution> latencies = new EnumMap<>(FaultPoint.class);
+	private final Map<FaultPoint, Double> errorRates = new EnumMap<>(FaultPoint.class);
+	
+	public FaultInjector(Environment environment) {
+		for(FaultPoint point : FaultPoint.values()) {
+			String prefix = "fault-injection." + point.getKey();
+			latencies.put(point, LatencyDistribution.parse(environment.getProperty(prefix + ".latency", "none")));
+			errorRates.put(point, environment.getProperty(prefix + ".error-rate", Double.class, 0.0));
+		}
+		log.warn("Fault injection is enabled : error rates {}", errorRates);
+	}
+	
+	public void inject(FaultPoint point) {
+		long millis = latencies.get(point).sampleMillis();
+		if(millis > 0) {
+			try {
+				Thread.sleep(millis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		double errorRate = errorRates.get(point);
+		if(errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+			throw new InjectedFaultException(point);
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package com.example.account.fault;
+
+//장애 주입 지점, 설정 키는 fault-injection.<key>.latency / fault-injection.<key>.error-rate
+public enum FaultPoint {
+	BEFORE_LOCK("before-lock"), //계좌 lock 취득 전
+	INSIDE_LOCK("inside-lock"), //lock을 잡은 뒤 거래 처리 전 (lock 경합 재현)
+	BEFORE_COMMIT("before-commit"), //트랜잭션 커밋 직전
+	REPOSITORY("repository"); //repository 호출마다
+	
+	private final String key;
+	
+	FaultPoint(String key) {
+		this.key = key;
+	}
+	
+	public String getKey() {
+		return key;
+	}
+}
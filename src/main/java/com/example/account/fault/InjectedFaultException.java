@@ -0,0 +1,9 @@
+package com.example.account.fault;
+
+//주입된 오류, GlobalExceptionHandler에서 INTERNAL_SERVER_ERROR로 응답된다
+public class InjectedFaultException extends RuntimeException {
+	
+	public InjectedFaultException(FaultPoint faultPoint) {
+		super("Injected fault at " + faultPoint.getKey());
+	}
+}
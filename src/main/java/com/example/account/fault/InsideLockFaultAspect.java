@@ -0,0 +1,28 @@
+package com.example.account.fault;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.example.account.service.LockAopAspect;
+
+import lombok.RequiredArgsConstructor;
+
+//lock을 잡은 뒤(LockAopAspect 안쪽)에 장애 주입, 예전 useBalance의 Thread.sleep(5000L) 자리
+@Aspect
+@Component
+@Profile("fault-injection")
+@Order(LockAopAspect.ORDER + 1)
+@RequiredArgsConstructor
+public class InsideLockFaultAspect {
+	private final FaultInjector faultInjector;
+	
+	@Around("@annotation(com.example.account.aop.AccountLock)")
+	public Object insideLock(ProceedingJoinPoint pjp) throws Throwable {
+		faultInjector.inject(FaultPoint.INSIDE_LOCK);
+		return pjp.proceed();
+	}
+}
@@ -0,0 +1,47 @@
+package com.example.account.fault;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ 주입할 지연 시간 분포 (밀리초)
+ none | fixed(ms) | uniform(min,max) | exponential(mean) | lognormal(median,sigma)
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+	LatencyDistribution NONE = () -> 0L;
+	
+	long sampleMillis();
+	
+	static LatencyDistribution parse(String spec) {
+		String value = spec == null ? "" : spec.replace(" ", "");
+		if(value.isEmpty() || value.equals("none")) {
+			return NONE;
+		}
+		
+		int open = value.indexOf('(');
+		if(open < 0 || !value.endsWith(")")) {
+			throw new IllegalArgumentException("Invalid latency spec : " + spec);
+		}
+		String name = value.substring(0, open);
+		String[] args = value.substring(open + 1, value.length() - 1).split(",");
+		
+		switch (name) {
+		case "fixed":
+			long millis = Long.parseLong(args[0]);
+			return () -> millis;
+		case "uniform":
+			long min = Long.parseLong(args[0]);
+			long max = Long.parseLong(args[1]);
+			return () -> min + (long) (ThreadLocalRandom.current().nextDouble() * (max - min));
+		case "exponential":
+			double mean = Double.parseDouble(args[0]);
+			return () -> (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * mean);
+		case "lognormal":
+			double mu = Math.log(Double.parseDouble(args[0]));
+			double sigma = Double.parseDouble(args[1]);
+			return () -> (long) Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian());
+		default:
+			throw new IllegalArgumentException("Unknown latency distribution : " + spec);
+		}
+	}
+}
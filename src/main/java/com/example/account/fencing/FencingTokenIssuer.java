@@ -0,0 +1,79 @@
+package com.example.account.fencing;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.account.breaker.RedisCircuitBreaker;
+import com.example.account.redlock.QuorumLock;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 계좌 lock을 잡을 때마다 커지는 fencing token
+ - 계좌마다 레디스 카운터 하나 (ACLK:FENCE:{계좌번호}), lock을 잡은 순서대로 커진다
+ - 카운터가 없으면(처음이거나 레디스 데이터가 사라진 뒤) 현재 시각(마이크로초)부터 시작한다,
+   그래서 레디스가 비워져도 이전에 발급한 token보다 작아지지 않는다 (초당 100만 번 넘게 잡지 않는 한)
+ - 잔액을 바꿀 때 Account.lastFencingToken보다 큰 token만 통과시킨다 (TransactionService)
+ - redlock.enabled=true 이면 lock과 같은 레디스 여러 대에서 과반수로 발급한다 (QuorumLock, 주 레디스 한 대에 기대지 않게)
+ - 발급 실패는 lock과 따로 센다 (발급이 계속 실패하면 잠시 token 없이 진행, lock은 그대로 레디스로 잡는다)
+ */
+@Slf4j
+@Component
+public class FencingTokenIssuer {
+	private static final String ISSUE_SCRIPT =
+			"local token = redis.call('incr', KEYS[1]) " +
+			"if token == 1 then " +
+			"  redis.call('set', KEYS[1], ARGV[1]) " +
+			"  return tonumber(ARGV[1]) " +
+			"end " +
+			"return token";
+
+	private final RedissonClient redissonClient;
+	private final QuorumLock quorumLock;
+	private final RedisCircuitBreaker circuitBreaker;
+
+	public FencingTokenIssuer(RedissonClient redissonClient, QuorumLock quorumLock,
+			@Value("${account-lock.breaker.failure-threshold:5}") int failureThreshold,
+			@Value("${account-lock.breaker.open-millis:5000}") long openMillis) {
+		this.redissonClient = redissonClient;
+		this.quorumLock = quorumLock;
+		this.circuitBreaker = new RedisCircuitBreaker("Fencing token", failureThreshold, openMillis);
+	}
+
+	//레디스에 닿지 않거나 circuit이 열려 있으면 null (token 없이 진행, lock 자체의 실패 처리와 같게)
+	public Long issue(String accountNumber) {
+		if(!circuitBreaker.tryAcquirePermission()) {
+			return null;
+		}
+		String fenceKey = getFenceKey(accountNumber);
+		long seed = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+		try {
+			Long token = quorumLock.isEnabled() ? quorumLock.issueFencingToken(fenceKey, seed)
+					: redissonClient.getScript(StringCodec.INSTANCE).eval(fenceKey, RScript.Mode.READ_WRITE, ISSUE_SCRIPT,
+							RScript.ReturnType.INTEGER, List.of(fenceKey), String.valueOf(seed));
+			circuitBreaker.onSuccess();
+			return token;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (Exception e) {
+			log.error("Failed to issue fencing token for {}", accountNumber, e);
+			circuitBreaker.onFailure();
+			return null;
+		}
+	}
+
+	RedisCircuitBreaker.State getCircuitState() {
+		return circuitBreaker.getState();
+	}
+
+	private String getFenceKey(String accountNumber) {
+		return "ACLK:FENCE:" + accountNumber;
+	}
+}
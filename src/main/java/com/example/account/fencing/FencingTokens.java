@@ -0,0 +1,27 @@
+package com.example.account.fencing;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//현재 스레드가 잡고 있는 계좌 lock의 fencing token (LockService가 잡을 때 넣고 풀 때 뺀다)
+public final class FencingTokens {
+	private static final ThreadLocal<Map<String, Long>> CURRENT = ThreadLocal.withInitial(HashMap::new);
+
+	private FencingTokens() {
+	}
+
+	public static void bind(String accountNumber, Long token) {
+		if(token != null) {
+			CURRENT.get().put(accountNumber, token);
+		}
+	}
+
+	public static void clear(String accountNumber) {
+		CURRENT.get().remove(accountNumber);
+	}
+
+	//lock 없이 부른 경우(배치, 테스트 등)는 null
+	public static Long current(String accountNumber) {
+		return CURRENT.get().get(accountNumber);
+	}
+}
@@ -0,0 +1,63 @@
+package com.example.account.hotspot;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ count-min sketch
+ - depth개의 행마다 width개의 카운터, 키 하나는 행마다 한 칸씩 더한다
+ - 추정값은 그 칸들 중 최솟값이라 실제보다 작게 나오지 않는다 (width가 클수록 덜 부풀려짐)
+ - 계좌가 몇 개든 메모리는 depth * width * 8 bytes로 고정
+ */
+final class CountMinSketch {
+	private final int depth;
+	private final int mask;
+	private final AtomicLongArray counters;
+	
+	CountMinSketch(int width, int depth) {
+		if(width <= 0 || Integer.bitCount(width) != 1 || depth <= 0) {
+			throw new IllegalArgumentException("width must be a power of two and depth positive");
+		}
+		this.depth = depth;
+		this.mask = width - 1;
+		this.counters = new AtomicLongArray(width * depth);
+	}
+	
+	void add(String key, long amount) {
+		int h1 = mix(key.hashCode());
+		int h2 = mix(h1 ^ 0x5bd1e995) | 1;
+		for(int row = 0; row < depth; row++) {
+			counters.addAndGet(index(row, h1, h2), amount);
+		}
+	}
+	
+	long estimate(String key) {
+		int h1 = mix(key.hashCode());
+		int h2 = mix(h1 ^ 0x5bd1e995) | 1;
+		long min = Long.MAX_VALUE;
+		for(int row = 0; row < depth; row++) {
+			min = Math.min(min, counters.get(index(row, h1, h2)));
+		}
+		return min;
+	}
+	
+	void clear() {
+		for(int i = 0; i < counters.length(); i++) {
+			counters.set(i, 0L);
+		}
+	}
+	
+	//행마다 h1 + row * h2 (해시 두 개로 depth개의 해시를 만든다)
+	private int index(int row, int h1, int h2) {
+		return row * (mask + 1) + ((h1 + row * h2) & mask);
+	}
+	
+	//murmur3 finalizer, String.hashCode의 하위 비트 편향을 섞는다
+	private static int mix(int h) {
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+}
@@ -0,0 +1,9 @@
+package com.example.account.hotspot;
+
+//계좌별로 세는 값 (top-N 정렬 기준)
+public enum HotAccountMetric {
+	REQUESTS, //lock을 거치는 요청 수 (잔액 사용/취소)
+	LOCK_WAIT, //lock 취득까지 기다린 시간 합 (마이크로초)
+	LOCK_FAILURES, //lock을 얻지 못한 요청 수
+	FAILURES; //실패로 저장된 거래 수
+}
@@ -0,0 +1,279 @@
+package com.example.account.hotspot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.account.dto.HotAccounts;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 부하가 몰리는 계좌 top-N (heavy hitters)
+ 1. 시간을 bucket-seconds 단위 구간으로 나누고, 최근 buckets개 구간을 링으로 들고 있는다 (오래된 구간은 덮어씀)
+ 2. 구간마다 값 종류별로 count-min sketch 하나와 top-K 힙 하나, 계좌 수와 상관없이 메모리가 고정된다
+ 3. 조회 시 요청한 기간에 걸친 구간들의 top-K 후보를 모아 sketch 추정값을 더해서 다시 정렬한다
+    (어느 구간에서도 top-K에 못 든 계좌는 기간 전체로는 많아도 빠질 수 있다)
+ */
+@Slf4j
+@Component
+public class HotAccountTracker {
+	private static final HotAccountMetric[] METRICS = HotAccountMetric.values();
+
+	@Value("${hot-account.enabled:true}")
+	private boolean enabled;
+
+	@Value("${hot-account.bucket-seconds:10}")
+	private int bucketSeconds;
+
+	@Value("${hot-account.buckets:30}")
+	private int bucketCount;
+
+	@Value("${hot-account.sketch-width:1024}")
+	private int sketchWidth;
+
+	@Value("${hot-account.sketch-depth:4}")
+	private int sketchDepth;
+
+	@Value("${hot-account.top-k:50}")
+	private int topK;
+
+	LongSupplier clock = System::currentTimeMillis; //테스트에서 시각을 바꿀 수 있게
+
+	private Bucket[] buckets;
+
+	@PostConstruct
+	public void init() {
+		buckets = new Bucket[bucketCount];
+		for(int i = 0; i < bucketCount; i++) {
+			buckets[i] = new Bucket(sketchWidth, sketchDepth, topK);
+		}
+		log.info("Hot account tracker: {} buckets of {}s, sketch {}x{}", bucketCount, bucketSeconds, sketchDepth, sketchWidth);
+	}
+
+	//lock 한 번 (LockAopAspect), 요청 수 + 대기 시간 + 실패 여부
+	public void recordLock(String accountNumber, long waitNanos, boolean acquired) {
+		if(!enabled) {
+			return;
+		}
+
+		Bucket bucket = currentBucket();
+		bucket.add(HotAccountMetric.REQUESTS, accountNumber, 1L);
+		bucket.add(HotAccountMetric.LOCK_WAIT, accountNumber, TimeUnit.NANOSECONDS.toMicros(waitNanos));
+		if(!acquired) {
+			bucket.add(HotAccountMetric.LOCK_FAILURES, accountNumber, 1L);
+		}
+	}
+
+	//실패로 저장된 거래 (TransactionService)
+	public void recordFailures(Collection<String> accountNumbers) {
+		if(!enabled) {
+			return;
+		}
+
+		Bucket bucket = currentBucket();
+		for(String accountNumber : accountNumbers) {
+			bucket.add(HotAccountMetric.FAILURES, accountNumber, 1L);
+		}
+	}
+
+	//최근 windowSeconds 동안 metric 기준 상위 limit개 계좌
+	public List<HotAccounts.Entry> topAccounts(HotAccountMetric metric, int windowSeconds, int limit) {
+		if(windowSeconds <= 0 || windowSeconds > bucketSeconds * bucketCount || limit <= 0 || limit > topK) {
+			throw new AccountException(ErrorCode.INVALID_REQUEST);
+		}
+		if(!enabled) {
+			return List.of();
+		}
+
+		List<Bucket> window = windowBuckets(windowSeconds);
+		Set<String> candidates = new HashSet<>();
+		for(Bucket bucket : window) {
+			candidates.addAll(bucket.candidates(metric));
+		}
+
+		return candidates.stream()
+				.map(accountNumber -> toEntry(accountNumber, window))
+				.sorted(Comparator.comparingLong((HotAccounts.Entry entry) -> valueOf(entry, metric)).reversed()
+						.thenComparing(HotAccounts.Entry::getAccountNumber))
+				.limit(limit)
+				.collect(Collectors.toList());
+	}
+
+	private HotAccounts.Entry toEntry(String accountNumber, List<Bucket> window) {
+		long[] totals = new long[METRICS.length];
+		for(Bucket bucket : window) {
+			for(HotAccountMetric metric : METRICS) {
+				totals[metric.ordinal()] += bucket.estimate(metric, accountNumber);
+			}
+		}
+
+		long requests = totals[HotAccountMetric.REQUESTS.ordinal()];
+		long lockFailures = totals[HotAccountMetric.LOCK_FAILURES.ordinal()];
+		long failures = totals[HotAccountMetric.FAILURES.ordinal()];
+		return HotAccounts.Entry.builder()
+				.accountNumber(accountNumber)
+				.requests(requests)
+				.lockWaitMicros(totals[HotAccountMetric.LOCK_WAIT.ordinal()])
+				.lockFailures(lockFailures)
+				.failures(failures)
+				.failureRate(requests == 0 ? null : Math.min(1.0, (double) (lockFailures + failures) / requests)) //lock 실패는 서비스까지 가지 않으므로 둘을 더한다
+				.build();
+	}
+
+	private static long valueOf(HotAccounts.Entry entry, HotAccountMetric metric) {
+		switch(metric) {
+			case REQUESTS:
+				return entry.getRequests();
+			case LOCK_WAIT:
+				return entry.getLockWaitMicros();
+			case LOCK_FAILURES:
+				return entry.getLockFailures();
+			default:
+				return entry.getFailures();
+		}
+	}
+
+	//지금 구간, 링에서 다른 구간이 쓰던 자리면 비우고 넘겨받는다
+	private Bucket currentBucket() {
+		long epoch = clock.getAsLong() / TimeUnit.SECONDS.toMillis(bucketSeconds);
+		Bucket bucket = buckets[(int) (epoch % bucketCount)];
+		if(bucket.epoch != epoch) {
+			synchronized(bucket) {
+				if(bucket.epoch != epoch) {
+					bucket.reset(epoch);
+				}
+			}
+		}
+		return bucket;
+	}
+
+	//지금 구간을 포함해 windowSeconds를 덮는 구간들 (아직 덮어쓰지 않은 옛 구간은 제외)
+	private List<Bucket> windowBuckets(int windowSeconds) {
+		long epoch = clock.getAsLong() / TimeUnit.SECONDS.toMillis(bucketSeconds);
+		int count = (windowSeconds + bucketSeconds - 1) / bucketSeconds;
+
+		List<Bucket> window = new ArrayList<>(count);
+		for(long e = epoch - count + 1; e <= epoch; e++) {
+			Bucket bucket = buckets[(int) (e % bucketCount)];
+			if(bucket.epoch == e) {
+				window.add(bucket);
+			}
+		}
+		return window;
+	}
+
+	private static final class Bucket {
+		private volatile long epoch = -1L;
+		private final CountMinSketch[] sketches = new CountMinSketch[METRICS.length];
+		private final TopK[] topKs = new TopK[METRICS.length];
+
+		private Bucket(int width, int depth, int k) {
+			for(int i = 0; i < METRICS.length; i++) {
+				sketches[i] = new CountMinSketch(width, depth);
+				topKs[i] = new TopK(k);
+			}
+		}
+
+		private void add(HotAccountMetric metric, String accountNumber, long amount) {
+			CountMinSketch sketch = sketches[metric.ordinal()];
+			sketch.add(accountNumber, amount);
+			topKs[metric.ordinal()].offer(accountNumber, sketch.estimate(accountNumber));
+		}
+
+		private long estimate(HotAccountMetric metric, String accountNumber) {
+			return sketches[metric.ordinal()].estimate(accountNumber);
+		}
+
+		private Set<String> candidates(HotAccountMetric metric) {
+			return topKs[metric.ordinal()].keys();
+		}
+
+		private void reset(long newEpoch) {
+			for(int i = 0; i < METRICS.length; i++) {
+				sketches[i].clear();
+				topKs[i].clear();
+			}
+			epoch = newEpoch;
+		}
+	}
+
+	/*
+	 추정값이 큰 K개 계좌 (최솟값이 위에 오는 힙)
+	 - 가득 찬 뒤에는 힙의 최솟값(floor)보다 작은 추정값은 lock 없이 바로 버린다 (대부분의 요청은 여기서 끝남)
+	 */
+	private static final class TopK {
+		private final int capacity;
+		private final Map<String, Candidate> candidates = new HashMap<>();
+		private final PriorityQueue<Candidate> heap = new PriorityQueue<>(Comparator.comparingLong((Candidate candidate) -> candidate.estimate));
+		private volatile long floor;
+
+		private TopK(int capacity) {
+			this.capacity = capacity;
+		}
+
+		private void offer(String accountNumber, long estimate) {
+			if(estimate <= floor) {
+				return;
+			}
+
+			synchronized(this) {
+				Candidate candidate = candidates.get(accountNumber);
+				if(candidate != null) {
+					heap.remove(candidate);
+					candidate.estimate = Math.max(candidate.estimate, estimate);
+					heap.add(candidate);
+				} else if(heap.size() < capacity) {
+					candidate = new Candidate(accountNumber, estimate);
+					candidates.put(accountNumber, candidate);
+					heap.add(candidate);
+				} else if(estimate > heap.peek().estimate) {
+					candidates.remove(heap.poll().accountNumber);
+					candidate = new Candidate(accountNumber, estimate);
+					candidates.put(accountNumber, candidate);
+					heap.add(candidate);
+				}
+
+				if(heap.size() >= capacity) {
+					floor = heap.peek().estimate;
+				}
+			}
+		}
+
+		private synchronized Set<String> keys() {
+			return new HashSet<>(candidates.keySet());
+		}
+
+		private synchronized void clear() {
+			candidates.clear();
+			heap.clear();
+			floor = 0L;
+		}
+	}
+
+	private static final class Candidate {
+		private final String accountNumber;
+		private long estimate;
+
+		private Candidate(String accountNumber, long estimate) {
+			this.accountNumber = accountNumber;
+			this.estimate = estimate;
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package com.example.account.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+//Account 엔티티의 잔액 변경 (useBalance, cancelBalance)
+@Name("com.example.account.BalanceMutation")
+@Label("Account Balance Mutation")
+@Category({"Account", "Balance"})
+@Description("계좌 잔액 변경 전후 값")
+@StackTrace(false)
+public class BalanceMutationEvent extends Event {
+	
+	@Label("Account Number")
+	public String accountNumber;
+	
+	@Label("Mutation Type")
+	public String mutationType;
+	
+	@Label("Amount")
+	public long amount;
+	
+	@Label("Balance Before")
+	public long balanceBefore;
+	
+	@Label("Balance After")
+	public long balanceAfter;
+}
@@ -0,0 +1,31 @@
+package com.example.account.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+//계좌 lock 취득 시도 하나 (이벤트 구간 = lock 대기 시간), 스레드/시작 시각으로 JDBC, GC 이벤트와 맞춰 볼 수 있다
+@Name("com.example.account.LockAcquire")
+@Label("Account Lock Acquire")
+@Category({"Account", "Lock"})
+@Description("계좌 lock 취득 시도와 결과")
+@StackTrace(false)
+public class LockAcquireEvent extends Event {
+	public static final String ACQUIRED = "ACQUIRED";
+	public static final String TIMEOUT = "TIMEOUT";
+	public static final String ERROR = "ERROR";
+	
+	@Label("Account Number")
+	public String accountNumber;
+	
+	@Label("Wait Time")
+	@Timespan(Timespan.NANOSECONDS)
+	public long waitTime;
+	
+	@Label("Outcome")
+	public String outcome;
+}
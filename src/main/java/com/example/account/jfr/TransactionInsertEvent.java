@@ -0,0 +1,32 @@
+package com.example.account.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+//Transaction 행 저장 (이벤트 구간 = repository save 시간), 일괄 저장이면 rows > 1 이고 transactionId/accountNumber/transactionType은 비어 있다
+@Name("com.example.account.TransactionInsert")
+@Label("Transaction Insert")
+@Category({"Account", "Database"})
+@Description("거래 이력 저장")
+@StackTrace(false)
+public class TransactionInsertEvent extends Event {
+	
+	@Label("Transaction Id")
+	public String transactionId;
+	
+	@Label("Account Number")
+	public String accountNumber;
+	
+	@Label("Transaction Type")
+	public String transactionType;
+	
+	@Label("Result Type")
+	public String resultType;
+	
+	@Label("Rows")
+	public int rows;
+}
@@ -0,0 +1,10 @@
+package com.example.account.ledger;
+
+//Redis 원장과 DB를 맞춘 결과
+public enum ReconcileOutcome {
+	IN_SYNC, //Redis 잔액 = DB 잔액 + 아직 저장되지 않은 journal
+	LOADED, //Redis에 계좌가 없어서 DB + journal로 채웠다
+	RESTORED, //Redis가 DB보다 뒤처져 있어서 (옛 스냅샷으로 재시작 등) DB + journal로 덮어썼다
+	MISMATCH, //Redis가 앞서 있는데 journal로 설명되지 않는다, Redis 값을 그대로 두고 로그를 남긴다
+	NOT_FOUND; //DB에 계좌가 없다
+}
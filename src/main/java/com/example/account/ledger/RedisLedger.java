@@ -0,0 +1,345 @@
+package com.example.account.ledger;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.redisson.api.RList;
+import org.redisson.api.RLock;
+import org.redisson.api.RMap;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.LedgerEntry;
+import com.example.account.dto.ReconcileLedger;
+import com.example.account.dto.TransactionDTO;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.service.TransactionIdGenerator;
+import com.example.account.service.TransactionService;
+import com.example.account.shard.ShardExecutor;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ Redis 원장 모드 (redis-ledger.accounts에 있는 계좌만)
+ 1. 잔액의 원본은 Redis hash, 사용/취소는 Lua 스크립트 한 번으로 (상태 확인, 잔액 확인, 변경, journal 추가) 끝난다
+    - Redis는 스크립트를 하나씩 실행하므로 RLock이 필요 없고, DB 트랜잭션도 열지 않는다
+ 2. journal은 리스트 (내장 레디스 2.8에는 stream이 없음), RedisLedgerPersister가 앞에서부터 batch로 DB에 쓴다
+ 3. 계좌 순번(seq)이 거래마다 1씩 늘고 DB(Account.ledgerSeq)에는 반영한 마지막 순번이 남는다
+    - 장애 후 reconcile에서 DB 잔액 + 남은 journal을 Redis와 비교해 어느 쪽이 앞서 있는지 판단한다
+ - DB의 잔액, 거래 이력은 persist-interval-millis 만큼 늦다
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisLedger {
+	static final String JOURNAL_KEY = "RLDG:JOURNAL";
+	static final String PERSISTER_LOCK_KEY = "RLDG:PERSISTER";
+	static final String DEAD_LETTER_KEY = "RLDG:DEAD_LETTER";
+
+	//KEYS: 계좌 hash, journal, 거래 hash / ARGV: 거래 종류, 계좌번호, 사용자 id, 금액, 거래 id, 거래 시각
+	private static final String BALANCE_SCRIPT = String.join("\n",
+			"local account = redis.call('HMGET', KEYS[1], 'status', 'balance', 'userId')",
+			"if not account[1] then return {'ERROR', 'NOT_LOADED'} end",
+			"local delta = ARGV[4]",
+			"if ARGV[1] == 'USE' then",
+			"  if account[3] ~= ARGV[3] then return {'ERROR', 'USER_ACCOUNT_UN_MATCH'} end",
+			"  if account[1] ~= 'IN_USE' then return {'ERROR', 'ACCOUNT_ALREADY_UNREGISTERED'} end",
+			"  if tonumber(account[2]) < tonumber(ARGV[4]) then return {'ERROR', 'AMOUNT_EXCEED_BALANCE'} end",
+			"  delta = '-' .. ARGV[4]",
+			"end",
+			"local balance = redis.call('HINCRBY', KEYS[1], 'balance', delta)",
+			"local seq = redis.call('HINCRBY', KEYS[1], 'seq', 1)",
+			"redis.call('RPUSH', KEYS[2], table.concat({ARGV[1], ARGV[2], ARGV[4], string.format('%d', balance), string.format('%d', seq), ARGV[5], ARGV[6]}, ','))",
+			"redis.call('HMSET', KEYS[3], 'accountNumber', ARGV[2], 'amount', ARGV[4], 'transactedAt', ARGV[6])",
+			"return {'OK', balance, seq}");
+
+	//KEYS: 계좌 hash / ARGV: 상태, 잔액, 사용자 id, 순번, Redis 순번이 이보다 작거나 없을 때만 덮어쓴다
+	private static final String LOAD_SCRIPT = String.join("\n",
+			"local seq = redis.call('HGET', KEYS[1], 'seq')",
+			"if seq and tonumber(seq) >= tonumber(ARGV[4]) then return 0 end",
+			"redis.call('HMSET', KEYS[1], 'status', ARGV[1], 'balance', ARGV[2], 'userId', ARGV[3], 'seq', ARGV[4])",
+			"return 1");
+
+	//KEYS: journal, dead-letter / ARGV: 옮길 항목, journal 맨 앞이 그 항목일 때만 옮긴다
+	private static final String DEAD_LETTER_SCRIPT = String.join("\n",
+			"if redis.call('LINDEX', KEYS[1], 0) ~= ARGV[1] then return 0 end",
+			"redis.call('RPUSH', KEYS[2], ARGV[1])",
+			"redis.call('LTRIM', KEYS[1], 1, -1)",
+			"return 1");
+
+	private final RedissonClient redissonClient;
+	private final AccountRepository accountRepository;
+	private final TransactionService transactionService; //취소할 거래가 이미 DB에 있을 때
+	private final ShardExecutor shardExecutor;
+
+	@Value("${redis-ledger.enabled:false}")
+	private boolean enabled;
+
+	@Value("${redis-ledger.accounts:}")
+	private Set<String> accountNumbers;
+
+	public boolean handles(String accountNumber) {
+		return enabled && accountNumbers.contains(accountNumber);
+	}
+
+	public TransactionDTO useBalance(Long userId, String accountNumber, Long amount) {
+		return changeBalance(TransactionType.USE, accountNumber, String.valueOf(userId), amount);
+	}
+
+	//원거래는 아직 DB에 저장되지 않았으면 Redis에서, 저장됐으면 DB(보관 세그먼트 포함)에서 찾는다
+	public TransactionDTO cancelBalance(String transactionId, String accountNumber, Long amount) {
+		TransactionDTO transaction = findPendingTransaction(transactionId).orElseGet(() -> transactionService.queryTransaction(transactionId));
+
+		if(!Objects.equals(transaction.getAccountNumber(), accountNumber)) {
+			throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH);
+		}
+
+		if(!Objects.equals(transaction.getAmount(), amount)) {
+			throw new AccountException(ErrorCode.CANCEL_MUST_FULLY);
+		}
+
+		if(transaction.getTransactedAt().isBefore(LocalDateTime.now().minusYears(1))) {
+			throw new AccountException(ErrorCode.TOO_OLD_ORDER_TO_CANCEL);
+		}
+
+		return changeBalance(TransactionType.CANCEL, accountNumber, "", amount);
+	}
+
+	private TransactionDTO changeBalance(TransactionType transactionType, String accountNumber, String userId, Long amount) {
+		String transactionId = TransactionIdGenerator.generate();
+		LocalDateTime transactedAt = LocalDateTime.now();
+		List<Object> keys = Arrays.asList(accountKey(accountNumber), JOURNAL_KEY, transactionKey(transactionId));
+		Object[] args = {transactionType.name(), accountNumber, userId, String.valueOf(amount), transactionId, transactedAt.toString()};
+
+		List<Object> result = script().eval(RScript.Mode.READ_WRITE, BALANCE_SCRIPT, RScript.ReturnType.MULTI, keys, args);
+
+		//Redis에 계좌가 없으면 (재시작 등) DB + journal로 채운 뒤 한 번 더
+		if(isNotLoaded(result)) {
+			if(reconcile(accountNumber).getOutcome() == ReconcileOutcome.NOT_FOUND) {
+				throw new AccountException(ErrorCode.ACCOUNT_NOT_FOUND);
+			}
+			result = script().eval(RScript.Mode.READ_WRITE, BALANCE_SCRIPT, RScript.ReturnType.MULTI, keys, args);
+		}
+
+		if(!"OK".equals(result.get(0))) {
+			throw new AccountException(isNotLoaded(result) ? ErrorCode.ACCOUNT_NOT_FOUND : ErrorCode.valueOf((String) result.get(1)));
+		}
+
+		return TransactionDTO.builder()
+				.accountNumber(accountNumber)
+				.transactionType(transactionType)
+				.transactionResultType(TransactionResultType.S)
+				.amount(amount)
+				.balanceSnapshot(((Number) result.get(1)).longValue())
+				.transactionId(transactionId)
+				.transactedAt(transactedAt)
+				.build();
+	}
+
+	private boolean isNotLoaded(List<Object> result) {
+		return "ERROR".equals(result.get(0)) && "NOT_LOADED".equals(result.get(1));
+	}
+
+	private Optional<TransactionDTO> findPendingTransaction(String transactionId) {
+		Map<String, String> fields = redissonClient.<String, String>getMap(transactionKey(transactionId), StringCodec.INSTANCE).readAllMap();
+		if(fields.isEmpty()) {
+			return Optional.empty();
+		}
+
+		return Optional.of(TransactionDTO.builder()
+				.accountNumber(fields.get("accountNumber"))
+				.amount(Long.parseLong(fields.get("amount")))
+				.transactionId(transactionId)
+				.transactedAt(LocalDateTime.parse(fields.get("transactedAt")))
+				.build());
+	}
+
+	//시작 시 모든 대상 계좌를 맞춘다 (Redis가 비어 있으면 여기서 채워짐)
+	@EventListener(ApplicationReadyEvent.class)
+	public void reconcileOnStartup() {
+		if(!enabled) {
+			return;
+		}
+
+		Map<ReconcileOutcome, Long> outcomes = reconcileAll().stream()
+				.collect(Collectors.groupingBy(ReconcileLedger.Result::getOutcome, Collectors.counting()));
+		log.info("Redis ledger reconciled {} accounts : {}", accountNumbers.size(), outcomes);
+	}
+
+	public List<ReconcileLedger.Result> reconcileAll() {
+		if(!enabled) {
+			return Collections.emptyList();
+		}
+
+		return accountNumbers.stream()
+				.sorted()
+				.map(this::reconcile)
+				.collect(Collectors.toList());
+	}
+
+	//persister와 같은 lock 안에서 (DB 순번과 journal을 읽는 사이에 journal이 잘려나가지 않도록)
+	public ReconcileLedger.Result reconcile(String accountNumber) {
+		RLock lock = persisterLock();
+		try {
+			if(!lock.tryLock(5, TimeUnit.SECONDS)) {
+				throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+		}
+
+		try {
+			return reconcileLocked(accountNumber);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private ReconcileLedger.Result reconcileLocked(String accountNumber) {
+		Optional<Account> found = shardExecutor.onShard(accountNumber, () -> accountRepository.findByAccountNumber(accountNumber));
+		if(found.isEmpty()) {
+			return ReconcileLedger.Result.builder().accountNumber(accountNumber).outcome(ReconcileOutcome.NOT_FOUND).build();
+		}
+
+		Account account = found.get();
+		long databaseSeq = account.getLedgerSeq() == null ? 0L : account.getLedgerSeq();
+
+		//Redis를 먼저 읽는다, Redis가 DB보다 앞서 있으면 그 뒤에 들어온 journal 항목은 비교에서 뺀다
+		Map<String, String> current = accountHash(accountNumber).readAllMap();
+		Long redisSeq = current.containsKey("seq") ? Long.valueOf(current.get("seq")) : null;
+		long cutoffSeq = redisSeq != null && redisSeq >= databaseSeq ? redisSeq : Long.MAX_VALUE;
+
+		//DB 잔액 + DB에 아직 반영되지 않은 journal 항목 = Redis에 있어야 할 잔액
+		long expectedBalance = account.getBalance();
+		long expectedSeq = databaseSeq;
+		long pending = 0;
+		boolean gap = false;
+		for(String line : journal().readAll()) {
+			LedgerEntry entry = LedgerEntry.fromJournalLine(line);
+			if(!entry.getAccountNumber().equals(accountNumber) || entry.getSeq() <= databaseSeq || entry.getSeq() > cutoffSeq) {
+				continue;
+			}
+
+			gap |= entry.getSeq() != expectedSeq + 1;
+			expectedBalance += entry.delta();
+			expectedSeq = entry.getSeq();
+			pending++;
+		}
+
+		ReconcileLedger.Result.ResultBuilder result = ReconcileLedger.Result.builder()
+				.accountNumber(accountNumber)
+				.databaseBalance(account.getBalance())
+				.databaseSeq(databaseSeq)
+				.pendingEntries(pending);
+
+		if(redisSeq == null || redisSeq < expectedSeq) {
+			if(gap) {
+				log.warn("Redis ledger journal of {} has gaps after seq {}, loading what is left", accountNumber, databaseSeq);
+			}
+
+			long loaded = script().eval(RScript.Mode.READ_WRITE, LOAD_SCRIPT, RScript.ReturnType.INTEGER,
+					Collections.singletonList(accountKey(accountNumber)),
+					account.getAccountStatus().name(), String.valueOf(expectedBalance), String.valueOf(account.getAccountUser().getId()), String.valueOf(expectedSeq));
+			if(loaded == 0L) {
+				//그 사이 다른 노드가 먼저 채웠다
+				return reconcileLocked(accountNumber);
+			}
+
+			log.info("Redis ledger {} account {} : balance {}, seq {}", redisSeq == null ? "loaded" : "restored", accountNumber, expectedBalance, expectedSeq);
+			return result.outcome(redisSeq == null ? ReconcileOutcome.LOADED : ReconcileOutcome.RESTORED)
+					.redisBalance(expectedBalance)
+					.redisSeq(expectedSeq)
+					.build();
+		}
+
+		long redisBalance = Long.parseLong(current.get("balance"));
+		result.redisBalance(redisBalance).redisSeq(redisSeq);
+		if(!gap && redisSeq == expectedSeq && redisBalance == expectedBalance) {
+			return result.outcome(ReconcileOutcome.IN_SYNC).build();
+		}
+
+		//Redis가 원본이므로 그대로 두고 운영자가 확인하도록 남긴다
+		log.error("Redis ledger mismatch for {} : redis balance {} seq {}, database {} + journal = balance {} seq {}",
+				accountNumber, redisBalance, redisSeq, account.getBalance(), expectedBalance, expectedSeq);
+		return result.outcome(ReconcileOutcome.MISMATCH).build();
+	}
+
+	//journal 앞에서부터 count개 (persister)
+	List<LedgerEntry> peekJournal(int count) {
+		List<LedgerEntry> entries = new ArrayList<>();
+		for(String line : journal().range(0, count - 1)) {
+			entries.add(LedgerEntry.fromJournalLine(line));
+		}
+		return entries;
+	}
+
+	//DB에 저장한 항목을 journal 앞에서 잘라내고, 취소용으로 남겨둔 거래 hash도 지운다 (이제 DB에서 찾을 수 있음)
+	void trimJournal(List<LedgerEntry> persisted) {
+		journal().trim(persisted.size(), -1);
+		redissonClient.getKeys().delete(persisted.stream().map(entry -> transactionKey(entry.getTransactionId())).toArray(String[]::new));
+	}
+
+	//DB에 쓸 수 없는 journal 맨 앞 항목을 dead-letter 리스트로 옮긴다 (운영자가 확인한 뒤 journal에 다시 넣는다)
+	boolean deadLetter(LedgerEntry entry) {
+		long moved = script().eval(RScript.Mode.READ_WRITE, DEAD_LETTER_SCRIPT, RScript.ReturnType.INTEGER,
+				Arrays.asList(JOURNAL_KEY, DEAD_LETTER_KEY), entry.toJournalLine());
+		return moved == 1L;
+	}
+
+	long journalLength() {
+		return journal().size();
+	}
+
+	long deadLetterLength() {
+		return redissonClient.getList(DEAD_LETTER_KEY, StringCodec.INSTANCE).size();
+	}
+
+	RLock persisterLock() {
+		return redissonClient.getLock(PERSISTER_LOCK_KEY);
+	}
+
+	boolean isEnabled() {
+		return enabled;
+	}
+
+	private RScript script() {
+		return redissonClient.getScript(StringCodec.INSTANCE);
+	}
+
+	private RList<String> journal() {
+		return redissonClient.getList(JOURNAL_KEY, StringCodec.INSTANCE);
+	}
+
+	private RMap<String, String> accountHash(String accountNumber) {
+		return redissonClient.getMap(accountKey(accountNumber), StringCodec.INSTANCE);
+	}
+
+	private String accountKey(String accountNumber) {
+		return "RLDG:ACCOUNT:" + accountNumber;
+	}
+
+	private String transactionKey(String transactionId) {
+		return "RLDG:TX:" + transactionId;
+	}
+}
@@ -0,0 +1,170 @@
+package com.example.account.ledger;
+
+import java.util.List;
+
+import org.redisson.api.RLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import com.example.account.dto.LedgerEntry;
+import com.example.account.service.TransactionService;
+import com.example.account.shard.ShardExecutor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ Redis 원장 journal -> DB
+ 1. journal 앞에서 batch-size 만큼 읽는다 (지우지 않음)
+ 2. 샤드별로 나눠 한 트랜잭션에 거래 이력, 계좌 잔액/순번, outbox를 쓴다
+ 3. 모든 샤드가 성공하면 그만큼 journal 앞을 잘라낸다
+ 4. 실패하면 앞에서부터 한 항목씩 저장해서 저장된 만큼 잘라내고, 실패한 항목에서 멈춘다 (다음 주기에 다시)
+    - 같은 항목이 max-attempts 번 연속 실패하면 dead-letter 리스트로 옮긴다 (한 항목 때문에 journal 전체가 멈추지 않게)
+    - DB 연결 실패 같은 일시적인 오류는 항목 탓이 아니므로 세지 않는다
+ - 한 주기에 최대 max-batches 개의 batch만 쓴다 (밀려 있어도 lock과 스케줄러 스레드를 오래 잡지 않게)
+ - journal, dead-letter 길이는 주기마다 읽어 두고 게이지는 그 값을 보여준다 (scrape 때 레디스를 부르지 않음)
+ - 다시 쓰더라도 DB 순번(Account.ledgerSeq) 이하의 항목은 건너뛰므로 두 번 저장되지 않는다
+ - 여러 노드 중 lock을 잡은 하나만 실행한다 (읽고 잘라내는 사이에 다른 노드가 끼면 항목을 잃을 수 있음)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisLedgerPersister {
+	private final RedisLedger redisLedger;
+	private final TransactionService transactionService;
+	private final ShardExecutor shardExecutor;
+
+	@Value("${redis-ledger.persist-batch-size:500}")
+	private int batchSize;
+
+	@Value("${redis-ledger.persist-max-batches:10}")
+	private int maxBatches;
+
+	@Value("${redis-ledger.persist-max-attempts:10}")
+	private int maxAttempts;
+
+	private String failingTransactionId; //연속으로 실패하고 있는 journal 맨 앞 항목
+	private int failedAttempts;
+
+	private volatile long journalLength; //게이지용, 읽지 못하면 -1
+	private volatile long deadLetterLength;
+
+	@Scheduled(fixedDelayString = "${redis-ledger.persist-interval-millis:200}")
+	public void persist() {
+		if(!redisLedger.isEnabled()) {
+			return;
+		}
+
+		RLock lock = redisLedger.persisterLock();
+		if(lock.tryLock()) {
+			try {
+				//남은 항목은 다음 주기에
+				for(int batch = 1; persistBatch() == batchSize && batch < maxBatches; batch++) {
+					log.debug("Redis ledger journal has more entries, continuing");
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		refreshLengths();
+	}
+
+	public long getJournalLength() {
+		return journalLength;
+	}
+
+	public long getDeadLetterLength() {
+		return deadLetterLength;
+	}
+
+	//저장한 항목 수를 반환
+	int persistBatch() {
+		List<LedgerEntry> entries = redisLedger.peekJournal(batchSize);
+		if(entries.isEmpty()) {
+			return 0;
+		}
+
+		try {
+			save(entries);
+		} catch (Exception e) {
+			log.warn("Failed to persist {} redis ledger entries, retrying one by one", entries.size(), e);
+			return persistOneByOne(entries);
+		}
+
+		redisLedger.trimJournal(entries);
+		return entries.size();
+	}
+
+	//앞에서부터 하나씩 저장, 저장된 만큼 잘라내고 실패한 항목에서 멈춘다
+	private int persistOneByOne(List<LedgerEntry> entries) {
+		int persisted = 0;
+		for(LedgerEntry entry : entries) {
+			try {
+				save(List.of(entry));
+			} catch (Exception e) {
+				if(persisted > 0) {
+					redisLedger.trimJournal(entries.subList(0, persisted));
+				}
+				failed(entry, e);
+				return persisted;
+			}
+			persisted++;
+		}
+
+		redisLedger.trimJournal(entries);
+		return persisted;
+	}
+
+	private void failed(LedgerEntry entry, Exception e) {
+		if(isTransient(e)) {
+			log.error("Failed to persist redis ledger entry {}, retrying next time", entry.getTransactionId(), e);
+			return;
+		}
+
+		if(entry.getTransactionId().equals(failingTransactionId)) {
+			failedAttempts++;
+		} else {
+			failingTransactionId = entry.getTransactionId();
+			failedAttempts = 1;
+		}
+
+		if(failedAttempts < maxAttempts) {
+			log.error("Failed to persist redis ledger entry {} ({}/{} attempts), retrying next time", entry.getTransactionId(), failedAttempts, maxAttempts, e);
+			return;
+		}
+
+		if(redisLedger.deadLetter(entry)) {
+			log.error("Moved redis ledger entry {} to the dead letter list after {} attempts : {}", entry.getTransactionId(), failedAttempts, entry.toJournalLine(), e);
+		}
+		failingTransactionId = null;
+		failedAttempts = 0;
+	}
+
+	//DB에 닿지 못한 경우, 어느 항목이든 똑같이 실패한다
+	private boolean isTransient(Exception e) {
+		return e instanceof TransientDataAccessException
+				|| e instanceof DataAccessResourceFailureException
+				|| e instanceof CannotCreateTransactionException;
+	}
+
+	private void save(List<LedgerEntry> entries) {
+		shardExecutor.partition(entries, LedgerEntry::getAccountNumber)
+				.forEach((shard, shardEntries) -> shardExecutor.runOnShard(shard, () -> transactionService.saveLedgerEntries(shardEntries)));
+	}
+
+	private void refreshLengths() {
+		try {
+			journalLength = redisLedger.journalLength();
+			deadLetterLength = redisLedger.deadLetterLength();
+		} catch (RuntimeException e) {
+			log.debug("Failed to read redis ledger journal length", e);
+			journalLength = -1;
+			deadLetterLength = -1;
+		}
+	}
+}
@@ -0,0 +1,312 @@
+package com.example.account.redlock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.redisson.Redisson;
+import org.redisson.api.RFuture;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisConnectionException;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.config.Config;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 여러 레디스에 과반수로 잡는 계좌 lock (Redlock, redlock.enabled=true 일 때 LockService가 사용)
+ 1. 계좌번호 해시로 nodes 중 replicas개의 레디스를 고른다 (계좌마다 다른 레디스 묶음 -> 부하가 nodes 전체로 퍼짐)
+ 2. 고른 레디스 모두에 SET key token NX PX lease 를 동시에(비동기) 보내고 node-timeout-millis까지만 기다린다
+ 3. 과반수가 성공하고 걸린 시간 + clock drift를 빼도 lease가 남으면 성공, 아니면 잡은 곳을 풀고 잠깐 쉬었다 다시 시도한다
+ 4. 풀 때는 token이 같을 때만 지운다 (lease가 지나 다른 요청이 잡은 lock은 건드리지 않음)
+ - 레디스 하나가 죽어도(replicas=3 이면) 나머지 둘로 계속 lock을 잡는다, 죽은 레디스는 주기적으로 다시 연결한다
+ - 과반수가 답하지 않으면 기다리지 않고 RedisConnectionException
+ - token은 lock을 잡은 스레드에 둔다 (LockAopAspect는 같은 스레드에서 잡고 푼다)
+ - fencing token도 같은 레디스들에서 발급한다 (issueFencingToken, 레디스 한 대가 죽거나 비워져도 줄어들지 않게)
+ */
+@Slf4j
+@Component
+public class QuorumLock {
+	private static final String UNLOCK_SCRIPT =
+			"if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
+	private static final String RAISE_SCRIPT =
+			"local current = tonumber(redis.call('get', KEYS[1])) " +
+			"if current == nil or current < tonumber(ARGV[1]) then redis.call('set', KEYS[1], ARGV[1]) end " +
+			"return 1";
+
+	@Value("${redlock.enabled:false}")
+	private boolean enabled;
+
+	@Value("${redlock.nodes:}")
+	private List<String> addresses;
+
+	@Value("${redlock.replicas:3}")
+	private int replicas;
+
+	@Value("${redlock.node-timeout-millis:50}")
+	private long nodeTimeoutMillis;
+
+	@Value("${redlock.clock-drift-factor:0.01}")
+	private double clockDriftFactor;
+
+	private final ThreadLocal<Map<String, String>> heldTokens = ThreadLocal.withInitial(HashMap::new); //lock key -> token
+
+	private EventLoopGroup eventLoopGroup; //레디스마다 클라이언트를 두지만 네트워크 스레드는 함께 쓴다
+	private Node[] nodes;
+
+	@PostConstruct
+	public void init() {
+		if(!enabled) {
+			return;
+		}
+		if(addresses.isEmpty() || replicas < 1 || replicas > addresses.size()) {
+			throw new IllegalStateException("redlock.replicas must be between 1 and the number of redlock.nodes " + addresses);
+		}
+
+		eventLoopGroup = new NioEventLoopGroup();
+		nodes = new Node[addresses.size()];
+		for(int i = 0; i < nodes.length; i++) {
+			nodes[i] = new Node(addresses.get(i));
+			connect(nodes[i]);
+		}
+		log.info("Quorum lock on {} redis nodes, {} per account (quorum {})", nodes.length, replicas, quorum());
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if(nodes == null) {
+			return;
+		}
+		for(Node node : nodes) {
+			if(node.client != null) {
+				node.client.shutdown();
+			}
+		}
+		eventLoopGroup.shutdownGracefully();
+	}
+
+	//기동 때나 이후에 연결하지 못한 레디스 (연결될 때까지 그 레디스는 실패로 센다)
+	@Scheduled(fixedDelayString = "${redlock.reconnect-interval-millis:5000}")
+	public void reconnect() {
+		if(nodes == null) {
+			return;
+		}
+		for(Node node : nodes) {
+			if(node.client == null) {
+				connect(node);
+			}
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	//RLock.tryLock(waitTime, leaseTime, unit)과 같은 의미
+	public boolean tryLock(String key, long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException {
+		Node[] selected = nodesOf(key);
+		String token = UUID.randomUUID().toString();
+		long leaseMillis = unit.toMillis(leaseTime);
+		long deadline = System.nanoTime() + unit.toNanos(waitTime);
+
+		while(true) {
+			if(tryLockOnce(selected, key, token, leaseMillis)) {
+				heldTokens.get().put(key, token);
+				return true;
+			}
+			if(System.nanoTime() >= deadline) {
+				return false;
+			}
+			//여러 요청이 동시에 다시 시도해서 또 표가 갈리지 않도록 임의로 쉰다
+			Thread.sleep(ThreadLocalRandom.current().nextLong(5L, 25L));
+		}
+	}
+
+	public void unlock(String key) {
+		String token = heldTokens.get().remove(key);
+		if(token == null) {
+			log.warn("Unlock of {} without holding its quorum lock", key);
+			return;
+		}
+		release(nodesOf(key), key, token);
+	}
+
+	/*
+	 과반수에서 읽은 가장 큰 값 + 1을 과반수에 쓴다 (없으면 seed부터)
+	 - 앞서 발급한 token을 쓴 과반수와 이번에 읽는 과반수는 적어도 한 대가 겹치므로 항상 더 큰 token이 나온다
+	 - 계좌 lock을 잡은 뒤에 부르므로 같은 계좌의 발급이 겹치지 않는다 (겹쳐서 같은 token이 나와도 TransactionService가 하나만 통과시킨다)
+	 */
+	public long issueFencingToken(String key, long seed) throws InterruptedException {
+		Node[] selected = nodesOf(key);
+		List<RFuture<String>> reads = new ArrayList<>(selected.length);
+		for(Node node : selected) {
+			RedissonClient client = node.client;
+			reads.add(client == null ? null : client.<String>getBucket(key, StringCodec.INSTANCE).getAsync());
+		}
+
+		int answered = 0;
+		long max = Long.MIN_VALUE;
+		long readDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(nodeTimeoutMillis);
+		for(RFuture<String> future : reads) {
+			if(future == null) {
+				continue;
+			}
+			try {
+				String value = future.toCompletableFuture().get(Math.max(0L, readDeadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+				answered++;
+				if(value != null) {
+					max = Math.max(max, Long.parseLong(value));
+				}
+			} catch (ExecutionException | TimeoutException e) {
+				//답하지 않은 레디스
+			}
+		}
+		if(answered < quorum()) {
+			throw new RedisConnectionException("Quorum of redlock nodes unavailable for " + key + ", answered " + answered + "/" + selected.length);
+		}
+
+		long token = max == Long.MIN_VALUE ? seed : max + 1;
+		List<RFuture<Long>> writes = new ArrayList<>(selected.length);
+		for(Node node : selected) {
+			RedissonClient client = node.client;
+			writes.add(client == null ? null : client.getScript(StringCodec.INSTANCE)
+					.evalAsync(key, RScript.Mode.READ_WRITE, RAISE_SCRIPT, RScript.ReturnType.INTEGER, List.of(key), String.valueOf(token)));
+		}
+
+		int written = 0;
+		long writeDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(nodeTimeoutMillis);
+		for(RFuture<Long> future : writes) {
+			if(await(future, writeDeadline) != null) {
+				written++;
+			}
+		}
+		if(written < quorum()) {
+			throw new RedisConnectionException("Quorum of redlock nodes did not store fencing token " + key + ", written " + written + "/" + selected.length);
+		}
+		return token;
+	}
+
+	private boolean tryLockOnce(Node[] selected, String key, String token, long leaseMillis) throws InterruptedException {
+		long start = System.nanoTime();
+		List<RFuture<Boolean>> futures = new ArrayList<>(selected.length);
+		for(Node node : selected) {
+			RedissonClient client = node.client;
+			futures.add(client == null ? null : client.<String>getBucket(key, StringCodec.INSTANCE).trySetAsync(token, leaseMillis, TimeUnit.MILLISECONDS));
+		}
+
+		int acquired = 0;
+		int answered = 0;
+		long timeoutDeadline = start + TimeUnit.MILLISECONDS.toNanos(nodeTimeoutMillis);
+		for(RFuture<Boolean> future : futures) {
+			Boolean result = await(future, timeoutDeadline);
+			if(result != null) {
+				answered++;
+				acquired += result ? 1 : 0;
+			}
+		}
+		if(answered < quorum()) {
+			//다른 요청이 잡고 있는 것과 달리 기다려도 소용없다 (LockService의 circuit breaker가 실패로 센다)
+			release(selected, key, token);
+			throw new RedisConnectionException("Quorum of redlock nodes unavailable for " + key + ", answered " + answered + "/" + selected.length);
+		}
+
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		long validityMillis = leaseMillis - elapsedMillis - (long) (leaseMillis * clockDriftFactor) - 2L;
+		if(acquired >= quorum() && validityMillis > 0) {
+			return true;
+		}
+
+		release(selected, key, token); //늦게 성공한 레디스도 있을 수 있으므로 모두에 보낸다
+		return false;
+	}
+
+	private void release(Node[] selected, String key, String token) {
+		List<RFuture<Long>> futures = new ArrayList<>(selected.length);
+		for(Node node : selected) {
+			RedissonClient client = node.client;
+			futures.add(client == null ? null : client.getScript(StringCodec.INSTANCE)
+					.evalAsync(key, RScript.Mode.READ_WRITE, UNLOCK_SCRIPT, RScript.ReturnType.INTEGER, List.of(key), token));
+		}
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(nodeTimeoutMillis);
+		try {
+			for(RFuture<Long> future : futures) {
+				await(future, deadline);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt(); //못 푼 곳은 lease가 지나면 풀린다
+		}
+	}
+
+	//실패하거나 시간 안에 답이 없으면 null
+	private static <V> V await(RFuture<V> future, long deadline) throws InterruptedException {
+		if(future == null) {
+			return null;
+		}
+		try {
+			return future.toCompletableFuture().get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		} catch (ExecutionException | TimeoutException e) {
+			return null;
+		}
+	}
+
+	//계좌 key 해시에서 시작해 이어지는 replicas개 레디스
+	Node[] nodesOf(String key) {
+		int hash = key.hashCode();
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		int first = Math.floorMod(hash, nodes.length);
+
+		Node[] selected = new Node[replicas];
+		for(int i = 0; i < replicas; i++) {
+			selected[i] = nodes[(first + i) % nodes.length];
+		}
+		return selected;
+	}
+
+	private int quorum() {
+		return replicas / 2 + 1;
+	}
+
+	private void connect(Node node) {
+		Config config = new Config();
+		config.setEventLoopGroup(eventLoopGroup);
+		config.setUseScriptCache(true);
+		config.useSingleServer()
+				.setAddress(node.address)
+				.setTimeout((int) nodeTimeoutMillis)
+				.setRetryAttempts(0) //다시 보내지 않고 그 레디스는 실패로 센다
+				.setConnectionMinimumIdleSize(4);
+		try {
+			node.client = Redisson.create(config);
+			log.info("Connected quorum lock node {}", node.address);
+		} catch (Exception e) {
+			log.error("Failed to connect quorum lock node {}, retrying later", node.address, e);
+		}
+	}
+
+	static final class Node {
+		final String address;
+		volatile RedissonClient client;
+
+		private Node(String address) {
+			this.address = address;
+		}
+	}
+}
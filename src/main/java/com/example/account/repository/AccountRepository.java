@@ -1,9 +1,14 @@
 package com.example.account.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.account.domain.Account;
@@ -29,5 +34,19 @@ public interface AccountRepository extends JpaRepository<Account, Long> { //Long
 	
 	Optional<Account> findByAccountNumber(String AccountNumber);
 	
+	List<Account> findByAccountNumberIn(Collection<String> accountNumbers); //WHERE account_number IN (...)
+	
 	List<Account> findByAccountUser(AccountUser accountUser); //Account에 연관관계로 포함된 AccountUser가 있어서 이 메소드가 이 인터페이스를 통해 SQL을 자동 생성한다
+	
+	//id 순서로 나눠 읽기 (체크포인트 작업)
+	List<Account> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+	
+	//읽기 모델 재구성용, 엔티티를 만들지 않고 (사용자 id, 계좌번호, 잔액)만 조회
+	@Query("select a.accountUser.id, a.accountNumber, a.balance from Account a order by a.accountUser.id, a.id")
+	List<Object[]> findAllBalances();
+	
+	//더 큰 fencing token일 때만 올린다, 0이면 더 늦게 잡은 lock이 이미 잔액을 바꿨다 (update가 행 lock을 잡으므로 이후 조회는 최신 값)
+	@Modifying
+	@Query("update Account a set a.lastFencingToken = :token where a.accountNumber = :accountNumber and (a.lastFencingToken is null or a.lastFencingToken < :token)")
+	int advanceFencingToken(@Param("accountNumber") String accountNumber, @Param("token") Long token);
 }
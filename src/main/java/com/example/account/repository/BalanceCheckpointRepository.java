@@ -0,0 +1,20 @@
+package com.example.account.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.account.domain.BalanceCheckpoint;
+
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, Long> {
+	
+	//(account_id, checkpoint_at) 인덱스를 역순으로 한 번 찾는다, (잔액, 시각)만 조회
+	@Query("select c.balance, c.checkpointAt from BalanceCheckpoint c where c.account.id = :accountId and c.checkpointAt <= :at order by c.checkpointAt desc")
+	List<Object[]> findBalancesAtOrBefore(@Param("accountId") Long accountId, @Param("at") LocalDateTime at, Pageable pageable);
+}
@@ -0,0 +1,23 @@
+package com.example.account.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.account.domain.BalanceHold;
+import com.example.account.type.HoldStatus;
+
+@Repository
+public interface BalanceHoldRepository extends JpaRepository<BalanceHold, Long> {
+	
+	Optional<BalanceHold> findByHoldId(String holdId);
+	
+	//만료 대상 ((status, expires_at) 인덱스 사용), 계좌도 join으로 한 번에 읽는다
+	@EntityGraph(attributePaths = "account")
+	List<BalanceHold> findByHoldStatusAndExpiresAtBeforeOrderByExpiresAtAsc(HoldStatus holdStatus, LocalDateTime expiresAt, Pageable pageable);
+}
@@ -0,0 +1,35 @@
+package com.example.account.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.account.domain.DailyAccountRollup;
+
+@Repository
+public interface DailyAccountRollupRepository extends JpaRepository<DailyAccountRollup, Long> {
+	
+	//(account_id, rollup_date) 유니크 인덱스로 범위 조회
+	List<DailyAccountRollup> findByAccountIdAndRollupDateBetweenOrderByRollupDateAsc(Long accountId, LocalDate from, LocalDate to);
+	
+	//읽지 않고 한 번의 update로 더한다 (동시에 더해도 잃어버리는 값이 없음), 마감 잔액은 더 나중 거래일 때만 바꾼다
+	//갱신된 행이 없으면 0 (그날의 첫 거래)
+	@Modifying
+	@Query("update DailyAccountRollup r set r.usedAmount = r.usedAmount + :used, r.cancelledAmount = r.cancelledAmount + :cancelled,"
+			+ " r.failedCount = r.failedCount + :failed,"
+			+ " r.closingBalance = case when r.lastTransactedAt is null or r.lastTransactedAt <= :at then :closing else r.closingBalance end,"
+			+ " r.lastTransactedAt = case when r.lastTransactedAt is null or r.lastTransactedAt <= :at then :at else r.lastTransactedAt end"
+			+ " where r.account.id = :accountId and r.rollupDate = :date")
+	int addDelta(@Param("accountId") Long accountId, @Param("date") LocalDate date, @Param("used") long used, @Param("cancelled") long cancelled,
+			@Param("failed") long failed, @Param("closing") Long closing, @Param("at") LocalDateTime at);
+	
+	@Modifying
+	@Query("delete from DailyAccountRollup r where r.rollupDate = :date")
+	int deleteByRollupDate(@Param("date") LocalDate date);
+}
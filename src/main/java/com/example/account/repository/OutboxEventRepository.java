@@ -0,0 +1,33 @@
+package com.example.account.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.account.domain.OutboxEvent;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+	
+	//아직 전달하지 않은 이벤트를 id 순서대로 pageable 크기만큼 (늦게 커밋된 작은 id도 커밋되면 다음 주기에 읽힌다)
+	List<OutboxEvent> findBySentAtIsNullOrderByIdAsc(Pageable pageable);
+	
+	@Transactional
+	@Modifying
+	@Query("update OutboxEvent e set e.sentAt = :sentAt where e.id in :ids")
+	int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+	
+	//보관 기간이 지난 전달 완료 이벤트 (아직 전달하지 않은 이벤트는 지우지 않는다)
+	@Transactional
+	@Modifying
+	@Query("delete from OutboxEvent e where e.sentAt < :before")
+	int deleteSentBefore(@Param("before") LocalDateTime before);
+}
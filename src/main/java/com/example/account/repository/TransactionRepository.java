@@ -1,14 +1,61 @@
 package com.example.account.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.account.domain.Transaction;
+import com.example.account.type.TransactionResultType;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> { //구현체를 만드는 인터페이스
 
 	Optional<Transaction> findByTransactionId(String transationId);
+	
+	//보관 대상 (transactedAt 인덱스 사용)
+	List<Transaction> findByTransactedAtBeforeOrderByIdAsc(LocalDateTime transactedAt, Pageable pageable);
+	
+	//(account_id, transacted_at) 인덱스를 역순으로 한 번 찾는다, (잔액, 시각)만 조회
+	@Query("select t.balanceSnapshot, t.transactedAt from Transaction t"
+			+ " where t.account.id = :accountId and t.transactionResultType = :resultType and t.transactedAt <= :at order by t.transactedAt desc")
+	List<Object[]> findBalancesAtOrBefore(@Param("accountId") Long accountId, @Param("resultType") TransactionResultType resultType,
+			@Param("at") LocalDateTime at, Pageable pageable);
+	
+	//at 이후의 첫 거래 (잔액, 유형, 금액), 체크포인트가 없는 기존 계좌에서 거래 전 잔액을 역산할 때
+	@Query("select t.balanceSnapshot, t.transactionType, t.amount from Transaction t"
+			+ " where t.account.id = :accountId and t.transactionResultType = :resultType and t.transactedAt > :at order by t.transactedAt asc")
+	List<Object[]> findBalancesAfter(@Param("accountId") Long accountId, @Param("resultType") TransactionResultType resultType,
+			@Param("at") LocalDateTime at, Pageable pageable);
+	
+	//일별 합계 재계산: 하루 동안의 (계좌, 유형, 결과)별 금액 합계와 건수 (transacted_at 인덱스로 범위 조회)
+	@Query("select t.account.id, t.transactionType, t.transactionResultType, sum(t.amount), count(t) from Transaction t"
+			+ " where t.transactedAt >= :from and t.transactedAt < :to group by t.account.id, t.transactionType, t.transactionResultType")
+	List<Object[]> sumByAccountBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+	
+	//일별 합계 재계산: 하루 동안 계좌별 마지막 거래의 (계좌 id, 거래 id, 잔액, 시각), 같은 시각이 여러 건이면 모두 반환
+	@Query("select t.account.id, t.id, t.balanceSnapshot, t.transactedAt from Transaction t"
+			+ " where t.transactedAt >= :from and t.transactedAt < :to and t.transactedAt = (select max(l.transactedAt) from Transaction l"
+			+ " where l.account = t.account and l.transactedAt >= :from and l.transactedAt < :to)")
+	List<Object[]> findLastBalancesBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+	
+	//체크포인트 작업: 계좌 batch에서 마지막 체크포인트보다 나중인 마지막 성공 거래의 (계좌 id, 거래 id, 잔액, 시각)를 한 번에 조회
+	//같은 시각이 여러 건이면 모두 반환, 체크포인트 이후 거래가 없는 계좌는 빠진다
+	@Query("select t.account.id, t.id, t.balanceSnapshot, t.transactedAt from Transaction t"
+			+ " where t.account.id in :accountIds and t.transactionResultType = :resultType"
+			+ " and t.transactedAt = (select max(l.transactedAt) from Transaction l where l.account = t.account and l.transactionResultType = :resultType)"
+			+ " and not exists (select c.id from BalanceCheckpoint c where c.account = t.account and c.checkpointAt >= t.transactedAt)")
+	List<Object[]> findLastBalancesAfterCheckpoint(@Param("accountIds") List<Long> accountIds, @Param("resultType") TransactionResultType resultType);
+	
+	//계좌의 기간 합계: (유형, 결과)별 금액 합계, 건수, 최소, 최대를 DB에서 한 번에 계산한다 (엔티티를 읽지 않음)
+	//(account_id, transacted_at, ...) 인덱스 범위만 읽는다
+	@Query("select t.transactionType, t.transactionResultType, sum(t.amount), count(t), min(t.amount), max(t.amount) from Transaction t"
+			+ " where t.account.id = :accountId and t.transactedAt >= :from and t.transactedAt < :to"
+			+ " group by t.transactionType, t.transactionResultType")
+	List<Object[]> summarizeByAccountBetween(@Param("accountId") Long accountId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,144 @@
+package com.example.account.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.account.dto.AccountDTO;
+import com.example.account.dto.AccountInfo;
+import com.example.account.event.AccountsChangedEvent;
+import com.example.account.event.BalanceChangedEvent;
+import com.example.account.repository.AccountRepository;
+import com.example.account.shard.ShardExecutor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 사용자별 잔액 읽기 모델 (CQRS)
+ - userId -> (계좌번호[], 잔액[]) 배열로 메모리에 들고 있는다
+ - 시작 시 DB에서 한 번에 만들고, 커밋된 잔액 변경 이벤트로 갱신한다
+ - 다른 노드의 변경은 이벤트로 들어오지 않으므로, DB에서 읽은 지 max-staleness가 지난 항목은 다시 DB에서 읽는다
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccountReadModel {
+	private final AccountRepository accountRepository;
+	private final ShardExecutor shardExecutor;
+	
+	@Value("${read-model.enabled:true}")
+	private boolean enabled;
+	
+	@Value("${read-model.max-staleness-millis:5000}")
+	private long maxStalenessMillis;
+	
+	private final Map<Long, UserBalances> users = new ConcurrentHashMap<>();
+	
+	//시작 시 전체 재구성 (샤드마다 사용자 id, 계좌번호 순으로 한 번의 조회)
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		if(!enabled) {
+			return;
+		}
+		
+		Map<Long, List<Object[]>> rowsByUser = new HashMap<>();
+		for(List<Object[]> shardRows : shardExecutor.onAllShards(accountRepository::findAllBalances)) {
+			for(Object[] row : shardRows) {
+				rowsByUser.computeIfAbsent((Long) row[0], userId -> new ArrayList<>()).add(row);
+			}
+		}
+		
+		long now = System.nanoTime();
+		users.clear();
+		rowsByUser.forEach((userId, rows) -> {
+			String[] accountNumbers = new String[rows.size()];
+			long[] balances = new long[rows.size()];
+			for(int i = 0; i < rows.size(); i++) {
+				accountNumbers[i] = (String) rows.get(i)[1];
+				balances[i] = (Long) rows.get(i)[2];
+			}
+			users.put(userId, new UserBalances(accountNumbers, balances, now));
+		});
+		
+		log.info("Account read model rebuilt for {} users", users.size());
+	}
+	
+	//읽기 모델에 있고 충분히 최신이면 바로 반환, 아니면 empty (호출한 쪽에서 DB로 읽고 load 한다)
+	public Optional<List<AccountInfo>> getAccountInfos(Long userId) {
+		if(!enabled) {
+			return Optional.empty();
+		}
+		
+		UserBalances userBalances = users.get(userId);
+		if(userBalances == null || System.nanoTime() - userBalances.loadedAt > TimeUnit.MILLISECONDS.toNanos(maxStalenessMillis)) {
+			return Optional.empty();
+		}
+		
+		List<AccountInfo> accountInfos = new ArrayList<>(userBalances.accountNumbers.length);
+		for(int i = 0; i < userBalances.accountNumbers.length; i++) {
+			accountInfos.add(new AccountInfo(userBalances.accountNumbers[i], userBalances.balances[i]));
+		}
+		return Optional.of(accountInfos);
+	}
+	
+	//DB에서 읽은 결과로 사용자 항목을 교체
+	public void load(Long userId, List<AccountDTO> accountDTOs) {
+		if(!enabled) {
+			return;
+		}
+		
+		String[] accountNumbers = new String[accountDTOs.size()];
+		long[] balances = new long[accountDTOs.size()];
+		for(int i = 0; i < accountDTOs.size(); i++) {
+			accountNumbers[i] = accountDTOs.get(i).getAccountNumber();
+			balances[i] = accountDTOs.get(i).getBalance();
+		}
+		users.put(userId, new UserBalances(accountNumbers, balances, System.nanoTime()));
+	}
+	
+	//커밋된 잔액 변경을 반영 (배열은 복사해서 바꾼다, 읽는 쪽은 lock 없이 읽음)
+	@TransactionalEventListener
+	public void onBalanceChanged(BalanceChangedEvent event) {
+		users.computeIfPresent(event.getUserId(), (userId, userBalances) -> {
+			int index = Arrays.asList(userBalances.accountNumbers).indexOf(event.getAccountNumber());
+			if(index < 0) {
+				return null; //모르는 계좌면 다음 조회 때 DB에서 다시 읽는다
+			}
+			
+			long[] balances = userBalances.balances.clone();
+			balances[index] = event.getBalance();
+			return new UserBalances(userBalances.accountNumbers, balances, userBalances.loadedAt);
+		});
+	}
+	
+	//계좌가 생기거나 해지되면 해당 사용자는 다음 조회 때 DB에서 다시 읽는다
+	@TransactionalEventListener
+	public void onAccountsChanged(AccountsChangedEvent event) {
+		users.remove(event.getUserId());
+	}
+	
+	//한 사용자의 계좌번호와 잔액 (불변)
+	private static class UserBalances {
+		private final String[] accountNumbers;
+		private final long[] balances;
+		private final long loadedAt; //DB에서 읽은 시각 (System.nanoTime)
+		
+		UserBalances(String[] accountNumbers, long[] balances, long loadedAt) {
+			this.accountNumbers = accountNumbers;
+			this.balances = balances;
+			this.loadedAt = loadedAt;
+		}
+	}
+}
@@ -3,21 +3,36 @@ package com.example.account.service;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
-import javax.transaction.Transactional;
 import javax.validation.constraints.NotNull;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.account.archive.TransactionArchive;
 import com.example.account.domain.Account;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
 import com.example.account.domain.AccountUser;
+import com.example.account.domain.BalanceCheckpoint;
+import com.example.account.dto.AccountBalanceAt;
 import com.example.account.dto.AccountDTO;
+import com.example.account.dto.TransactionDTO;
+import com.example.account.event.AccountsChangedEvent;
 import com.example.account.exception.AccountException;
+import com.example.account.ledger.RedisLedger;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.BalanceCheckpointRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardExecutor;
+import com.example.account.shard.ShardKey;
 
 import lombok.RequiredArgsConstructor;
 
@@ -28,6 +43,12 @@ public class AccountService {
 	//AccountService가 생성됨과 동시에 accountRepository가 만들어짐
 	private final AccountRepository accountRepository;
 	private final AccountUserRepository accountUserRepository; 
+	private final TransactionRepository transactionRepository; //특정 시각의 잔액
+	private final BalanceCheckpointRepository balanceCheckpointRepository;
+	private final TransactionArchive transactionArchive; //hot 테이블에서 지워진 오래된 거래
+	private final ApplicationEventPublisher applicationEventPublisher; //계좌 목록 변경을 읽기 모델에 알림
+	private final ShardExecutor shardExecutor; //계좌번호로 샤드를 고르고, 사용자/id 단위 조회는 모든 샤드에 보낸다
+	private final RedisLedger redisLedger; //잔액의 원본이 Redis에 있는 계좌
 	
 	//DB와 관련된, 트랜잭션이 필요한 서비스 클래스 혹은 메서드에 @Transactional 어노테이션을 달아줌
 	//Account는 entity이기 때문에 직접 건들이는 것보다는 entity를 수정하고 필요한 필드만 AccountDTO에 담는다
@@ -49,39 +70,62 @@ public class AccountService {
 		//계좌 개수 반환
 		validateCreateAccount(accountUser);
 		
-		//계좌번호 받아서 +1한 새로운 계좌
-		String newAccountNumber = accountRepository.findFirstByOrderByIdDesc()
-							.map(account -> (Integer.parseInt(account.getAccountNumber())) + 1 + "") //정보가 있으면 ACCOUNT 가지고 ACCOUNT의 NUMBER를 +1 (UPDATE)
+		//계좌번호 받아서 +1한 새로운 계좌 (샤드마다 마지막 계좌를 읽고 그중 가장 큰 번호)
+		String newAccountNumber = shardExecutor.onAllShards(accountRepository::findFirstByOrderByIdDesc).stream()
+							.flatMap(Optional::stream)
+							.map(account -> Long.parseLong(account.getAccountNumber()))
+							.max(Long::compare)
+							.map(accountNumber -> accountNumber + 1 + "") //정보가 있으면 ACCOUNT 가지고 ACCOUNT의 NUMBER를 +1 (UPDATE)
 							.orElse("100000000000"); //없으면 반환
 		
-		//ENTITY -> DTO
-		return AccountDTO.fromEntity(accountRepository.save(Account.builder()
+		//새 계좌번호의 샤드에 저장, 개설 시점의 잔액을 체크포인트로 남긴다
+		Account account = shardExecutor.onShard(newAccountNumber, () -> {
+			Account saved = accountRepository.save(Account.builder()
 				.accountUser(accountUser)
 				.accountStatus(AccountStatus.IN_USE)
 				.accountNumber(newAccountNumber)
 				.balance(initialBalance)
 				.registeredAt(LocalDateTime.now())
 				.build()
-			));
+			);
+			balanceCheckpointRepository.save(BalanceCheckpoint.builder()
+				.account(saved)
+				.balance(initialBalance)
+				.checkpointAt(saved.getRegisteredAt())
+				.build()
+			);
+			return saved;
+		});
+		applicationEventPublisher.publishEvent(new AccountsChangedEvent(accountUser.getId()));
+		
+		//ENTITY -> DTO
+		return AccountDTO.fromEntity(account);
 	}
 	
 	private void validateCreateAccount(AccountUser accountUser) {
-		if(accountRepository.countByAccountUser(accountUser) >= 10) {
+		int accountCount = shardExecutor.onAllShards(() -> accountRepository.countByAccountUser(accountUser)).stream()
+				.mapToInt(Integer::intValue)
+				.sum();
+		if(accountCount >= 10) {
 			throw new AccountException(ErrorCode.MAX_ACCOUNT_PER_USER_10);
 		}
 	}
 	
-	@Transactional
+	@Transactional(readOnly = true) //읽기 전용: 복제본으로 라우팅, Hibernate 변경 감지/스냅샷 생략
 	public Account getAccount(Long id) {
 		if(id < 0) {
 			throw new RuntimeException("Minus");
 		}
 		
-		return accountRepository.findById(id).get(); //레코드에서 ID값에 해당하는 row 정보를 select하여 account로 받아서 return
+		//레코드에서 ID값에 해당하는 row 정보를 select하여 account로 받아서 return (id는 샤드마다 구간이 달라서 한 샤드에서만 나온다)
+		return shardExecutor.onAllShards(() -> accountRepository.findById(id)).stream()
+				.flatMap(Optional::stream)
+				.findFirst()
+				.get();
 	}
 
 	@Transactional
-	public AccountDTO deleteAccount(@NotNull Long userId, String accountNumber) {
+	public AccountDTO deleteAccount(@NotNull Long userId, @ShardKey String accountNumber) {
 		//USER 찾음
 		AccountUser accountUser = accountUserRepository.findById(userId).orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
 		
@@ -91,11 +135,17 @@ public class AccountService {
 		//유효성 확인
 		validateDeleteAccount(accountUser, account);
 		
+		//Redis 원장 계좌는 DB 잔액이 늦으므로 해지할 수 없다 (대상 목록에서 빼고 journal이 모두 저장된 뒤에 해지)
+		if(redisLedger.handles(accountNumber)) {
+			throw new AccountException(ErrorCode.REDIS_LEDGER_ACCOUNT);
+		}
+		
 		//유효성 확인되면 업데이트
 		account.setAccountStatus(AccountStatus.UNREGISTERED);
 		account.setUnregiteredAt(LocalDateTime.now());
 		
 		accountRepository.save(account);
+		applicationEventPublisher.publishEvent(new AccountsChangedEvent(accountUser.getId()));
 		
 		//ENTITY -> DTO
 		return AccountDTO.fromEntity(account);
@@ -119,13 +169,64 @@ public class AccountService {
 		}
 	}
 
-	@Transactional
+	@Transactional(readOnly = true)
 	public List<AccountDTO> getAccountsByUserId(Long userId) {
 		AccountUser accountUser = accountUserRepository.findById(userId).orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
 		
-		List<Account> accounts = accountRepository.findByAccountUser(accountUser);
+		//사용자의 계좌는 여러 샤드에 흩어져 있으므로 모든 샤드에 병렬로 조회해서 합친다
+		List<Account> accounts = shardExecutor.onAllShards(() -> accountRepository.findByAccountUser(accountUser)).stream()
+				.flatMap(List::stream)
+				.collect(Collectors.toList());
 		return accounts.stream().map(AccountDTO::fromEntity).collect(Collectors.toList()); //ENTITY -> LIST<DTO>
 	}
 	
 	
+	/*
+		특정 시각의 잔액
+		at 이전의 마지막 성공 거래와 마지막 체크포인트를 각각 인덱스로 한 번씩 찾고, 더 나중 것의 잔액을 쓴다
+		hot 테이블에 at 이전 거래가 없으면 이미 보관(archive)되었을 수 있으므로 보관된 거래를 계좌 인덱스로 찾는다
+		(체크포인트는 체크포인트 작업이 돌 때의 마지막 거래만 남기므로 그 사이의 보관된 거래는 보관 파일에만 있다)
+	*/
+	@Transactional(readOnly = true)
+	public AccountBalanceAt getBalanceAt(@ShardKey String accountNumber, LocalDateTime at) {
+		Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+		if(account.getRegisteredAt() != null && at.isBefore(account.getRegisteredAt())) {
+			throw new AccountException(ErrorCode.ACCOUNT_NOT_REGISTERED_AT);
+		}
+		
+		PageRequest first = PageRequest.of(0, 1);
+		Optional<Object[]> transaction = transactionRepository.findBalancesAtOrBefore(account.getId(), TransactionResultType.S, at, first).stream().findFirst();
+		Optional<Object[]> checkpoint = balanceCheckpointRepository.findBalancesAtOrBefore(account.getId(), at, first).stream().findFirst();
+		
+		AccountBalanceAt.AccountBalanceAtBuilder balanceAt = AccountBalanceAt.builder().accountNumber(accountNumber).at(at);
+		if(transaction.isPresent() && (checkpoint.isEmpty() || !((LocalDateTime) transaction.get()[1]).isBefore((LocalDateTime) checkpoint.get()[1]))) {
+			return balanceAt.balance((Long) transaction.get()[0]).asOf((LocalDateTime) transaction.get()[1]).source(AccountBalanceAt.Source.TRANSACTION).build();
+		}
+		
+		//보관되는 거래는 hot 테이블의 거래보다 오래되었으므로 hot 테이블에 at 이전 거래가 있으면 볼 필요가 없다
+		List<TransactionDTO> archived = transaction.isPresent() ? List.of() : transactionArchive.findByAccountNumber(accountNumber).stream()
+				.filter(archivedTransaction -> archivedTransaction.getTransactionResultType() == TransactionResultType.S)
+				.collect(Collectors.toList()); //거래 시각 순
+		Optional<TransactionDTO> archivedAtOrBefore = archived.stream().filter(archivedTransaction -> !archivedTransaction.getTransactedAt().isAfter(at)).reduce((earlier, later) -> later);
+		if(archivedAtOrBefore.isPresent() && (checkpoint.isEmpty() || !archivedAtOrBefore.get().getTransactedAt().isBefore((LocalDateTime) checkpoint.get()[1]))) {
+			return balanceAt.balance(archivedAtOrBefore.get().getBalanceSnapshot()).asOf(archivedAtOrBefore.get().getTransactedAt()).source(AccountBalanceAt.Source.ARCHIVE).build();
+		}
+		if(checkpoint.isPresent()) {
+			return balanceAt.balance((Long) checkpoint.get()[0]).asOf((LocalDateTime) checkpoint.get()[1]).source(AccountBalanceAt.Source.CHECKPOINT).build();
+		}
+		
+		//체크포인트 이전에 개설된 계좌: at 이후 첫 거래(보관된 거래가 더 이르다)의 직전 잔액, 거래가 없으면 지금 잔액
+		long balance = archived.stream().filter(archivedTransaction -> archivedTransaction.getTransactedAt().isAfter(at)).findFirst()
+				.map(next -> balanceBefore(next.getTransactionType(), next.getBalanceSnapshot(), next.getAmount()))
+				.or(() -> transactionRepository.findBalancesAfter(account.getId(), TransactionResultType.S, at, first).stream().findFirst()
+						.map(next -> balanceBefore((TransactionType) next[1], (Long) next[0], (Long) next[2])))
+				.orElse(account.getBalance());
+		return balanceAt.balance(balance).source(AccountBalanceAt.Source.CURRENT).build();
+	}
+	
+	//거래 직전의 잔액
+	private long balanceBefore(TransactionType transactionType, long balanceSnapshot, long amount) {
+		return transactionType == TransactionType.USE ? balanceSnapshot + amount : balanceSnapshot - amount;
+	}
+	
 }
@@ -0,0 +1,99 @@
+package com.example.account.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.BalanceCheckpoint;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.BalanceCheckpointRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardExecutor;
+import com.example.account.type.TransactionResultType;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 잔액 체크포인트 작업
+ 1. 계좌를 id 순서로 batch-size 만큼 읽는다
+ 2. 계좌의 마지막 성공 거래가 마지막 체크포인트보다 나중이면 그 거래의 (잔액, 시각)을 체크포인트로 남긴다 (batch마다 한 번의 쿼리)
+ 3. 거래가 없었던 계좌는 새로 쓰지 않는다 (체크포인트 수는 활동이 있었던 주기 수를 넘지 않음)
+ - 거래 이력이 보관(archive.max-age-days)되기 전에 체크포인트가 남으므로 오래 거래가 없던 계좌도 한 번에 찾을 수 있다
+ - 거래의 시각과 잔액을 그대로 옮기므로 진행 중인 거래와 엇갈려도 잘못된 잔액이 남지 않는다
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BalanceCheckpointJob {
+	private final AccountRepository accountRepository;
+	private final TransactionRepository transactionRepository;
+	private final BalanceCheckpointRepository balanceCheckpointRepository;
+	private final ShardExecutor shardExecutor;
+	
+	@Value("${balance-checkpoint.enabled:true}")
+	private boolean enabled;
+	
+	@Value("${balance-checkpoint.batch-size:1000}")
+	private int batchSize;
+	
+	@Scheduled(fixedDelayString = "${balance-checkpoint.interval-millis:86400000}", initialDelayString = "${balance-checkpoint.interval-millis:86400000}")
+	public void checkpoint() {
+		if(!enabled) {
+			return;
+		}
+		
+		shardExecutor.forEachShard(shard -> {
+			int written = checkpointShard();
+			if(written > 0) {
+				log.info("Wrote {} balance checkpoints on shard {}", written, shard);
+			}
+		});
+	}
+	
+	//새로 쓴 체크포인트 수
+	int checkpointShard() {
+		int written = 0;
+		
+		long lastId = 0;
+		List<Account> accounts;
+		do {
+			accounts = accountRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, batchSize));
+			if(accounts.isEmpty()) {
+				break;
+			}
+			
+			Map<Long, Account> accountsById = accounts.stream().collect(Collectors.toMap(Account::getId, Function.identity()));
+			
+			//같은 시각의 거래가 여럿이면 나중에 저장된(id가 큰) 거래의 잔액
+			Map<Long, Object[]> lastTransactions = new HashMap<>();
+			for(Object[] row : transactionRepository.findLastBalancesAfterCheckpoint(new ArrayList<>(accountsById.keySet()), TransactionResultType.S)) {
+				lastTransactions.merge((Long) row[0], row, (previous, next) -> (Long) previous[1] < (Long) next[1] ? next : previous);
+			}
+			
+			List<BalanceCheckpoint> checkpoints = lastTransactions.entrySet().stream()
+					.map(entry -> BalanceCheckpoint.builder()
+							.account(accountsById.get(entry.getKey()))
+							.balance((Long) entry.getValue()[2])
+							.checkpointAt((LocalDateTime) entry.getValue()[3])
+							.build())
+					.collect(Collectors.toList());
+			
+			balanceCheckpointRepository.saveAll(checkpoints);
+			written += checkpoints.size();
+			lastId = accounts.get(accounts.size() - 1).getId();
+		} while(accounts.size() == batchSize);
+		
+		return written;
+	}
+}
@@ -0,0 +1,215 @@
+package com.example.account.service;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.account.dto.AccountInfo;
+import com.example.account.event.BalanceChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 사용자별 잔액 변경 SSE 스트림
+ - 연결은 서블릿 비동기(SseEmitter)로 유지되므로 대기 중인 연결이 요청 스레드를 점유하지 않는다
+ - 커밋된 잔액 변경은 구독자별 버퍼에 계좌번호 기준으로 덮어쓰고(drop-to-latest), 적은 수의 sender 스레드가 보낸다
+ - 느린 클라이언트는 중간 값을 못 받고 마지막 잔액만 받는다
+ - 구독을 먼저 등록한 뒤 현재 잔액을 읽으므로 그 사이의 변경도 놓치지 않고, 이미 변경을 받은 계좌는 현재 잔액으로 덮어쓰지 않는다
+ */
+@Slf4j
+@Service
+public class BalanceStreamService {
+	
+	@Value("${stream.timeout-millis:1800000}")
+	private long timeoutMillis;
+	
+	@Value("${stream.subscriber-buffer:16}")
+	private int subscriberBuffer;
+	
+	@Value("${stream.sender-threads:4}")
+	private int senderThreads;
+	
+	private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+	private ExecutorService sender;
+	
+	LongFunction<SseEmitter> emitterFactory = SseEmitter::new; //테스트에서 보낸 이벤트를 확인할 수 있게
+	
+	@PostConstruct
+	public void start() {
+		sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+			Thread thread = new Thread(runnable, "balance-stream-sender");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	@PreDestroy
+	public void stop() {
+		sender.shutdownNow();
+		subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+	}
+	
+	//구독 시작, 등록한 뒤에 현재 잔액을 읽어서 보낸다
+	public SseEmitter subscribe(Long userId, Supplier<List<AccountInfo>> snapshotLoader) {
+		SseEmitter emitter = emitterFactory.apply(timeoutMillis);
+		Subscriber subscriber = new Subscriber(userId, emitter, subscriberBuffer);
+		
+		subscribers.computeIfAbsent(userId, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+		emitter.onCompletion(() -> remove(subscriber));
+		emitter.onTimeout(() -> remove(subscriber));
+		emitter.onError(e -> remove(subscriber));
+		
+		List<AccountInfo> snapshot;
+		try {
+			snapshot = snapshotLoader.get();
+		} catch (RuntimeException e) {
+			remove(subscriber); //없는 사용자 등 스냅샷을 못 읽으면 구독도 취소
+			throw e;
+		}
+		
+		snapshot.forEach(subscriber::offerSnapshot);
+		schedule(subscriber);
+		
+		return emitter;
+	}
+	
+	//커밋된 뒤에만 전달 (롤백된 변경은 보내지 않음), 요청 스레드에서는 버퍼에 넣기만 한다
+	@TransactionalEventListener
+	public void onBalanceChanged(BalanceChangedEvent event) {
+		Set<Subscriber> userSubscribers = subscribers.get(event.getUserId());
+		if(userSubscribers == null) {
+			return;
+		}
+		
+		AccountInfo accountInfo = AccountInfo.builder().accountNumber(event.getAccountNumber()).balance(event.getBalance()).build();
+		for(Subscriber subscriber : userSubscribers) {
+			subscriber.offer(accountInfo);
+			schedule(subscriber);
+		}
+	}
+	
+	//끊어진 연결을 찾아내기 위한 주기적인 comment 전송
+	@Scheduled(fixedDelayString = "${stream.heartbeat-millis:30000}")
+	public void heartbeat() {
+		subscribers.values().forEach(set -> set.forEach(subscriber -> {
+			subscriber.heartbeat = true;
+			schedule(subscriber);
+		}));
+	}
+	
+	public int subscriberCount() {
+		return subscribers.values().stream().mapToInt(Set::size).sum();
+	}
+	
+	//구독자당 sender 작업은 최대 하나만 예약된다
+	private void schedule(Subscriber subscriber) {
+		if(subscriber.scheduled.compareAndSet(false, true)) {
+			sender.execute(() -> drain(subscriber));
+		}
+	}
+	
+	private void drain(Subscriber subscriber) {
+		try {
+			AccountInfo accountInfo;
+			while((accountInfo = subscriber.poll()) != null) {
+				subscriber.emitter.send(SseEmitter.event().name("balance").data(accountInfo));
+			}
+			
+			if(subscriber.heartbeat) {
+				subscriber.heartbeat = false;
+				subscriber.emitter.send(SseEmitter.event().comment("ping"));
+			}
+		} catch (IOException | IllegalStateException e) {
+			log.debug("Balance stream closed for userId : {}", subscriber.userId);
+			remove(subscriber);
+			return;
+		} finally {
+			subscriber.scheduled.set(false);
+		}
+		
+		//보내는 동안 새로 들어온 값이 있으면 다시 예약
+		if(subscriber.hasPending()) {
+			schedule(subscriber);
+		}
+	}
+	
+	private void remove(Subscriber subscriber) {
+		subscribers.computeIfPresent(subscriber.userId, (userId, set) -> {
+			set.remove(subscriber);
+			return set.isEmpty() ? null : set;
+		});
+	}
+	
+	//구독자 한 명의 연결과 버퍼
+	private static class Subscriber {
+		private final Long userId;
+		private final SseEmitter emitter;
+		private final int capacity;
+		private final LinkedHashMap<String, AccountInfo> pending = new LinkedHashMap<>(); //계좌번호 -> 마지막 잔액
+		private final Set<String> changed = new HashSet<>(); //구독 뒤 변경을 받은 계좌 (스냅샷보다 새 값)
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		private volatile boolean heartbeat;
+		
+		Subscriber(Long userId, SseEmitter emitter, int capacity) {
+			this.userId = userId;
+			this.emitter = emitter;
+			this.capacity = capacity;
+		}
+		
+		synchronized void offer(AccountInfo accountInfo) {
+			changed.add(accountInfo.getAccountNumber());
+			put(accountInfo);
+		}
+		
+		//구독 전에 읽은 잔액, 이미 변경을 받은 계좌는 (보냈든 아직 버퍼에 있든) 건너뛴다
+		synchronized void offerSnapshot(AccountInfo accountInfo) {
+			if(!changed.contains(accountInfo.getAccountNumber())) {
+				put(accountInfo);
+			}
+		}
+		
+		private void put(AccountInfo accountInfo) {
+			pending.remove(accountInfo.getAccountNumber()); //같은 계좌는 최신 값으로 덮어쓰고 순서도 뒤로
+			if(pending.size() >= capacity) {
+				Iterator<String> oldest = pending.keySet().iterator();
+				oldest.next();
+				oldest.remove();
+			}
+			pending.put(accountInfo.getAccountNumber(), accountInfo);
+		}
+		
+		synchronized AccountInfo poll() {
+			Iterator<AccountInfo> iterator = pending.values().iterator();
+			if(!iterator.hasNext()) {
+				return null;
+			}
+			
+			AccountInfo accountInfo = iterator.next();
+			iterator.remove();
+			return accountInfo;
+		}
+		
+		synchronized boolean hasPending() {
+			return !pending.isEmpty();
+		}
+	}
+}
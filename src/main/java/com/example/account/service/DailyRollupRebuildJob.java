@@ -0,0 +1,142 @@
+package com.example.account.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.account.domain.DailyAccountRollup;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.DailyAccountRollupRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardExecutor;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 일별 합계 재계산 (원본 거래에서 다시 만든다)
+ 1. (샤드, 날짜) 하나가 작업 하나, rebuild-threads 개의 스레드에서 병렬로 처리한다
+ 2. 날짜마다 (계좌, 유형, 결과)별 합계와 계좌별 마지막 거래 잔액을 조회해서 한 트랜잭션으로 지우고 다시 쓴다
+ - 오늘은 증분 갱신과 엇갈리므로 어제까지만 허용한다
+ - 보관(archive.max-age-days)된 거래는 hot 테이블에 없으므로 그 이전 날짜도 허용하지 않는다 (있던 합계를 지우지 않도록)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DailyRollupRebuildJob {
+	private final TransactionRepository transactionRepository;
+	private final DailyAccountRollupRepository dailyAccountRollupRepository;
+	private final AccountRepository accountRepository;
+	private final ShardExecutor shardExecutor;
+	private final PlatformTransactionManager transactionManager;
+	
+	@Value("${rollup.rebuild-threads:4}")
+	private int rebuildThreads;
+	
+	@Value("${archive.max-age-days:365}")
+	private long archiveMaxAgeDays;
+	
+	//다시 쓴 행 수
+	public int rebuild(LocalDate from, LocalDate to) {
+		LocalDate today = LocalDate.now();
+		//보관 기한 날짜는 일부 거래가 이미 아카이브되었을 수 있어 그 다음 날부터
+		if(from.isAfter(to) || !to.isBefore(today) || !from.isAfter(today.minusDays(archiveMaxAgeDays))) {
+			throw new AccountException(ErrorCode.INVALID_REQUEST);
+		}
+		
+		AtomicInteger threadNumber = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(rebuildThreads, runnable -> {
+			Thread thread = new Thread(runnable, "rollup-rebuild-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		
+		try {
+			List<Future<Integer>> futures = new ArrayList<>();
+			for(int shard = 0; shard < shardExecutor.getShardCount(); shard++) {
+				for(LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+					int targetShard = shard;
+					LocalDate targetDay = day;
+					futures.add(executor.submit(() -> shardExecutor.onShard(targetShard, () -> rebuildDay(targetDay))));
+				}
+			}
+			
+			int rows = 0;
+			for(Future<Integer> future : futures) {
+				rows += future.get();
+			}
+			log.info("Rebuilt {} daily rollups from {} to {}", rows, from, to);
+			return rows;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while rebuilding daily rollups", e);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("Daily rollup rebuild failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	//현재 샤드의 하루치
+	int rebuildDay(LocalDate day) {
+		LocalDateTime start = day.atStartOfDay();
+		LocalDateTime end = day.plusDays(1).atStartOfDay();
+		
+		return new TransactionTemplate(transactionManager).execute(status -> {
+			Map<Long, DailyAccountRollup> rollups = new HashMap<>();
+			for(Object[] row : transactionRepository.sumByAccountBetween(start, end)) {
+				DailyAccountRollup rollup = rollups.computeIfAbsent((Long) row[0], accountId -> DailyAccountRollup.builder()
+						.account(accountRepository.getReferenceById(accountId))
+						.rollupDate(day)
+						.usedAmount(0L)
+						.cancelledAmount(0L)
+						.failedCount(0L)
+						.build());
+				
+				if(row[2] == TransactionResultType.F) {
+					rollup.setFailedCount(rollup.getFailedCount() + (Long) row[4]);
+				} else if(row[1] == TransactionType.USE) {
+					rollup.setUsedAmount(rollup.getUsedAmount() + (Long) row[3]);
+				} else {
+					rollup.setCancelledAmount(rollup.getCancelledAmount() + (Long) row[3]);
+				}
+			}
+			
+			//같은 시각의 거래가 여럿이면 나중에 저장된(id가 큰) 거래의 잔액
+			Map<Long, Long> lastTransactionIds = new HashMap<>();
+			for(Object[] row : transactionRepository.findLastBalancesBetween(start, end)) {
+				Long accountId = (Long) row[0];
+				Long previous = lastTransactionIds.get(accountId);
+				if(previous == null || previous < (Long) row[1]) {
+					lastTransactionIds.put(accountId, (Long) row[1]);
+					rollups.get(accountId).setClosingBalance((Long) row[2]);
+					rollups.get(accountId).setLastTransactedAt((LocalDateTime) row[3]);
+				}
+			}
+			
+			dailyAccountRollupRepository.deleteByRollupDate(day);
+			dailyAccountRollupRepository.saveAll(rollups.values());
+			return rollups.size();
+		});
+	}
+}
@@ -0,0 +1,240 @@
+package com.example.account.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.DailyAccountRollup;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.DailyRollupDTO;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.DailyAccountRollupRepository;
+import com.example.account.shard.ShardExecutor;
+import com.example.account.shard.ShardKey;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 계좌 일별 합계 증분 갱신
+ 1. 거래를 저장하는 트랜잭션 안에서 (계좌, 날짜) 행에 update 한 번으로 더한다
+ 2. 그날 첫 거래라 행이 없으면 별도 트랜잭션에서 빈 행을 만들고 다시 더한다 (동시에 만들어도 유니크 제약으로 한 행만 남음)
+ 3. 직전 flush 주기에 hot-threshold 건 이상 거래한 계좌는 같은 행을 계속 갱신하지 않도록
+    커밋된 값만 메모리에 모았다가 flush 주기마다 한 번에 더한다
+ - 모아둔 값은 조회할 때 함께 더해서 보여준다, 프로세스가 죽어 잃어버린 값은 재계산 작업(DailyRollupRebuildJob)으로 복구한다
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DailyRollupService {
+	private final DailyAccountRollupRepository dailyAccountRollupRepository;
+	private final AccountRepository accountRepository;
+	private final ShardExecutor shardExecutor;
+	private final PlatformTransactionManager transactionManager;
+	
+	@Value("${rollup.hot-threshold:20}")
+	private int hotThreshold;
+	
+	private final Map<String, LongAdder> window = new ConcurrentHashMap<>(); //이번 flush 주기의 계좌별 거래 수
+	private volatile Set<String> hotAccounts = Collections.emptySet(); //직전 flush 주기에 hot-threshold 건 이상 거래한 계좌
+	private final Map<RollupKey, Delta> buffer = new ConcurrentHashMap<>(); //hot 계좌의 아직 더하지 않은 값
+	
+	public void record(Transaction transaction) {
+		recordAll(Collections.singletonList(transaction));
+	}
+	
+	//같은 (계좌, 날짜)는 먼저 합쳐서 한 번만 갱신한다 (실패 이력 batch 등)
+	public void recordAll(Collection<Transaction> transactions) {
+		Map<RollupKey, Delta> deltas = new HashMap<>();
+		for(Transaction transaction : transactions) {
+			deltas.merge(RollupKey.of(transaction), Delta.of(transaction), Delta::plus);
+		}
+		
+		deltas.forEach((key, delta) -> {
+			window.computeIfAbsent(key.accountNumber, accountNumber -> new LongAdder()).add(delta.count);
+			if(hotAccounts.contains(key.accountNumber)) {
+				bufferAfterCommit(key, delta);
+			} else {
+				apply(key, delta);
+			}
+		});
+	}
+	
+	//롤백된 거래가 합계에 남지 않도록 커밋된 뒤에 모은다
+	private void bufferAfterCommit(RollupKey key, Delta delta) {
+		if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+			buffer.merge(key, delta, Delta::plus);
+			return;
+		}
+		
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				buffer.merge(key, delta, Delta::plus);
+			}
+		});
+	}
+	
+	private void apply(RollupKey key, Delta delta) {
+		if(addDelta(key, delta) == 0) {
+			createRow(key, delta.accountId);
+			addDelta(key, delta);
+		}
+	}
+	
+	private int addDelta(RollupKey key, Delta delta) {
+		return dailyAccountRollupRepository.addDelta(delta.accountId, key.date, delta.used, delta.cancelled, delta.failed, delta.closing, delta.lastAt);
+	}
+	
+	//빈 행은 바로 커밋해서 다른 트랜잭션도 update로 더할 수 있게 한다, 이미 있으면(유니크 제약 위반) 무시
+	private void createRow(RollupKey key, Long accountId) {
+		TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+		newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		
+		try {
+			newTransaction.executeWithoutResult(status -> dailyAccountRollupRepository.saveAndFlush(DailyAccountRollup.builder()
+					.account(accountRepository.getReferenceById(accountId))
+					.rollupDate(key.date)
+					.usedAmount(0L)
+					.cancelledAmount(0L)
+					.failedCount(0L)
+					.build()));
+		} catch (DataIntegrityViolationException e) {
+			log.debug("Daily rollup row already created : {} {}", key.accountNumber, key.date);
+		}
+	}
+	
+	//hot 계좌를 다시 고르고, 모아둔 값을 샤드별 한 트랜잭션으로 더한다 (실패하면 다음 주기에 다시)
+	@Scheduled(fixedDelayString = "${rollup.flush-interval-millis:1000}")
+	public void flush() {
+		hotAccounts = window.entrySet().stream()
+				.filter(entry -> entry.getValue().sum() >= hotThreshold)
+				.map(Map.Entry::getKey)
+				.collect(Collectors.toSet());
+		window.clear();
+		
+		List<Map.Entry<RollupKey, Delta>> drained = new ArrayList<>();
+		for(RollupKey key : buffer.keySet()) {
+			Delta delta = buffer.remove(key);
+			if(delta != null) {
+				drained.add(Map.entry(key, delta));
+			}
+		}
+		if(drained.isEmpty()) {
+			return;
+		}
+		
+		shardExecutor.partition(drained, entry -> entry.getKey().accountNumber).forEach((shard, entries) -> {
+			try {
+				shardExecutor.runOnShard(shard, () -> new TransactionTemplate(transactionManager)
+						.executeWithoutResult(status -> entries.forEach(entry -> apply(entry.getKey(), entry.getValue()))));
+			} catch (Exception e) {
+				log.error("Failed to flush {} daily rollup deltas on shard {}, retrying next flush", entries.size(), shard, e);
+				entries.forEach(entry -> buffer.merge(entry.getKey(), entry.getValue(), Delta::plus));
+			}
+		});
+	}
+	
+	//from ~ to (포함) 일별 합계, 아직 flush 되지 않은 값도 더한다
+	@Transactional(readOnly = true)
+	public List<DailyRollupDTO> getRollups(@ShardKey String accountNumber, LocalDate from, LocalDate to) {
+		if(from.isAfter(to)) {
+			throw new AccountException(ErrorCode.INVALID_REQUEST);
+		}
+		Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+		
+		Map<LocalDate, Delta> rollups = new TreeMap<>();
+		for(DailyAccountRollup rollup : dailyAccountRollupRepository.findByAccountIdAndRollupDateBetweenOrderByRollupDateAsc(account.getId(), from, to)) {
+			rollups.put(rollup.getRollupDate(), Delta.of(rollup));
+		}
+		buffer.forEach((key, delta) -> {
+			if(key.accountNumber.equals(accountNumber) && !key.date.isBefore(from) && !key.date.isAfter(to)) {
+				rollups.merge(key.date, delta, Delta::plus);
+			}
+		});
+		
+		return rollups.entrySet().stream()
+				.map(entry -> entry.getValue().toDTO(accountNumber, entry.getKey()))
+				.collect(Collectors.toList());
+	}
+	
+	@EqualsAndHashCode
+	@RequiredArgsConstructor
+	private static final class RollupKey {
+		private final String accountNumber;
+		private final LocalDate date;
+		
+		static RollupKey of(Transaction transaction) {
+			return new RollupKey(transaction.getAccount().getAccountNumber(), transaction.getTransactedAt().toLocalDate());
+		}
+	}
+	
+	//(계좌, 날짜) 하나에 더할 값, 마감 잔액은 더 나중 거래의 잔액
+	@RequiredArgsConstructor
+	private static final class Delta {
+		private final Long accountId;
+		private final long used;
+		private final long cancelled;
+		private final long failed;
+		private final long count; //hot 계좌 판단용 거래 수
+		private final Long closing;
+		private final LocalDateTime lastAt;
+		
+		static Delta of(Transaction transaction) {
+			long amount = transaction.getAmount();
+			boolean success = transaction.getTransactionResultType() == TransactionResultType.S;
+			boolean use = transaction.getTransactionType() == TransactionType.USE;
+			return new Delta(transaction.getAccount().getId(), success && use ? amount : 0, success && !use ? amount : 0, success ? 0 : 1, 1,
+					transaction.getBalanceSnapshot(), transaction.getTransactedAt());
+		}
+		
+		static Delta of(DailyAccountRollup rollup) {
+			return new Delta(rollup.getAccount().getId(), rollup.getUsedAmount(), rollup.getCancelledAmount(), rollup.getFailedCount(), 0,
+					rollup.getClosingBalance(), rollup.getLastTransactedAt());
+		}
+		
+		Delta plus(Delta other) {
+			boolean otherIsLater = lastAt == null || (other.lastAt != null && !other.lastAt.isBefore(lastAt));
+			return new Delta(accountId, used + other.used, cancelled + other.cancelled, failed + other.failed, count + other.count,
+					otherIsLater ? other.closing : closing, otherIsLater ? other.lastAt : lastAt);
+		}
+		
+		DailyRollupDTO toDTO(String accountNumber, LocalDate date) {
+			return DailyRollupDTO.builder()
+					.accountNumber(accountNumber)
+					.date(date)
+					.usedAmount(used)
+					.cancelledAmount(cancelled)
+					.failedCount(failed)
+					.closingBalance(closing)
+					.build();
+		}
+	}
+}
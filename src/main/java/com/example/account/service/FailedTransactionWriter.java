@@ -0,0 +1,214 @@
+package com.example.account.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.account.dto.FailedTransaction;
+import com.example.account.shard.ShardExecutor;
+import com.example.account.type.TransactionType;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 실패 거래 이력 비동기 저장
+ 1. 컨트롤러는 큐에 넣기만 하고 바로 반환한다 (lock을 잡은 상태에서 DB 왕복을 하지 않음)
+ 2. 백그라운드 스레드가 큐를 비우면서 batch-size 단위로 한 번에 저장한다
+ 3. 큐가 가득 찼거나 DB 저장에 실패하면 로컬 WAL 파일에 남겨두고, 나중에 다시 큐에 넣는다
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FailedTransactionWriter {
+	private final TransactionService transactionService;
+	private final ShardExecutor shardExecutor;
+
+	@Value("${failed-transaction.queue-capacity:10000}")
+	private int queueCapacity;
+
+	@Value("${failed-transaction.batch-size:100}")
+	private int batchSize;
+
+	@Value("${failed-transaction.wal-path:./data/failed-transaction.wal}")
+	private String walPath;
+
+	private BlockingQueue<FailedTransaction> queue;
+	private Thread writerThread;
+	private volatile boolean running;
+	private volatile boolean walPending;
+
+	@PostConstruct
+	public void start() {
+		queue = new ArrayBlockingQueue<>(queueCapacity);
+		walPending = Files.exists(Paths.get(walPath));
+
+		running = true;
+		writerThread = new Thread(this::runLoop, "failed-transaction-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		running = false;
+		if(writerThread != null) {
+			writerThread.interrupt();
+			writerThread.join(TimeUnit.SECONDS.toMillis(5));
+		}
+
+		//종료 전에 남은 이력을 저장 (실패하면 WAL에 남음)
+		List<FailedTransaction> remaining = new ArrayList<>();
+		queue.drainTo(remaining);
+		if(!remaining.isEmpty()) {
+			flush(remaining);
+		}
+	}
+
+	//실패 이력을 큐에 넣는다, 큐가 가득 차면 WAL에 기록
+	public void enqueue(TransactionType transactionType, String accountNumber, Long amount) {
+		FailedTransaction failedTransaction = FailedTransaction.builder()
+				.transactionType(transactionType)
+				.accountNumber(accountNumber)
+				.amount(amount)
+				.transactedAt(LocalDateTime.now())
+				.build();
+
+		if(!queue.offer(failedTransaction)) {
+			log.warn("Failed transaction queue is full, writing to WAL");
+			appendToWal(List.of(failedTransaction));
+		}
+	}
+
+	private void runLoop() {
+		List<FailedTransaction> batch = new ArrayList<>(batchSize);
+
+		while(running) {
+			try {
+				FailedTransaction first = queue.poll(1, TimeUnit.SECONDS);
+
+				if(first == null) {
+					//한가할 때 WAL에 밀려있던 이력을 다시 큐에 넣는다
+					if(walPending) {
+						replayWal();
+					}
+					continue;
+				}
+
+				batch.add(first);
+				queue.drainTo(batch, batchSize - 1);
+				flush(batch);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (RuntimeException e) {
+				//예상 못 한 오류로 스레드가 죽으면 이후 이력이 모두 큐에 쌓이기만 한다
+				log.error("Failed transaction writer loop failed, continuing", e);
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	//batch 단위 저장 (샤딩 시 샤드별로 나눠서), DB 오류 시 해당 샤드 분량만 WAL에 기록
+	void flush(List<FailedTransaction> batch) {
+		shardExecutor.partition(batch, FailedTransaction::getAccountNumber).forEach((shard, failedTransactions) -> {
+			try {
+				shardExecutor.runOnShard(shard, () -> transactionService.saveFailedTransactions(failedTransactions));
+			} catch (Exception e) {
+				log.error("Failed to save failed transactions, writing {} records to WAL", failedTransactions.size(), e);
+				appendToWal(failedTransactions);
+			}
+		});
+	}
+
+	synchronized void appendToWal(List<FailedTransaction> failedTransactions) {
+		Path path = Paths.get(walPath);
+
+		try {
+			if(path.getParent() != null) {
+				Files.createDirectories(path.getParent());
+			}
+
+			try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC)) {
+				for(FailedTransaction failedTransaction : failedTransactions) {
+					writer.write(failedTransaction.toWalLine());
+					writer.newLine();
+				}
+			}
+			walPending = true;
+		} catch (IOException e) {
+			log.error("Failed to write WAL, {} failed transactions are lost", failedTransactions.size(), e);
+		}
+	}
+
+	//WAL의 이력을 큐로 옮긴다, 큐에 못 들어간 이력은 WAL에 다시 남기고 읽을 수 없는 줄은 .corrupt 파일로 옮긴다
+	//모두 옮긴 뒤에 WAL을 지운다 (도중에 실패하면 WAL이 그대로 남아 다음에 다시 읽는다)
+	synchronized void replayWal() {
+		Path path = Paths.get(walPath);
+
+		try {
+			if(!Files.exists(path)) {
+				walPending = false;
+				return;
+			}
+
+			List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+
+			List<FailedTransaction> overflow = new ArrayList<>();
+			List<String> corrupt = new ArrayList<>();
+			int replayed = 0;
+			for(String line : lines) {
+				if(line.isBlank()) {
+					continue;
+				}
+
+				FailedTransaction failedTransaction;
+				try {
+					failedTransaction = FailedTransaction.fromWalLine(line);
+				} catch (RuntimeException e) {
+					log.warn("Skip corrupt WAL line : {}", line);
+					corrupt.add(line);
+					continue;
+				}
+
+				if(queue.offer(failedTransaction)) {
+					replayed++;
+				} else {
+					overflow.add(failedTransaction);
+				}
+			}
+
+			if(!corrupt.isEmpty()) {
+				Files.write(Paths.get(walPath + ".corrupt"), corrupt, StandardCharsets.UTF_8,
+						StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+			}
+			Files.delete(path);
+			walPending = false;
+
+			if(!overflow.isEmpty()) {
+				appendToWal(overflow);
+			}
+			log.info("Replayed {} failed transactions from WAL", replayed);
+		} catch (IOException e) {
+			log.error("Failed to replay WAL", e);
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package com.example.account.service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.account.shard.ShardExecutor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 가승인 만료 작업
+ 1. 샤드마다 만료 시각이 지난 HELD 가승인 id를 만료 시각 순서로 batch-size 만큼 읽는다
+ 2. 한 건씩 계좌의 잡아둔 금액을 풀고 EXPIRED로 바꾼다, 가승인 하나가 트랜잭션 하나
+ 3. batch가 가득 찼으면 다음 batch를 이어서 처리한다
+ - 계좌 lock을 잡지 않는다, 같은 계좌의 요청과 겹친 가승인만 @Version 충돌로 롤백되고 다음 주기에 다시 처리된다
+   (바쁜 계좌 하나 때문에 다른 계좌의 가승인 만료가 밀리지 않는다)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HoldExpiryJob {
+	private final TransactionService transactionService;
+	private final ShardExecutor shardExecutor;
+	
+	@Value("${hold.sweep-enabled:true}")
+	private boolean enabled;
+	
+	@Value("${hold.sweep-batch-size:500}")
+	private int batchSize;
+	
+	@Scheduled(fixedDelayString = "${hold.sweep-interval-millis:1000}")
+	public void expire() {
+		if(!enabled) {
+			return;
+		}
+		
+		shardExecutor.forEachShard(shard -> {
+			int expired = expireShard();
+			if(expired > 0) {
+				log.info("Expired {} balance holds on shard {}", expired, shard);
+			}
+		});
+	}
+	
+	//만료 처리한 가승인 수
+	int expireShard() {
+		int expired = 0;
+		List<String> holdIds;
+		int conflicts;
+		do {
+			holdIds = transactionService.findExpiredHoldIds(batchSize);
+			conflicts = 0;
+			for(String holdId : holdIds) {
+				try {
+					expired += transactionService.expireHold(holdId) ? 1 : 0;
+				} catch (OptimisticLockingFailureException e) {
+					conflicts++; //같은 계좌의 요청과 겹친 가승인만 다음 주기에 다시
+				}
+			}
+			if(conflicts > 0) {
+				log.warn("{} balance holds conflicted with concurrent requests, retrying next time", conflicts);
+			}
+		} while(holdIds.size() == batchSize && conflicts == 0); //겹친 가승인이 다음 batch 앞에 다시 오므로 이번 주기는 여기까지
+		
+		return expired;
+	}
+}
@@ -3,9 +3,15 @@ package com.example.account.service;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.hotspot.HotAccountTracker;
+import com.example.account.ledger.RedisLedger;
+import com.example.account.timing.RequestTiming;
+import com.example.account.timing.TimingPhase;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,21 +20,42 @@ import lombok.extern.slf4j.Slf4j;
 @Component
 @Slf4j
 @RequiredArgsConstructor
+@Order(LockAopAspect.ORDER)
 public class LockAopAspect {
+	public static final int ORDER = Ordered.LOWEST_PRECEDENCE - 10; //장애 주입 aspect가 lock 바깥/안쪽에 걸리도록 기준 순서
+	
 	//lock service
 	private final LockService lockService;
+	private final HotAccountTracker hotAccountTracker; //계좌별 요청 수, lock 대기/실패 집계
+	private final RedisLedger redisLedger; //Redis 원장 모드 계좌는 Lua 스크립트가 원자적이라 lock이 필요 없다
 	
 	
 	@Around("@annotation(com.example.account.aop.AccountLock) && args(request)") //어떤 경우에 이 aspect를 적용할 것인지, Controller의 Request request를 가져옴
 	public Object aroundMethod(ProceedingJoinPoint pjp, AccountLockIdInterface request) throws Throwable { //UseBalance, CancelBalance든 request 가져올 수 있어서 모두 적용 가능
 		
+		if(redisLedger.handles(request.getAccountNumber())) {
+			hotAccountTracker.recordLock(request.getAccountNumber(), 0L, true);
+			return pjp.proceed();
+		}
+		
 		//lock 취득 시도
-		lockService.lock(request.getAccountNumber());
+		RequestTiming.start(TimingPhase.LOCK_WAIT);
+		long lockStart = System.nanoTime();
+		boolean acquired = false;
+		try {
+			lockService.lock(request.getAccountNumber());
+			acquired = true;
+		} finally {
+			RequestTiming.stop(TimingPhase.LOCK_WAIT);
+			hotAccountTracker.recordLock(request.getAccountNumber(), System.nanoTime() - lockStart, acquired);
+		}
 		
+		RequestTiming.start(TimingPhase.LOCK_HOLD);
 		try {
 			return pjp.proceed(); //AOP를 걸어줬던 동작을 실행, @Around는 before, after 전후로 동작을 넣음 
 		} finally {
 			lockService.unlock(request.getAccountNumber());//AOP가 성공했든 아니든 lock 해제
+			RequestTiming.stop(TimingPhase.LOCK_HOLD);
 		}
 	}
 }
@@ -1,12 +1,22 @@
 package com.example.account.service;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.example.account.breaker.RedisCircuitBreaker;
+import com.example.account.cluster.LocalLockRegistry;
 import com.example.account.exception.AccountException;
+import com.example.account.fencing.FencingTokenIssuer;
+import com.example.account.fencing.FencingTokens;
+import com.example.account.jfr.LockAcquireEvent;
+import com.example.account.redlock.QuorumLock;
 import com.example.account.type.ErrorCode;
 
 import lombok.RequiredArgsConstructor;
@@ -16,36 +26,146 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 @RequiredArgsConstructor
 public class LockService {
+	//lock을 잡은 곳, 풀 때 같은 곳을 푼다 (그 사이 circuit 상태가 바뀌어도)
+	private enum Backend {
+		REDIS, QUORUM, LOCAL, FALLBACK
+	}
+	
 	private final RedissonClient redissonClient; //클라이언트 생성
+	private final LocalLockRegistry localLockRegistry;
+	private final QuorumLock quorumLock; //redlock.enabled=true 이면 레디스 여러 대에 과반수로
+	private final FencingTokenIssuer fencingTokenIssuer; //lease가 지난 lock으로는 잔액을 바꾸지 못하도록 (실패는 따로 센다)
+	private final RedisCircuitBreaker circuitBreaker; //레디스 장애 중에는 레디스를 부르지 않고 fallback
+	
+	private final ThreadLocal<Map<String, Backend>> heldBackends = ThreadLocal.withInitial(HashMap::new);
+	
+	@Value("${account-lock.wait-millis:1000}")
+	private long waitMillis;
+	
+	//fencing token이 늦은 쓰기를 막으므로 짧게 둬도 된다 (lock을 잡은 노드가 죽으면 이만큼 뒤에 풀림)
+	@Value("${account-lock.lease-millis:5000}")
+	private long leaseMillis;
+	
+	//local : 노드 로컬 lock + DB 낙관적 검사(Account.version), fail-fast : 바로 실패
+	@Value("${account-lock.fallback:local}")
+	private String fallback;
+	
+	//클러스터 모드에서는 계좌마다 담당 노드 하나만 처리하므로(ClusterForwardingFilter) 로컬 lock으로 충분하다
+	@Value("${cluster.enabled:false}")
+	private boolean clusterEnabled;
 	
 	//자물쇠(lock) 생성
 	public void lock(String accountNumber) { 
-		RLock lock = redissonClient.getLock(getLockKey(accountNumber)); //계좌번호를 lock의 key로 삼음
 		log.debug("Trying lock for accountNumber : {}", accountNumber);
 		
+		LockAcquireEvent event = new LockAcquireEvent(); //JFR 기록 중이 아니면 아무것도 기록하지 않는다
+		event.begin();
+		long startNanos = System.nanoTime();
+		String outcome = LockAcquireEvent.ERROR;
+		
 		//tryLock(waitTime, leaseTime)
 		try {
-			boolean isLock = lock.tryLock(1, 15, TimeUnit.SECONDS); //success(lock 생성)였다가 5초 뒤 fail(lock 해제)
+			Backend backend = tryLock(accountNumber);
 			
 			//lock을 취득 못하였을 시 거래 실패
-			if(!isLock) {
+			if(backend == null) {
+				outcome = LockAcquireEvent.TIMEOUT;
 				log.error("====Lock acquisition failed====");
 				throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
 			}
-		} catch (AccountException e) {
-			throw e;
-		} catch (Exception e) {
-			log.error("Redis lock failed", e);
+			outcome = LockAcquireEvent.ACQUIRED;
+			heldBackends.get().put(accountNumber, backend);
+			FencingTokens.bind(accountNumber, backend == Backend.FALLBACK ? null : fencingTokenIssuer.issue(accountNumber));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+		} finally {
+			event.end();
+			if(event.shouldCommit()) {
+				event.accountNumber = accountNumber;
+				event.waitTime = System.nanoTime() - startNanos;
+				event.outcome = outcome;
+				event.commit();
+			}
 		}
 		
 	}
 	
 	public void unlock(String accountNumber) {
 		log.debug("Unlock for accountNumber : {} ", accountNumber);
-		redissonClient.getLock(getLockKey(accountNumber)).unlock(); //lock을 가져온 후 해제
+		FencingTokens.clear(accountNumber);
+		Backend backend = heldBackends.get().remove(accountNumber);
+		if(backend == null) {
+			log.warn("Unlock of {} without holding its lock", accountNumber);
+			return;
+		}
+		
+		switch(backend) {
+			case LOCAL:
+			case FALLBACK:
+				localLockRegistry.unlock(accountNumber);
+				return;
+			case QUORUM:
+				quorumLock.unlock(getLockKey(accountNumber));
+				return;
+			default:
+				unlockRedis(accountNumber);
+		}
 	}
 	
 	
+	//잡은 곳을 반환, 다른 요청이 잡고 있어 못 잡았으면 null
+	private Backend tryLock(String accountNumber) throws InterruptedException {
+		if(clusterEnabled) {
+			return localLockRegistry.tryLock(accountNumber, waitMillis, TimeUnit.MILLISECONDS) ? Backend.LOCAL : null;
+		}
+		if(!circuitBreaker.tryAcquirePermission()) {
+			return tryFallbackLock(accountNumber);
+		}
+		
+		try {
+			Backend backend;
+			boolean acquired;
+			if(quorumLock.isEnabled()) {
+				backend = Backend.QUORUM;
+				acquired = quorumLock.tryLock(getLockKey(accountNumber), waitMillis, leaseMillis, TimeUnit.MILLISECONDS);
+			} else {
+				backend = Backend.REDIS;
+				RLock lock = redissonClient.getLock(getLockKey(accountNumber)); //계좌번호를 lock의 key로 삼음
+				acquired = lock.tryLock(waitMillis, leaseMillis, TimeUnit.MILLISECONDS); //success(lock 생성)였다가 5초 뒤 fail(lock 해제)
+			}
+			circuitBreaker.onSuccess(); //다른 요청이 잡고 있어 못 잡은 것도 레디스는 정상
+			return acquired ? backend : null;
+		} catch (RedisException e) {
+			log.error("Redis lock failed", e);
+			circuitBreaker.onFailure();
+			return tryFallbackLock(accountNumber);
+		}
+	}
+	
+	//레디스를 쓸 수 없을 때, 다른 노드와는 서로 막지 못하므로 잔액 변경은 DB의 Account.version 검사에 맡긴다
+	private Backend tryFallbackLock(String accountNumber) throws InterruptedException {
+		if("fail-fast".equals(fallback)) {
+			throw new AccountException(ErrorCode.LOCK_SERVICE_UNAVAILABLE);
+		}
+		return localLockRegistry.tryLock(accountNumber, waitMillis, TimeUnit.MILLISECONDS) ? Backend.FALLBACK : null;
+	}
+	
+	private void unlockRedis(String accountNumber) {
+		if(!circuitBreaker.tryAcquirePermission()) {
+			return; //레디스 장애 중, lease가 지나면 풀린다
+		}
+		try {
+			redissonClient.getLock(getLockKey(accountNumber)).unlock(); //lock을 가져온 후 해제
+			circuitBreaker.onSuccess();
+		} catch (IllegalMonitorStateException e) {
+			//lease가 먼저 지나 이미 풀렸다 (그 사이 잔액 변경은 fencing token으로 검사했으므로 요청은 그대로 성공)
+			log.warn("Lock lease of {} expired before unlock", accountNumber);
+		} catch (RedisException e) {
+			log.error("Redis unlock failed, lock of {} expires with its lease", accountNumber, e);
+			circuitBreaker.onFailure();
+		}
+	}
 
 	private String getLockKey(String accountNumber) {
 		return "ACLK:" + accountNumber;
@@ -0,0 +1,106 @@
+package com.example.account.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.account.domain.OutboxEvent;
+import com.example.account.event.BalanceEventSink;
+import com.example.account.repository.OutboxEventRepository;
+import com.example.account.shard.ShardExecutor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ outbox relay
+ 1. 아직 전달하지 않은(sentAt이 null인) 이벤트를 id 순서대로 batch-size 만큼 읽는다
+ 2. sink로 전달한다 (한 스레드에서 id 순서대로 전달하므로 계좌별 순서가 유지된다)
+ 3. 전달에 성공하면 그 이벤트들에 sentAt을 쓴다, 실패하면 다음 주기에 같은 batch를 다시 전달 (at-least-once)
+ - id가 커밋 순서와 달라도 커밋이 늦은 이벤트는 다음 주기에 읽히므로 건너뛰지 않는다
+   (같은 계좌의 이벤트는 계좌 lock 안에서 차례로 커밋되므로 계좌별 순서는 그대로)
+ - 샤딩 시 outbox는 샤드마다 있다, 계좌는 한 샤드에만 있으므로 샤드를 차례로 돌아도 계좌별 순서는 유지된다
+ - 노드가 여럿이면(cluster.enabled) 레디스 lock을 잡은 노드 하나만 전달한다 (같은 이벤트를 여러 노드가 겹쳐 보내지 않게)
+ - 전달한 이벤트는 retention-days가 지나면 지운다 (purge)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+	private static final String RELAY_LOCK_KEY = "OUTBOX:RELAY";
+	
+	private final OutboxEventRepository outboxEventRepository;
+	private final BalanceEventSink balanceEventSink;
+	private final ShardExecutor shardExecutor;
+	private final RedissonClient redissonClient;
+	
+	@Value("${outbox.relay.enabled:true}")
+	private boolean enabled;
+	
+	@Value("${outbox.relay.batch-size:500}")
+	private int batchSize;
+	
+	@Value("${outbox.retention-days:7}")
+	private long retentionDays;
+	
+	@Scheduled(fixedDelayString = "${outbox.relay.interval-millis:500}")
+	public void relay() {
+		if(!enabled) {
+			return;
+		}
+		
+		RLock lock = redissonClient.getLock(RELAY_LOCK_KEY);
+		if(!lock.tryLock()) {
+			return; //다른 노드가 전달 중
+		}
+		
+		try {
+			//한 주기에 밀린 이벤트를 모두 전달
+			shardExecutor.forEachShard(shard -> {
+				while(relayBatch() == batchSize) {
+					log.debug("Outbox relay has more events on shard {}, continuing", shard);
+				}
+			});
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	@Scheduled(fixedDelayString = "${outbox.purge-interval-millis:3600000}", initialDelayString = "${outbox.purge-interval-millis:3600000}")
+	public void purge() {
+		LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+		shardExecutor.forEachShard(shard -> {
+			int purged = outboxEventRepository.deleteSentBefore(before);
+			if(purged > 0) {
+				log.info("Purged {} outbox events sent before {} on shard {}", purged, before, shard);
+			}
+		});
+	}
+	
+	//전달한 이벤트 수를 반환
+	int relayBatch() {
+		List<OutboxEvent> events = outboxEventRepository.findBySentAtIsNullOrderByIdAsc(PageRequest.of(0, batchSize));
+		
+		if(events.isEmpty()) {
+			return 0;
+		}
+		
+		try {
+			balanceEventSink.deliver(events);
+		} catch (Exception e) {
+			log.error("Failed to deliver {} balance events from id {}", events.size(), events.get(0).getId(), e);
+			return 0;
+		}
+		
+		outboxEventRepository.markSent(events.stream().map(OutboxEvent::getId).collect(Collectors.toList()), LocalDateTime.now());
+		
+		return events.size();
+	}
+}
@@ -0,0 +1,52 @@
+package com.example.account.service;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+//서비스 메서드 실행 시간 (컨트롤러는 http.server.requests, 리포지토리는 spring.data.repository.invocations로 자동 수집된다)
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ServiceMetricsAspect {
+	private static final String NO_EXCEPTION = "none";
+	
+	private final MeterRegistry meterRegistry;
+	private final Map<Method, Map<String, Timer>> timers = new ConcurrentHashMap<>(); //메서드 -> 예외 종류 -> timer (호출마다 등록하지 않는다)
+	
+	//태그는 클래스, 메서드, 예외 종류만 (계좌번호, 거래 id 같은 값은 태그로 쓰지 않는다)
+	@Around("execution(public * com.example.account.service.*Service.*(..))")
+	public Object timeServiceMethod(ProceedingJoinPoint pjp) throws Throwable {
+		long start = System.nanoTime();
+		String exception = NO_EXCEPTION;
+		
+		try {
+			return pjp.proceed();
+		} catch (Throwable e) {
+			exception = e.getClass().getSimpleName();
+			throw e;
+		} finally {
+			timer((MethodSignature) pjp.getSignature(), exception).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+	
+	private Timer timer(MethodSignature signature, String exception) {
+		return timers.computeIfAbsent(signature.getMethod(), method -> new ConcurrentHashMap<>())
+				.computeIfAbsent(exception, key -> Timer.builder("account.service.method")
+						.tag("class", signature.getDeclaringType().getSimpleName())
+						.tag("method", signature.getName())
+						.tag("exception", key)
+						.register(meterRegistry));
+	}
+}
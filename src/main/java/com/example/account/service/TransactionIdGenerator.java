@@ -0,0 +1,14 @@
+package com.example.account.service;
+
+import java.util.UUID;
+
+//거래 ID 생성 (UUID에서 대쉬를 없앤 32자리), 벤치마크에서 직접 호출할 수 있도록 분리
+public final class TransactionIdGenerator {
+	
+	private TransactionIdGenerator() {
+	}
+	
+	public static String generate() {
+		return UUID.randomUUID().toString().replace("-", ""); //UUID란? UNIQUE IDENTIFIED , 대쉬는 없애기
+	}
+}
@@ -1,24 +1,50 @@
 package com.example.account.service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
-import javax.transaction.Transactional;
 import javax.validation.constraints.NotNull;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.account.archive.TransactionArchive;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.domain.BalanceHold;
+import com.example.account.domain.OutboxEvent;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.BalanceHoldDTO;
+import com.example.account.dto.FailedTransaction;
+import com.example.account.dto.LedgerEntry;
 import com.example.account.dto.TransactionDTO;
+import com.example.account.dto.TransactionSummary;
+import com.example.account.event.BalanceChangedEvent;
 import com.example.account.exception.AccountException;
+import com.example.account.fencing.FencingTokens;
+import com.example.account.hotspot.HotAccountTracker;
+import com.example.account.jfr.TransactionInsertEvent;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.BalanceHoldRepository;
+import com.example.account.repository.OutboxEventRepository;
 import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardExecutor;
+import com.example.account.shard.ShardKey;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.HoldStatus;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 
@@ -32,20 +58,50 @@ public class TransactionService {
 	private final TransactionRepository transactionRepository; 
 	private final AccountUserRepository accountUserRepository; //userId 
 	private final AccountRepository accountRepository; //accountNumber 
+	private final OutboxEventRepository outboxEventRepository; //잔액 변경 이벤트
+	private final ApplicationEventPublisher applicationEventPublisher; //커밋 후 리스너(SSE 등)에 전달
+	private final ShardExecutor shardExecutor; //거래 id로 찾는 조회는 모든 샤드에 보낸다
+	private final TransactionArchive transactionArchive; //hot 테이블에서 옮겨진 오래된 거래
+	private final DailyRollupService dailyRollupService; //일별 합계를 같은 트랜잭션에서 갱신
+	private final HotAccountTracker hotAccountTracker; //계좌별 실패 건수
+	private final BalanceHoldRepository balanceHoldRepository; //가승인
+	
+	@Value("${archive.max-age-days:365}")
+	private long archiveMaxAgeDays; //이보다 오래된 기간의 합계는 보관 세그먼트도 함께 읽는다
+	
+	@Value("${hold.ttl-seconds:600}")
+	private long holdTtlSeconds; //확정하지 않은 가승인은 이 시간이 지나면 만료 작업이 풀어준다
 	
 	@Transactional
-	public TransactionDTO useBalance(Long userId, String accountNumber, Long amount) {
+	public TransactionDTO useBalance(Long userId, @ShardKey String accountNumber, Long amount) {
 		
 		AccountUser user = accountUserRepository.findById(userId).orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
 		
+		boolean fenced = advanceFencingToken(accountNumber); //계좌를 읽기 전에 (행 lock을 먼저 잡아야 최신 잔액을 읽는다)
 		Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND)); 
+		validateFencingToken(fenced);
 		
 		validateUseBalance(user, account, amount); //유효성 확인
 		System.out.println("amount 값: " + amount);
 		
 		account.useBalance(amount); //잔액 변경
 
-		return TransactionDTO.fromEntity(saveAndGetTransaction(TransactionType.USE, TransactionResultType.S, account, amount));
+		return TransactionDTO.fromEntity(saveBalanceChange(TransactionType.USE, account, amount));
+	}
+	
+	
+	//lock을 잡고 들어온 요청이면 계좌의 fencing token을 올린다, lock 없이 부른 경우는 검사하지 않는다
+	//계좌가 영속성 컨텍스트에 올라오기 전에 불러야 한다 (먼저 읽힌 계좌 객체는 예전 token을 들고 있다가 커밋 때 덮어쓴다)
+	private boolean advanceFencingToken(String accountNumber) {
+		Long token = FencingTokens.current(accountNumber);
+		return token == null || accountRepository.advanceFencingToken(accountNumber, token) > 0;
+	}
+	
+	//lease가 지나는 동안 더 늦게 lock을 잡은 요청이 이미 잔액을 바꿨다
+	private void validateFencingToken(boolean fenced) {
+		if(!fenced) {
+			throw new AccountException(ErrorCode.STALE_LOCK_TOKEN);
+		}
 	}
 	
 	
@@ -58,49 +114,152 @@ public class TransactionService {
 			throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
 		}
 		
-		if(account.getBalance() < amount)  { //잔액보다 높은 금액 사용하려는 경우
+		if(account.getAvailableBalance() < amount)  { //잔액보다 높은 금액 사용하려는 경우 (가승인으로 잡아둔 금액은 쓸 수 없다)
 			throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
 		}
 	}
 
 
 	@Transactional
-	public void saveFailedUseTransaction(String accountNumber, Long amount) {
+	public void saveFailedUseTransaction(@ShardKey String accountNumber, Long amount) {
 		Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 		
 		//해당 계좌가 잔액 사용 오류 기록
 		saveAndGetTransaction(TransactionType.USE, TransactionResultType.F, account, amount);
+		hotAccountTracker.recordFailures(List.of(accountNumber));
+		
+	}
+	
+	//실패 이력 일괄 저장 (FailedTransactionWriter가 샤드별로 나눠서 호출), 계좌 조회도 한 번에 한다
+	@Transactional
+	public void saveFailedTransactions(List<FailedTransaction> failedTransactions) {
+		List<String> accountNumbers = failedTransactions.stream().map(FailedTransaction::getAccountNumber).distinct().collect(Collectors.toList());
+		Map<String, Account> accounts = accountRepository.findByAccountNumberIn(accountNumbers).stream()
+				.collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+		
+		List<Transaction> transactions = failedTransactions.stream()
+				.filter(failedTransaction -> {
+					if(!accounts.containsKey(failedTransaction.getAccountNumber())) {
+						log.warn("Skip failed transaction of unknown account : {}", failedTransaction.getAccountNumber());
+						return false;
+					}
+					return true;
+				})
+				.map(failedTransaction -> buildTransaction(failedTransaction.getTransactionType(), TransactionResultType.F, 
+						accounts.get(failedTransaction.getAccountNumber()), failedTransaction.getAmount(), failedTransaction.getTransactedAt()))
+				.collect(Collectors.toList());
+		
+		TransactionInsertEvent event = new TransactionInsertEvent();
+		event.begin();
+		transactionRepository.saveAll(transactions); //hibernate.jdbc.batch_size 단위로 insert
+		event.end();
+		dailyRollupService.recordAll(transactions);
+		hotAccountTracker.recordFailures(transactions.stream().map(transaction -> transaction.getAccount().getAccountNumber()).collect(Collectors.toList()));
+		if(event.shouldCommit()) {
+			event.resultType = TransactionResultType.F.name();
+			event.rows = transactions.size();
+			event.commit();
+		}
+	}
+	
+	//Redis 원장 journal 일괄 저장 (RedisLedgerPersister가 샤드별로 나눠서 호출), 잔액은 더하지 않고 journal의 잔액을 그대로 쓴다
+	@Transactional
+	public void saveLedgerEntries(List<LedgerEntry> entries) {
+		List<String> accountNumbers = entries.stream().map(LedgerEntry::getAccountNumber).distinct().collect(Collectors.toList());
+		Map<String, Account> accounts = accountRepository.findByAccountNumberIn(accountNumbers).stream()
+				.collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+		
+		List<Transaction> transactions = new ArrayList<>(entries.size());
+		for(LedgerEntry entry : entries) {
+			Account account = accounts.get(entry.getAccountNumber());
+			if(account == null) {
+				log.warn("Skip ledger entry of unknown account : {}", entry.getAccountNumber());
+				continue;
+			}
+			
+			//이미 저장한 항목 (journal을 잘라내기 전에 멈췄던 경우)
+			if(account.getLedgerSeq() != null && entry.getSeq() <= account.getLedgerSeq()) {
+				continue;
+			}
+			
+			account.setBalance(entry.getBalanceAfter());
+			account.setLedgerSeq(entry.getSeq());
+			transactions.add(Transaction.builder()
+					.transactionType(entry.getTransactionType())
+					.transactionResultType(TransactionResultType.S)
+					.account(account)
+					.amount(entry.getAmount())
+					.balanceSnapshot(entry.getBalanceAfter())
+					.transactionId(entry.getTransactionId())
+					.transactedAt(entry.getTransactedAt())
+					.build());
+		}
+		
+		transactionRepository.saveAll(transactions);
+		outboxEventRepository.saveAll(transactions.stream().map(OutboxEvent::fromTransaction).collect(Collectors.toList()));
+		transactions.forEach(transaction -> applicationEventPublisher.publishEvent(BalanceChangedEvent.fromTransaction(transaction)));
+		dailyRollupService.recordAll(transactions);
+	}
+	
+	//성공 거래 저장 + 같은 트랜잭션에서 outbox에 잔액 변경 이벤트 기록
+	private Transaction saveBalanceChange(TransactionType transactionType, Account account, Long amount) {
+		Transaction transaction = saveAndGetTransaction(transactionType, TransactionResultType.S, account, amount);
+		outboxEventRepository.save(OutboxEvent.fromTransaction(transaction));
+		applicationEventPublisher.publishEvent(BalanceChangedEvent.fromTransaction(transaction));
 		
+		return transaction;
 	}
 	
 	//저장
 	private Transaction saveAndGetTransaction(TransactionType transactionType, TransactionResultType transactionResultType, Account account, Long amount) {
+		Transaction transaction = buildTransaction(transactionType, transactionResultType, account, amount, LocalDateTime.now());
+		
+		TransactionInsertEvent event = new TransactionInsertEvent(); //JFR
+		event.begin();
+		Transaction saved = transactionRepository.save(transaction);
+		event.end();
+		dailyRollupService.record(saved);
+		if(event.shouldCommit()) {
+			event.transactionId = transaction.getTransactionId();
+			event.accountNumber = account.getAccountNumber();
+			event.transactionType = transactionType.name();
+			event.resultType = transactionResultType.name();
+			event.rows = 1;
+			event.commit();
+		}
 		
-		return transactionRepository.save(
-				Transaction.builder()
+		return saved;
+	}
+	
+	private Transaction buildTransaction(TransactionType transactionType, TransactionResultType transactionResultType, Account account, Long amount, LocalDateTime transactedAt) {
+		return Transaction.builder()
 				.transactionType(transactionType)
 				.transactionResultType(transactionResultType) //Fail
 				.account(account)
 				.amount(amount)
 				.balanceSnapshot(account.getBalance()) //변경된 값 저장
-				.transactionId(UUID.randomUUID().toString().replace("-", "")) //UUID란? UNIQUE IDENTIFIED , 대쉬는 없애기
-				.transactedAt(LocalDateTime.now())
-				.build()
-				);
+				.transactionId(TransactionIdGenerator.generate())
+				.transactedAt(transactedAt)
+				.build();
 	}
 
 
 	@Transactional
-	public TransactionDTO cancelBalance(String transactionId, String accountNumber, Long amount) {
+	public TransactionDTO cancelBalance(String transactionId, @ShardKey String accountNumber, Long amount) {
 		
-		Transaction transaction = transactionRepository.findByTransactionId(transactionId).orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+		boolean fenced = advanceFencingToken(accountNumber); //거래를 읽기 전에 (거래가 계좌를 함께 읽어 온다)
 		Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+		validateFencingToken(fenced);
+		
+		//보관된 거래는 1년이 지나 취소할 수 없다
+		Transaction transaction = transactionRepository.findByTransactionId(transactionId).orElseThrow(() -> new AccountException(
+				transactionArchive.findByTransactionId(transactionId).isPresent() ? ErrorCode.TOO_OLD_ORDER_TO_CANCEL : ErrorCode.TRANSACTION_NOT_FOUND));
 		
 		validateCancelBalance(transaction, account, amount);
 		
 		account.cancelBalance(amount);
 		
-		return TransactionDTO.fromEntity(saveAndGetTransaction(TransactionType.CANCEL, TransactionResultType.S, account, amount)); 
+		return TransactionDTO.fromEntity(saveBalanceChange(TransactionType.CANCEL, account, amount)); 
 	}
 
 
@@ -121,7 +280,7 @@ public class TransactionService {
 
 
 	@Transactional
-	public void saveFailedCancelTransaction(String accountNumber, @NotNull Long amount) {
+	public void saveFailedCancelTransaction(@ShardKey String accountNumber, @NotNull Long amount) {
 		
 		Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 		
@@ -131,9 +290,180 @@ public class TransactionService {
 	}
 
 
+	/*
+	 가승인 -> 확정/해제
+	 - 가승인과 확정은 각각 짧은 요청이라 lock도 그 동안만 잡는다 (가승인과 확정 사이에는 lock이 없음)
+	 - 그 사이의 잔액 사용은 사용 가능 잔액(잔액 - 잡아둔 금액)으로 검사하므로 잡아둔 금액을 쓸 수 없다
+	 */
+	@Transactional
+	public BalanceHoldDTO reserveBalance(Long userId, @ShardKey String accountNumber, Long amount) {
+		
+		AccountUser user = accountUserRepository.findById(userId).orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+		
+		boolean fenced = advanceFencingToken(accountNumber);
+		Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+		validateFencingToken(fenced);
+		
+		validateUseBalance(user, account, amount);
+		
+		account.reserveBalance(amount);
+		
+		return BalanceHoldDTO.fromEntity(balanceHoldRepository.save(BalanceHold.builder()
+				.account(account)
+				.holdId(TransactionIdGenerator.generate())
+				.holdStatus(HoldStatus.HELD)
+				.amount(amount)
+				.expiresAt(LocalDateTime.now().plusSeconds(holdTtlSeconds))
+				.build()));
+	}
+	
+	
+	//확정 금액만큼 USE 거래로 저장 (취소는 이 거래로 잔액 사용 취소), 나머지는 풀린다
+	@Transactional
+	public BalanceHoldDTO captureHold(String holdId, @ShardKey String accountNumber, Long amount) {
+		
+		boolean fenced = advanceFencingToken(accountNumber); //가승인을 읽기 전에 (가승인이 계좌를 함께 읽어 온다)
+		Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+		validateFencingToken(fenced);
+		BalanceHold hold = balanceHoldRepository.findByHoldId(holdId).orElseThrow(() -> new AccountException(ErrorCode.HOLD_NOT_FOUND));
+		
+		validateOpenHold(hold, account);
+		
+		account.captureHold(hold.getAmount(), amount); //가승인 금액보다 크면 실패
+		Transaction transaction = saveBalanceChange(TransactionType.USE, account, amount);
+		
+		hold.setCapturedAmount(amount);
+		hold.setTransactionId(transaction.getTransactionId());
+		hold.close(HoldStatus.CAPTURED, transaction.getTransactedAt());
+		
+		return BalanceHoldDTO.fromEntity(hold);
+	}
+	
+	
+	@Transactional
+	public BalanceHoldDTO releaseHold(String holdId, @ShardKey String accountNumber) {
+		
+		boolean fenced = advanceFencingToken(accountNumber); //가승인을 읽기 전에 (가승인이 계좌를 함께 읽어 온다)
+		Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+		validateFencingToken(fenced);
+		BalanceHold hold = balanceHoldRepository.findByHoldId(holdId).orElseThrow(() -> new AccountException(ErrorCode.HOLD_NOT_FOUND));
+		
+		validateOpenHold(hold, account);
+		
+		account.releaseHold(hold.getAmount());
+		hold.close(HoldStatus.RELEASED, LocalDateTime.now());
+		
+		return BalanceHoldDTO.fromEntity(hold);
+	}
+	
+	
+	private void validateOpenHold(BalanceHold hold, Account account) {
+		if(!Objects.equals(hold.getAccount().getId(), account.getId())) {
+			throw new AccountException(ErrorCode.HOLD_ACCOUNT_UN_MATCH);
+		}
+		
+		if(hold.getHoldStatus() == HoldStatus.EXPIRED) {
+			throw new AccountException(ErrorCode.HOLD_EXPIRED);
+		}
+		
+		if(hold.getHoldStatus() != HoldStatus.HELD) {
+			throw new AccountException(ErrorCode.HOLD_ALREADY_CLOSED);
+		}
+		
+		//만료 작업이 아직 돌지 않았더라도 만료 시각이 지났으면 확정/해제하지 않는다 (만료 작업이 푼다)
+		if(!hold.getExpiresAt().isAfter(LocalDateTime.now())) {
+			throw new AccountException(ErrorCode.HOLD_EXPIRED);
+		}
+	}
+	
+	
+	/*
+	 만료된 가승인 해제 (HoldExpiryJob이 샤드별로 호출)
+	 - 만료 시각이 지난 가승인 id를 읽고, 한 건씩 각자의 트랜잭션에서 푼다
+	 - lock 없이 바꾸므로 같은 계좌의 가승인/확정과 겹치면 Account @Version으로 늦게 커밋하는 쪽이 실패한다
+	   (그 가승인만 롤백, 다른 계좌의 가승인은 그대로 풀린다)
+	 */
+	@Transactional //주 DB에서 (replica는 이미 푼 가승인을 다시 돌려줄 수 있다)
+	public List<String> findExpiredHoldIds(int batchSize) {
+		return balanceHoldRepository.findByHoldStatusAndExpiresAtBeforeOrderByExpiresAtAsc(HoldStatus.HELD, LocalDateTime.now(), PageRequest.of(0, batchSize))
+				.stream()
+				.map(BalanceHold::getHoldId)
+				.collect(Collectors.toList());
+	}
+	
+	//풀었으면 true, 그 사이 확정/해제되었으면 false
+	@Transactional
+	public boolean expireHold(String holdId) {
+		LocalDateTime now = LocalDateTime.now();
+		BalanceHold hold = balanceHoldRepository.findByHoldId(holdId).orElse(null);
+		if(hold == null || hold.getHoldStatus() != HoldStatus.HELD || hold.getExpiresAt().isAfter(now)) {
+			return false;
+		}
+		
+		hold.getAccount().releaseHold(hold.getAmount());
+		hold.close(HoldStatus.EXPIRED, now);
+		return true;
+	}
+
+
+	@Transactional(readOnly = true)
 	public TransactionDTO queryTransaction(String transactionId) {
-		return TransactionDTO.fromEntity(transactionRepository.findByTransactionId(transactionId).
-				orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND)));
+		//거래 id에는 샤드 정보가 없으므로 모든 샤드에 병렬로 조회 (DTO 변환은 각 샤드 세션 안에서)
+		return shardExecutor.onAllShards(() -> transactionRepository.findByTransactionId(transactionId).map(TransactionDTO::fromEntity)).stream()
+				.flatMap(Optional::stream)
+				.findFirst()
+				.or(() -> transactionArchive.findByTransactionId(transactionId)) //hot 테이블에 없으면 보관 세그먼트에서
+				.orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+	
+	}
 	
+	
+	//계좌의 기간(from 이상 to 미만) 합계, 거래를 페이지로 읽지 않고 집계 쿼리 한 번으로 계산한다
+	@Transactional(readOnly = true)
+	public TransactionSummary summarizeTransactions(@ShardKey String accountNumber, LocalDateTime from, LocalDateTime to) {
+		if(!from.isBefore(to)) {
+			throw new AccountException(ErrorCode.INVALID_REQUEST);
+		}
+		Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+		
+		Map<String, TransactionSummary.Group> groups = new LinkedHashMap<>();
+		for(Object[] row : transactionRepository.summarizeByAccountBetween(account.getId(), from, to)) {
+			TransactionSummary.Group group = TransactionSummary.Group.builder()
+					.transactionType((TransactionType) row[0])
+					.transactionResultType((TransactionResultType) row[1])
+					.sum((Long) row[2])
+					.count((Long) row[3])
+					.min((Long) row[4])
+					.max((Long) row[5])
+					.build();
+			groups.merge(group.getTransactionType() + ":" + group.getTransactionResultType(), group, TransactionSummary.Group::plus);
+		}
+		
+		//hot 테이블에서 옮겨진 기간이면 보관 세그먼트의 거래도 더한다 (드문 경우라 메모리에서 합친다)
+		if(from.isBefore(LocalDateTime.now().minusDays(archiveMaxAgeDays))) {
+			for(TransactionDTO transaction : transactionArchive.findByAccountNumber(accountNumber)) {
+				if(transaction.getTransactedAt().isBefore(from) || !transaction.getTransactedAt().isBefore(to)) {
+					continue;
+				}
+				TransactionSummary.Group group = TransactionSummary.Group.builder()
+						.transactionType(transaction.getTransactionType())
+						.transactionResultType(transaction.getTransactionResultType())
+						.sum(transaction.getAmount())
+						.count(1L)
+						.min(transaction.getAmount())
+						.max(transaction.getAmount())
+						.build();
+				groups.merge(group.getTransactionType() + ":" + group.getTransactionResultType(), group, TransactionSummary.Group::plus);
+			}
+		}
+		
+		return TransactionSummary.builder()
+				.accountNumber(accountNumber)
+				.from(from)
+				.to(to)
+				.groups(groups.values().stream()
+						.sorted(Comparator.comparing(TransactionSummary.Group::getTransactionType).thenComparing(TransactionSummary.Group::getTransactionResultType))
+						.collect(Collectors.toList()))
+				.build();
 	}
 }
@@ -0,0 +1,29 @@
+package com.example.account.shard;
+
+//현재 스레드가 사용할 샤드 번호, 지정하지 않으면 0번 (account_user처럼 모든 샤드에 복제된 테이블 조회용)
+public final class ShardContext {
+	private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+	private ShardContext() {
+	}
+
+	//샤드를 지정하고 이전 값을 반환 (restore로 되돌린다)
+	public static Integer bind(int shard) {
+		Integer previous = CURRENT.get();
+		CURRENT.set(shard);
+		return previous;
+	}
+
+	public static void restore(Integer previous) {
+		if(previous == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(previous);
+		}
+	}
+
+	public static int current() {
+		Integer shard = CURRENT.get();
+		return shard == null ? 0 : shard;
+	}
+}
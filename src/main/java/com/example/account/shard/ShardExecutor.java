@@ -0,0 +1,154 @@
+package com.example.account.shard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ 샤드 선택과 샤드 단위 실행
+ - 계좌번호 해시로 샤드를 고른다 (계좌와 그 계좌의 거래 이력은 같은 샤드에 있다)
+ - 사용자/거래 id로 찾는 조회는 모든 샤드에 병렬로 보내고 결과를 샤드 순서대로 합친다
+ - 샤드가 1개(single)면 현재 스레드, 현재 트랜잭션에서 그대로 실행한다
+ */
+public class ShardExecutor {
+	private final int shardCount;
+	private final ExecutorService queryExecutor;
+	private final TransactionTemplate newTransaction; //다른 샤드의 트랜잭션 안에서 호출됐을 때 (REQUIRES_NEW)
+
+	public ShardExecutor(int shardCount, ExecutorService queryExecutor, TransactionTemplate newTransaction) {
+		this.shardCount = shardCount;
+		this.queryExecutor = queryExecutor;
+		this.newTransaction = newTransaction;
+	}
+
+	//샤딩하지 않는 단일 DB
+	public static ShardExecutor single() {
+		return new ShardExecutor(1, null, null);
+	}
+
+	public int getShardCount() {
+		return shardCount;
+	}
+
+	public boolean isSharded() {
+		return shardCount > 1;
+	}
+
+	//연속된 계좌번호가 고르게 퍼지도록 해시를 한 번 섞는다 (murmur3 finalizer)
+	public int shardOf(String accountNumber) {
+		if(!isSharded()) {
+			return 0;
+		}
+
+		int hash = accountNumber.hashCode();
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		hash *= 0xc2b2ae35;
+		hash ^= hash >>> 16;
+		return Math.floorMod(hash, shardCount);
+	}
+
+	public <T> T onShard(String accountNumber, Supplier<T> work) {
+		return onShard(shardOf(accountNumber), work);
+	}
+
+	//트랜잭션이 이미 커넥션을 잡고 있으면 샤드를 바꿀 수 없으므로 지정한 샤드에서 새 트랜잭션으로 실행
+	public <T> T onShard(int shard, Supplier<T> work) {
+		if(!isSharded()) {
+			return work.get();
+		}
+
+		Integer previous = ShardContext.bind(shard);
+		try {
+			if(TransactionSynchronizationManager.isActualTransactionActive()) {
+				return newTransaction.execute(status -> work.get());
+			}
+			return work.get();
+		} finally {
+			ShardContext.restore(previous);
+		}
+	}
+
+	public void runOnShard(int shard, Runnable work) {
+		onShard(shard, () -> {
+			work.run();
+			return null;
+		});
+	}
+
+	//모든 샤드에 병렬로 실행, 결과는 샤드 번호 순서
+	public <T> List<T> onAllShards(Supplier<T> work) {
+		if(!isSharded()) {
+			return Collections.singletonList(work.get());
+		}
+
+		List<Future<T>> futures = new ArrayList<>(shardCount);
+		for(int shard = 0; shard < shardCount; shard++) {
+			int target = shard;
+			futures.add(queryExecutor.submit(() -> onShard(target, work)));
+		}
+
+		List<T> results = new ArrayList<>(shardCount);
+		try {
+			for(Future<T> future : futures) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			futures.forEach(future -> future.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while querying shards", e);
+		} catch (ExecutionException e) {
+			futures.forEach(future -> future.cancel(true));
+			//AccountException 등은 그대로 던진다
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if(e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException("Shard query failed", e.getCause());
+		}
+		return results;
+	}
+
+	//현재 스레드에서 샤드 순서대로 실행 (outbox relay처럼 순서가 필요한 작업)
+	public void forEachShard(IntConsumer work) {
+		for(int shard = 0; shard < shardCount; shard++) {
+			int target = shard;
+			runOnShard(target, () -> work.accept(target));
+		}
+	}
+
+	//계좌번호 기준으로 샤드별로 나눈다
+	public <T> Map<Integer, List<T>> partition(Collection<T> items, Function<T, String> accountNumberOf) {
+		Map<Integer, List<T>> partitions = new TreeMap<>();
+		if(!isSharded()) {
+			partitions.put(0, new ArrayList<>(items));
+			return partitions;
+		}
+
+		for(T item : items) {
+			partitions.computeIfAbsent(shardOf(accountNumberOf.apply(item)), shard -> new ArrayList<>()).add(item);
+		}
+		return partitions;
+	}
+
+	public void shutdown() {
+		if(queryExecutor != null) {
+			queryExecutor.shutdownNow();
+		}
+	}
+}
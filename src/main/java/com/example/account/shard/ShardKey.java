@@ -0,0 +1,13 @@
+package com.example.account.shard;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//서비스 메서드의 계좌번호 파라미터에 붙이면 트랜잭션 시작 전에 그 계좌의 샤드로 라우팅한다 (ShardRoutingAspect)
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+
+}
@@ -0,0 +1,61 @@
+package com.example.account.shard;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+//@ShardKey 계좌번호의 샤드를 @Transactional보다 먼저 지정한다 (트랜잭션이 커넥션을 얻을 때 라우팅되므로)
+@Aspect
+@Component
+@RequiredArgsConstructor
+@Order(ShardRoutingAspect.ORDER)
+public class ShardRoutingAspect {
+	public static final int ORDER = Ordered.LOWEST_PRECEDENCE - 1; //트랜잭션 advisor는 LOWEST_PRECEDENCE
+
+	private final ShardExecutor shardExecutor;
+	private final Map<Method, Integer> keyIndexes = new ConcurrentHashMap<>();
+
+	@Around("execution(* com.example.account.service..*.*(@com.example.account.shard.ShardKey (*), ..))"
+			+ " || execution(* com.example.account.service..*.*(*, @com.example.account.shard.ShardKey (*), ..))")
+	public Object route(ProceedingJoinPoint pjp) throws Throwable {
+		if(!shardExecutor.isSharded()) {
+			return pjp.proceed();
+		}
+
+		Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+		Object accountNumber = pjp.getArgs()[keyIndexes.computeIfAbsent(method, ShardRoutingAspect::keyIndex)];
+		if(accountNumber == null) {
+			return pjp.proceed();
+		}
+
+		Integer previous = ShardContext.bind(shardExecutor.shardOf(accountNumber.toString()));
+		try {
+			return pjp.proceed();
+		} finally {
+			ShardContext.restore(previous);
+		}
+	}
+
+	private static int keyIndex(Method method) {
+		Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+		for(int i = 0; i < parameterAnnotations.length; i++) {
+			for(Annotation annotation : parameterAnnotations[i]) {
+				if(annotation instanceof ShardKey) {
+					return i;
+				}
+			}
+		}
+		throw new IllegalStateException("No @ShardKey parameter on " + method);
+	}
+}
@@ -0,0 +1,56 @@
+package com.example.account.shard;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+//ShardContext의 샤드 번호로 커넥션을 얻는다, 트랜잭션은 시작할 때 얻은 커넥션(샤드)을 끝까지 쓴다
+@Slf4j
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+	private final List<DataSource> shards;
+
+	public ShardRoutingDataSource(List<DataSource> shards) {
+		this.shards = List.copyOf(shards);
+
+		Map<Object, Object> targets = new HashMap<>();
+		for(int i = 0; i < shards.size(); i++) {
+			targets.put(i, shards.get(i));
+		}
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(shards.get(0));
+		setLenientFallback(false);
+		afterPropertiesSet();
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return ShardContext.current();
+	}
+
+	public DataSource getShard(int shard) {
+		return shards.get(shard);
+	}
+
+	public int getShardCount() {
+		return shards.size();
+	}
+
+	@Override
+	public void close() {
+		for(DataSource shard : shards) {
+			if(shard instanceof AutoCloseable) {
+				try {
+					((AutoCloseable) shard).close();
+				} catch (Exception e) {
+					log.warn("Failed to close shard datasource", e);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package com.example.account.shard;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 샤드 스키마 초기화 (H2)
+ - Hibernate ddl-auto와 data.sql은 기본 샤드(0번)에만 적용되므로, 0번의 스키마를 나머지 샤드에 복사한다
+ - 시퀀스는 샤드마다 다른 구간에서 시작해서 id가 샤드 사이에 겹치지 않게 한다 (id로 찾는 조회가 한 건만 나오도록)
+ - account_user는 계좌의 외래키 대상이라 모든 샤드에 복제한다
+ - 이미 account 테이블이 있는 샤드는 건너뛴다 (파일 DB 재시작)
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ShardSchemaInitializer implements SmartInitializingSingleton {
+	static final long ID_RANGE_PER_SHARD = 1_000_000_000_000L;
+	private static final List<String> REPLICATED_TABLES = List.of("account_user");
+
+	private final ShardRoutingDataSource shardRoutingDataSource;
+
+	//data.sql 실행(빈 초기화)이 끝난 뒤, 스케줄러와 웹 서버가 시작되기 전
+	@Override
+	public void afterSingletonsInstantiated() {
+		JdbcTemplate source = new JdbcTemplate(shardRoutingDataSource.getShard(0));
+		List<String> ddl = source.queryForList("script nodata", String.class).stream()
+				.filter(statement -> !statement.startsWith("--"))
+				.collect(Collectors.toList());
+
+		for(int shard = 1; shard < shardRoutingDataSource.getShardCount(); shard++) {
+			JdbcTemplate target = new JdbcTemplate(shardRoutingDataSource.getShard(shard));
+			if(tableExists(target, "ACCOUNT")) {
+				log.info("Shard {} already has a schema, skipping", shard);
+				continue;
+			}
+
+			ddl.forEach(target::execute);
+			for(String sequence : target.queryForList(
+					"select sequence_name from information_schema.sequences where sequence_schema = 'PUBLIC'", String.class)) {
+				target.execute("alter sequence " + sequence + " restart with " + (shard * ID_RANGE_PER_SHARD + 1));
+			}
+			for(String table : REPLICATED_TABLES) {
+				copyRows(source, target, table);
+			}
+			log.info("Shard {} initialized with {} statements", shard, ddl.size());
+		}
+	}
+
+	private boolean tableExists(JdbcTemplate jdbcTemplate, String table) {
+		Integer count = jdbcTemplate.queryForObject(
+				"select count(*) from information_schema.tables where table_schema = 'PUBLIC' and table_name = ?", Integer.class, table);
+		return count != null && count > 0;
+	}
+
+	private void copyRows(JdbcTemplate source, JdbcTemplate target, String table) {
+		for(Map<String, Object> row : source.queryForList("select * from " + table)) {
+			String columns = String.join(", ", row.keySet());
+			String placeholders = row.keySet().stream().map(column -> "?").collect(Collectors.joining(", "));
+			target.update("insert into " + table + " (" + columns + ") values (" + placeholders + ")", row.values().toArray());
+		}
+	}
+}
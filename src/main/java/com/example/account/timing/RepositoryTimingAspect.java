@@ -0,0 +1,47 @@
+package com.example.account.timing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//리포지토리 호출 시간을 db 구간으로, 그 트랜잭션의 flush + commit 시간을 commit 구간으로 기록
+@Aspect
+@Component
+public class RepositoryTimingAspect {
+	
+	//상태가 없어서 모든 트랜잭션이 같은 객체를 쓴다 (요청마다 만들지 않음)
+	private static final TransactionSynchronization COMMIT_TIMING = new TransactionSynchronization() {
+		@Override
+		public void beforeCommit(boolean readOnly) {
+			RequestTiming.start(TimingPhase.COMMIT);
+		}
+		
+		@Override
+		public void afterCompletion(int status) {
+			RequestTiming.stop(TimingPhase.COMMIT);
+			RequestTiming.current().clearCommitHook();
+		}
+	};
+	
+	@Around("execution(* com.example.account.repository..*(..))")
+	public Object timeRepositoryCall(ProceedingJoinPoint pjp) throws Throwable {
+		RequestTiming timing = RequestTiming.current();
+		if(!timing.isActive()) {
+			return pjp.proceed();
+		}
+		
+		if(TransactionSynchronizationManager.isSynchronizationActive() && timing.markCommitHookRegistered()) {
+			TransactionSynchronizationManager.registerSynchronization(COMMIT_TIMING);
+		}
+		
+		long start = System.nanoTime();
+		try {
+			return pjp.proceed();
+		} finally {
+			RequestTiming.add(TimingPhase.DB, System.nanoTime() - start);
+		}
+	}
+}
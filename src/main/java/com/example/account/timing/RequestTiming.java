@@ -0,0 +1,105 @@
+package com.example.account.timing;
+
+/*
+ 요청 하나의 구간별 시간 (나노초)
+ - 스레드마다 하나를 만들어 두고 요청마다 reset 해서 재사용한다 (구간을 기록할 때 객체를 만들지 않음)
+ - ServerTimingFilter가 begin/end 하는 요청 스레드에서만 기록되고, 그 밖(백그라운드 스레드 등)에서는 아무것도 하지 않는다
+ */
+public final class RequestTiming {
+	private static final int PHASES = TimingPhase.values().length;
+	private static final ThreadLocal<RequestTiming> CURRENT = ThreadLocal.withInitial(RequestTiming::new);
+	
+	private final long[] totals = new long[PHASES];
+	private final long[] starts = new long[PHASES];
+	private boolean active;
+	private boolean commitHookRegistered;
+	private long requestStart;
+	
+	private RequestTiming() {
+	}
+	
+	public static RequestTiming current() {
+		return CURRENT.get();
+	}
+	
+	public static void start(TimingPhase phase) {
+		RequestTiming timing = CURRENT.get();
+		if(timing.active) {
+			timing.starts[phase.ordinal()] = System.nanoTime();
+		}
+	}
+	
+	public static void stop(TimingPhase phase) {
+		RequestTiming timing = CURRENT.get();
+		if(timing.active && timing.starts[phase.ordinal()] != 0L) {
+			timing.totals[phase.ordinal()] += System.nanoTime() - timing.starts[phase.ordinal()];
+			timing.starts[phase.ordinal()] = 0L;
+		}
+	}
+	
+	public static void add(TimingPhase phase, long nanos) {
+		RequestTiming timing = CURRENT.get();
+		if(timing.active) {
+			timing.totals[phase.ordinal()] += nanos;
+		}
+	}
+	
+	void begin() {
+		for(int i = 0; i < PHASES; i++) {
+			totals[i] = 0L;
+			starts[i] = 0L;
+		}
+		commitHookRegistered = false;
+		requestStart = System.nanoTime();
+		active = true;
+	}
+	
+	void end() {
+		active = false;
+	}
+	
+	public boolean isActive() {
+		return active;
+	}
+	
+	//트랜잭션마다 commit 구간 기록을 한 번만 등록하기 위한 표시
+	boolean markCommitHookRegistered() {
+		if(!active || commitHookRegistered) {
+			return false;
+		}
+		commitHookRegistered = true;
+		return true;
+	}
+	
+	void clearCommitHook() {
+		commitHookRegistered = false;
+	}
+	
+	public long getNanos(TimingPhase phase) {
+		return totals[phase.ordinal()];
+	}
+	
+	public long getTotalNanos() {
+		return System.nanoTime() - requestStart;
+	}
+	
+	//예: lock-wait;dur=0.412, lock-hold;dur=12.031, db;dur=3.220, commit;dur=1.004, ser;dur=0.087, total;dur=13.5
+	String toHeaderValue(long totalNanos) {
+		StringBuilder header = new StringBuilder(128);
+		for(TimingPhase phase : TimingPhase.values()) {
+			header.append(phase.getMetricName()).append(";dur=");
+			appendMillis(header, totals[phase.ordinal()]).append(", ");
+		}
+		header.append("total;dur=");
+		return appendMillis(header, totalNanos).toString();
+	}
+	
+	private static StringBuilder appendMillis(StringBuilder builder, long nanos) {
+		long micros = nanos / 1_000L;
+		builder.append(micros / 1_000L).append('.');
+		long fraction = micros % 1_000L;
+		if(fraction < 100) builder.append('0');
+		if(fraction < 10) builder.append('0');
+		return builder.append(fraction);
+	}
+}
@@ -0,0 +1,65 @@
+package com.example.account.timing;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/*
+ 요청별 처리 구간을 Server-Timing 응답 헤더로 내려준다
+ - 직렬화 시간까지 헤더에 넣기 위해 응답 본문을 버퍼에 담았다가, 헤더를 붙인 뒤 내보낸다
+ - log-sample-rate 비율의 요청은 구간별 시간을 한 줄 로그(key=value)로도 남긴다
+ */
+@Component
+public class ServerTimingFilter extends OncePerRequestFilter {
+	private static final Logger timingLog = LoggerFactory.getLogger("server-timing");
+	
+	@Value("${server-timing.enabled:true}")
+	private boolean enabled;
+	
+	@Value("${server-timing.log-sample-rate:0.01}")
+	private double logSampleRate;
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		//SSE 스트림은 버퍼링하면 안 되고, actuator는 측정 대상이 아니다
+		String uri = request.getRequestURI();
+		return !enabled || uri.endsWith("/stream") || uri.startsWith("/actuator");
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+		RequestTiming timing = RequestTiming.current();
+		ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+		
+		timing.begin();
+		try {
+			filterChain.doFilter(request, responseWrapper);
+		} finally {
+			RequestTiming.stop(TimingPhase.SERIALIZATION); //SerializationTimingAdvice에서 시작
+			long totalNanos = timing.getTotalNanos();
+			timing.end();
+			
+			responseWrapper.setHeader("Server-Timing", timing.toHeaderValue(totalNanos));
+			responseWrapper.copyBodyToResponse();
+			
+			if(logSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < logSampleRate) {
+				timingLog.info("method={} uri={} status={} total_us={} lock_wait_us={} lock_hold_us={} db_us={} commit_us={} ser_us={}",
+						request.getMethod(), request.getRequestURI(), response.getStatus(), totalNanos / 1_000L,
+						timing.getNanos(TimingPhase.LOCK_WAIT) / 1_000L, timing.getNanos(TimingPhase.LOCK_HOLD) / 1_000L,
+						timing.getNanos(TimingPhase.DB) / 1_000L, timing.getNanos(TimingPhase.COMMIT) / 1_000L,
+						timing.getNanos(TimingPhase.SERIALIZATION) / 1_000L);
+			}
+		}
+	}
+}
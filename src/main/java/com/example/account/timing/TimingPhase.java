@@ -0,0 +1,17 @@
+package com.example.account.timing;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//요청 처리 구간 (Server-Timing 헤더의 metric 이름)
+@Getter
+@AllArgsConstructor
+public enum TimingPhase {
+	LOCK_WAIT("lock-wait"), //lock 취득까지 기다린 시간
+	LOCK_HOLD("lock-hold"), //lock을 잡고 있던 시간 (아래 구간들을 포함)
+	DB("db"), //리포지토리 호출 시간
+	COMMIT("commit"), //flush + commit
+	SERIALIZATION("ser"); //응답 JSON 직렬화
+
+	private final String metricName;
+}
@@ -13,6 +13,7 @@ public enum ErrorCode {
 	INVALID_REQUEST("잘못된 요청입니다"),
 	MAX_ACCOUNT_PER_USER_10("사용자의 최대 계좌는 10개 입니다"),
 	ACCOUNT_NOT_FOUND("계좌가 없습니다"),
+	ACCOUNT_NOT_REGISTERED_AT("해당 시각에는 계좌가 개설되지 않았습니다"),
 	ACCOUNT_TRANSACTION_LOCK("해당 계좌는 사용 중입니다"),
 	TRANSACTION_ACCOUNT_UN_MATCH("이 거래는 해당 계좌에서 발생한 거래가 아닙니다"),
 	CANCEL_MUST_FULLY("부분 취소는 허용되지 않습니다."),
@@ -21,7 +22,17 @@ public enum ErrorCode {
 	AMOUNT_EXCEED_BALANCE("거래 금액이 계좌 잔액보다 크다"),
 	ACCOUNT_ALREADY_UNREGISTERED("계좌가 이미 해지되었습니다"),
 	BALANCE_NOT_EMPTY("잔액이 있는 계좌는 해지할 수 없습니다"),
-	USER_ACCOUNT_UN_MATCH("사용자와 계좌의 소유주가 일치하지 않습니다");
+	USER_ACCOUNT_UN_MATCH("사용자와 계좌의 소유주가 일치하지 않습니다"),
+	REDIS_LEDGER_ACCOUNT("Redis 원장 모드 계좌는 해지할 수 없습니다"),
+	ACCOUNT_OWNER_UNAVAILABLE("계좌 담당 노드에 연결할 수 없습니다"),
+	STALE_LOCK_TOKEN("계좌 lock이 만료되어 다른 거래가 먼저 처리되었습니다"),
+	LOCK_SERVICE_UNAVAILABLE("계좌 lock 서버에 연결할 수 없습니다"),
+	HOLD_NOT_FOUND("해당 가승인이 없습니다"),
+	HOLD_ACCOUNT_UN_MATCH("이 가승인은 해당 계좌의 가승인이 아닙니다"),
+	HOLD_ALREADY_CLOSED("이미 확정되었거나 해제된 가승인입니다"),
+	HOLD_EXPIRED("만료된 가승인입니다"),
+	CAPTURE_EXCEEDS_HOLD("확정 금액이 가승인 금액보다 크다"),
+	REDIS_LEDGER_HOLD("Redis 원장 모드 계좌는 가승인을 할 수 없습니다");
 
 	private final String description;
 }
@@ -0,0 +1,8 @@
+package com.example.account.type;
+
+public enum HoldStatus {
+	HELD, //사용 가능 잔액에서 빠져 있는 상태
+	CAPTURED,
+	RELEASED,
+	EXPIRED
+}
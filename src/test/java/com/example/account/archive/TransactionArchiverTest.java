@@ -0,0 +1,110 @@
+package com.example.account.archive;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDTO;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardExecutor;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionArchiverTest {
+
+	@Mock
+	private TransactionRepository transactionRepository;
+
+	@Mock
+	private TransactionArchive transactionArchive;
+
+	@Spy //샤딩하지 않는 단일 DB
+	private ShardExecutor shardExecutor = ShardExecutor.single();
+
+	@InjectMocks
+	private TransactionArchiver transactionArchiver;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(transactionArchiver, "enabled", true);
+		ReflectionTestUtils.setField(transactionArchiver, "maxAgeDays", 365L);
+		ReflectionTestUtils.setField(transactionArchiver, "segmentRecords", 2);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void archiveWritesSegmentsThenDeletes() throws Exception {
+		//given 3건이면 2건, 1건 두 세그먼트
+		given(transactionRepository.findByTransactedAtBeforeOrderByIdAsc(any(), any()))
+				.willReturn(List.of(transaction(1L), transaction(2L)), List.of(transaction(3L)));
+
+		//when
+		transactionArchiver.archive();
+
+		//then
+		ArgumentCaptor<List<TransactionDTO>> segments = ArgumentCaptor.forClass(List.class);
+		verify(transactionArchive, times(2)).append(segments.capture());
+		assertEquals("tx-1", segments.getAllValues().get(0).get(0).getTransactionId());
+		assertEquals(1, segments.getAllValues().get(1).size());
+		verify(transactionRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+		verify(transactionRepository).deleteAllByIdInBatch(List.of(3L));
+	}
+
+	@Test
+	void keepsRowsWhenSegmentWriteFails() throws Exception {
+		//given
+		given(transactionRepository.findByTransactedAtBeforeOrderByIdAsc(any(), any())).willReturn(List.of(transaction(1L)));
+		willThrow(new IOException("disk full")).given(transactionArchive).append(anyList());
+
+		//when
+		int archived = transactionArchiver.archiveSegment(LocalDateTime.now());
+
+		//then
+		assertEquals(0, archived);
+		verify(transactionRepository, never()).deleteAllByIdInBatch(any());
+	}
+
+	@Test
+	void maxAgeShorterThanCancelWindowIsRejected() {
+		//given
+		ReflectionTestUtils.setField(transactionArchiver, "maxAgeDays", 30L);
+
+		//when then
+		assertThrows(IllegalStateException.class, () -> transactionArchiver.validate());
+	}
+
+	private Transaction transaction(Long id) {
+		return Transaction.builder()
+				.id(id)
+				.account(Account.builder().accountNumber("1000000000").build())
+				.transactionType(TransactionType.USE)
+				.transactionResultType(TransactionResultType.S)
+				.transactionId("tx-" + id)
+				.amount(100L)
+				.balanceSnapshot(900L)
+				.transactedAt(LocalDateTime.now().minusYears(2))
+				.build();
+	}
+}
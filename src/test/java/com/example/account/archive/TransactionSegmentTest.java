@@ -0,0 +1,117 @@
+package com.example.account.archive;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.account.dto.TransactionDTO;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+class TransactionSegmentTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void writeAndFindAcrossBlocks() throws Exception {
+		//given 계좌 10개, 거래 1000건, block당 64건
+		List<TransactionDTO> transactions = transactions(1000, 10);
+		Path path = tempDir.resolve("transactions-1.seg");
+
+		//when
+		TransactionSegment.write(path, transactions, 64);
+		TransactionSegment segment = TransactionSegment.open(path);
+
+		//then
+		assertEquals(1000, segment.getRecords());
+		assertEquals(16, segment.getBlockCount());
+		assertFalse(Files.exists(tempDir.resolve("transactions-1.seg.tmp")));
+
+		TransactionDTO found = segment.findByTransactionId("tx-777").orElseThrow();
+		assertEquals("1000000007", found.getAccountNumber());
+		assertEquals(777L, found.getAmount());
+		assertEquals(TransactionResultType.F, found.getTransactionResultType());
+		assertEquals(transactions.get(777).getTransactedAt(), found.getTransactedAt());
+		assertTrue(segment.findByTransactionId("tx-missing").isEmpty());
+	}
+
+	@Test
+	void findByAccountReadsOnlyItsBlocks() throws Exception {
+		//given
+		Path path = tempDir.resolve("transactions-1.seg");
+		TransactionSegment.write(path, transactions(1000, 10), 64);
+		TransactionSegment segment = TransactionSegment.open(path);
+
+		//when
+		List<TransactionDTO> found = segment.findByAccountNumber("1000000003");
+
+		//then
+		assertEquals(100, found.size());
+		assertTrue(found.stream().allMatch(transaction -> transaction.getAccountNumber().equals("1000000003")));
+		assertTrue(segment.findByAccountNumber("1000000099").isEmpty());
+		assertTrue(segment.findByAccountNumber("0").isEmpty());
+	}
+
+	@Test
+	void archiveDeduplicatesAcrossSegments() throws Exception {
+		//given 보관 후 삭제 전에 죽어서 같은 거래가 두 번 보관된 상태
+		TransactionArchive archive = new TransactionArchive();
+		ReflectionTestUtils.setField(archive, "dir", tempDir.toString());
+		ReflectionTestUtils.setField(archive, "blockRecords", 64);
+		List<TransactionDTO> transactions = transactions(200, 4);
+		archive.append(transactions);
+		archive.append(transactions.subList(0, 100));
+
+		//when 다시 시작
+		TransactionArchive reloaded = new TransactionArchive();
+		ReflectionTestUtils.setField(reloaded, "dir", tempDir.toString());
+		reloaded.load();
+
+		//then
+		assertEquals(2, reloaded.getSegmentCount());
+		List<TransactionDTO> found = reloaded.findByAccountNumber("1000000001");
+		assertEquals(50, found.size());
+		assertEquals(found.stream().map(TransactionDTO::getTransactedAt).sorted().collect(Collectors.toList()),
+				found.stream().map(TransactionDTO::getTransactedAt).collect(Collectors.toList()));
+		assertTrue(reloaded.findByTransactionId("tx-150").isPresent());
+	}
+
+	@Test
+	void rejectsCorruptSegment() throws Exception {
+		//given
+		Path path = tempDir.resolve("broken.seg");
+		Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+
+		//when then
+		assertThrows(IOException.class, () -> TransactionSegment.open(path));
+	}
+
+	//i번째 거래는 계좌 (i % accounts), 금액 i
+	private List<TransactionDTO> transactions(int count, int accounts) {
+		LocalDateTime base = LocalDateTime.of(2020, 1, 1, 0, 0);
+		List<TransactionDTO> transactions = new ArrayList<>();
+		for(int i = 0; i < count; i++) {
+			transactions.add(TransactionDTO.builder()
+					.transactionId("tx-" + i)
+					.accountNumber(String.valueOf(1000000000L + i % accounts))
+					.transactionType(i % 3 == 0 ? TransactionType.CANCEL : TransactionType.USE)
+					.transactionResultType(i % 7 == 0 ? TransactionResultType.F : TransactionResultType.S)
+					.amount((long) i)
+					.balanceSnapshot(100_000L - i)
+					.transactedAt(base.plusMinutes(i).plusNanos(i * 1000L))
+					.build());
+		}
+		return transactions;
+	}
+}
@@ -0,0 +1,83 @@
+package com.example.account.breaker;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class RedisCircuitBreakerTest {
+	private final AtomicLong now = new AtomicLong(1_000_000L);
+
+	private RedisCircuitBreaker circuitBreaker;
+
+	@BeforeEach
+	void setUp() {
+		circuitBreaker = new RedisCircuitBreaker();
+		ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", 3);
+		ReflectionTestUtils.setField(circuitBreaker, "openMillis", 5000L);
+		circuitBreaker.clock = now::get;
+	}
+
+	@Test
+	void opensAfterConsecutiveFailures() {
+		//given 중간에 성공하면 다시 센다
+		circuitBreaker.onFailure();
+		circuitBreaker.onFailure();
+		circuitBreaker.onSuccess();
+		circuitBreaker.onFailure();
+		circuitBreaker.onFailure();
+		assertEquals(RedisCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+		//when
+		circuitBreaker.onFailure();
+
+		//then open-millis 동안은 레디스를 부르지 않는다
+		assertEquals(RedisCircuitBreaker.State.OPEN, circuitBreaker.getState());
+		now.addAndGet(4999L);
+		assertFalse(circuitBreaker.tryAcquirePermission());
+	}
+
+	@Test
+	void halfOpenProbeClosesOnSuccess() {
+		//given
+		open();
+		now.addAndGet(5000L);
+
+		//when 요청 하나만 probe, 나머지는 계속 fallback
+		assertTrue(circuitBreaker.tryAcquirePermission());
+		assertFalse(circuitBreaker.tryAcquirePermission());
+		assertEquals(RedisCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+		circuitBreaker.onSuccess();
+
+		//then
+		assertEquals(RedisCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+		assertTrue(circuitBreaker.tryAcquirePermission());
+	}
+
+	@Test
+	void halfOpenProbeReopensOnFailure() {
+		//given
+		open();
+		now.addAndGet(5000L);
+		assertTrue(circuitBreaker.tryAcquirePermission());
+
+		//when
+		circuitBreaker.onFailure();
+
+		//then 다시 open-millis를 기다린다
+		assertEquals(RedisCircuitBreaker.State.OPEN, circuitBreaker.getState());
+		now.addAndGet(4999L);
+		assertFalse(circuitBreaker.tryAcquirePermission());
+		now.addAndGet(1L);
+		assertTrue(circuitBreaker.tryAcquirePermission());
+	}
+
+	private void open() {
+		for(int i = 0; i < 3; i++) {
+			circuitBreaker.onFailure();
+		}
+	}
+}
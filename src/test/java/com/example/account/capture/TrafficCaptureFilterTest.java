@@ -0,0 +1,167 @@
+package com.example.account.capture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.ArgumentMatchers.any;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.FilterChain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StreamUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(MockitoExtension.class)
+class TrafficCaptureFilterTest {
+
+	@Mock
+	private TrafficCaptureWriter trafficCaptureWriter;
+
+	private TrafficCaptureFilter trafficCaptureFilter;
+
+	@BeforeEach
+	void setUp() {
+		trafficCaptureFilter = new TrafficCaptureFilter(trafficCaptureWriter, new ObjectMapper());
+		ReflectionTestUtils.setField(trafficCaptureFilter, "anonymize", true);
+		ReflectionTestUtils.setField(trafficCaptureFilter, "anonymizeSalt", "test-salt");
+		trafficCaptureFilter.init();
+	}
+
+	@Test
+	void capturesRequestAndOutcomeWithAnonymizedAccount() throws Exception {
+		//given
+		given(trafficCaptureWriter.offsetMicros(anyLong())).willReturn(42L);
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/transaction/use");
+		request.setContent("{\"userId\":1,\"accountNumber\":\"1000000000\",\"amount\":100}".getBytes(StandardCharsets.UTF_8));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		FilterChain chain = (req, res) -> {
+			StreamUtils.copyToByteArray(req.getInputStream()); //컨트롤러가 본문을 읽음
+			res.getWriter().write("{\"accountNumber\":\"1000000000\",\"transactionResultType\":\"S\",\"transactionId\":\"tx1\",\"amount\":100}");
+		};
+
+		//when
+		trafficCaptureFilter.doFilter(request, response, chain);
+
+		//then
+		ArgumentCaptor<TrafficRecord> captor = ArgumentCaptor.forClass(TrafficRecord.class);
+		verify(trafficCaptureWriter).enqueue(captor.capture());
+		TrafficRecord record = captor.getValue();
+		assertEquals(42L, record.getOffsetMicros());
+		assertEquals("POST", record.getMethod());
+		assertEquals("/transaction/use", record.getPath());
+		assertEquals("S", record.getOutcome());
+		assertEquals("tx1", record.getResponseId());
+		assertFalse(record.getRequestBody().contains("1000000000"));
+		assertTrue(response.getContentAsString().contains("tx1")); //응답은 그대로 전달
+	}
+
+	@Test
+	void anonymizesAccountNumberInPath() throws Exception {
+		//given
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/account/1000000000/balance");
+		request.setQueryString("at=2024-03-01T00:00:00");
+		FilterChain chain = (req, res) -> res.getWriter().write("{\"accountNumber\":\"1000000000\",\"balance\":100}");
+
+		//when
+		trafficCaptureFilter.doFilter(request, new MockHttpServletResponse(), chain);
+
+		//then 응답 ID와 같은 값으로 바뀐다
+		ArgumentCaptor<TrafficRecord> captor = ArgumentCaptor.forClass(TrafficRecord.class);
+		verify(trafficCaptureWriter).enqueue(captor.capture());
+		String anonymized = new AccountNumberAnonymizer("test-salt").anonymize("1000000000");
+		assertEquals("/account/" + anonymized + "/balance?at=2024-03-01T00:00:00", captor.getValue().getPath());
+		assertEquals(anonymized, captor.getValue().getResponseId());
+	}
+
+	@Test
+	void anonymizesAccountNumberInRollupPath() throws Exception {
+		//given
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/account/1000000000/rollups");
+		request.setQueryString("from=2024-01-01&to=2024-01-31");
+		FilterChain chain = (req, res) -> res.getWriter().write("[]");
+
+		//when
+		trafficCaptureFilter.doFilter(request, new MockHttpServletResponse(), chain);
+
+		//then
+		ArgumentCaptor<TrafficRecord> captor = ArgumentCaptor.forClass(TrafficRecord.class);
+		verify(trafficCaptureWriter).enqueue(captor.capture());
+		String anonymized = new AccountNumberAnonymizer("test-salt").anonymize("1000000000");
+		assertEquals("/account/" + anonymized + "/rollups?from=2024-01-01&to=2024-01-31", captor.getValue().getPath());
+	}
+
+	@Test
+	void anonymizesAccountNumberInSummaryQuery() throws Exception {
+		//given
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/transaction/summary");
+		request.setQueryString("from=2024-03-01T00:00:00&account_number=1000000000&to=2024-04-01T00:00:00");
+		FilterChain chain = (req, res) -> res.getWriter().write("{\"accountNumber\":\"1000000000\",\"usedAmount\":0}");
+
+		//when
+		trafficCaptureFilter.doFilter(request, new MockHttpServletResponse(), chain);
+
+		//then
+		ArgumentCaptor<TrafficRecord> captor = ArgumentCaptor.forClass(TrafficRecord.class);
+		verify(trafficCaptureWriter).enqueue(captor.capture());
+		String anonymized = new AccountNumberAnonymizer("test-salt").anonymize("1000000000");
+		assertEquals("/transaction/summary?from=2024-03-01T00:00:00&account_number=" + anonymized + "&to=2024-04-01T00:00:00",
+				captor.getValue().getPath());
+	}
+
+	@Test
+	void sameAccountIsAnonymizedConsistently() {
+		//given
+		AccountNumberAnonymizer anonymizer = new AccountNumberAnonymizer("salt");
+
+		//when
+		String first = anonymizer.anonymize("1000000000");
+		String second = new AccountNumberAnonymizer("salt").anonymize("1000000000");
+
+		//then
+		assertEquals(first, second);
+		assertEquals(10, first.length());
+		assertNotEquals(first, anonymizer.anonymize("1000000001"));
+	}
+
+	@Test
+	void capturesErrorCode() throws Exception {
+		//given
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/transaction/none");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		FilterChain chain = (req, res) -> res.getWriter().write("{\"errorCode\":\"TRANSACTION_NOT_FOUND\",\"errorMessage\":\"...\"}");
+
+		//when
+		trafficCaptureFilter.doFilter(request, response, chain);
+
+		//then
+		ArgumentCaptor<TrafficRecord> captor = ArgumentCaptor.forClass(TrafficRecord.class);
+		verify(trafficCaptureWriter).enqueue(captor.capture());
+		assertEquals("TRANSACTION_NOT_FOUND", captor.getValue().getOutcome());
+	}
+
+	@Test
+	void streamIsNotCaptured() throws Exception {
+		//given
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/account/stream");
+		FilterChain chain = (req, res) -> { };
+
+		//when
+		trafficCaptureFilter.doFilter(request, new MockHttpServletResponse(), chain);
+
+		//then
+		verify(trafficCaptureWriter, never()).enqueue(any());
+	}
+}
@@ -0,0 +1,73 @@
+package com.example.account.capture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TrafficLogTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void writeAndReadRecords() throws Exception {
+		//given
+		Path path = tempDir.resolve("traffic.tlog");
+		TrafficRecord use = TrafficRecord.builder()
+				.offsetMicros(10L).method("POST").path("/transaction/use")
+				.requestBody("{\"userId\":1,\"accountNumber\":\"1000000000\",\"amount\":100}")
+				.status(200).outcome("S").responseId("abc").latencyMicros(1500L)
+				.build();
+		TrafficRecord query = TrafficRecord.builder()
+				.offsetMicros(20L).method("GET").path("/account?user_id=1")
+				.requestBody("").status(200).outcome("OK").responseId("").latencyMicros(300L)
+				.build();
+
+		//when
+		try (DataOutputStream out = TrafficLog.openForWrite(path, System.currentTimeMillis())) {
+			TrafficLog.write(out, use);
+			TrafficLog.write(out, query);
+		}
+		List<TrafficRecord> records = TrafficLog.readAll(path);
+
+		//then
+		assertEquals(2, records.size());
+		assertEquals("POST", records.get(0).getMethod());
+		assertEquals(use.getRequestBody(), records.get(0).getRequestBody());
+		assertEquals("abc", records.get(0).getResponseId());
+		assertEquals(1500L, records.get(0).getLatencyMicros());
+		assertEquals("/account?user_id=1", records.get(1).getPath());
+		assertEquals(20L, records.get(1).getOffsetMicros());
+	}
+
+	@Test
+	void truncatedFileKeepsCompleteRecords() throws Exception {
+		//given
+		Path path = tempDir.resolve("traffic.tlog");
+		try (DataOutputStream out = TrafficLog.openForWrite(path, System.currentTimeMillis())) {
+			for(int i = 0; i < 1000; i++) {
+				TrafficLog.write(out, TrafficRecord.builder()
+						.offsetMicros(i).method("GET").path("/transaction/" + i)
+						.requestBody("").status(200).outcome("OK").responseId("").latencyMicros(1L)
+						.build());
+			}
+		}
+		byte[] bytes = Files.readAllBytes(path);
+		Files.write(path, Arrays.copyOf(bytes, bytes.length - 20)); //비정상 종료 흉내
+
+		//when
+		List<TrafficRecord> records = TrafficLog.readAll(path);
+
+		//then
+		assertFalse(records.isEmpty());
+		assertTrue(records.size() <= 1000);
+		assertEquals("/transaction/0", records.get(0).getPath());
+	}
+}
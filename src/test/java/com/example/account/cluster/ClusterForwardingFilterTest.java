@@ -0,0 +1,200 @@
+package com.example.account.cluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(MockitoExtension.class)
+class ClusterForwardingFilterTest {
+	private static final String BODY = "{\"userId\":1,\"accountNumber\":\"1000000000\",\"amount\":100}";
+
+	@Mock
+	private ClusterMembership clusterMembership;
+
+	private ClusterForwardingFilter clusterForwardingFilter;
+	private MockRestServiceServer owner;
+
+	@BeforeEach
+	void setUp() {
+		clusterForwardingFilter = new ClusterForwardingFilter(clusterMembership, new ObjectMapper(), new RestTemplateBuilder(), 5000L);
+		owner = MockRestServiceServer.bindTo((RestTemplate) ReflectionTestUtils.getField(clusterForwardingFilter, "restTemplate")).build();
+	}
+
+	@Test
+	void handlesOwnedAccountLocally() throws Exception {
+		//given 이 노드 담당
+		given(clusterMembership.holdsLease()).willReturn(true);
+		given(clusterMembership.ownerUrl("1000000000")).willReturn(null);
+		AtomicReference<String> handled = new AtomicReference<>();
+		FilterChain chain = (req, res) -> handled.set(StreamUtils.copyToString(req.getInputStream(), StandardCharsets.UTF_8));
+
+		//when
+		clusterForwardingFilter.doFilter(useRequest(), new MockHttpServletResponse(), chain);
+
+		//then 이미 읽은 본문을 컨트롤러가 그대로 다시 읽는다
+		assertEquals(BODY, handled.get());
+		owner.verify();
+	}
+
+	@Test
+	void forwardsToOwner() throws Exception {
+		//given 다른 노드 담당
+		given(clusterMembership.holdsLease()).willReturn(true);
+		given(clusterMembership.ownerUrl("1000000000")).willReturn("http://localhost:8082");
+		given(clusterMembership.getNodeId()).willReturn("node-1");
+		owner.expect(requestTo("http://localhost:8082/transaction/use"))
+				.andExpect(method(HttpMethod.POST))
+				.andExpect(header(ClusterForwardingFilter.FORWARDED_HEADER, "node-1"))
+				.andExpect(content().string(BODY))
+				.andRespond(withSuccess("{\"transactionId\":\"tx1\"}", MediaType.APPLICATION_JSON).headers(ownerHeaders()));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		//when
+		clusterForwardingFilter.doFilter(useRequest(), response, notCalled());
+
+		//then 담당 노드의 헤더도 그대로, 연결마다 정해지는 헤더는 빼고
+		owner.verify();
+		assertEquals("{\"transactionId\":\"tx1\"}", response.getContentAsString());
+		assertEquals(MediaType.APPLICATION_JSON_VALUE, response.getContentType());
+		assertEquals(List.of("app;dur=12.5", "lock;dur=3.0"), response.getHeaders("Server-Timing"));
+		assertEquals("no-store", response.getHeader(HttpHeaders.CACHE_CONTROL));
+		assertNull(response.getHeader(HttpHeaders.CONNECTION));
+	}
+
+	@Test
+	void cachedBodySupportsReadListener() throws Exception {
+		//given 이 노드 담당, 비동기로 본문을 읽는 쪽
+		given(clusterMembership.holdsLease()).willReturn(true);
+		given(clusterMembership.ownerUrl("1000000000")).willReturn(null);
+		List<String> events = new ArrayList<>();
+		FilterChain chain = (req, res) -> {
+			ServletInputStream input = req.getInputStream();
+			input.setReadListener(new ReadListener() {
+				@Override
+				public void onDataAvailable() throws IOException {
+					events.add(StreamUtils.copyToString(input, StandardCharsets.UTF_8));
+				}
+
+				@Override
+				public void onAllDataRead() {
+					events.add("done");
+				}
+
+				@Override
+				public void onError(Throwable t) {
+					events.add("error");
+				}
+			});
+		};
+
+		//when
+		clusterForwardingFilter.doFilter(useRequest(), new MockHttpServletResponse(), chain);
+
+		//then 본문을 모두 읽은 뒤 끝났다고 알린다
+		assertEquals(List.of(BODY, "done"), events);
+	}
+
+	@Test
+	void ownerUnavailable() throws Exception {
+		//given
+		given(clusterMembership.holdsLease()).willReturn(true);
+		given(clusterMembership.ownerUrl("1000000000")).willReturn("http://localhost:8082");
+		owner.expect(requestTo("http://localhost:8082/transaction/summary?account_number=1000000000"))
+				.andRespond(request -> {
+					throw new IOException("Connection refused");
+				});
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/transaction/summary");
+		request.setQueryString("account_number=1000000000");
+		request.addParameter("account_number", "1000000000");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		//when
+		clusterForwardingFilter.doFilter(request, response, notCalled());
+
+		//then
+		assertTrue(response.getContentAsString().contains("ACCOUNT_OWNER_UNAVAILABLE"));
+	}
+
+	@Test
+	void forwardedRequestIsNotForwardedAgain() throws Exception {
+		//given 링이 어긋나 다른 노드가 넘겨준 요청
+		given(clusterMembership.holdsLease()).willReturn(true);
+		MockHttpServletRequest request = useRequest();
+		request.addHeader(ClusterForwardingFilter.FORWARDED_HEADER, "node-2");
+		AtomicReference<String> handled = new AtomicReference<>();
+
+		//when
+		clusterForwardingFilter.doFilter(request, new MockHttpServletResponse(), (req, res) -> handled.set("handled"));
+
+		//then
+		assertEquals("handled", handled.get());
+		owner.verify();
+	}
+
+	@Test
+	void staleLeaseRejectsWithoutForwarding() throws Exception {
+		//given lease 갱신이 끊겨 다른 노드가 계좌를 가져갔을 수 있다
+		given(clusterMembership.holdsLease()).willReturn(false);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		//when
+		clusterForwardingFilter.doFilter(useRequest(), response, notCalled());
+
+		//then 처리하지도, 넘기지도 않는다
+		assertTrue(response.getContentAsString().contains("ACCOUNT_OWNER_UNAVAILABLE"));
+		owner.verify();
+	}
+
+	private static MockHttpServletRequest useRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/transaction/use");
+		request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+		return request;
+	}
+
+	//담당 노드가 돌려주는 헤더
+	private static HttpHeaders ownerHeaders() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.add("Server-Timing", "app;dur=12.5");
+		headers.add("Server-Timing", "lock;dur=3.0");
+		headers.setCacheControl("no-store");
+		headers.setConnection("keep-alive");
+		return headers;
+	}
+
+	private static FilterChain notCalled() {
+		return (req, res) -> fail("forwarded request must not be handled locally");
+	}
+}
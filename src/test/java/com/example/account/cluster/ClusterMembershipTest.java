@@ -0,0 +1,138 @@
+package com.example.account.cluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import redis.embedded.RedisServer;
+
+//같은 내장 레디스(앱과 다른 포트)를 보는 노드 둘
+class ClusterMembershipTest {
+	private static final int REDIS_PORT = 16386;
+
+	private static RedisServer redisServer;
+	private static RedissonClient redissonClient;
+
+	private final List<ClusterMembership> nodes = new ArrayList<>();
+
+	@BeforeAll
+	static void startRedis() {
+		redisServer = new RedisServer(REDIS_PORT);
+		redisServer.start();
+
+		Config config = new Config();
+		config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+		redissonClient = Redisson.create(config);
+	}
+
+	@AfterAll
+	static void stopRedis() {
+		redissonClient.shutdown();
+		redisServer.stop();
+	}
+
+	@AfterEach
+	void clear() {
+		nodes.forEach(ClusterMembership::leave);
+		redissonClient.getKeys().flushall();
+	}
+
+	@Test
+	void nodesShareAccounts() {
+		//given
+		ClusterMembership node1 = node("node-1", 8081, 3000L);
+		ClusterMembership node2 = node("node-2", 8082, 3000L);
+		node1.heartbeat(); //node2가 나중에 들어왔으므로
+
+		//when
+		//then 두 노드가 같은 링을 보고, 계좌마다 한 노드만 자기 것으로 본다
+		assertEquals(Set.of("node-1", "node-2"), node1.getMembers().keySet());
+		assertEquals(Set.of("node-1", "node-2"), node2.getMembers().keySet());
+
+		Set<String> owners = new HashSet<>();
+		for(int i = 0; i < 100; i++) {
+			String accountNumber = String.valueOf(1000000000L + i);
+			String url1 = node1.ownerUrl(accountNumber);
+			String url2 = node2.ownerUrl(accountNumber);
+			assertTrue(url1 == null ^ url2 == null);
+			owners.add(url1 == null ? "http://localhost:8081" : url1);
+		}
+		assertEquals(Set.of("http://localhost:8081", "http://localhost:8082"), owners);
+	}
+
+	@Test
+	void failoverAfterLeaseExpires() throws InterruptedException {
+		//given node2는 heartbeat 없이 죽는다
+		ClusterMembership node1 = node("node-1", 8081, 3000L);
+		node("node-2", 8082, 300L);
+		node1.heartbeat();
+		assertEquals(2, node1.getMembers().size());
+
+		//when lease 만료 뒤 다음 heartbeat
+		Thread.sleep(500L);
+		node1.heartbeat();
+
+		//then 모든 계좌를 node1이 맡는다
+		assertEquals(Set.of("node-1"), node1.getMembers().keySet());
+		for(int i = 0; i < 100; i++) {
+			assertNull(node1.ownerUrl(String.valueOf(1000000000L + i)));
+		}
+	}
+
+	@Test
+	void leaveReleasesLeaseImmediately() {
+		//given
+		ClusterMembership node1 = node("node-1", 8081, 3000L);
+		ClusterMembership node2 = node("node-2", 8082, 3000L);
+
+		//when 정상 종료
+		node2.leave();
+		node1.heartbeat();
+
+		//then
+		assertEquals(Set.of("node-1"), node1.getMembers().keySet());
+	}
+
+	@Test
+	void staleLeaseIsNotTrusted() {
+		//given
+		AtomicLong now = new AtomicLong(System.currentTimeMillis());
+		ClusterMembership node1 = node("node-1", 8081, 3000L);
+		node1.clock = now::get;
+		node1.heartbeat();
+		assertTrue(node1.holdsLease());
+
+		//when 마지막 갱신에서 lease-millis가 지남 (다른 노드는 이미 이 노드를 뺐을 수 있다)
+		now.addAndGet(3000L);
+
+		//then 다시 갱신할 때까지 믿지 않는다
+		assertFalse(node1.holdsLease());
+		node1.heartbeat();
+		assertTrue(node1.holdsLease());
+	}
+
+	private ClusterMembership node(String nodeId, int port, long leaseMillis) {
+		ClusterMembership membership = new ClusterMembership(redissonClient);
+		ReflectionTestUtils.setField(membership, "nodeId", nodeId);
+		ReflectionTestUtils.setField(membership, "advertiseUrl", "http://localhost:" + port);
+		ReflectionTestUtils.setField(membership, "leaseMillis", leaseMillis);
+		ReflectionTestUtils.setField(membership, "heartbeatMillis", 60000L); //테스트에서는 heartbeat를 직접 부른다
+		ReflectionTestUtils.setField(membership, "virtualNodes", 64);
+		membership.init();
+		nodes.add(membership);
+		return membership;
+	}
+}
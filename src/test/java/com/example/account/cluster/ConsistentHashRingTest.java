@@ -0,0 +1,59 @@
+package com.example.account.cluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ConsistentHashRingTest {
+	private static final int ACCOUNTS = 30000;
+
+	@Test
+	void spreadsAccountsAcrossNodes() {
+		//given
+		ConsistentHashRing ring = new ConsistentHashRing(members(3), 64);
+
+		//when
+		Map<String, Integer> counts = new HashMap<>();
+		for(int i = 0; i < ACCOUNTS; i++) {
+			counts.merge(ring.ownerOf(String.valueOf(1000000000L + i)), 1, Integer::sum);
+		}
+
+		//then 노드마다 1/3에서 크게 벗어나지 않는다
+		assertEquals(3, counts.size());
+		counts.values().forEach(count -> assertTrue(count > ACCOUNTS / 3 * 0.7 && count < ACCOUNTS / 3 * 1.3, "count " + count));
+	}
+
+	@Test
+	void onlyAccountsOfRemovedNodeMove() {
+		//given
+		ConsistentHashRing before = new ConsistentHashRing(members(3), 64);
+		Map<String, String> remaining = members(3);
+		remaining.remove("node-2");
+		ConsistentHashRing after = new ConsistentHashRing(remaining, 64);
+
+		//when
+		//then 빠진 노드의 계좌만 다른 노드로 옮겨간다
+		for(int i = 0; i < ACCOUNTS; i++) {
+			String accountNumber = String.valueOf(1000000000L + i);
+			String owner = before.ownerOf(accountNumber);
+			if(!owner.equals("node-2")) {
+				assertEquals(owner, after.ownerOf(accountNumber));
+			} else {
+				assertNotEquals("node-2", after.ownerOf(accountNumber));
+			}
+		}
+		assertEquals("http://localhost:8081", after.urlOf("node-1"));
+		assertNull(after.urlOf("node-2"));
+	}
+
+	private static Map<String, String> members(int count) {
+		Map<String, String> members = new HashMap<>();
+		for(int i = 0; i < count; i++) {
+			members.put("node-" + i, "http://localhost:" + (8080 + i));
+		}
+		return members;
+	}
+}
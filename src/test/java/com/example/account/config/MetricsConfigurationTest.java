@@ -0,0 +1,65 @@
+package com.example.account.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import redis.embedded.RedisServer;
+
+//내장 레디스(앱과 다른 포트)로 Redisson 게이지를 실제로 읽는다
+class MetricsConfigurationTest {
+	private static final int REDIS_PORT = 16395;
+
+	private static RedisServer redisServer;
+	private static RedissonClient redissonClient;
+
+	@BeforeAll
+	static void startRedis() {
+		redisServer = new RedisServer(REDIS_PORT);
+		redisServer.start();
+
+		Config config = new Config();
+		config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+		redissonClient = Redisson.create(config);
+	}
+
+	@AfterAll
+	static void stopRedis() {
+		redissonClient.shutdown();
+		if(redisServer.isActive()) {
+			redisServer.stop();
+		}
+	}
+
+	@Test
+	void redissonGaugesShowLastCheckedNodeState() {
+		//given 주기 확인은 직접 부른다
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		RedisNodeMonitor redisNodeMonitor = new RedisNodeMonitor(redissonClient, 60_000L);
+		redisNodeMonitor.check();
+		new MetricsConfiguration().redissonNodeMetrics(redissonClient, redisNodeMonitor).bindTo(meterRegistry);
+
+		//then 노드 정상, 서버에는 최소한 이 클라이언트의 연결이 보인다
+		assertEquals(0.0, meterRegistry.get("redisson.nodes.failed").gauge().value());
+		assertTrue(meterRegistry.get("redis.connected.clients").gauge().value() >= 1.0);
+
+		//when 레디스가 내려감
+		redisServer.stop();
+
+		//then scrape는 레디스를 부르지 않으므로 다음 확인 전까지는 이전 값
+		assertEquals(0.0, meterRegistry.get("redisson.nodes.failed").gauge().value());
+
+		//when 다음 확인
+		redisNodeMonitor.check();
+
+		//then
+		assertEquals(1.0, meterRegistry.get("redisson.nodes.failed").gauge().value());
+		assertTrue(Double.isNaN(meterRegistry.get("redis.connected.clients").gauge().value()));
+	}
+}
@@ -4,20 +4,29 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.example.account.domain.Account;
+import com.example.account.dto.AccountBalanceAt;
 import com.example.account.dto.AccountDTO;
 import com.example.account.dto.CreateAccount;
+import com.example.account.dto.DailyRollupDTO;
 import com.example.account.dto.DeleteAccount;
 import com.example.account.exception.AccountException;
+import com.example.account.service.AccountReadModel;
 import com.example.account.service.AccountService;
+import com.example.account.service.BalanceStreamService;
+import com.example.account.service.DailyRollupService;
 import com.example.account.service.LockService;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -26,12 +35,18 @@ import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 /*
 
   anyString() : 어떠한 문자열
@@ -55,6 +70,7 @@ import static org.mockito.ArgumentMatchers.anyString;
  */
 
 @WebMvcTest(AccountController.class) //MVC를 위한 테스트, 특정 컨트롤러 테스트할 클래스를 괄호 안에 입력해야한다.
+@Import(SimpleMeterRegistry.class) //GlobalExceptionHandler의 에러 카운터용
 class AccountControllerTest {
 	
 	@MockBean //이미 있는 BEAN이면 MockBean을 사용, 아니면 Mock
@@ -63,6 +79,15 @@ class AccountControllerTest {
 	@MockBean
 	private LockService redisService;
 	
+	@MockBean
+	private BalanceStreamService balanceStreamService;
+	
+	@MockBean
+	private AccountReadModel accountReadModel; //비어 있으면(Optional.empty) accountService로 조회
+	
+	@MockBean
+	private DailyRollupService dailyRollupService;
+	
 	@Autowired
 	private MockMvc mockMvc;
 	
@@ -117,6 +142,23 @@ class AccountControllerTest {
 	}
 	
 	
+	@Test
+	void successStreamAccountsByUserId() throws Exception {
+		
+		//given
+		given(accountService.getAccountsByUserId(anyLong())).willReturn(Arrays.asList(AccountDTO.builder().accountNumber("1234567890").balance(1000L).build()));
+		given(balanceStreamService.subscribe(anyLong(), any())).willReturn(new SseEmitter());
+		
+		//then 비동기(SSE) 응답이 시작되고, 현재 잔액을 넘겨서 구독한다
+		mockMvc.perform(get("/account/stream?user_id=1").accept(MediaType.TEXT_EVENT_STREAM))
+				.andDo(print())
+				.andExpect(request().asyncStarted())
+				.andExpect(status().isOk());
+		
+		verify(balanceStreamService).subscribe(eq(1L), argThat(snapshotLoader -> snapshotLoader.get().size() == 1 && snapshotLoader.get().get(0).getBalance() == 1000L));
+	}
+	
+	
 	@Test
 	void successGetAccount() throws Exception {
 		
@@ -177,4 +219,40 @@ class AccountControllerTest {
 	
 	
 
+	@Test
+	void successGetBalanceAt() throws Exception {
+		
+		//given
+		LocalDateTime at = LocalDateTime.of(2024, 1, 1, 0, 0);
+		given(accountService.getBalanceAt("1000000000", at))
+			.willReturn(AccountBalanceAt.builder().accountNumber("1000000000").at(at).balance(7000L)
+					.asOf(at.minusDays(3)).source(AccountBalanceAt.Source.TRANSACTION).build());
+		
+		//then
+		mockMvc.perform(get("/account/1000000000/balance").param("at", "2024-01-01T00:00:00"))
+				.andDo(print())
+				.andExpect(jsonPath("balance").value(7000L))
+				.andExpect(jsonPath("source").value("TRANSACTION"))
+				.andExpect(status().isOk());
+	}
+	
+	@Test
+	void successGetDailyRollups() throws Exception {
+		
+		//given
+		LocalDate from = LocalDate.of(2024, 1, 1);
+		given(dailyRollupService.getRollups("1000000000", from, from.plusDays(1)))
+			.willReturn(Arrays.asList(
+					DailyRollupDTO.builder().accountNumber("1000000000").date(from).usedAmount(1000L).cancelledAmount(0L).failedCount(1L).closingBalance(9000L).build(),
+					DailyRollupDTO.builder().accountNumber("1000000000").date(from.plusDays(1)).usedAmount(0L).cancelledAmount(1000L).failedCount(0L).closingBalance(10000L).build()));
+		
+		//then
+		mockMvc.perform(get("/account/1000000000/rollups").param("from", "2024-01-01").param("to", "2024-01-02"))
+				.andDo(print())
+				.andExpect(jsonPath("$[0].date").value("2024-01-01"))
+				.andExpect(jsonPath("$[0].usedAmount").value(1000L))
+				.andExpect(jsonPath("$[1].closingBalance").value(10000L))
+				.andExpect(status().isOk());
+	}
+	
 }
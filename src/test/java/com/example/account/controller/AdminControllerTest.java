@@ -0,0 +1,115 @@
+package com.example.account.controller;
+
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.account.dto.HotAccounts;
+import com.example.account.dto.ReconcileLedger;
+import com.example.account.exception.AccountException;
+import com.example.account.hotspot.HotAccountMetric;
+import com.example.account.hotspot.HotAccountTracker;
+import com.example.account.ledger.ReconcileOutcome;
+import com.example.account.ledger.RedisLedger;
+import com.example.account.service.DailyRollupRebuildJob;
+import com.example.account.type.ErrorCode;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@WebMvcTest(AdminController.class)
+@Import(SimpleMeterRegistry.class) //GlobalExceptionHandler의 에러 카운터용
+class AdminControllerTest {
+
+	@MockBean
+	private DailyRollupRebuildJob dailyRollupRebuildJob;
+	
+	@MockBean
+	private RedisLedger redisLedger;
+	
+	@MockBean
+	private HotAccountTracker hotAccountTracker;
+	
+	@Autowired
+	private MockMvc mockMvc;
+	
+	@Test
+	void successRebuildRollups() throws Exception {
+		//given
+		given(dailyRollupRebuildJob.rebuild(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31))).willReturn(42);
+		
+		//then
+		mockMvc.perform(post("/admin/rollups/rebuild").param("from", "2024-01-01").param("to", "2024-01-31"))
+				.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.from").value("2024-01-01"))
+				.andExpect(jsonPath("$.rows").value(42));
+	}
+	
+	@Test
+	void failRebuildRollupsInvalidRange() throws Exception {
+		//given
+		given(dailyRollupRebuildJob.rebuild(LocalDate.of(2024, 1, 31), LocalDate.of(2024, 1, 1)))
+				.willThrow(new AccountException(ErrorCode.INVALID_REQUEST));
+		
+		//then
+		mockMvc.perform(post("/admin/rollups/rebuild").param("from", "2024-01-31").param("to", "2024-01-01"))
+				.andDo(print())
+				.andExpect(jsonPath("$.errorCode").value("INVALID_REQUEST"));
+	}
+	
+	@Test
+	void successGetHotAccounts() throws Exception {
+		//given
+		given(hotAccountTracker.topAccounts(HotAccountMetric.LOCK_WAIT, 60, 20)).willReturn(List.of(HotAccounts.Entry.builder()
+				.accountNumber("1000000000")
+				.requests(300L)
+				.lockWaitMicros(1500000L)
+				.lockFailures(100L)
+				.failures(30L)
+				.failureRate(130.0 / 300)
+				.build()));
+		
+		//then window_seconds, limit은 기본값
+		mockMvc.perform(get("/admin/hot-accounts").param("metric", "LOCK_WAIT"))
+				.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.metric").value("LOCK_WAIT"))
+				.andExpect(jsonPath("$.windowSeconds").value(60))
+				.andExpect(jsonPath("$.accounts[0].accountNumber").value("1000000000"))
+				.andExpect(jsonPath("$.accounts[0].lockWaitMicros").value(1500000));
+	}
+	
+	@Test
+	void successReconcileRedisLedger() throws Exception {
+		//given
+		given(redisLedger.reconcileAll()).willReturn(List.of(ReconcileLedger.Result.builder()
+				.accountNumber("1000000000")
+				.outcome(ReconcileOutcome.LOADED)
+				.databaseBalance(800L)
+				.databaseSeq(2L)
+				.pendingEntries(1L)
+				.redisBalance(700L)
+				.redisSeq(3L)
+				.build()));
+		
+		//then
+		mockMvc.perform(post("/admin/redis-ledger/reconcile"))
+				.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.accounts[0].outcome").value("LOADED"))
+				.andExpect(jsonPath("$.accounts[0].redisBalance").value(700));
+	}
+}
@@ -6,18 +6,30 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import com.example.account.dto.BalanceHoldDTO;
 import com.example.account.dto.CancelBalance;
+import com.example.account.dto.CaptureHold;
+import com.example.account.dto.ReserveBalance;
 import com.example.account.dto.TransactionDTO;
+import com.example.account.dto.TransactionSummary;
 import com.example.account.dto.UseBalance;
+import com.example.account.ledger.RedisLedger;
+import com.example.account.service.FailedTransactionWriter;
 import com.example.account.service.TransactionService;
+import com.example.account.type.HoldStatus;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -25,14 +37,22 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 
 @WebMvcTest(TransactionController.class)
+@Import(SimpleMeterRegistry.class) //GlobalExceptionHandler의 에러 카운터용
 class TransactionControllerTest {
 
 	@MockBean
 	private TransactionService transactionService;
 	
+	@MockBean
+	private RedisLedger redisLedger;
+	
+	@MockBean
+	private FailedTransactionWriter failedTransactionWriter;
+	
 	@Autowired
 	private MockMvc mockMvc;
 	
@@ -64,6 +84,30 @@ class TransactionControllerTest {
 	}
 	
 	
+	@Test
+	void successUseBalanceOnRedisLedger() throws Exception {
+		//given Redis 원장 모드 계좌
+		given(redisLedger.handles("2000000000")).willReturn(true);
+		given(redisLedger.useBalance(1L, "2000000000", 3000L)).willReturn(TransactionDTO.builder()
+				.accountNumber("2000000000")
+				.transactedAt(LocalDateTime.now())
+				.amount(3000L)
+				.transactionId("transactionIdOnRedis")
+				.transactionResultType(TransactionResultType.S)
+				.build());
+		
+		//then DB 트랜잭션(TransactionService)을 거치지 않는다
+		mockMvc.perform(post("/transaction/use")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new UseBalance.Request(1L, "2000000000", 3000L))))
+				.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.transactionId").value("transactionIdOnRedis"))
+				.andExpect(jsonPath("$.amount").value(3000));
+		verify(transactionService, never()).useBalance(anyLong(), anyString(), anyLong());
+	}
+	
+	
 	@Test
 	void successCancelBalance() throws Exception {
 		//given
@@ -112,5 +156,96 @@ class TransactionControllerTest {
 				.andExpect(jsonPath("$.amount").value(54321));
 		
 	}
+	
+	@Test
+	void successSummarizeTransactions() throws Exception {
+		
+		//given
+		LocalDateTime from = LocalDateTime.of(2024, 3, 1, 0, 0);
+		LocalDateTime to = LocalDateTime.of(2024, 4, 1, 0, 0);
+		given(transactionService.summarizeTransactions("1000000000", from, to)).willReturn(TransactionSummary.builder()
+				.accountNumber("1000000000")
+				.from(from)
+				.to(to)
+				.groups(List.of(TransactionSummary.Group.builder()
+						.transactionType(TransactionType.USE)
+						.transactionResultType(TransactionResultType.S)
+						.sum(1500L).count(3L).min(100L).max(1000L)
+						.build()))
+				.build());
+		
+		//then
+		mockMvc.perform(get("/transaction/summary")
+				.param("account_number", "1000000000")
+				.param("from", "2024-03-01T00:00:00")
+				.param("to", "2024-04-01T00:00:00"))
+				.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.groups[0].transactionType").value("USE"))
+				.andExpect(jsonPath("$.groups[0].sum").value(1500))
+				.andExpect(jsonPath("$.groups[0].count").value(3));
+	}
+	
+	@Test
+	void successReserveBalance() throws Exception {
+		//given
+		given(transactionService.reserveBalance(1L, "2000000000", 3000L)).willReturn(BalanceHoldDTO.builder()
+				.accountNumber("2000000000")
+				.holdId("holdId")
+				.holdStatus(HoldStatus.HELD)
+				.amount(3000L)
+				.availableBalance(7000L)
+				.expiresAt(LocalDateTime.now().plusMinutes(10))
+				.build());
+		
+		//then
+		mockMvc.perform(post("/transaction/reserve")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new ReserveBalance.Request(1L, "2000000000", 3000L))))
+				.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.holdId").value("holdId"))
+				.andExpect(jsonPath("$.holdStatus").value("HELD"))
+				.andExpect(jsonPath("$.availableBalance").value(7000));
+	}
+	
+	@Test
+	void successCaptureHold() throws Exception {
+		//given
+		given(transactionService.captureHold("holdId", "2000000000", 2000L)).willReturn(BalanceHoldDTO.builder()
+				.accountNumber("2000000000")
+				.holdId("holdId")
+				.holdStatus(HoldStatus.CAPTURED)
+				.amount(3000L)
+				.capturedAmount(2000L)
+				.transactionId("transactionId")
+				.availableBalance(8000L)
+				.closedAt(LocalDateTime.now())
+				.build());
+		
+		//then
+		mockMvc.perform(post("/transaction/capture")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new CaptureHold.Request("holdId", "2000000000", 2000L))))
+				.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.holdStatus").value("CAPTURED"))
+				.andExpect(jsonPath("$.transactionId").value("transactionId"))
+				.andExpect(jsonPath("$.capturedAmount").value(2000));
+	}
+	
+	@Test
+	void reserveBalanceOnRedisLedger() throws Exception {
+		//given Redis 원장 모드 계좌
+		given(redisLedger.handles("2000000000")).willReturn(true);
+		
+		//then
+		mockMvc.perform(post("/transaction/reserve")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new ReserveBalance.Request(1L, "2000000000", 3000L))))
+				.andDo(print())
+				.andExpect(jsonPath("$.errorCode").value("REDIS_LEDGER_HOLD"));
+		verify(transactionService, never()).reserveBalance(anyLong(), anyString(), anyLong());
+	}
 
 }
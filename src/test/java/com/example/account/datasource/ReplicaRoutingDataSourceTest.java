@@ -0,0 +1,126 @@
+package com.example.account.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+//주 DB와 복제본 대신 H2 인메모리 DB 두 개를 쓴다, 복제는 테스트에서 heartbeat 행을 직접 옮겨서 흉내낸다
+class ReplicaRoutingDataSourceTest {
+
+	private JdbcTemplate primary;
+	private JdbcTemplate replica;
+	private ReplicaLagMonitor replicaLagMonitor;
+	private JdbcTemplate routed;
+	private TransactionTemplate transactionTemplate;
+
+	@BeforeEach
+	void setUp() {
+		DriverManagerDataSource primaryDataSource = new DriverManagerDataSource("jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1", "sa", "");
+		DriverManagerDataSource replicaDataSource = new DriverManagerDataSource("jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1", "sa", "");
+		primary = new JdbcTemplate(primaryDataSource);
+		replica = new JdbcTemplate(replicaDataSource);
+		primary.execute("create table whoami (name varchar(16))");
+		primary.update("insert into whoami values ('primary')");
+		replica.execute("create table whoami (name varchar(16))");
+		replica.update("insert into whoami values ('replica')");
+		replica.execute("create table replica_heartbeat (id int primary key, beat_millis bigint not null)");
+
+		replicaLagMonitor = new ReplicaLagMonitor(primaryDataSource, replicaDataSource, 2000L, 1000L);
+		ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(replicaLagMonitor);
+		routingDataSource.setTargetDataSources(Map.of(
+				DataSourceRole.PRIMARY, primaryDataSource,
+				DataSourceRole.REPLICA, replicaDataSource));
+		routingDataSource.afterPropertiesSet();
+
+		LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+		routed = new JdbcTemplate(dataSource);
+		transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+	}
+
+	@AfterEach
+	void tearDown() {
+		primary.execute("drop all objects");
+		replica.execute("drop all objects");
+	}
+
+	@Test
+	void readOnlyTransactionGoesToReplicaWhenInSync() {
+		//given
+		replicate(System.currentTimeMillis());
+		replicaLagMonitor.check();
+
+		//when
+		String readOnly = whoami(true);
+		String readWrite = whoami(false);
+
+		//then
+		assertTrue(replicaLagMonitor.isReplicaUsable());
+		assertEquals("replica", readOnly);
+		assertEquals("primary", readWrite);
+	}
+
+	@Test
+	void laggingReplicaFallsBackToPrimary() {
+		//given 복제본의 heartbeat가 10초 전
+		replicate(System.currentTimeMillis() - 10_000L);
+		replicaLagMonitor.check();
+
+		//when
+		String readOnly = whoami(true);
+
+		//then
+		assertFalse(replicaLagMonitor.isReplicaUsable());
+		assertTrue(replicaLagMonitor.getLagMillis() >= 10_000L);
+		assertEquals("primary", readOnly);
+	}
+
+	@Test
+	void unknownReplicaStateUsesPrimary() {
+		//given 복제본에 heartbeat가 한 번도 복제되지 않음
+		replicaLagMonitor.check();
+
+		//when
+		String readOnly = whoami(true);
+
+		//then
+		assertFalse(replicaLagMonitor.isReplicaUsable());
+		assertEquals(-1L, replicaLagMonitor.getLagMillis());
+		assertEquals("primary", readOnly);
+	}
+
+	@Test
+	void staleMeasurementFallsBackToPrimary() {
+		//given 측정할 때는 따라와 있었다
+		long now = System.currentTimeMillis();
+		replicate(now);
+		replicaLagMonitor.clock = () -> now;
+		replicaLagMonitor.check();
+		assertTrue(replicaLagMonitor.isReplicaUsable());
+
+		//when 그 뒤로 max-lag-millis + heartbeat-millis 동안 측정하지 못함
+		replicaLagMonitor.clock = () -> now + 3001L;
+
+		//then 지금 지연은 모르므로 주 DB
+		assertFalse(replicaLagMonitor.isReplicaUsable());
+		assertEquals("primary", whoami(true));
+	}
+
+	private String whoami(boolean readOnly) {
+		transactionTemplate.setReadOnly(readOnly);
+		return transactionTemplate.execute(status -> routed.queryForObject("select name from whoami", String.class));
+	}
+
+	//복제본에 주 DB의 heartbeat가 beatMillis 시점까지 복제된 상태
+	private void replicate(long beatMillis) {
+		replica.update("merge into replica_heartbeat key (id) values (1, ?)", beatMillis);
+	}
+}
@@ -0,0 +1,33 @@
+package com.example.account.exception;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.ErrorResponse;
+import com.example.account.type.ErrorCode;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class GlobalExceptionHandlerTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final GlobalExceptionHandler globalExceptionHandler = new GlobalExceptionHandler(meterRegistry);
+
+	@Test
+	void countsErrorsByErrorCode() {
+		//when
+		globalExceptionHandler.handleAccountException(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE));
+		globalExceptionHandler.handleAccountException(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE));
+		ErrorResponse response = globalExceptionHandler.handleObjectOptimisticLockingFailureException(new ObjectOptimisticLockingFailureException(Account.class, 1L));
+		globalExceptionHandler.handleException(new IllegalStateException("boom"));
+
+		//then
+		assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, response.getErrorCode());
+		assertEquals(2.0, meterRegistry.get("account.errors").tag("errorCode", "AMOUNT_EXCEED_BALANCE").counter().count());
+		assertEquals(1.0, meterRegistry.get("account.errors").tag("errorCode", "ACCOUNT_TRANSACTION_LOCK").counter().count());
+		assertEquals(1.0, meterRegistry.get("account.errors").tag("errorCode", "INTERNAL_SERVER_ERROR").counter().count());
+	}
+}
@@ -0,0 +1,71 @@
+package com.example.account.fault;
+
+import static org.mockito.Mockito.inOrder;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import com.example.account.aop.AccountLock;
+import com.example.account.dto.UseBalance;
+import com.example.account.hotspot.HotAccountTracker;
+import com.example.account.ledger.RedisLedger;
+import com.example.account.service.LockAopAspect;
+import com.example.account.service.LockService;
+
+//BEFORE_LOCK은 lock 바깥, INSIDE_LOCK은 lock 안쪽에서 실행되는지 확인
+@SpringJUnitConfig(FaultInjectionAspectTest.Config.class)
+@ActiveProfiles("fault-injection")
+class FaultInjectionAspectTest {
+
+	@MockBean
+	private LockService lockService;
+
+	@MockBean
+	private RedisLedger redisLedger;
+
+	@MockBean
+	private FaultInjector faultInjector;
+
+	@MockBean
+	private HotAccountTracker hotAccountTracker;
+
+	@Autowired
+	private LockedTarget lockedTarget;
+
+	@Test
+	void injectsAroundTheLock() {
+		//when
+		lockedTarget.use(new UseBalance.Request(1L, "1000000000", 100L));
+
+		//then
+		InOrder inOrder = inOrder(faultInjector, lockService);
+		inOrder.verify(faultInjector).inject(FaultPoint.BEFORE_LOCK);
+		inOrder.verify(lockService).lock("1000000000");
+		inOrder.verify(faultInjector).inject(FaultPoint.INSIDE_LOCK);
+		inOrder.verify(lockService).unlock("1000000000");
+	}
+
+	@Configuration
+	@EnableAspectJAutoProxy
+	@Import({LockAopAspect.class, FaultInjectionAspect.class, InsideLockFaultAspect.class})
+	static class Config {
+		@Bean
+		LockedTarget lockedTarget() {
+			return new LockedTarget();
+		}
+	}
+
+	static class LockedTarget {
+		@AccountLock
+		public void use(UseBalance.Request request) {
+		}
+	}
+}
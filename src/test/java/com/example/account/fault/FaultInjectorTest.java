@@ -0,0 +1,61 @@
+package com.example.account.fault;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+class FaultInjectorTest {
+
+	@Test
+	void injectsLatencyAtConfiguredPoint() {
+		//given
+		FaultInjector faultInjector = new FaultInjector(new MockEnvironment()
+				.withProperty("fault-injection.inside-lock.latency", "fixed(50)"));
+
+		//when
+		long start = System.nanoTime();
+		faultInjector.inject(FaultPoint.INSIDE_LOCK);
+		long insideLockMillis = (System.nanoTime() - start) / 1_000_000L;
+
+		start = System.nanoTime();
+		faultInjector.inject(FaultPoint.REPOSITORY);
+		long repositoryMillis = (System.nanoTime() - start) / 1_000_000L;
+
+		//then
+		assertTrue(insideLockMillis >= 50, "inside-lock " + insideLockMillis);
+		assertTrue(repositoryMillis < 50, "repository " + repositoryMillis); //설정하지 않은 지점은 그대로
+	}
+
+	@Test
+	void injectsErrorsAtConfiguredRate() {
+		//given
+		FaultInjector faultInjector = new FaultInjector(new MockEnvironment()
+				.withProperty("fault-injection.before-commit.error-rate", "1.0"));
+
+		//when
+		InjectedFaultException exception = assertThrows(InjectedFaultException.class,
+				() -> faultInjector.inject(FaultPoint.BEFORE_COMMIT));
+
+		//then
+		assertTrue(exception.getMessage().contains("before-commit"));
+		assertDoesNotThrow(() -> faultInjector.inject(FaultPoint.BEFORE_LOCK));
+	}
+
+	@Test
+	void parsesLatencyDistributions() {
+		assertEquals(0L, LatencyDistribution.parse("none").sampleMillis());
+		assertEquals(0L, LatencyDistribution.parse("").sampleMillis());
+		assertEquals(5000L, LatencyDistribution.parse("fixed(5000)").sampleMillis());
+
+		for(int i = 0; i < 1000; i++) {
+			long uniform = LatencyDistribution.parse("uniform(10, 20)").sampleMillis();
+			assertTrue(uniform >= 10 && uniform <= 20);
+			assertTrue(LatencyDistribution.parse("exponential(5)").sampleMillis() >= 0);
+			assertTrue(LatencyDistribution.parse("lognormal(5,1)").sampleMillis() >= 0);
+		}
+
+		assertThrows(IllegalArgumentException.class, () -> LatencyDistribution.parse("gamma(1)"));
+		assertThrows(IllegalArgumentException.class, () -> LatencyDistribution.parse("fixed"));
+	}
+}
@@ -0,0 +1,83 @@
+package com.example.account.fencing;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisConnectionException;
+import org.redisson.client.codec.Codec;
+import org.redisson.config.Config;
+
+import com.example.account.breaker.RedisCircuitBreaker;
+import com.example.account.redlock.QuorumLock;
+
+import redis.embedded.RedisServer;
+
+//내장 레디스(앱과 다른 포트)에 스크립트를 실제로 실행
+class FencingTokenIssuerTest {
+	private static final int REDIS_PORT = 16387;
+
+	private static RedisServer redisServer;
+	private static RedissonClient redissonClient;
+
+	@BeforeAll
+	static void startRedis() {
+		redisServer = new RedisServer(REDIS_PORT);
+		redisServer.start();
+
+		Config config = new Config();
+		config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+		redissonClient = Redisson.create(config);
+	}
+
+	@AfterAll
+	static void stopRedis() {
+		redissonClient.shutdown();
+		redisServer.stop();
+	}
+
+	@Test
+	void increasesEvenAfterRedisLosesCounters() {
+		//given
+		FencingTokenIssuer fencingTokenIssuer = new FencingTokenIssuer(redissonClient, new QuorumLock(), 5, 5000L);
+
+		//when
+		long first = fencingTokenIssuer.issue("1000000000");
+		long second = fencingTokenIssuer.issue("1000000000");
+		redissonClient.getKeys().flushall(); //레디스 재시작 등으로 카운터가 사라짐
+		long afterReset = fencingTokenIssuer.issue("1000000000");
+
+		//then 처음에는 현재 시각(마이크로초)부터, 카운터가 사라져도 이전 token보다 크다
+		assertTrue(first >= TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()) - TimeUnit.MINUTES.toMicros(1));
+		assertEquals(first + 1, second);
+		assertTrue(afterReset > second);
+	}
+
+	@Test
+	void opensOwnCircuitWhileRedisIsDown() {
+		//given 발급이 한 번 실패하면 열리도록 (failure-threshold 1)
+		RedissonClient downClient = mock(RedissonClient.class);
+		given(downClient.getScript(any(Codec.class))).willThrow(new RedisConnectionException("connection refused"));
+		FencingTokenIssuer fencingTokenIssuer = new FencingTokenIssuer(downClient, new QuorumLock(), 1, 60000L);
+
+		//when
+		Long first = fencingTokenIssuer.issue("1000000000");
+		Long second = fencingTokenIssuer.issue("1000000000");
+
+		//then 열린 동안은 레디스를 부르지 않고 token 없이 진행한다 (lock의 breaker와는 따로)
+		assertNull(first);
+		assertNull(second);
+		assertEquals(RedisCircuitBreaker.State.OPEN, fencingTokenIssuer.getCircuitState());
+		verify(downClient, times(1)).getScript(any(Codec.class));
+	}
+}
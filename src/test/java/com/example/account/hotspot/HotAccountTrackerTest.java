@@ -0,0 +1,95 @@
+package com.example.account.hotspot;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.account.dto.HotAccounts;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+
+class HotAccountTrackerTest {
+
+	private HotAccountTracker hotAccountTracker;
+	
+	private long now = 1_700_000_000_000L;
+	
+	@BeforeEach
+	void setUp() {
+		//10초 구간 6개 (최대 1분), 작은 sketch
+		hotAccountTracker = new HotAccountTracker();
+		ReflectionTestUtils.setField(hotAccountTracker, "enabled", true);
+		ReflectionTestUtils.setField(hotAccountTracker, "bucketSeconds", 10);
+		ReflectionTestUtils.setField(hotAccountTracker, "bucketCount", 6);
+		ReflectionTestUtils.setField(hotAccountTracker, "sketchWidth", 256);
+		ReflectionTestUtils.setField(hotAccountTracker, "sketchDepth", 4);
+		ReflectionTestUtils.setField(hotAccountTracker, "topK", 10);
+		hotAccountTracker.clock = () -> now;
+		hotAccountTracker.init();
+	}
+	
+	@Test
+	void topAccountsAmongManyAccounts() {
+		//given 계좌 2개에 몰리고, 나머지 5000개 계좌는 한 번씩 (sketch 칸 수보다 훨씬 많음)
+		for(int i = 0; i < 5000; i++) {
+			hotAccountTracker.recordLock(String.valueOf(2000000000L + i), TimeUnit.MILLISECONDS.toNanos(1), true);
+		}
+		for(int i = 0; i < 300; i++) {
+			hotAccountTracker.recordLock("1000000000", TimeUnit.MILLISECONDS.toNanos(5), i % 3 != 0);
+			if(i % 2 == 0) {
+				hotAccountTracker.recordLock("1000000001", TimeUnit.MILLISECONDS.toNanos(50), true);
+			}
+		}
+		hotAccountTracker.recordFailures(Collections.nCopies(30, "1000000000"));
+		
+		//when
+		List<HotAccounts.Entry> byRequests = hotAccountTracker.topAccounts(HotAccountMetric.REQUESTS, 60, 2);
+		List<HotAccounts.Entry> byLockWait = hotAccountTracker.topAccounts(HotAccountMetric.LOCK_WAIT, 60, 1);
+		
+		//then 추정값은 실제보다 작지 않고, 칸 충돌로 더해지는 값은 전체 건수 / width 정도
+		assertEquals(List.of("1000000000", "1000000001"), List.of(byRequests.get(0).getAccountNumber(), byRequests.get(1).getAccountNumber()));
+		HotAccounts.Entry hottest = byRequests.get(0);
+		assertTrue(hottest.getRequests() >= 300 && hottest.getRequests() < 300 + 5450 / 256 * 4);
+		assertTrue(hottest.getLockFailures() >= 100);
+		assertTrue(hottest.getFailures() >= 30);
+		assertTrue(hottest.getFailureRate() >= 130.0 / 400 && hottest.getFailureRate() <= 1.0);
+		assertEquals("1000000001", byLockWait.get(0).getAccountNumber());
+	}
+	
+	@Test
+	void oldBucketsLeaveWindow() {
+		//given 25초 전에 10건, 지금 3건
+		hotAccountTracker.recordFailures(Collections.nCopies(10, "1000000000"));
+		now += TimeUnit.SECONDS.toMillis(25);
+		hotAccountTracker.recordFailures(Collections.nCopies(3, "1000000000"));
+		
+		//then 최근 10초에는 지금 구간만, 1분에는 둘 다
+		assertEquals(3L, hotAccountTracker.topAccounts(HotAccountMetric.FAILURES, 10, 1).get(0).getFailures());
+		assertEquals(13L, hotAccountTracker.topAccounts(HotAccountMetric.FAILURES, 60, 1).get(0).getFailures());
+		
+		//when 링을 한 바퀴 돌아 옛 구간 자리를 다시 쓰면
+		now += TimeUnit.SECONDS.toMillis(60);
+		hotAccountTracker.recordFailures(List.of("1000000001"));
+		
+		//then
+		List<HotAccounts.Entry> entries = hotAccountTracker.topAccounts(HotAccountMetric.FAILURES, 60, 5);
+		assertEquals(1, entries.size());
+		assertEquals("1000000001", entries.get(0).getAccountNumber());
+		assertNull(entries.get(0).getFailureRate()); //요청 수가 없으면 비율도 없다
+	}
+	
+	@Test
+	void invalidWindow() {
+		AccountException exception = assertThrows(AccountException.class,
+				() -> hotAccountTracker.topAccounts(HotAccountMetric.REQUESTS, 61, 10));
+		
+		assertEquals(ErrorCode.INVALID_REQUEST, exception.getErrorCode());
+		assertThrows(AccountException.class, () -> hotAccountTracker.topAccounts(HotAccountMetric.REQUESTS, 60, 11));
+	}
+}
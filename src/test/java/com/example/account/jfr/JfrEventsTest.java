@@ -0,0 +1,185 @@
+package com.example.account.jfr;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.example.account.archive.TransactionArchive;
+import com.example.account.breaker.RedisCircuitBreaker;
+import com.example.account.cluster.LocalLockRegistry;
+import com.example.account.domain.Account;
+import com.example.account.dto.FailedTransaction;
+import com.example.account.exception.AccountException;
+import com.example.account.fencing.FencingTokenIssuer;
+import com.example.account.hotspot.HotAccountTracker;
+import com.example.account.redlock.QuorumLock;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.BalanceHoldRepository;
+import com.example.account.repository.OutboxEventRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.service.DailyRollupService;
+import com.example.account.service.LockService;
+import com.example.account.service.TransactionService;
+import com.example.account.shard.ShardExecutor;
+import com.example.account.type.TransactionType;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+@ExtendWith(MockitoExtension.class)
+class JfrEventsTest {
+
+	@Mock
+	private RedissonClient redissonClient;
+
+	@Mock
+	private RLock rLock;
+
+	@Mock
+	private FencingTokenIssuer fencingTokenIssuer;
+
+	@Mock
+	private TransactionRepository transactionRepository;
+
+	@Mock
+	private AccountRepository accountRepository;
+
+	@Mock
+	private AccountUserRepository accountUserRepository;
+
+	@Mock
+	private OutboxEventRepository outboxEventRepository;
+
+	@Mock
+	private BalanceHoldRepository balanceHoldRepository;
+
+	@Mock
+	private ApplicationEventPublisher applicationEventPublisher;
+
+	@Mock
+	private TransactionArchive transactionArchive;
+
+	@Mock
+	private DailyRollupService dailyRollupService;
+
+	@Mock
+	private HotAccountTracker hotAccountTracker;
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void recordsBalanceMutationAndLockEvents() throws Exception {
+		//given
+		given(redissonClient.getLock(anyString())).willReturn(rLock);
+		given(rLock.tryLock(anyLong(), anyLong(), any())).willReturn(true, false);
+		LockService lockService = new LockService(redissonClient, new LocalLockRegistry(), new QuorumLock(), fencingTokenIssuer, new RedisCircuitBreaker());
+		Account account = Account.builder().accountNumber("1000000000").balance(1000L).build();
+
+		//when
+		List<RecordedEvent> events;
+		try (Recording recording = new Recording()) {
+			recording.enable(BalanceMutationEvent.class).withoutThreshold();
+			recording.enable(LockAcquireEvent.class).withoutThreshold();
+			recording.start();
+
+			account.useBalance(300L);
+			account.cancelBalance(100L);
+			lockService.lock("1000000000");
+			lockService.unlock("1000000000");
+			assertThrows(AccountException.class, () -> lockService.lock("1000000000"));
+
+			recording.stop();
+			Path dump = tempDir.resolve("account.jfr");
+			recording.dump(dump);
+			events = RecordingFile.readAllEvents(dump);
+		}
+
+		//then
+		List<RecordedEvent> mutations = byName(events, "com.example.account.BalanceMutation");
+		assertEquals(2, mutations.size());
+		assertEquals("USE", mutations.get(0).getString("mutationType"));
+		assertEquals(1000L, mutations.get(0).getLong("balanceBefore"));
+		assertEquals(700L, mutations.get(0).getLong("balanceAfter"));
+		assertEquals("CANCEL", mutations.get(1).getString("mutationType"));
+		assertEquals(800L, mutations.get(1).getLong("balanceAfter"));
+
+		List<RecordedEvent> locks = byName(events, "com.example.account.LockAcquire");
+		assertEquals(2, locks.size());
+		assertEquals("1000000000", locks.get(0).getString("accountNumber"));
+		assertEquals(LockAcquireEvent.ACQUIRED, locks.get(0).getString("outcome"));
+		assertEquals(LockAcquireEvent.TIMEOUT, locks.get(1).getString("outcome"));
+	}
+
+	@Test
+	void recordsTransactionInsertEvents() throws Exception {
+		//given 실패 이력 한 건 저장과 batch 저장
+		Account account = Account.builder().accountNumber("1000000000").balance(1000L).build();
+		given(accountRepository.findByAccountNumber("1000000000")).willReturn(Optional.of(account));
+		given(accountRepository.findByAccountNumberIn(any())).willReturn(List.of(account));
+		given(transactionRepository.save(any())).willAnswer(invocation -> invocation.getArgument(0));
+		TransactionService transactionService = new TransactionService(transactionRepository, accountUserRepository, accountRepository, outboxEventRepository,
+				applicationEventPublisher, ShardExecutor.single(), transactionArchive, dailyRollupService, hotAccountTracker, balanceHoldRepository);
+		List<FailedTransaction> batch = List.of(new FailedTransaction(TransactionType.USE, "1000000000", 100L, LocalDateTime.now()),
+				new FailedTransaction(TransactionType.CANCEL, "1000000000", 200L, LocalDateTime.now()));
+
+		//when
+		List<RecordedEvent> events;
+		try (Recording recording = new Recording()) {
+			recording.enable(TransactionInsertEvent.class).withoutThreshold();
+			recording.start();
+
+			transactionService.saveFailedUseTransaction("1000000000", 300L);
+			transactionService.saveFailedTransactions(batch);
+
+			recording.stop();
+			Path dump = tempDir.resolve("insert.jfr");
+			recording.dump(dump);
+			events = RecordingFile.readAllEvents(dump);
+		}
+
+		//then 한 건 저장은 거래 정보와 함께, batch 저장은 행 수만
+		List<RecordedEvent> inserts = byName(events, "com.example.account.TransactionInsert");
+		assertEquals(2, inserts.size());
+		assertEquals("1000000000", inserts.get(0).getString("accountNumber"));
+		assertEquals("USE", inserts.get(0).getString("transactionType"));
+		assertEquals("F", inserts.get(0).getString("resultType"));
+		assertNotNull(inserts.get(0).getString("transactionId"));
+		assertEquals(1, inserts.get(0).getInt("rows"));
+		assertEquals("F", inserts.get(1).getString("resultType"));
+		assertEquals(2, inserts.get(1).getInt("rows"));
+	}
+
+	@Test
+	void noEventsWithoutRecording() {
+		//JFR이 꺼져 있으면 shouldCommit()이 false라서 필드도 채우지 않는다
+		BalanceMutationEvent event = new BalanceMutationEvent();
+		assertFalse(event.shouldCommit());
+	}
+
+	private List<RecordedEvent> byName(List<RecordedEvent> events, String name) {
+		return events.stream()
+				.filter(event -> event.getEventType().getName().equals(name))
+				.sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+				.collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,136 @@
+package com.example.account.ledger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLock;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import com.example.account.dto.LedgerEntry;
+import com.example.account.service.TransactionService;
+import com.example.account.shard.ShardExecutor;
+import com.example.account.type.TransactionType;
+
+@ExtendWith(MockitoExtension.class)
+class RedisLedgerPersisterTest {
+
+	@Mock
+	private RedisLedger redisLedger;
+
+	@Mock
+	private TransactionService transactionService;
+
+	@Mock
+	private RLock lock;
+
+	@Spy //샤딩하지 않는 단일 DB
+	private ShardExecutor shardExecutor = ShardExecutor.single();
+
+	@InjectMocks
+	private RedisLedgerPersister redisLedgerPersister;
+
+	private final List<LedgerEntry> entries = List.of(
+			new LedgerEntry(TransactionType.USE, "1000000000", 300L, 700L, 1L, "transactionId1", LocalDateTime.now()),
+			new LedgerEntry(TransactionType.CANCEL, "1000000000", 300L, 1000L, 2L, "transactionId2", LocalDateTime.now()));
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(redisLedgerPersister, "batchSize", 2);
+		ReflectionTestUtils.setField(redisLedgerPersister, "maxBatches", 3);
+		ReflectionTestUtils.setField(redisLedgerPersister, "maxAttempts", 2);
+		given(redisLedger.peekJournal(2)).willReturn(entries);
+	}
+
+	@Test
+	void persistThenTrimJournal() {
+		//when
+		int persisted = redisLedgerPersister.persistBatch();
+
+		//then
+		assertEquals(2, persisted);
+		verify(transactionService, times(1)).saveLedgerEntries(entries);
+		verify(redisLedger, times(1)).trimJournal(entries);
+	}
+
+	@Test
+	void keepJournalWhenDatabaseFails() {
+		//given
+		willThrow(new CannotCreateTransactionException("DB down")).given(transactionService).saveLedgerEntries(anyList());
+
+		//when DB에 닿지 못하는 동안은 몇 번이든
+		for(int i = 0; i < 5; i++) {
+			assertEquals(0, redisLedgerPersister.persistBatch());
+		}
+
+		//then 다음 주기에 같은 항목을 다시 저장한다
+		verify(redisLedger, never()).trimJournal(anyList());
+		verify(redisLedger, never()).deadLetter(any());
+	}
+
+	@Test
+	void trimEntriesSavedBeforeFailingEntry() {
+		//given 두 번째 항목만 저장할 수 없음
+		willThrow(new IllegalStateException("bad entry")).given(transactionService).saveLedgerEntries(argThat(batch -> batch.contains(entries.get(1))));
+
+		//when
+		int persisted = redisLedgerPersister.persistBatch();
+
+		//then 앞의 한 건은 잘라내고 실패한 항목은 다음 주기에
+		assertEquals(1, persisted);
+		verify(transactionService, times(1)).saveLedgerEntries(List.of(entries.get(0)));
+		verify(redisLedger, times(1)).trimJournal(List.of(entries.get(0)));
+		verify(redisLedger, never()).deadLetter(any());
+	}
+
+	@Test
+	void deadLetterEntryThatKeepsFailing() {
+		//given 맨 앞 항목이 계속 실패함
+		willThrow(new IllegalStateException("bad entry")).given(transactionService).saveLedgerEntries(anyList());
+		given(redisLedger.deadLetter(entries.get(0))).willReturn(true);
+
+		//when
+		redisLedgerPersister.persistBatch();
+		verify(redisLedger, never()).deadLetter(any());
+		redisLedgerPersister.persistBatch();
+
+		//then max-attempts(2)번째에 옮겨서 뒤의 항목이 막히지 않는다
+		verify(redisLedger, times(1)).deadLetter(entries.get(0));
+		verify(transactionService, never()).saveLedgerEntries(List.of(entries.get(1)));
+	}
+
+	@Test
+	void persistAtMostMaxBatchesPerRun() {
+		//given journal이 계속 가득 차 있음
+		given(redisLedger.isEnabled()).willReturn(true);
+		given(redisLedger.persisterLock()).willReturn(lock);
+		given(lock.tryLock()).willReturn(true);
+		given(redisLedger.journalLength()).willReturn(7L);
+
+		//when
+		redisLedgerPersister.persist();
+
+		//then max-batches(3)개만 쓰고 lock을 놓는다, 게이지용 길이를 읽어 둔다
+		verify(redisLedger, times(3)).peekJournal(2);
+		verify(lock).unlock();
+		assertEquals(7L, redisLedgerPersister.getJournalLength());
+		assertEquals(0L, redisLedgerPersister.getDeadLetterLength());
+	}
+}
@@ -0,0 +1,223 @@
+package com.example.account.ledger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.config.Config;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.LedgerEntry;
+import com.example.account.dto.ReconcileLedger;
+import com.example.account.dto.TransactionDTO;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.service.TransactionService;
+import com.example.account.shard.ShardExecutor;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+
+import redis.embedded.RedisServer;
+
+//내장 레디스(앱과 다른 포트)에 Lua 스크립트를 실제로 실행, DB는 mock
+@ExtendWith(MockitoExtension.class)
+class RedisLedgerTest {
+	private static final int REDIS_PORT = 16385;
+	private static final String ACCOUNT_NUMBER = "1000000000";
+
+	private static RedisServer redisServer;
+	private static RedissonClient redissonClient;
+
+	@Mock
+	private AccountRepository accountRepository;
+
+	@Mock
+	private TransactionService transactionService;
+
+	private RedisLedger redisLedger;
+
+	@BeforeAll
+	static void startRedis() {
+		redisServer = new RedisServer(REDIS_PORT);
+		redisServer.start();
+
+		Config config = new Config();
+		config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+		config.setUseScriptCache(true);
+		redissonClient = Redisson.create(config);
+	}
+
+	@AfterAll
+	static void stopRedis() {
+		redissonClient.shutdown();
+		redisServer.stop();
+	}
+
+	@BeforeEach
+	void setUp() {
+		redissonClient.getKeys().flushdb();
+		redisLedger = new RedisLedger(redissonClient, accountRepository, transactionService, ShardExecutor.single());
+		ReflectionTestUtils.setField(redisLedger, "enabled", true);
+		ReflectionTestUtils.setField(redisLedger, "accountNumbers", Set.of(ACCOUNT_NUMBER));
+	}
+
+	@Test
+	void useAndCancelWithScript() {
+		//given DB 잔액 1000, Redis는 비어 있음
+		givenDatabaseAccount(1000L, null);
+
+		//when 처음 사용할 때 DB에서 채운다
+		TransactionDTO used = redisLedger.useBalance(12L, ACCOUNT_NUMBER, 300L);
+
+		//then
+		assertEquals(700L, used.getBalanceSnapshot());
+		assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH,
+				assertThrows(AccountException.class, () -> redisLedger.useBalance(13L, ACCOUNT_NUMBER, 100L)).getErrorCode());
+		assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE,
+				assertThrows(AccountException.class, () -> redisLedger.useBalance(12L, ACCOUNT_NUMBER, 701L)).getErrorCode());
+		assertEquals(ErrorCode.CANCEL_MUST_FULLY,
+				assertThrows(AccountException.class, () -> redisLedger.cancelBalance(used.getTransactionId(), ACCOUNT_NUMBER, 200L)).getErrorCode());
+
+		//when 아직 DB에 저장되지 않은 거래 취소
+		TransactionDTO cancelled = redisLedger.cancelBalance(used.getTransactionId(), ACCOUNT_NUMBER, 300L);
+
+		//then 실패한 요청은 journal에 남지 않는다
+		assertEquals(1000L, cancelled.getBalanceSnapshot());
+		List<LedgerEntry> journal = redisLedger.peekJournal(10);
+		assertEquals(2, journal.size());
+		assertEquals(TransactionType.USE, journal.get(0).getTransactionType());
+		assertEquals(used.getTransactionId(), journal.get(0).getTransactionId());
+		assertEquals(700L, journal.get(0).getBalanceAfter());
+		assertEquals(1L, journal.get(0).getSeq());
+		assertEquals(TransactionType.CANCEL, journal.get(1).getTransactionType());
+		assertEquals(1000L, journal.get(1).getBalanceAfter());
+		assertEquals(2L, journal.get(1).getSeq());
+		verify(transactionService, never()).queryTransaction(anyString());
+	}
+
+	@Test
+	void concurrentDebitsNeverOverdraw() throws Exception {
+		//given
+		givenDatabaseAccount(1000L, null);
+		assertEquals(ReconcileOutcome.LOADED, redisLedger.reconcile(ACCOUNT_NUMBER).getOutcome());
+
+		//when 100씩 50번을 8개 스레드에서 동시에
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<Boolean>> futures = new ArrayList<>();
+		for(int i = 0; i < 50; i++) {
+			futures.add(executor.submit(() -> {
+				try {
+					redisLedger.useBalance(12L, ACCOUNT_NUMBER, 100L);
+					return true;
+				} catch (AccountException e) {
+					assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, e.getErrorCode());
+					return false;
+				}
+			}));
+		}
+		int succeeded = 0;
+		for(Future<Boolean> future : futures) {
+			succeeded += future.get() ? 1 : 0;
+		}
+		executor.shutdown();
+
+		//then 정확히 10번만 성공, 순번은 빈틈없이
+		assertEquals(10, succeeded);
+		ReconcileLedger.Result result = redisLedger.reconcile(ACCOUNT_NUMBER);
+		assertEquals(ReconcileOutcome.IN_SYNC, result.getOutcome());
+		assertEquals(0L, result.getRedisBalance());
+		assertEquals(10L, result.getPendingEntries());
+	}
+
+	@Test
+	void reconcileAfterCrash() {
+		//given 100씩 3번 사용, 앞의 2건은 DB에 저장됨 (DB 잔액 800, 순번 2)
+		givenDatabaseAccount(1000L, null);
+		for(int i = 0; i < 3; i++) {
+			redisLedger.useBalance(12L, ACCOUNT_NUMBER, 100L);
+		}
+		redisLedger.trimJournal(redisLedger.peekJournal(2));
+		givenDatabaseAccount(800L, 2L);
+
+		//when Redis 재시작으로 계좌 hash가 사라짐 -> DB + 남은 journal로 채운다
+		redissonClient.getKeys().delete("RLDG:ACCOUNT:" + ACCOUNT_NUMBER);
+		ReconcileLedger.Result loaded = redisLedger.reconcile(ACCOUNT_NUMBER);
+
+		//then
+		assertEquals(ReconcileOutcome.LOADED, loaded.getOutcome());
+		assertEquals(700L, loaded.getRedisBalance());
+		assertEquals(3L, loaded.getRedisSeq());
+		assertEquals(1L, loaded.getPendingEntries());
+
+		//when 옛 스냅샷으로 돌아감 (DB보다 뒤처짐) -> 덮어쓴다
+		redissonClient.getMap("RLDG:ACCOUNT:" + ACCOUNT_NUMBER, StringCodec.INSTANCE).putAll(Map.of("balance", "1000", "seq", "0"));
+		ReconcileLedger.Result restored = redisLedger.reconcile(ACCOUNT_NUMBER);
+
+		//then
+		assertEquals(ReconcileOutcome.RESTORED, restored.getOutcome());
+		assertEquals(700L, restored.getRedisBalance());
+		assertEquals(ReconcileOutcome.IN_SYNC, redisLedger.reconcile(ACCOUNT_NUMBER).getOutcome());
+
+		//when journal을 잃어 Redis 잔액을 설명할 수 없음 -> Redis를 그대로 둔다
+		redissonClient.getKeys().delete(RedisLedger.JOURNAL_KEY);
+		ReconcileLedger.Result mismatch = redisLedger.reconcile(ACCOUNT_NUMBER);
+
+		//then
+		assertEquals(ReconcileOutcome.MISMATCH, mismatch.getOutcome());
+		assertEquals(700L, mismatch.getRedisBalance());
+		assertEquals(800L, mismatch.getDatabaseBalance());
+	}
+
+	@Test
+	void deadLetterMovesOnlyJournalHead() {
+		//given 거래 두 건
+		givenDatabaseAccount(1000L, null);
+		redisLedger.useBalance(12L, ACCOUNT_NUMBER, 100L);
+		redisLedger.useBalance(12L, ACCOUNT_NUMBER, 200L);
+		List<LedgerEntry> journal = redisLedger.peekJournal(2);
+
+		//when 맨 앞이 아닌 항목은 옮기지 않는다
+		assertFalse(redisLedger.deadLetter(journal.get(1)));
+		assertTrue(redisLedger.deadLetter(journal.get(0)));
+
+		//then
+		assertEquals(1L, redisLedger.journalLength());
+		assertEquals(1L, redisLedger.deadLetterLength());
+		assertEquals(journal.get(1).getTransactionId(), redisLedger.peekJournal(1).get(0).getTransactionId());
+		assertEquals(List.of(journal.get(0).toJournalLine()), redissonClient.getList(RedisLedger.DEAD_LETTER_KEY, StringCodec.INSTANCE).readAll());
+	}
+
+	private void givenDatabaseAccount(Long balance, Long ledgerSeq) {
+		given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER)).willReturn(Optional.of(Account.builder()
+				.accountUser(AccountUser.builder().id(12L).name("Pobi").build())
+				.accountNumber(ACCOUNT_NUMBER)
+				.accountStatus(AccountStatus.IN_USE)
+				.balance(balance)
+				.ledgerSeq(ledgerSeq)
+				.build()));
+	}
+}
@@ -0,0 +1,176 @@
+package com.example.account.redlock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisConnectionException;
+import org.redisson.config.Config;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import redis.embedded.RedisServer;
+
+//서로 독립된 내장 레디스 다섯 대 (앱과 다른 포트)
+class QuorumLockTest {
+	private static final int[] PORTS = {16390, 16391, 16392, 16393, 16394};
+	private static final int DEAD_PORT = 16399; //아무것도 떠 있지 않은 포트
+
+	private static final List<RedisServer> redisServers = new ArrayList<>();
+	private static final List<RedissonClient> inspectors = new ArrayList<>(); //레디스마다 key를 직접 확인
+
+	private final List<QuorumLock> quorumLocks = new ArrayList<>();
+
+	@BeforeAll
+	static void startRedis() {
+		for(int port : PORTS) {
+			RedisServer redisServer = new RedisServer(port);
+			redisServer.start();
+			redisServers.add(redisServer);
+
+			Config config = new Config();
+			config.useSingleServer().setAddress(address(port));
+			inspectors.add(Redisson.create(config));
+		}
+	}
+
+	@AfterAll
+	static void stopRedis() {
+		inspectors.forEach(RedissonClient::shutdown);
+		redisServers.forEach(RedisServer::stop);
+	}
+
+	@AfterEach
+	void clear() {
+		quorumLocks.forEach(QuorumLock::shutdown);
+		inspectors.forEach(inspector -> inspector.getKeys().flushall());
+	}
+
+	@Test
+	void exclusiveAcrossQuorum() throws Exception {
+		//given 노드 둘 (같은 레디스들을 보는 서로 다른 앱)
+		QuorumLock node1 = quorumLock(3, PORTS);
+		QuorumLock node2 = quorumLock(3, PORTS);
+		ExecutorService otherThread = Executors.newSingleThreadExecutor();
+
+		try {
+			//when
+			assertTrue(node1.tryLock("ACLK:1000000000", 1, 15, TimeUnit.SECONDS));
+
+			//then 계좌 하나는 레디스 세 대에만 잡히고, 그동안 다른 노드는 잡지 못한다
+			assertEquals(3, holders("ACLK:1000000000"));
+			assertFalse(otherThread.submit(() -> node2.tryLock("ACLK:1000000000", 100, 15000, TimeUnit.MILLISECONDS)).get());
+
+			node1.unlock("ACLK:1000000000");
+			assertEquals(0, holders("ACLK:1000000000"));
+			assertTrue(otherThread.submit(() -> node2.tryLock("ACLK:1000000000", 100, 15000, TimeUnit.MILLISECONDS)).get());
+		} finally {
+			otherThread.shutdown();
+		}
+	}
+
+	@Test
+	void spreadsAccountsAcrossNodes() throws InterruptedException {
+		//given
+		QuorumLock quorumLock = quorumLock(3, PORTS);
+
+		//when
+		for(int i = 0; i < 100; i++) {
+			assertTrue(quorumLock.tryLock("ACLK:" + (1000000000L + i), 1, 15, TimeUnit.SECONDS));
+		}
+
+		//then 레디스 다섯 대가 나눠 갖는다 (한 대에 몰리지 않음)
+		long total = 0;
+		for(RedissonClient inspector : inspectors) {
+			long keys = inspector.getKeys().count();
+			assertTrue(keys > 30 && keys < 90, "keys " + keys);
+			total += keys;
+		}
+		assertEquals(300, total);
+	}
+
+	@Test
+	void survivesMinorityFailure() throws InterruptedException {
+		//given 레디스 셋 중 하나가 죽어 있다
+		QuorumLock quorumLock = quorumLock(3, PORTS[0], PORTS[1], DEAD_PORT);
+
+		//when
+		//then 과반수(2)로 잡힌다
+		assertTrue(quorumLock.tryLock("ACLK:1000000000", 1, 15, TimeUnit.SECONDS));
+		quorumLock.unlock("ACLK:1000000000");
+	}
+
+	@Test
+	void failsWithoutQuorum() {
+		//given 레디스 셋 중 둘이 죽어 있다
+		QuorumLock quorumLock = quorumLock(3, PORTS[0], DEAD_PORT, DEAD_PORT + 1);
+
+		//when
+		//then 기다리지 않고 레디스 장애로 실패, 하나만 잡힌 것은 다시 풀어 둔다
+		assertThrows(RedisConnectionException.class, () -> quorumLock.tryLock("ACLK:1000000000", 100, 15000, TimeUnit.MILLISECONDS));
+		assertEquals(0, inspectors.get(0).getKeys().count());
+	}
+
+	@Test
+	void fencingTokenKeepsIncreasingOnQuorum() throws InterruptedException {
+		//given
+		QuorumLock quorumLock = quorumLock(3, PORTS[0], PORTS[1], PORTS[2]);
+
+		//when 한 대가 비워진 뒤에도, 한 대가 죽은 뒤에도
+		long first = quorumLock.issueFencingToken("ACLK:FENCE:1000000000", 100L);
+		long second = quorumLock.issueFencingToken("ACLK:FENCE:1000000000", 100L);
+		inspectors.get(0).getKeys().flushall();
+		long afterFlush = quorumLock.issueFencingToken("ACLK:FENCE:1000000000", 50L);
+		long afterFailure = quorumLock(3, PORTS[0], PORTS[1], DEAD_PORT).issueFencingToken("ACLK:FENCE:1000000000", 50L);
+
+		//then 처음에는 seed부터, 이후에는 과반수에서 본 가장 큰 값보다 크다
+		assertEquals(100L, first);
+		assertEquals(101L, second);
+		assertEquals(102L, afterFlush);
+		assertEquals(103L, afterFailure);
+	}
+
+	@Test
+	void fencingTokenFailsWithoutQuorum() {
+		//given 레디스 셋 중 둘이 죽어 있다
+		QuorumLock quorumLock = quorumLock(3, PORTS[0], DEAD_PORT, DEAD_PORT + 1);
+
+		//when
+		//then 한 대의 값만으로는 발급하지 않는다
+		assertThrows(RedisConnectionException.class, () -> quorumLock.issueFencingToken("ACLK:FENCE:1000000000", 100L));
+	}
+
+	private QuorumLock quorumLock(int replicas, int... ports) {
+		List<String> addresses = new ArrayList<>();
+		for(int port : ports) {
+			addresses.add(address(port));
+		}
+
+		QuorumLock quorumLock = new QuorumLock();
+		ReflectionTestUtils.setField(quorumLock, "enabled", true);
+		ReflectionTestUtils.setField(quorumLock, "addresses", addresses);
+		ReflectionTestUtils.setField(quorumLock, "replicas", replicas);
+		ReflectionTestUtils.setField(quorumLock, "nodeTimeoutMillis", 200L);
+		ReflectionTestUtils.setField(quorumLock, "clockDriftFactor", 0.01);
+		quorumLock.init();
+		quorumLocks.add(quorumLock);
+		return quorumLock;
+	}
+
+	private static long holders(String key) {
+		return inspectors.stream().filter(inspector -> inspector.getBucket(key).isExists()).count();
+	}
+
+	private static String address(int port) {
+		return "redis://127.0.0.1:" + port;
+	}
+}
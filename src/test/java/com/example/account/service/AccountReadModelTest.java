@@ -0,0 +1,82 @@
+package com.example.account.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.account.dto.AccountDTO;
+import com.example.account.dto.AccountInfo;
+import com.example.account.event.AccountsChangedEvent;
+import com.example.account.event.BalanceChangedEvent;
+import com.example.account.repository.AccountRepository;
+import com.example.account.shard.ShardExecutor;
+
+@ExtendWith(MockitoExtension.class)
+class AccountReadModelTest {
+
+	@Mock
+	private AccountRepository accountRepository;
+
+	@Spy //샤딩하지 않는 단일 DB
+	private ShardExecutor shardExecutor = ShardExecutor.single();
+
+	@InjectMocks
+	private AccountReadModel accountReadModel;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(accountReadModel, "enabled", true);
+		ReflectionTestUtils.setField(accountReadModel, "maxStalenessMillis", 60_000L);
+	}
+
+	@Test
+	void rebuildAndApplyBalanceChange() {
+		//given
+		given(accountRepository.findAllBalances()).willReturn(Arrays.asList(
+				new Object[] {1L, "1000000000", 1000L},
+				new Object[] {1L, "1000000001", 2000L},
+				new Object[] {2L, "1000000002", 3000L}));
+
+		//when
+		accountReadModel.rebuild();
+		accountReadModel.onBalanceChanged(BalanceChangedEvent.builder().userId(1L).accountNumber("1000000001").balance(1500L).build());
+
+		//then
+		List<AccountInfo> accountInfos = accountReadModel.getAccountInfos(1L).get();
+		assertEquals(2, accountInfos.size());
+		assertEquals(1000L, accountInfos.get(0).getBalance());
+		assertEquals(1500L, accountInfos.get(1).getBalance());
+		assertEquals(3000L, accountReadModel.getAccountInfos(2L).get().get(0).getBalance());
+	}
+
+	@Test
+	void missWhenStaleOrEvicted() {
+		//given
+		accountReadModel.load(1L, List.of(AccountDTO.builder().accountNumber("1000000000").balance(1000L).build()));
+		assertTrue(accountReadModel.getAccountInfos(1L).isPresent());
+
+		//when 계좌 목록이 바뀜
+		accountReadModel.onAccountsChanged(new AccountsChangedEvent(1L));
+
+		//then
+		assertTrue(accountReadModel.getAccountInfos(1L).isEmpty());
+
+		//when 허용 지연을 넘김
+		ReflectionTestUtils.setField(accountReadModel, "maxStalenessMillis", -1L);
+		accountReadModel.load(2L, List.of(AccountDTO.builder().accountNumber("1000000002").balance(1000L).build()));
+
+		//then
+		assertTrue(accountReadModel.getAccountInfos(2L).isEmpty());
+	}
+}
@@ -1,5 +1,6 @@
 package com.example.account.service;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -11,6 +12,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -18,16 +20,27 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import com.example.account.archive.TransactionArchive;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountBalanceAt;
 import com.example.account.dto.AccountDTO;
+import com.example.account.dto.TransactionDTO;
 import com.example.account.exception.AccountException;
+import com.example.account.ledger.RedisLedger;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.BalanceCheckpointRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardExecutor;
 
 /*
 
@@ -60,6 +73,24 @@ class AccountServiceTest {
 	@Mock
 	private AccountUserRepository accountUserRepository;
 	
+	@Mock
+	private ApplicationEventPublisher applicationEventPublisher;
+	
+	@Mock
+	private TransactionRepository transactionRepository;
+	
+	@Mock
+	private BalanceCheckpointRepository balanceCheckpointRepository;
+	
+	@Mock
+	private RedisLedger redisLedger;
+	
+	@Mock
+	private TransactionArchive transactionArchive;
+	
+	@Spy //샤딩하지 않는 단일 DB
+	private ShardExecutor shardExecutor = ShardExecutor.single();
+
 	@InjectMocks //@Mock이 붙은 목객체를 @InjectMocks이 붙은 객체에 주입시킬 수 있다.
 	private AccountService accountService;
 
@@ -98,6 +129,7 @@ class AccountServiceTest {
 		
 		//then
 		verify(accountRepository, times(1)).save(captor.capture());
+		verify(balanceCheckpointRepository, times(1)).save(any()); //개설 시점 잔액
 		
 		assertEquals(15L, accountDTO.getUserId());
 		assertEquals("1000000013", captor.getValue().getAccountNumber()); //+1
@@ -252,6 +284,24 @@ class AccountServiceTest {
 	}
 	
 
+	@Test
+	@DisplayName("Redis 원장 모드 계좌는 해지할 수 없다.")
+	void deleteAccountFailed_redisLedger() {
+		//given DB 잔액은 0이지만 Redis에 잔액이 남아 있을 수 있다
+		AccountUser pobi = AccountUser.builder().id(12L).name("Pobi").build();
+		
+		given(accountUserRepository.findById(anyLong())).willReturn(Optional.of(pobi));
+		given(accountRepository.findByAccountNumber(anyString())).willReturn
+		(Optional.of(Account.builder().accountUser(pobi).balance(0L).accountNumber("1000000012").build()));
+		given(redisLedger.handles("1000000012")).willReturn(true);
+		
+		//when
+		AccountException exception = assertThrows(AccountException.class, ()-> accountService.deleteAccount(12L, "1000000012"));
+		
+		//then
+		assertEquals(ErrorCode.REDIS_LEDGER_ACCOUNT, exception.getErrorCode());
+	}
+	
 	@Test
 	@DisplayName("해지 계좌는 해지할 수 없다.")
 	void deleteAccountFailed_alreadyUnregistered() {
@@ -340,4 +390,133 @@ class AccountServiceTest {
 		assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
 	}
 
+	@Test
+	@DisplayName("특정 시각의 잔액 - 마지막 거래가 체크포인트보다 나중")
+	void getBalanceAt_FromTransaction() {
+		//given
+		LocalDateTime at = LocalDateTime.of(2024, 6, 1, 0, 0);
+		given(accountRepository.findByAccountNumber("1000000012")).willReturn(Optional.of(Account.builder().id(7L)
+				.accountNumber("1000000012").balance(100L).registeredAt(at.minusYears(1)).build()));
+		given(transactionRepository.findBalancesAtOrBefore(eq(7L), eq(TransactionResultType.S), eq(at), any()))
+				.willReturn(List.<Object[]>of(new Object[] {3000L, at.minusDays(1)}));
+		given(balanceCheckpointRepository.findBalancesAtOrBefore(eq(7L), eq(at), any()))
+				.willReturn(List.<Object[]>of(new Object[] {5000L, at.minusDays(10)}));
+		
+		//when
+		AccountBalanceAt balanceAt = accountService.getBalanceAt("1000000012", at);
+		
+		//then
+		assertEquals(3000L, balanceAt.getBalance());
+		assertEquals(AccountBalanceAt.Source.TRANSACTION, balanceAt.getSource());
+		assertEquals(at.minusDays(1), balanceAt.getAsOf());
+	}
+	
+	@Test
+	@DisplayName("특정 시각의 잔액 - 거래 이력이 보관되어 체크포인트 사용")
+	void getBalanceAt_FromCheckpoint() {
+		//given
+		LocalDateTime at = LocalDateTime.of(2024, 6, 1, 0, 0);
+		given(accountRepository.findByAccountNumber("1000000012")).willReturn(Optional.of(Account.builder().id(7L)
+				.accountNumber("1000000012").balance(100L).registeredAt(at.minusYears(3)).build()));
+		given(transactionRepository.findBalancesAtOrBefore(eq(7L), eq(TransactionResultType.S), eq(at), any())).willReturn(List.of());
+		given(balanceCheckpointRepository.findBalancesAtOrBefore(eq(7L), eq(at), any()))
+				.willReturn(List.<Object[]>of(new Object[] {5000L, at.minusYears(2)}));
+		
+		//when
+		AccountBalanceAt balanceAt = accountService.getBalanceAt("1000000012", at);
+		
+		//then
+		assertEquals(5000L, balanceAt.getBalance());
+		assertEquals(AccountBalanceAt.Source.CHECKPOINT, balanceAt.getSource());
+	}
+	
+	@Test
+	@DisplayName("특정 시각의 잔액 - 체크포인트 이후의 거래가 보관되어 보관 파일에서 찾음")
+	void getBalanceAt_FromArchive() {
+		//given 체크포인트 뒤 at 이전에 거래 두 건이 있었고 모두 보관됨, 실패 거래는 건너뛴다
+		LocalDateTime at = LocalDateTime.of(2024, 6, 1, 0, 0);
+		given(accountRepository.findByAccountNumber("1000000012")).willReturn(Optional.of(Account.builder().id(7L)
+				.accountNumber("1000000012").balance(100L).registeredAt(at.minusYears(3)).build()));
+		given(transactionRepository.findBalancesAtOrBefore(eq(7L), eq(TransactionResultType.S), eq(at), any())).willReturn(List.of());
+		given(balanceCheckpointRepository.findBalancesAtOrBefore(eq(7L), eq(at), any()))
+				.willReturn(List.<Object[]>of(new Object[] {5000L, at.minusYears(2)}));
+		given(transactionArchive.findByAccountNumber("1000000012")).willReturn(List.of(
+				archived(TransactionResultType.S, 4000L, at.minusYears(1)),
+				archived(TransactionResultType.S, 3500L, at.minusMonths(6)),
+				archived(TransactionResultType.F, 3500L, at.minusMonths(5)),
+				archived(TransactionResultType.S, 3000L, at.plusDays(1))));
+		
+		//when
+		AccountBalanceAt balanceAt = accountService.getBalanceAt("1000000012", at);
+		
+		//then
+		assertEquals(3500L, balanceAt.getBalance());
+		assertEquals(AccountBalanceAt.Source.ARCHIVE, balanceAt.getSource());
+		assertEquals(at.minusMonths(6), balanceAt.getAsOf());
+	}
+	
+	@Test
+	@DisplayName("특정 시각의 잔액 - 다음 거래가 보관되어 있으면 보관된 거래에서 역산")
+	void getBalanceAt_BeforeFirstArchivedTransaction() {
+		//given
+		LocalDateTime at = LocalDateTime.of(2024, 6, 1, 0, 0);
+		given(accountRepository.findByAccountNumber("1000000012")).willReturn(Optional.of(Account.builder().id(7L)
+				.accountNumber("1000000012").balance(100L).registeredAt(at.minusYears(3)).build()));
+		given(transactionArchive.findByAccountNumber("1000000012")).willReturn(List.of(
+				archived(TransactionResultType.S, 800L, at.plusDays(1))));
+		
+		//when
+		AccountBalanceAt balanceAt = accountService.getBalanceAt("1000000012", at);
+		
+		//then 사용 후 800이면 사용 전은 1000, hot 테이블의 다음 거래는 보지 않는다
+		assertEquals(1000L, balanceAt.getBalance());
+		assertEquals(AccountBalanceAt.Source.CURRENT, balanceAt.getSource());
+		verify(transactionRepository, times(0)).findBalancesAfter(any(), any(), any(), any());
+	}
+	
+	@Test
+	@DisplayName("특정 시각의 잔액 - 체크포인트 없는 기존 계좌는 다음 거래에서 역산")
+	void getBalanceAt_BeforeFirstTransaction() {
+		//given
+		LocalDateTime at = LocalDateTime.of(2024, 6, 1, 0, 0);
+		given(accountRepository.findByAccountNumber("1000000012")).willReturn(Optional.of(Account.builder().id(7L)
+				.accountNumber("1000000012").balance(100L).registeredAt(at.minusYears(1)).build()));
+		given(transactionRepository.findBalancesAfter(eq(7L), eq(TransactionResultType.S), eq(at), any()))
+				.willReturn(List.<Object[]>of(new Object[] {800L, TransactionType.USE, 200L}));
+		
+		//when
+		AccountBalanceAt balanceAt = accountService.getBalanceAt("1000000012", at);
+		
+		//then 사용 후 800이면 사용 전은 1000
+		assertEquals(1000L, balanceAt.getBalance());
+		assertEquals(AccountBalanceAt.Source.CURRENT, balanceAt.getSource());
+	}
+	
+	private static TransactionDTO archived(TransactionResultType resultType, Long balanceSnapshot, LocalDateTime transactedAt) {
+		return TransactionDTO.builder()
+				.accountNumber("1000000012")
+				.transactionType(TransactionType.USE)
+				.transactionResultType(resultType)
+				.amount(200L)
+				.balanceSnapshot(balanceSnapshot)
+				.transactionId("archived-" + transactedAt)
+				.transactedAt(transactedAt)
+				.build();
+	}
+	
+	@Test
+	@DisplayName("특정 시각의 잔액 - 개설 전 시각")
+	void getBalanceAt_BeforeRegistered() {
+		//given
+		LocalDateTime at = LocalDateTime.of(2024, 6, 1, 0, 0);
+		given(accountRepository.findByAccountNumber("1000000012")).willReturn(Optional.of(Account.builder().id(7L)
+				.accountNumber("1000000012").registeredAt(at.plusDays(1)).build()));
+		
+		//when
+		AccountException exception = assertThrows(AccountException.class, () -> accountService.getBalanceAt("1000000012", at));
+		
+		//then
+		assertEquals(ErrorCode.ACCOUNT_NOT_REGISTERED_AT, exception.getErrorCode());
+	}
+	
 }
@@ -0,0 +1,83 @@
+package com.example.account.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.BalanceCheckpoint;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.BalanceCheckpointRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardExecutor;
+import com.example.account.type.TransactionResultType;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceCheckpointJobTest {
+
+	@Mock
+	private AccountRepository accountRepository;
+
+	@Mock
+	private TransactionRepository transactionRepository;
+
+	@Mock
+	private BalanceCheckpointRepository balanceCheckpointRepository;
+
+	@Spy //샤딩하지 않는 단일 DB
+	private ShardExecutor shardExecutor = ShardExecutor.single();
+
+	@InjectMocks
+	private BalanceCheckpointJob balanceCheckpointJob;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(balanceCheckpointJob, "batchSize", 10);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void checkpointsOnlyAccountsWithNewTransactions() {
+		//given 1번: 체크포인트 이후 거래 둘이 같은 시각, 2번과 3번: 체크포인트 이후 거래 없음 (쿼리 결과에서 빠진다)
+		LocalDateTime transactedAt = LocalDateTime.now().minusDays(1);
+		Account active = Account.builder().id(1L).accountNumber("1000000000").build();
+		Account idle = Account.builder().id(2L).accountNumber("1000000001").build();
+		Account empty = Account.builder().id(3L).accountNumber("1000000002").build();
+		given(accountRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).willReturn(List.of(active, idle, empty));
+		given(transactionRepository.findLastBalancesAfterCheckpoint(any(), eq(TransactionResultType.S))).willReturn(List.<Object[]>of(
+				new Object[] {1L, 12L, 700L, transactedAt},
+				new Object[] {1L, 11L, 900L, transactedAt}));
+
+		//when
+		int written = balanceCheckpointJob.checkpointShard();
+
+		//then batch 전체를 한 번에 조회하고, 같은 시각이면 나중에 저장된 거래의 잔액
+		ArgumentCaptor<List<Long>> accountIds = ArgumentCaptor.forClass(List.class);
+		verify(transactionRepository).findLastBalancesAfterCheckpoint(accountIds.capture(), eq(TransactionResultType.S));
+		assertEquals(Set.of(1L, 2L, 3L), Set.copyOf(accountIds.getValue()));
+
+		ArgumentCaptor<List<BalanceCheckpoint>> captor = ArgumentCaptor.forClass(List.class);
+		verify(balanceCheckpointRepository).saveAll(captor.capture());
+		assertEquals(1, written);
+		assertEquals(1, captor.getValue().size());
+		assertEquals(700L, captor.getValue().get(0).getBalance());
+		assertEquals(transactedAt, captor.getValue().get(0).getCheckpointAt());
+		assertSame(active, captor.getValue().get(0).getAccount());
+	}
+}
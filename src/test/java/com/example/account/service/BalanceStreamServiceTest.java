@@ -0,0 +1,167 @@
+package com.example.account.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.account.dto.AccountInfo;
+import com.example.account.event.BalanceChangedEvent;
+
+class BalanceStreamServiceTest {
+
+	private BalanceStreamService balanceStreamService;
+
+	@BeforeEach
+	void setUp() {
+		//sender 스레드 하나, 구독자 버퍼 2
+		balanceStreamService = new BalanceStreamService();
+		ReflectionTestUtils.setField(balanceStreamService, "timeoutMillis", 60_000L);
+		ReflectionTestUtils.setField(balanceStreamService, "subscriberBuffer", 2);
+		ReflectionTestUtils.setField(balanceStreamService, "senderThreads", 1);
+		balanceStreamService.emitterFactory = RecordingEmitter::new;
+		balanceStreamService.start();
+	}
+
+	@AfterEach
+	void tearDown() {
+		balanceStreamService.stop();
+	}
+
+	@Test
+	void fansOutToEverySubscriberOfUser() throws Exception {
+		//given 1번 사용자 연결 둘, 2번 사용자 연결 하나
+		RecordingEmitter first = (RecordingEmitter) balanceStreamService.subscribe(1L, List::of);
+		RecordingEmitter second = (RecordingEmitter) balanceStreamService.subscribe(1L, List::of);
+		RecordingEmitter other = (RecordingEmitter) balanceStreamService.subscribe(2L, List::of);
+
+		//when
+		balanceStreamService.onBalanceChanged(event(1L, "1000000000", 9800L));
+		awaitSender();
+
+		//then
+		assertEquals(List.of("1000000000:9800"), first.sent());
+		assertEquals(List.of("1000000000:9800"), second.sent());
+		assertEquals(List.of(), other.sent());
+	}
+
+	@Test
+	void slowSubscriberKeepsLatestBalances() throws Exception {
+		//given sender가 바쁜 동안 쌓이는 변경
+		ExecutorService sender = (ExecutorService) ReflectionTestUtils.getField(balanceStreamService, "sender");
+		CountDownLatch busy = new CountDownLatch(1);
+		sender.execute(() -> {
+			try {
+				busy.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		RecordingEmitter emitter = (RecordingEmitter) balanceStreamService.subscribe(1L, List::of);
+
+		//when 같은 계좌는 덮어쓰고, 버퍼(2)가 넘치면 가장 오래된 계좌를 버린다
+		balanceStreamService.onBalanceChanged(event(1L, "1000000000", 100L));
+		balanceStreamService.onBalanceChanged(event(1L, "1000000001", 200L));
+		balanceStreamService.onBalanceChanged(event(1L, "1000000000", 90L));
+		balanceStreamService.onBalanceChanged(event(1L, "1000000002", 300L));
+		busy.countDown();
+		awaitSender();
+
+		//then
+		assertEquals(List.of("1000000000:90", "1000000002:300"), emitter.sent());
+	}
+
+	@Test
+	void completedEmitterIsUnsubscribed() throws Exception {
+		//given
+		RecordingEmitter emitter = (RecordingEmitter) balanceStreamService.subscribe(1L, () -> List.of(AccountInfo.builder().accountNumber("1000000000").balance(10000L).build()));
+		assertEquals(1, balanceStreamService.subscriberCount());
+
+		//when 클라이언트가 연결을 끊음
+		emitter.completionCallback.run();
+		balanceStreamService.onBalanceChanged(event(1L, "1000000000", 9800L));
+		awaitSender();
+
+		//then 구독 시점의 잔액만 받았다
+		assertEquals(0, balanceStreamService.subscriberCount());
+		assertEquals(List.of("1000000000:10000"), emitter.sent());
+	}
+
+	@Test
+	void changeDuringSnapshotReadIsNotOverwritten() throws Exception {
+		//given 현재 잔액을 읽는 동안 커밋된 변경 (등록이 먼저라 구독자가 받는다)
+		RecordingEmitter emitter = (RecordingEmitter) balanceStreamService.subscribe(1L, () -> {
+			balanceStreamService.onBalanceChanged(event(1L, "1000000000", 9800L));
+			return List.of(
+					AccountInfo.builder().accountNumber("1000000000").balance(10000L).build(),
+					AccountInfo.builder().accountNumber("1000000001").balance(500L).build());
+		});
+
+		//when
+		awaitSender();
+
+		//then 먼저 읽힌 옛 잔액이 새 잔액을 덮어쓰거나 뒤따라 보내지지 않는다
+		assertEquals(List.of("1000000000:9800", "1000000001:500"), emitter.sent());
+	}
+
+	@Test
+	void failedSnapshotCancelsSubscription() {
+		//when 없는 사용자
+		assertThrows(IllegalStateException.class, () -> balanceStreamService.subscribe(1L, () -> {
+			throw new IllegalStateException("USER_NOT_FOUND");
+		}));
+
+		//then
+		assertEquals(0, balanceStreamService.subscriberCount());
+	}
+
+	private static BalanceChangedEvent event(Long userId, String accountNumber, Long balance) {
+		return BalanceChangedEvent.builder().userId(userId).accountNumber(accountNumber).balance(balance).build();
+	}
+
+	//예약된 전송이 모두 끝날 때까지
+	private void awaitSender() throws InterruptedException {
+		ExecutorService sender = (ExecutorService) ReflectionTestUtils.getField(balanceStreamService, "sender");
+		sender.shutdown();
+		assertTrue(sender.awaitTermination(5, TimeUnit.SECONDS));
+	}
+
+	//보낸 잔액을 기록하는 emitter
+	private static class RecordingEmitter extends SseEmitter {
+		private final List<AccountInfo> sent = new CopyOnWriteArrayList<>();
+		private Runnable completionCallback;
+
+		RecordingEmitter(long timeout) {
+			super(timeout);
+		}
+
+		@Override
+		public void send(SseEventBuilder builder) {
+			builder.build().stream()
+					.map(ResponseBodyEmitter.DataWithMediaType::getData)
+					.filter(AccountInfo.class::isInstance)
+					.forEach(data -> sent.add((AccountInfo) data));
+		}
+
+		@Override
+		public synchronized void onCompletion(Runnable callback) {
+			completionCallback = callback;
+			super.onCompletion(callback);
+		}
+
+		List<String> sent() {
+			return sent.stream().map(accountInfo -> accountInfo.getAccountNumber() + ":" + accountInfo.getBalance()).collect(Collectors.toList());
+		}
+	}
+}
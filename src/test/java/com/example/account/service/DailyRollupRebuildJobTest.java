@@ -0,0 +1,121 @@
+package com.example.account.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.DailyAccountRollup;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.DailyAccountRollupRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardExecutor;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+@ExtendWith(MockitoExtension.class)
+class DailyRollupRebuildJobTest {
+
+	@Mock
+	private TransactionRepository transactionRepository;
+
+	@Mock
+	private DailyAccountRollupRepository dailyAccountRollupRepository;
+
+	@Mock
+	private AccountRepository accountRepository;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	@Spy //샤딩하지 않는 단일 DB
+	private ShardExecutor shardExecutor = ShardExecutor.single();
+
+	@InjectMocks
+	private DailyRollupRebuildJob dailyRollupRebuildJob;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(dailyRollupRebuildJob, "rebuildThreads", 2);
+		ReflectionTestUtils.setField(dailyRollupRebuildJob, "archiveMaxAgeDays", 365L);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void rebuildDayFromTransactions() {
+		//given
+		LocalDate day = LocalDate.now().minusDays(1);
+		LocalDateTime last = day.atTime(23, 0);
+		given(accountRepository.getReferenceById(anyLong())).willAnswer(invocation -> Account.builder().id(invocation.getArgument(0)).build());
+		given(transactionRepository.sumByAccountBetween(day.atStartOfDay(), day.plusDays(1).atStartOfDay())).willReturn(List.of(
+				new Object[] {1L, TransactionType.USE, TransactionResultType.S, 1000L, 3L},
+				new Object[] {1L, TransactionType.CANCEL, TransactionResultType.S, 200L, 1L},
+				new Object[] {1L, TransactionType.USE, TransactionResultType.F, 500L, 2L},
+				new Object[] {2L, TransactionType.CANCEL, TransactionResultType.F, 100L, 1L}));
+		//1번 계좌는 같은 시각에 두 건 -> id가 큰 거래의 잔액
+		given(transactionRepository.findLastBalancesBetween(day.atStartOfDay(), day.plusDays(1).atStartOfDay())).willReturn(List.of(
+				new Object[] {1L, 11L, 8800L, last},
+				new Object[] {1L, 10L, 9000L, last},
+				new Object[] {2L, 20L, 5000L, last}));
+
+		//when
+		int rows = dailyRollupRebuildJob.rebuild(day, day);
+
+		//then
+		ArgumentCaptor<Iterable<DailyAccountRollup>> captor = ArgumentCaptor.forClass(Iterable.class);
+		verify(dailyAccountRollupRepository).deleteByRollupDate(day);
+		verify(dailyAccountRollupRepository).saveAll(captor.capture());
+		assertEquals(2, rows);
+
+		List<DailyAccountRollup> rollups = new ArrayList<>();
+		captor.getValue().forEach(rollups::add);
+		rollups.sort(Comparator.comparing(rollup -> rollup.getAccount().getId()));
+		assertEquals(1000L, rollups.get(0).getUsedAmount());
+		assertEquals(200L, rollups.get(0).getCancelledAmount());
+		assertEquals(2L, rollups.get(0).getFailedCount());
+		assertEquals(8800L, rollups.get(0).getClosingBalance());
+		assertEquals(0L, rollups.get(1).getUsedAmount());
+		assertEquals(1L, rollups.get(1).getFailedCount());
+		assertEquals(5000L, rollups.get(1).getClosingBalance());
+	}
+
+	@Test
+	void rebuildRejectsToday() {
+		//when 오늘은 증분 갱신 중
+		AccountException exception = assertThrows(AccountException.class,
+				() -> dailyRollupRebuildJob.rebuild(LocalDate.now().minusDays(1), LocalDate.now()));
+
+		//then
+		assertEquals(ErrorCode.INVALID_REQUEST, exception.getErrorCode());
+	}
+
+	@Test
+	void rebuildRejectsPartlyArchivedDay() {
+		//when 보관 기한 날짜는 하루 중 일부만 남아 있다
+		AccountException exception = assertThrows(AccountException.class,
+				() -> dailyRollupRebuildJob.rebuild(LocalDate.now().minusDays(365), LocalDate.now().minusDays(1)));
+
+		//then
+		assertEquals(ErrorCode.INVALID_REQUEST, exception.getErrorCode());
+	}
+}
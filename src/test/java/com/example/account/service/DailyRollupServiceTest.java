@@ -0,0 +1,145 @@
+package com.example.account.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.DailyAccountRollup;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.DailyRollupDTO;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.DailyAccountRollupRepository;
+import com.example.account.shard.ShardExecutor;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+@ExtendWith(MockitoExtension.class)
+class DailyRollupServiceTest {
+
+	@Mock
+	private DailyAccountRollupRepository dailyAccountRollupRepository;
+
+	@Mock
+	private AccountRepository accountRepository;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	@Spy //샤딩하지 않는 단일 DB
+	private ShardExecutor shardExecutor = ShardExecutor.single();
+
+	@InjectMocks
+	private DailyRollupService dailyRollupService;
+
+	private final Account account = Account.builder().id(1L).accountNumber("1000000000").balance(10000L).build();
+	private final LocalDateTime today = LocalDate.now().atTime(12, 0);
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(dailyRollupService, "hotThreshold", 2);
+	}
+
+	@Test
+	void firstTransactionOfDayCreatesRowThenAdds() {
+		//given 행이 없어서 첫 update는 0건
+		given(dailyAccountRollupRepository.addDelta(anyLong(), any(), anyLong(), anyLong(), anyLong(), any(), any())).willReturn(0, 1);
+
+		//when
+		dailyRollupService.record(transaction(TransactionType.USE, TransactionResultType.S, 300L, 9700L, today));
+
+		//then
+		verify(dailyAccountRollupRepository, times(1)).saveAndFlush(any(DailyAccountRollup.class));
+		verify(dailyAccountRollupRepository, times(2)).addDelta(1L, today.toLocalDate(), 300L, 0L, 0L, 9700L, today);
+	}
+
+	@Test
+	void recordAllMergesSameAccountAndDay() {
+		//given
+		given(dailyAccountRollupRepository.addDelta(anyLong(), any(), anyLong(), anyLong(), anyLong(), any(), any())).willReturn(1);
+
+		//when 실패 이력 batch
+		dailyRollupService.recordAll(List.of(
+				transaction(TransactionType.USE, TransactionResultType.F, 100L, 10000L, today),
+				transaction(TransactionType.CANCEL, TransactionResultType.F, 200L, 10000L, today.plusSeconds(1))));
+
+		//then
+		verify(dailyAccountRollupRepository, times(1)).addDelta(1L, today.toLocalDate(), 0L, 0L, 2L, 10000L, today.plusSeconds(1));
+		verify(dailyAccountRollupRepository, never()).saveAndFlush(any());
+	}
+
+	@Test
+	void hotAccountIsBufferedUntilFlush() {
+		//given 직전 주기에 2건 거래 -> hot
+		given(dailyAccountRollupRepository.addDelta(anyLong(), any(), anyLong(), anyLong(), anyLong(), any(), any())).willReturn(1);
+		dailyRollupService.record(transaction(TransactionType.USE, TransactionResultType.S, 100L, 9900L, today));
+		dailyRollupService.record(transaction(TransactionType.USE, TransactionResultType.S, 100L, 9800L, today.plusSeconds(1)));
+		dailyRollupService.flush();
+
+		//when
+		dailyRollupService.record(transaction(TransactionType.USE, TransactionResultType.S, 500L, 9300L, today.plusSeconds(2)));
+		dailyRollupService.record(transaction(TransactionType.CANCEL, TransactionResultType.S, 100L, 9400L, today.plusSeconds(3)));
+
+		//then DB에 더하지 않고, 조회하면 모아둔 값이 함께 보인다
+		verify(dailyAccountRollupRepository, never()).addDelta(1L, today.toLocalDate(), 500L, 100L, 0L, 9400L, today.plusSeconds(3));
+		given(accountRepository.findByAccountNumber("1000000000")).willReturn(Optional.of(account));
+		given(dailyAccountRollupRepository.findByAccountIdAndRollupDateBetweenOrderByRollupDateAsc(eq(1L), any(), any())).willReturn(List.of(
+				DailyAccountRollup.builder().account(account).rollupDate(today.toLocalDate()).usedAmount(200L).cancelledAmount(0L).failedCount(0L)
+						.closingBalance(9800L).lastTransactedAt(today.plusSeconds(1)).build()));
+
+		List<DailyRollupDTO> rollups = dailyRollupService.getRollups("1000000000", today.toLocalDate(), today.toLocalDate());
+		assertEquals(1, rollups.size());
+		assertEquals(700L, rollups.get(0).getUsedAmount());
+		assertEquals(100L, rollups.get(0).getCancelledAmount());
+		assertEquals(9400L, rollups.get(0).getClosingBalance());
+
+		//when flush 하면 한 번에 더한다
+		dailyRollupService.flush();
+
+		//then
+		verify(dailyAccountRollupRepository, times(1)).addDelta(1L, today.toLocalDate(), 500L, 100L, 0L, 9400L, today.plusSeconds(3));
+	}
+
+	@Test
+	void getRollupsInvalidRange() {
+		//when
+		AccountException exception = assertThrows(AccountException.class,
+				() -> dailyRollupService.getRollups("1000000000", LocalDate.now(), LocalDate.now().minusDays(1)));
+
+		//then
+		assertEquals(ErrorCode.INVALID_REQUEST, exception.getErrorCode());
+	}
+
+	private Transaction transaction(TransactionType transactionType, TransactionResultType resultType, long amount, long balanceSnapshot, LocalDateTime transactedAt) {
+		return Transaction.builder()
+				.account(account)
+				.transactionType(transactionType)
+				.transactionResultType(resultType)
+				.amount(amount)
+				.balanceSnapshot(balanceSnapshot)
+				.transactedAt(transactedAt)
+				.build();
+	}
+}
@@ -0,0 +1,121 @@
+package com.example.account.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.never;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.account.dto.FailedTransaction;
+import com.example.account.type.TransactionType;
+import com.example.account.shard.ShardExecutor;
+
+@ExtendWith(MockitoExtension.class)
+class FailedTransactionWriterTest {
+
+	@Mock
+	private TransactionService transactionService;
+
+	@Spy //샤딩하지 않는 단일 DB
+	private ShardExecutor shardExecutor = ShardExecutor.single();
+
+	@InjectMocks
+	private FailedTransactionWriter failedTransactionWriter;
+
+	@TempDir
+	Path tempDir;
+
+	private Path walPath;
+
+	@BeforeEach
+	void setUp() {
+		//백그라운드 스레드는 띄우지 않고 큐만 준비
+		walPath = tempDir.resolve("failed-transaction.wal");
+		ReflectionTestUtils.setField(failedTransactionWriter, "walPath", walPath.toString());
+		ReflectionTestUtils.setField(failedTransactionWriter, "queue", new ArrayBlockingQueue<FailedTransaction>(1));
+	}
+
+	@Test
+	void flushSavesBatch() {
+		//given
+		List<FailedTransaction> batch = List.of(new FailedTransaction(TransactionType.USE, "1000000000", 200L, LocalDateTime.now()));
+
+		//when
+		failedTransactionWriter.flush(batch);
+
+		//then
+		verify(transactionService, times(1)).saveFailedTransactions(batch);
+		assertFalse(Files.exists(walPath));
+	}
+
+	@Test
+	void flushWritesWalWhenDatabaseFails() throws Exception {
+		//given
+		willThrow(new RuntimeException("DB down")).given(transactionService).saveFailedTransactions(anyList());
+
+		//when
+		failedTransactionWriter.flush(List.of(new FailedTransaction(TransactionType.CANCEL, "1000000000", 300L, LocalDateTime.now())));
+
+		//then
+		List<String> lines = Files.readAllLines(walPath);
+		assertEquals(1, lines.size());
+		assertTrue(lines.get(0).startsWith("CANCEL,1000000000,300,"));
+	}
+
+	@Test
+	void enqueueOverflowGoesToWalAndIsReplayed() throws Exception {
+		//given 큐 크기 1
+		failedTransactionWriter.enqueue(TransactionType.USE, "1000000000", 100L);
+		failedTransactionWriter.enqueue(TransactionType.USE, "1000000001", 200L);
+
+		//then 두 번째 이력은 WAL로
+		assertEquals(1, Files.readAllLines(walPath).size());
+
+		//when 큐가 비면 WAL에서 다시 큐로
+		ReflectionTestUtils.setField(failedTransactionWriter, "queue", new ArrayBlockingQueue<FailedTransaction>(10));
+		failedTransactionWriter.replayWal();
+
+		//then
+		assertFalse(Files.exists(walPath));
+		verify(transactionService, never()).saveFailedTransactions(any());
+	}
+
+	@Test
+	void replaySkipsCorruptLines() throws Exception {
+		//given 중간에 잘린 줄
+		LocalDateTime transactedAt = LocalDateTime.now();
+		Files.write(walPath, List.of(
+				new FailedTransaction(TransactionType.USE, "1000000000", 100L, transactedAt).toWalLine(),
+				"USE,1000000001,2",
+				new FailedTransaction(TransactionType.CANCEL, "1000000002", 300L, transactedAt).toWalLine()));
+		BlockingQueue<FailedTransaction> queue = new ArrayBlockingQueue<>(10);
+		ReflectionTestUtils.setField(failedTransactionWriter, "queue", queue);
+
+		//when
+		failedTransactionWriter.replayWal();
+
+		//then 나머지 이력은 큐로, 잘린 줄은 .corrupt 파일로
+		assertEquals(2, queue.size());
+		assertFalse(Files.exists(walPath));
+		assertEquals(List.of("USE,1000000001,2"), Files.readAllLines(tempDir.resolve("failed-transaction.wal.corrupt")));
+	}
+}
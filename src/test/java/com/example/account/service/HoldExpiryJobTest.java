@@ -0,0 +1,70 @@
+package com.example.account.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.account.domain.Account;
+import com.example.account.shard.ShardExecutor;
+
+@ExtendWith(MockitoExtension.class)
+class HoldExpiryJobTest {
+
+	@Mock
+	private TransactionService transactionService;
+
+	@Spy //샤딩하지 않는 단일 DB
+	private ShardExecutor shardExecutor = ShardExecutor.single();
+
+	@InjectMocks
+	private HoldExpiryJob holdExpiryJob;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(holdExpiryJob, "batchSize", 2);
+	}
+
+	@Test
+	void expiresUntilBatchIsNotFull() {
+		//given 가득 찬 batch 하나, 마지막 batch 3건 중 1건은 그 사이 확정됨
+		given(transactionService.findExpiredHoldIds(2)).willReturn(List.of("h1", "h2")).willReturn(List.of("h3"));
+		given(transactionService.expireHold(anyString())).willReturn(true);
+		given(transactionService.expireHold("h3")).willReturn(false);
+
+		//when
+		int expired = holdExpiryJob.expireShard();
+
+		//then
+		assertEquals(2, expired);
+		verify(transactionService, times(2)).findExpiredHoldIds(2);
+	}
+
+	@Test
+	void conflictRollsBackOnlyThatHold() {
+		//given 두 번째 가승인이 같은 계좌의 요청과 겹쳐 롤백
+		given(transactionService.findExpiredHoldIds(2)).willReturn(List.of("h1", "h2"));
+		given(transactionService.expireHold("h1")).willReturn(true);
+		given(transactionService.expireHold("h2")).willThrow(new ObjectOptimisticLockingFailureException(Account.class, 1L));
+
+		//when
+		int expired = holdExpiryJob.expireShard();
+
+		//then 다른 가승인은 풀리고, 겹친 가승인은 다음 주기에 다시 읽는다
+		assertEquals(1, expired);
+		verify(transactionService, times(1)).findExpiredHoldIds(2);
+	}
+}
@@ -1,6 +1,10 @@
 package com.example.account.service;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.BDDMockito.given;
@@ -16,6 +20,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
+import com.example.account.hotspot.HotAccountTracker;
+import com.example.account.ledger.RedisLedger;
 import com.example.account.type.ErrorCode;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,6 +30,12 @@ class LockAopAspectTest {
 	@Mock
 	private LockService lockService;
 	
+	@Mock
+	private RedisLedger redisLedger;
+	
+	@Mock
+	private HotAccountTracker hotAccountTracker;
+	
 	@Mock
 	private ProceedingJoinPoint proceedingJoinPoint;
 	
@@ -49,5 +61,36 @@ class LockAopAspectTest {
 		assertEquals("1234", lockArgumentCaptor.getValue());
 		assertEquals("1234", unLockkArgumentCaptor.getValue());
 	}
+	
+	@Test
+	void recordLockFailure() throws Throwable {
+		//given
+		UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+		willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK)).given(lockService).lock("1234");
+		
+		//when
+		assertThrows(AccountException.class, ()->
+		lockAopAspect.aroundMethod(proceedingJoinPoint, request));
+		
+		//then lock 실패도 요청으로 세고, 거래는 실행하지 않는다
+		verify(hotAccountTracker, times(1)).recordLock(eq("1234"), anyLong(), eq(false));
+		verify(proceedingJoinPoint, never()).proceed();
+		verify(lockService, never()).unlock("1234");
+	}
+	
+	@Test
+	void skipLockForRedisLedger() throws Throwable {
+		//given
+		UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+		given(redisLedger.handles("1234")).willReturn(true);
+		
+		//when
+		lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+		
+		//then Lua 스크립트가 원자적이라 lock 없이 실행
+		verify(proceedingJoinPoint, times(1)).proceed();
+		verify(lockService, never()).lock("1234");
+		verify(hotAccountTracker, times(1)).recordLock("1234", 0L, true);
+	}
 
 }
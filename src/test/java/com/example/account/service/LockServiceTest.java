@@ -7,15 +7,29 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisConnectionException;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.example.account.breaker.RedisCircuitBreaker;
+import com.example.account.cluster.LocalLockRegistry;
 import com.example.account.exception.AccountException;
+import com.example.account.fencing.FencingTokenIssuer;
+import com.example.account.fencing.FencingTokens;
+import com.example.account.redlock.QuorumLock;
 import com.example.account.type.ErrorCode;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,9 +41,28 @@ class LockServiceTest {
 	@Mock
 	private RLock rLock;
 	
+	@Mock
+	private QuorumLock quorumLock;
+	
+	@Mock
+	private FencingTokenIssuer fencingTokenIssuer;
+	
+	@Spy
+	private LocalLockRegistry localLockRegistry = new LocalLockRegistry();
+	
+	@Spy //한 번 실패하면 열리도록 (failure-threshold 1)
+	private RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker();
+	
 	@InjectMocks
 	private LockService lockService;
 	
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", 1);
+		ReflectionTestUtils.setField(circuitBreaker, "openMillis", 60000L);
+		ReflectionTestUtils.setField(lockService, "fallback", "local");
+	}
+	
 	@Test
 	void successGetLock() throws InterruptedException {
 		//given
@@ -54,4 +87,96 @@ class LockServiceTest {
 		assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
 		
 	}
+	
+	@Test
+	void localLockInClusterMode() throws Exception {
+		//given 클러스터 모드, 다른 스레드가 같은 계좌의 lock을 잡고 있다
+		ReflectionTestUtils.setField(lockService, "clusterEnabled", true);
+		ExecutorService otherThread = Executors.newSingleThreadExecutor();
+		try {
+			otherThread.submit(() -> lockService.lock("123")).get();
+			
+			//when
+			AccountException exception = assertThrows(AccountException.class, () -> lockService.lock("123"));
+			
+			//then Redis lock은 쓰지 않는다
+			assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+			assertDoesNotThrow(() -> lockService.lock("456"));
+			lockService.unlock("456");
+			verify(rLock, times(0)).tryLock(anyLong(), anyLong(), any());
+			
+			otherThread.submit(() -> lockService.unlock("123")).get();
+			assertDoesNotThrow(() -> lockService.lock("123"));
+			lockService.unlock("123");
+		} finally {
+			otherThread.shutdown();
+		}
+	}
+	
+	@Test
+	void quorumLockWhenEnabled() throws InterruptedException {
+		//given 레디스 여러 대 모드
+		given(quorumLock.isEnabled()).willReturn(true);
+		given(quorumLock.tryLock(eq("ACLK:123"), anyLong(), anyLong(), any())).willReturn(true);
+		
+		//when
+		lockService.lock("123");
+		lockService.unlock("123");
+		
+		//then 단일 레디스 lock은 쓰지 않는다
+		verify(quorumLock).unlock("ACLK:123");
+		verify(redissonClient, times(0)).getLock(anyString());
+	}
+	
+	@Test
+	void bindsFencingTokenWhileLocked() throws InterruptedException {
+		//given
+		given(redissonClient.getLock(anyString())).willReturn(rLock);
+		given(rLock.tryLock(anyLong(), anyLong(), any())).willReturn(true);
+		given(fencingTokenIssuer.issue("123")).willReturn(7L);
+		
+		//when
+		lockService.lock("123");
+		Long whileLocked = FencingTokens.current("123");
+		lockService.unlock("123");
+		
+		//then 잔액 변경(TransactionService)이 이 token으로 검사된다
+		assertEquals(7L, whileLocked);
+		assertNull(FencingTokens.current("123"));
+	}
+	
+	@Test
+	void fallbackToLocalLockWhileRedisIsDown() throws InterruptedException {
+		//given 레디스 장애
+		given(redissonClient.getLock(anyString())).willReturn(rLock);
+		given(rLock.tryLock(anyLong(), anyLong(), any())).willThrow(new RedisConnectionException("connection refused"));
+		
+		//when 첫 요청에서 circuit이 열리고, 다음 요청은 레디스를 부르지 않는다
+		lockService.lock("123");
+		Long token = FencingTokens.current("123");
+		lockService.unlock("123");
+		lockService.lock("123");
+		lockService.unlock("123");
+		
+		//then 노드 로컬 lock으로 잡고, fencing token 없이 DB version 검사에 맡긴다
+		assertEquals(RedisCircuitBreaker.State.OPEN, circuitBreaker.getState());
+		assertNull(token);
+		verify(rLock, times(1)).tryLock(anyLong(), anyLong(), any());
+		verify(rLock, times(0)).unlock();
+		verify(localLockRegistry, times(2)).unlock("123");
+	}
+	
+	@Test
+	void failFastWhileRedisIsDown() throws InterruptedException {
+		//given
+		ReflectionTestUtils.setField(lockService, "fallback", "fail-fast");
+		given(redissonClient.getLock(anyString())).willReturn(rLock);
+		given(rLock.tryLock(anyLong(), anyLong(), any())).willThrow(new RedisConnectionException("connection refused"));
+		
+		//when
+		AccountException exception = assertThrows(AccountException.class, () -> lockService.lock("123"));
+		
+		//then
+		assertEquals(ErrorCode.LOCK_SERVICE_UNAVAILABLE, exception.getErrorCode());
+	}
 }
@@ -0,0 +1,124 @@
+package com.example.account.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.account.domain.OutboxEvent;
+import com.example.account.event.BalanceEventSink;
+import com.example.account.repository.OutboxEventRepository;
+import com.example.account.shard.ShardExecutor;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+	@Mock
+	private OutboxEventRepository outboxEventRepository;
+
+	@Mock
+	private BalanceEventSink balanceEventSink;
+
+	@Mock
+	private RedissonClient redissonClient;
+
+	@Mock
+	private RLock relayLock;
+
+	@Spy //샤딩하지 않는 단일 DB
+	private ShardExecutor shardExecutor = ShardExecutor.single();
+
+	@InjectMocks
+	private OutboxRelay outboxRelay;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(outboxRelay, "batchSize", 10);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void relayDeliversAndMarksSent() throws Exception {
+		//given 아직 전달하지 않은 이벤트 2개 (5번은 늦게 커밋되어 7번보다 나중에 보인 경우)
+		List<OutboxEvent> events = List.of(OutboxEvent.builder().id(5L).accountNumber("1000000001").build(),
+				OutboxEvent.builder().id(7L).accountNumber("1000000000").build());
+
+		given(outboxEventRepository.findBySentAtIsNullOrderByIdAsc(any())).willReturn(events);
+
+		ArgumentCaptor<List<Long>> captor = ArgumentCaptor.forClass(List.class);
+
+		//when
+		int delivered = outboxRelay.relayBatch();
+
+		//then
+		assertEquals(2, delivered);
+		verify(balanceEventSink, times(1)).deliver(events);
+		verify(outboxEventRepository, times(1)).markSent(captor.capture(), any());
+		assertEquals(List.of(5L, 7L), captor.getValue());
+	}
+
+	@Test
+	void relayKeepsEventsUnsentWhenSinkFails() throws Exception {
+		//given
+		given(outboxEventRepository.findBySentAtIsNullOrderByIdAsc(any()))
+				.willReturn(List.of(OutboxEvent.builder().id(1L).build()));
+		willThrow(new RuntimeException("webhook down")).given(balanceEventSink).deliver(any());
+
+		//when
+		int delivered = outboxRelay.relayBatch();
+
+		//then 다음 주기에 다시 전달
+		assertEquals(0, delivered);
+		verify(outboxEventRepository, never()).markSent(anyList(), any());
+	}
+
+	@Test
+	void relaySkipsWhileAnotherNodeRelays() {
+		//given 다른 노드가 lock을 잡고 있다
+		ReflectionTestUtils.setField(outboxRelay, "enabled", true);
+		given(redissonClient.getLock(anyString())).willReturn(relayLock);
+		given(relayLock.tryLock()).willReturn(false);
+
+		//when
+		outboxRelay.relay();
+
+		//then 같은 이벤트를 겹쳐 보내지 않는다
+		verify(outboxEventRepository, never()).findBySentAtIsNullOrderByIdAsc(any());
+		verify(relayLock, never()).unlock();
+	}
+
+	@Test
+	void purgeDeletesOnlyOldSentEvents() {
+		//given
+		ReflectionTestUtils.setField(outboxRelay, "retentionDays", 7L);
+		ArgumentCaptor<LocalDateTime> captor = ArgumentCaptor.forClass(LocalDateTime.class);
+
+		//when
+		outboxRelay.purge();
+
+		//then
+		verify(outboxEventRepository, times(1)).deleteSentBefore(captor.capture());
+		assertTrue(captor.getValue().isBefore(LocalDateTime.now().minusDays(7).plusMinutes(1)));
+		assertTrue(captor.getValue().isAfter(LocalDateTime.now().minusDays(7).minusMinutes(1)));
+	}
+}
@@ -0,0 +1,54 @@
+package com.example.account.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ServiceMetricsAspectTest {
+
+	private SimpleMeterRegistry meterRegistry;
+	private BalanceStreamService balanceStreamService;
+
+	@BeforeEach
+	void setUp() {
+		//의존성이 없는 서비스에 aspect를 건다
+		meterRegistry = new SimpleMeterRegistry();
+		AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new BalanceStreamService());
+		proxyFactory.setProxyTargetClass(true);
+		proxyFactory.addAspect(new ServiceMetricsAspect(meterRegistry));
+		balanceStreamService = proxyFactory.getProxy();
+	}
+
+	@Test
+	void recordsServiceMethodsIntoOneTimerPerMethod() {
+		//when
+		balanceStreamService.subscriberCount();
+		balanceStreamService.subscriberCount();
+
+		//then
+		Timer timer = meterRegistry.get("account.service.method")
+				.tag("class", "BalanceStreamService")
+				.tag("method", "subscriberCount")
+				.tag("exception", "none")
+				.timer();
+		assertEquals(2, timer.count());
+		assertEquals(1, meterRegistry.getMeters().size());
+	}
+
+	@Test
+	void tagsExceptionType() {
+		//when 스냅샷 없이 구독
+		assertThrows(NullPointerException.class, () -> balanceStreamService.subscribe(1L, null));
+		balanceStreamService.subscriberCount();
+
+		//then 예외 종류별로 따로 센다
+		assertEquals(1, meterRegistry.get("account.service.method").tag("method", "subscribe").tag("exception", "NullPointerException").timer().count());
+		assertEquals(1, meterRegistry.get("account.service.method").tag("method", "subscriberCount").tag("exception", "none").timer().count());
+		assertNull(meterRegistry.find("account.service.method").tag("method", "subscribe").tag("exception", "none").timer());
+	}
+}
@@ -0,0 +1,160 @@
+package com.example.account.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import com.example.account.archive.TransactionArchive;
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.BalanceHold;
+import com.example.account.domain.Transaction;
+import com.example.account.fencing.FencingTokens;
+import com.example.account.hotspot.HotAccountTracker;
+import com.example.account.repository.AccountRepository;
+import com.example.account.shard.ShardExecutor;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.HoldStatus;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+//mock으로는 보이지 않는 영속성 컨텍스트와 벌크 update의 순서를 실제 JPA(H2)로 확인
+@DataJpaTest
+@TestPropertySource(properties = "spring.sql.init.mode=never") //data.sql의 고정 id와 겹치지 않게
+@Import({TransactionService.class, TransactionServiceFencingTest.SingleShard.class})
+class TransactionServiceFencingTest {
+	private static final String ACCOUNT_NUMBER = "2000000000";
+
+	@TestConfiguration
+	static class SingleShard {
+		@Bean //샤딩하지 않는 단일 DB
+		ShardExecutor shardExecutor() {
+			return ShardExecutor.single();
+		}
+	}
+
+	@MockBean
+	private TransactionArchive transactionArchive;
+
+	@MockBean
+	private DailyRollupService dailyRollupService;
+
+	@MockBean
+	private HotAccountTracker hotAccountTracker;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private Account account;
+
+	@BeforeEach
+	void setUp() {
+		AccountUser user = entityManager.persist(AccountUser.builder().name("Fence").build());
+		account = entityManager.persist(Account.builder()
+				.accountUser(user)
+				.accountNumber(ACCOUNT_NUMBER)
+				.accountStatus(AccountStatus.IN_USE)
+				.balance(9000L)
+				.heldAmount(3000L)
+				.lastFencingToken(100L)
+				.build());
+	}
+
+	@AfterEach
+	void clearToken() {
+		FencingTokens.clear(ACCOUNT_NUMBER);
+	}
+
+	@Test
+	void cancelKeepsAdvancedFencingToken() {
+		//given token 100으로 쓴 거래, 새 요청은 영속성 컨텍스트가 빈 상태로 시작한다
+		entityManager.persist(Transaction.builder()
+				.transactionType(TransactionType.USE)
+				.transactionResultType(TransactionResultType.S)
+				.account(account)
+				.amount(1000L)
+				.balanceSnapshot(9000L)
+				.transactionId("fenced-use")
+				.transactedAt(LocalDateTime.now())
+				.build());
+		entityManager.flush();
+		entityManager.clear();
+		FencingTokens.bind(ACCOUNT_NUMBER, 200L);
+
+		//when
+		transactionService.cancelBalance("fenced-use", ACCOUNT_NUMBER, 1000L);
+		entityManager.flush();
+		entityManager.clear();
+
+		//then 거래가 함께 읽어 온 계좌가 예전 token을 다시 쓰지 않는다
+		Account saved = accountRepository.findByAccountNumber(ACCOUNT_NUMBER).get();
+		assertEquals(200L, saved.getLastFencingToken());
+		assertEquals(10000L, saved.getBalance());
+	}
+
+	@Test
+	void captureKeepsAdvancedFencingToken() {
+		//given token 100으로 잡아둔 가승인
+		persistHold();
+		FencingTokens.bind(ACCOUNT_NUMBER, 200L);
+
+		//when
+		transactionService.captureHold("fenced-hold", ACCOUNT_NUMBER, 2000L);
+		entityManager.flush();
+		entityManager.clear();
+
+		//then 가승인이 함께 읽어 온 계좌가 예전 token을 다시 쓰지 않는다
+		Account saved = accountRepository.findByAccountNumber(ACCOUNT_NUMBER).get();
+		assertEquals(200L, saved.getLastFencingToken());
+		assertEquals(7000L, saved.getBalance());
+		assertEquals(0L, saved.getHeldAmount());
+	}
+
+	@Test
+	void releaseKeepsAdvancedFencingToken() {
+		//given
+		persistHold();
+		FencingTokens.bind(ACCOUNT_NUMBER, 200L);
+
+		//when
+		transactionService.releaseHold("fenced-hold", ACCOUNT_NUMBER);
+		entityManager.flush();
+		entityManager.clear();
+
+		//then
+		Account saved = accountRepository.findByAccountNumber(ACCOUNT_NUMBER).get();
+		assertEquals(200L, saved.getLastFencingToken());
+		assertEquals(0L, saved.getHeldAmount());
+	}
+
+	//새 요청은 영속성 컨텍스트가 빈 상태로 시작한다
+	private void persistHold() {
+		entityManager.persist(BalanceHold.builder()
+				.account(account)
+				.holdId("fenced-hold")
+				.holdStatus(HoldStatus.HELD)
+				.amount(3000L)
+				.expiresAt(LocalDateTime.now().plusMinutes(10))
+				.build());
+		entityManager.flush();
+		entityManager.clear();
+	}
+}
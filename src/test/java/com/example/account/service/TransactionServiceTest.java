@@ -7,8 +7,11 @@ import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.DisplayName;
@@ -17,20 +20,36 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.example.account.archive.TransactionArchive;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.domain.BalanceHold;
+import com.example.account.domain.OutboxEvent;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.BalanceHoldDTO;
+import com.example.account.dto.FailedTransaction;
+import com.example.account.dto.LedgerEntry;
 import com.example.account.dto.TransactionDTO;
+import com.example.account.dto.TransactionSummary;
 import com.example.account.exception.AccountException;
+import com.example.account.fencing.FencingTokens;
+import com.example.account.hotspot.HotAccountTracker;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.BalanceHoldRepository;
+import com.example.account.repository.OutboxEventRepository;
 import com.example.account.repository.TransactionRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.HoldStatus;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
+import com.example.account.shard.ShardExecutor;
 
 @ExtendWith(MockitoExtension.class)
 class TransactionServiceTest {
@@ -47,6 +66,27 @@ class TransactionServiceTest {
 	@Mock
 	private TransactionRepository transactionRepository;
 	
+	@Mock
+	private OutboxEventRepository outboxEventRepository;
+	
+	@Mock
+	private ApplicationEventPublisher applicationEventPublisher;
+	
+	@Mock
+	private TransactionArchive transactionArchive;
+	
+	@Mock
+	private DailyRollupService dailyRollupService;
+	
+	@Mock
+	private HotAccountTracker hotAccountTracker;
+	
+	@Mock
+	private BalanceHoldRepository balanceHoldRepository;
+	
+	@Spy //샤딩하지 않는 단일 DB
+	private ShardExecutor shardExecutor = ShardExecutor.single();
+
 	@InjectMocks
 	private TransactionService transactionService;
 	
@@ -114,6 +154,11 @@ class TransactionServiceTest {
 		assertEquals(TransactionType.USE, captor.getValue().getTransactionType());
 		assertEquals(9800L, captor.getValue().getBalanceSnapshot()); //10000 - 200
 		
+		//같은 트랜잭션에서 outbox 이벤트도 저장
+		ArgumentCaptor<OutboxEvent> outboxCaptor = ArgumentCaptor.forClass(OutboxEvent.class);
+		verify(outboxEventRepository, times(1)).save(outboxCaptor.capture());
+		assertEquals("transactionId", outboxCaptor.getValue().getTransactionId());
+		assertEquals(9000L, outboxCaptor.getValue().getBalanceSnapshot());
 	}
 	
 	
@@ -215,6 +260,39 @@ class TransactionServiceTest {
 	}
 	
 	
+	@Test
+	@DisplayName("lock lease가 지나 더 늦게 lock을 잡은 요청이 먼저 잔액을 바꾼 경우")
+	void staleLockToken_UseBalance() {
+		//given
+		AccountUser user = AccountUser.builder().id(12L).name("Pobi").build();
+		Account account = Account.builder()
+				.accountUser(user)
+				.balance(10000L)
+				.accountStatus(AccountStatus.IN_USE)
+				.accountNumber("1000000012")
+				.lastFencingToken(8L)
+				.build();
+		
+		given(accountUserRepository.findById(anyLong())).willReturn(Optional.of(user));
+		given(accountRepository.advanceFencingToken("1000000012", 7L)).willReturn(0);
+		given(accountRepository.findByAccountNumber(anyString())).willReturn(Optional.of(account));
+		
+		//when
+		FencingTokens.bind("1000000012", 7L);
+		AccountException exception;
+		try {
+			exception = assertThrows(AccountException.class, ()-> transactionService.useBalance(12L, "1000000012", 1000L));
+		} finally {
+			FencingTokens.clear("1000000012");
+		}
+		
+		//then
+		assertEquals(ErrorCode.STALE_LOCK_TOKEN, exception.getErrorCode());
+		assertEquals(10000L, account.getBalance());
+		verify(transactionRepository, times(0)).save(any());
+	}
+	
+	
 	@Test
 	@DisplayName("실패 트랜잭션 저장 성공")
 	void saveFailedUseTransation() {
@@ -255,6 +333,87 @@ class TransactionServiceTest {
 	}
 	
 	
+	@Test
+	@DisplayName("실패 트랜잭션 일괄 저장 - 없는 계좌는 건너뛴다")
+	@SuppressWarnings("unchecked")
+	void saveFailedTransactions() {
+		//given
+		AccountUser user = AccountUser.builder().id(12L).name("Pobi").build();
+		
+		Account account = Account.builder()
+				.accountUser(user)
+				.balance(10000L)
+				.accountStatus(AccountStatus.IN_USE)
+				.accountNumber("1000000012")
+				.build();
+		
+		LocalDateTime failedAt = LocalDateTime.now().minusSeconds(10);
+		
+		given(accountRepository.findByAccountNumberIn(any())).willReturn(List.of(account));
+		
+		ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+		
+		//when
+		transactionService.saveFailedTransactions(List.of(
+				new FailedTransaction(TransactionType.USE, "1000000012", 200L, failedAt),
+				new FailedTransaction(TransactionType.CANCEL, "1000000012", 300L, failedAt),
+				new FailedTransaction(TransactionType.USE, "9999999999", 400L, failedAt)));
+		
+		//then
+		verify(transactionRepository, times(1)).saveAll(captor.capture());
+		
+		assertEquals(2, captor.getValue().size());
+		assertEquals(TransactionResultType.F, captor.getValue().get(0).getTransactionResultType());
+		assertEquals(TransactionType.CANCEL, captor.getValue().get(1).getTransactionType());
+		assertEquals(failedAt, captor.getValue().get(0).getTransactedAt()); //실패 시각이 그대로 저장
+		assertEquals(10000L, captor.getValue().get(1).getBalanceSnapshot());
+		verify(dailyRollupService, times(1)).recordAll(captor.getValue()); //같은 트랜잭션에서 일별 합계 갱신
+		verify(hotAccountTracker, times(1)).recordFailures(List.of("1000000012", "1000000012")); //없는 계좌는 세지 않는다
+	}
+	
+	
+	@Test
+	@DisplayName("Redis 원장 journal 저장 - 이미 저장한 순번은 건너뛴다")
+	@SuppressWarnings("unchecked")
+	void saveLedgerEntries() {
+		//given DB에는 순번 1까지 반영됨
+		AccountUser user = AccountUser.builder().id(12L).name("Pobi").build();
+		
+		Account account = Account.builder()
+				.accountUser(user)
+				.balance(700L)
+				.ledgerSeq(1L)
+				.accountStatus(AccountStatus.IN_USE)
+				.accountNumber("1000000012")
+				.build();
+		
+		LocalDateTime transactedAt = LocalDateTime.now().minusSeconds(1);
+		
+		given(accountRepository.findByAccountNumberIn(any())).willReturn(List.of(account));
+		
+		ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+		
+		//when
+		transactionService.saveLedgerEntries(List.of(
+				new LedgerEntry(TransactionType.USE, "1000000012", 300L, 700L, 1L, "transactionId1", transactedAt),
+				new LedgerEntry(TransactionType.USE, "1000000012", 200L, 500L, 2L, "transactionId2", transactedAt),
+				new LedgerEntry(TransactionType.CANCEL, "1000000012", 300L, 800L, 3L, "transactionId3", transactedAt)));
+		
+		//then 잔액은 마지막 항목의 잔액 그대로
+		verify(transactionRepository, times(1)).saveAll(captor.capture());
+		
+		assertEquals(2, captor.getValue().size());
+		assertEquals("transactionId2", captor.getValue().get(0).getTransactionId());
+		assertEquals(500L, captor.getValue().get(0).getBalanceSnapshot());
+		assertEquals(TransactionResultType.S, captor.getValue().get(1).getTransactionResultType());
+		assertEquals(transactedAt, captor.getValue().get(1).getTransactedAt());
+		assertEquals(800L, account.getBalance());
+		assertEquals(3L, account.getLedgerSeq());
+		verify(outboxEventRepository, times(1)).saveAll(any());
+		verify(dailyRollupService, times(1)).recordAll(captor.getValue());
+	}
+	
+	
 	@Test
 	void successCancelBalance() {
 		//given
@@ -314,9 +473,6 @@ class TransactionServiceTest {
 	@DisplayName("해당 계좌 없음 - 잔액 사용 취소 실패")
 	void cancelTransaction_AccountNotFound() {
 		//given 
-		given(transactionRepository.findByTransactionId(anyString())).willReturn(Optional.of(Transaction.builder()
-																								.build()));
-		
 		given(accountRepository.findByAccountNumber(anyString())).willReturn(Optional.empty());
 		
 		//when
@@ -331,6 +487,7 @@ class TransactionServiceTest {
 	void cancelTransaction_TransactionNotFound() {
 		
 		//given 
+		given(accountRepository.findByAccountNumber(anyString())).willReturn(Optional.of(Account.builder().build()));
 		given(transactionRepository.findByTransactionId(anyString())).willReturn(Optional.empty());
 		
 		//when
@@ -514,4 +671,300 @@ class TransactionServiceTest {
 		assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
 	}
 	
+	@Test
+	@DisplayName("hot 테이블에 없으면 보관 세그먼트에서 조회")
+	void queryTransaction_FromArchive() {
+		
+		//given 
+		given(transactionRepository.findByTransactionId(anyString())).willReturn(Optional.empty());
+		given(transactionArchive.findByTransactionId("transactionId")).willReturn(Optional.of(TransactionDTO.builder()
+				.accountNumber("1000000012")
+				.transactionType(TransactionType.USE)
+				.transactionResultType(TransactionResultType.S)
+				.transactionId("transactionId")
+				.amount(CANCEL_AMOUNT)
+				.transactedAt(LocalDateTime.now().minusYears(2))
+				.build()));
+		
+		//when
+		TransactionDTO transactionDTO = transactionService.queryTransaction("transactionId");
+		
+		//then
+		assertEquals("1000000012", transactionDTO.getAccountNumber());
+		assertEquals(CANCEL_AMOUNT, transactionDTO.getAmount());
+	}
+	
+	@Test
+	@DisplayName("보관된 거래 - 잔액 사용 취소 실패")
+	void cancelTransaction_Archived() {
+		
+		//given 
+		given(accountRepository.findByAccountNumber(anyString())).willReturn(Optional.of(Account.builder().build()));
+		given(transactionRepository.findByTransactionId(anyString())).willReturn(Optional.empty());
+		given(transactionArchive.findByTransactionId("transactionId")).willReturn(Optional.of(TransactionDTO.builder().transactionId("transactionId").build()));
+		
+		//when
+		AccountException exception = assertThrows(AccountException.class, ()-> transactionService.cancelBalance("transactionId", "1000000000", 1000L));
+		
+		//then
+		assertEquals(ErrorCode.TOO_OLD_ORDER_TO_CANCEL, exception.getErrorCode());
+	}
+	
+	@Test
+	@DisplayName("기간 합계 - 집계 쿼리 결과를 (유형, 결과) 순으로")
+	void summarizeTransactions() {
+		
+		//given
+		ReflectionTestUtils.setField(transactionService, "archiveMaxAgeDays", 365L);
+		Account account = Account.builder().id(1L).accountNumber("1000000012").build();
+		LocalDateTime from = LocalDateTime.now().minusMonths(1);
+		LocalDateTime to = LocalDateTime.now();
+		
+		given(accountRepository.findByAccountNumber("1000000012")).willReturn(Optional.of(account));
+		given(transactionRepository.summarizeByAccountBetween(1L, from, to)).willReturn(List.of(
+				new Object[] {TransactionType.CANCEL, TransactionResultType.S, 300L, 1L, 300L, 300L},
+				new Object[] {TransactionType.USE, TransactionResultType.S, 1500L, 3L, 100L, 1000L},
+				new Object[] {TransactionType.USE, TransactionResultType.F, 50000L, 1L, 50000L, 50000L}));
+		
+		//when
+		TransactionSummary summary = transactionService.summarizeTransactions("1000000012", from, to);
+		
+		//then
+		assertEquals(3, summary.getGroups().size());
+		assertEquals(TransactionType.USE, summary.getGroups().get(0).getTransactionType());
+		assertEquals(TransactionResultType.S, summary.getGroups().get(0).getTransactionResultType());
+		assertEquals(1500L, summary.getGroups().get(0).getSum());
+		assertEquals(3L, summary.getGroups().get(0).getCount());
+		assertEquals(100L, summary.getGroups().get(0).getMin());
+		assertEquals(1000L, summary.getGroups().get(0).getMax());
+		assertEquals(TransactionType.CANCEL, summary.getGroups().get(2).getTransactionType());
+		verify(transactionArchive, never()).findByAccountNumber(any()); //보관 기간 전이면 세그먼트를 읽지 않는다
+	}
+	
+	@Test
+	@DisplayName("기간 합계 - 보관된 기간이면 세그먼트의 거래도 더한다")
+	void summarizeTransactions_WithArchive() {
+		
+		//given
+		ReflectionTestUtils.setField(transactionService, "archiveMaxAgeDays", 365L);
+		Account account = Account.builder().id(1L).accountNumber("1000000012").build();
+		LocalDateTime from = LocalDateTime.now().minusYears(3);
+		LocalDateTime to = LocalDateTime.now();
+		
+		given(accountRepository.findByAccountNumber("1000000012")).willReturn(Optional.of(account));
+		given(transactionRepository.summarizeByAccountBetween(eq(1L), any(), any())).willReturn(List.<Object[]>of(
+				new Object[] {TransactionType.USE, TransactionResultType.S, 1500L, 3L, 100L, 1000L}));
+		given(transactionArchive.findByAccountNumber("1000000012")).willReturn(List.of(
+				TransactionDTO.builder().transactionType(TransactionType.USE).transactionResultType(TransactionResultType.S)
+						.amount(5000L).transactedAt(LocalDateTime.now().minusYears(2)).build(),
+				TransactionDTO.builder().transactionType(TransactionType.USE).transactionResultType(TransactionResultType.S)
+						.amount(9000L).transactedAt(LocalDateTime.now().minusYears(4)).build())); //기간 밖
+		
+		//when
+		TransactionSummary summary = transactionService.summarizeTransactions("1000000012", from, to);
+		
+		//then
+		assertEquals(1, summary.getGroups().size());
+		assertEquals(6500L, summary.getGroups().get(0).getSum());
+		assertEquals(4L, summary.getGroups().get(0).getCount());
+		assertEquals(5000L, summary.getGroups().get(0).getMax());
+	}
+	
+	@Test
+	@DisplayName("기간 합계 - from이 to보다 늦으면 실패")
+	void summarizeTransactions_InvalidRange() {
+		
+		//when
+		AccountException exception = assertThrows(AccountException.class,
+				()-> transactionService.summarizeTransactions("1000000012", LocalDateTime.now(), LocalDateTime.now().minusDays(1)));
+		
+		//then
+		assertEquals(ErrorCode.INVALID_REQUEST, exception.getErrorCode());
+	}
+	
+	@Test
+	@DisplayName("가승인 - 잔액은 그대로, 사용 가능 잔액만 줄어든다")
+	void successReserveBalance() {
+		//given
+		ReflectionTestUtils.setField(transactionService, "holdTtlSeconds", 600L);
+		AccountUser user = AccountUser.builder().id(12L).name("Pobi").build();
+		Account account = Account.builder().accountUser(user).balance(10000L).accountStatus(AccountStatus.IN_USE).accountNumber("1000000012").build();
+		
+		given(accountUserRepository.findById(anyLong())).willReturn(Optional.of(user));
+		given(accountRepository.findByAccountNumber(anyString())).willReturn(Optional.of(account));
+		given(balanceHoldRepository.save(any())).willAnswer(invocation -> invocation.getArgument(0));
+		
+		//when
+		BalanceHoldDTO hold = transactionService.reserveBalance(12L, "1000000012", 3000L);
+		
+		//then
+		assertEquals(HoldStatus.HELD, hold.getHoldStatus());
+		assertEquals(3000L, hold.getAmount());
+		assertEquals(7000L, hold.getAvailableBalance());
+		assertTrue(hold.getExpiresAt().isAfter(LocalDateTime.now().plusSeconds(590)));
+		assertEquals(10000L, account.getBalance());
+		verify(transactionRepository, never()).save(any()); //확정 전에는 거래 이력이 없다
+	}
+	
+	@Test
+	@DisplayName("가승인으로 잡아둔 금액은 잔액 사용에 쓸 수 없다")
+	void useBalance_ExceedAvailableBalance() {
+		//given 잔액 10000 중 8000을 가승인
+		AccountUser user = AccountUser.builder().id(12L).name("Pobi").build();
+		Account account = Account.builder().accountUser(user).balance(10000L).heldAmount(8000L).accountStatus(AccountStatus.IN_USE).accountNumber("1000000012").build();
+		
+		given(accountUserRepository.findById(anyLong())).willReturn(Optional.of(user));
+		given(accountRepository.findByAccountNumber(anyString())).willReturn(Optional.of(account));
+		
+		//when
+		AccountException exception = assertThrows(AccountException.class, ()-> transactionService.useBalance(12L, "1000000012", 3000L));
+		
+		//then
+		assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+	}
+	
+	@Test
+	@DisplayName("가승인 부분 확정 - 확정 금액만 USE 거래로 저장하고 나머지는 푼다")
+	void successCaptureHold() {
+		//given 잔액 10000, 가승인 3000 중 2000만 확정
+		AccountUser user = AccountUser.builder().id(12L).name("Pobi").build();
+		Account account = Account.builder().id(1L).accountUser(user).balance(10000L).heldAmount(3000L).accountStatus(AccountStatus.IN_USE).accountNumber("1000000012").build();
+		BalanceHold hold = BalanceHold.builder().account(account).holdId("holdId").holdStatus(HoldStatus.HELD).amount(3000L)
+				.expiresAt(LocalDateTime.now().plusMinutes(10)).build();
+		
+		given(balanceHoldRepository.findByHoldId("holdId")).willReturn(Optional.of(hold));
+		given(accountRepository.findByAccountNumber(anyString())).willReturn(Optional.of(account));
+		given(transactionRepository.save(any())).willAnswer(invocation -> invocation.getArgument(0));
+		ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+		
+		//when
+		BalanceHoldDTO captured = transactionService.captureHold("holdId", "1000000012", 2000L);
+		
+		//then
+		assertEquals(HoldStatus.CAPTURED, captured.getHoldStatus());
+		assertEquals(2000L, captured.getCapturedAmount());
+		assertEquals(8000L, account.getBalance());
+		assertEquals(0L, account.getHeldAmount());
+		assertEquals(8000L, captured.getAvailableBalance());
+		
+		verify(transactionRepository).save(captor.capture());
+		assertEquals(TransactionType.USE, captor.getValue().getTransactionType());
+		assertEquals(2000L, captor.getValue().getAmount());
+		assertEquals(captor.getValue().getTransactionId(), captured.getTransactionId());
+		verify(outboxEventRepository).save(any()); //잔액이 바뀌었으므로 outbox 이벤트도
+	}
+	
+	@Test
+	@DisplayName("가승인 금액보다 큰 확정 - 실패")
+	void captureHold_ExceedsHold() {
+		//given
+		Account account = Account.builder().id(1L).balance(10000L).heldAmount(3000L).accountNumber("1000000012").build();
+		BalanceHold hold = BalanceHold.builder().account(account).holdId("holdId").holdStatus(HoldStatus.HELD).amount(3000L)
+				.expiresAt(LocalDateTime.now().plusMinutes(10)).build();
+		
+		given(balanceHoldRepository.findByHoldId("holdId")).willReturn(Optional.of(hold));
+		given(accountRepository.findByAccountNumber(anyString())).willReturn(Optional.of(account));
+		
+		//when
+		AccountException exception = assertThrows(AccountException.class, ()-> transactionService.captureHold("holdId", "1000000012", 3001L));
+		
+		//then
+		assertEquals(ErrorCode.CAPTURE_EXCEEDS_HOLD, exception.getErrorCode());
+		assertEquals(3000L, account.getHeldAmount());
+	}
+	
+	@Test
+	@DisplayName("만료 시각이 지난 가승인 - 만료 작업 전이라도 확정 실패")
+	void captureHold_Expired() {
+		//given
+		Account account = Account.builder().id(1L).balance(10000L).heldAmount(3000L).accountNumber("1000000012").build();
+		BalanceHold hold = BalanceHold.builder().account(account).holdId("holdId").holdStatus(HoldStatus.HELD).amount(3000L)
+				.expiresAt(LocalDateTime.now().minusSeconds(1)).build();
+		
+		given(balanceHoldRepository.findByHoldId("holdId")).willReturn(Optional.of(hold));
+		given(accountRepository.findByAccountNumber(anyString())).willReturn(Optional.of(account));
+		
+		//when
+		AccountException exception = assertThrows(AccountException.class, ()-> transactionService.captureHold("holdId", "1000000012", 1000L));
+		
+		//then
+		assertEquals(ErrorCode.HOLD_EXPIRED, exception.getErrorCode());
+	}
+	
+	@Test
+	@DisplayName("가승인 해제 - 두 번째 해제는 실패")
+	void releaseHold_AlreadyClosed() {
+		//given
+		Account account = Account.builder().id(1L).balance(10000L).heldAmount(3000L).accountNumber("1000000012").build();
+		BalanceHold hold = BalanceHold.builder().account(account).holdId("holdId").holdStatus(HoldStatus.HELD).amount(3000L)
+				.expiresAt(LocalDateTime.now().plusMinutes(10)).build();
+		
+		given(balanceHoldRepository.findByHoldId("holdId")).willReturn(Optional.of(hold));
+		given(accountRepository.findByAccountNumber(anyString())).willReturn(Optional.of(account));
+		
+		//when
+		BalanceHoldDTO released = transactionService.releaseHold("holdId", "1000000012");
+		AccountException exception = assertThrows(AccountException.class, ()-> transactionService.releaseHold("holdId", "1000000012"));
+		
+		//then
+		assertEquals(HoldStatus.RELEASED, released.getHoldStatus());
+		assertEquals(10000L, released.getAvailableBalance());
+		assertEquals(ErrorCode.HOLD_ALREADY_CLOSED, exception.getErrorCode());
+	}
+	
+	@Test
+	@DisplayName("만료된 가승인 id - 만료 시각 순서로")
+	void findExpiredHoldIds() {
+		//given
+		BalanceHold first = BalanceHold.builder().holdId("first").holdStatus(HoldStatus.HELD).amount(2000L).build();
+		BalanceHold second = BalanceHold.builder().holdId("second").holdStatus(HoldStatus.HELD).amount(1000L).build();
+		
+		given(balanceHoldRepository.findByHoldStatusAndExpiresAtBeforeOrderByExpiresAtAsc(eq(HoldStatus.HELD), any(), any())).willReturn(List.of(first, second));
+		
+		//when
+		List<String> holdIds = transactionService.findExpiredHoldIds(10);
+		
+		//then
+		assertEquals(List.of("first", "second"), holdIds);
+	}
+	
+	@Test
+	@DisplayName("만료된 가승인 해제 - 잡아둔 금액 중 그 가승인만 푼다")
+	void expireHold() {
+		//given
+		Account account = Account.builder().id(1L).balance(10000L).heldAmount(5000L).accountNumber("1000000012").build();
+		BalanceHold hold = BalanceHold.builder().account(account).holdId("first").holdStatus(HoldStatus.HELD).amount(2000L)
+				.expiresAt(LocalDateTime.now().minusSeconds(1)).build();
+		
+		given(balanceHoldRepository.findByHoldId("first")).willReturn(Optional.of(hold));
+		
+		//when
+		boolean expired = transactionService.expireHold("first");
+		
+		//then
+		assertTrue(expired);
+		assertEquals(3000L, account.getHeldAmount()); //다른 가승인 3000은 남는다
+		assertEquals(HoldStatus.EXPIRED, hold.getHoldStatus());
+		assertNotNull(hold.getClosedAt());
+	}
+	
+	@Test
+	@DisplayName("만료 작업 전에 확정된 가승인 - 건너뛴다")
+	void expireHold_AlreadyCaptured() {
+		//given id를 읽은 뒤 다른 요청이 확정
+		Account account = Account.builder().id(1L).balance(8000L).heldAmount(0L).accountNumber("1000000012").build();
+		BalanceHold hold = BalanceHold.builder().account(account).holdId("first").holdStatus(HoldStatus.CAPTURED).amount(2000L)
+				.expiresAt(LocalDateTime.now().minusSeconds(1)).build();
+		
+		given(balanceHoldRepository.findByHoldId("first")).willReturn(Optional.of(hold));
+		
+		//when
+		boolean expired = transactionService.expireHold("first");
+		
+		//then
+		assertFalse(expired);
+		assertEquals(0L, account.getHeldAmount());
+		assertEquals(HoldStatus.CAPTURED, hold.getHoldStatus());
+	}
+	
 }
@@ -0,0 +1,178 @@
+package com.example.account.shard;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+
+//샤드 대신 H2 인메모리 DB 세 개를 쓴다
+class ShardExecutorTest {
+	private static final int SHARDS = 3;
+
+	private List<DataSource> shards;
+	private ShardRoutingDataSource routingDataSource;
+	private ShardExecutor shardExecutor;
+	private JdbcTemplate routed;
+	private TransactionTemplate transactionTemplate;
+
+	@BeforeEach
+	void setUp() {
+		shards = new ArrayList<>();
+		for(int i = 0; i < SHARDS; i++) {
+			DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:shard-test-" + i + ";DB_CLOSE_DELAY=-1", "sa", "");
+			new JdbcTemplate(dataSource).execute("create table whoami as select 'shard-" + i + "' name");
+			shards.add(dataSource);
+		}
+		routingDataSource = new ShardRoutingDataSource(shards);
+		routed = new JdbcTemplate(routingDataSource);
+
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routingDataSource);
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+		newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		shardExecutor = new ShardExecutor(SHARDS, Executors.newFixedThreadPool(SHARDS), newTransaction);
+	}
+
+	@AfterEach
+	void tearDown() {
+		shardExecutor.shutdown();
+		shards.forEach(dataSource -> new JdbcTemplate(dataSource).execute("drop all objects"));
+	}
+
+	@Test
+	void sequentialAccountNumbersSpreadAcrossShards() {
+		//given
+		int[] counts = new int[SHARDS];
+
+		//when
+		for(long accountNumber = 1000000000L; accountNumber < 1000003000L; accountNumber++) {
+			counts[shardExecutor.shardOf(String.valueOf(accountNumber))]++;
+		}
+
+		//then 샤드마다 1000개 안팎
+		for(int count : counts) {
+			assertTrue(count > 900 && count < 1100, "uneven shard: " + count);
+		}
+		assertEquals(shardExecutor.shardOf("1000000012"), shardExecutor.shardOf("1000000012"));
+		assertEquals(0, ShardExecutor.single().shardOf("1000000012"));
+	}
+
+	@Test
+	void onShardRoutesToTheAccountShard() {
+		//given
+		String accountNumber = "1000000012";
+		int shard = shardExecutor.shardOf(accountNumber);
+
+		//when
+		String name = shardExecutor.onShard(accountNumber, this::whoami);
+
+		//then
+		assertEquals("shard-" + shard, name);
+		assertEquals("shard-0", whoami()); //지정하지 않으면 0번
+	}
+
+	@Test
+	void onAllShardsRunsInParallelInShardOrder() {
+		//given 세 샤드가 동시에 실행 중이어야 latch가 풀린다
+		CountDownLatch latch = new CountDownLatch(SHARDS);
+
+		//when
+		List<String> names = shardExecutor.onAllShards(() -> {
+			latch.countDown();
+			try {
+				assertTrue(latch.await(5, TimeUnit.SECONDS));
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+			return whoami();
+		});
+
+		//then
+		assertEquals(List.of("shard-0", "shard-1", "shard-2"), names);
+	}
+
+	@Test
+	void onShardInsideTransactionUsesNewTransaction() {
+		//when 0번 샤드 트랜잭션이 커넥션을 잡은 상태에서 2번 샤드 조회
+		List<String> names = transactionTemplate.execute(status -> {
+			String outer = whoami();
+			String inner = shardExecutor.onShard(2, this::whoami);
+			return List.of(outer, inner, whoami());
+		});
+
+		//then
+		assertEquals(List.of("shard-0", "shard-2", "shard-0"), names);
+	}
+
+	@Test
+	void onAllShardsRethrowsShardFailure() {
+		//when
+		AccountException exception = assertThrows(AccountException.class, () -> shardExecutor.onAllShards(() -> {
+			if(ShardContext.current() == 1) {
+				throw new AccountException(ErrorCode.TRANSACTION_NOT_FOUND);
+			}
+			return whoami();
+		}));
+
+		//then
+		assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
+	}
+
+	@Test
+	void partitionGroupsByShard() {
+		//given
+		List<String> accountNumbers = List.of("1000000000", "1000000001", "1000000002", "1000000003", "1000000004");
+
+		//when
+		Map<Integer, List<String>> partitions = shardExecutor.partition(accountNumbers, accountNumber -> accountNumber);
+
+		//then
+		assertEquals(5, partitions.values().stream().mapToInt(List::size).sum());
+		partitions.forEach((shard, part) -> part.forEach(accountNumber -> assertEquals((int) shard, shardExecutor.shardOf(accountNumber))));
+	}
+
+	@Test
+	void schemaInitializerCopiesSchemaAndReplicatedTables() {
+		//given 0번 샤드에만 Hibernate가 만든 스키마와 data.sql이 있는 상태
+		shards.forEach(dataSource -> new JdbcTemplate(dataSource).execute("drop table whoami"));
+		JdbcTemplate shard0 = new JdbcTemplate(shards.get(0));
+		shard0.execute("create sequence hibernate_sequence start with 1");
+		shard0.execute("create table account_user (id bigint primary key, name varchar(32))");
+		shard0.execute("create table account (id bigint primary key, account_number varchar(16), account_user_id bigint references account_user(id))");
+		shard0.update("insert into account_user values (1, 'Pororo'), (2, 'Lupi')");
+
+		//when
+		new ShardSchemaInitializer(routingDataSource).afterSingletonsInstantiated();
+
+		//then
+		for(int shard = 1; shard < SHARDS; shard++) {
+			JdbcTemplate target = new JdbcTemplate(shards.get(shard));
+			assertEquals(0, target.queryForObject("select count(*) from account", Integer.class));
+			assertEquals(List.of("Pororo", "Lupi"), target.queryForList("select name from account_user order by id", String.class));
+			assertEquals(shard * ShardSchemaInitializer.ID_RANGE_PER_SHARD + 1,
+					target.queryForObject("select next value for hibernate_sequence", Long.class));
+		}
+	}
+
+	private String whoami() {
+		return routed.queryForObject("select name from whoami", String.class);
+	}
+}
@@ -0,0 +1,70 @@
+package com.example.account.timing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.servlet.FilterChain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ServerTimingFilterTest {
+
+	private final ServerTimingFilter serverTimingFilter = new ServerTimingFilter();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(serverTimingFilter, "enabled", true);
+		ReflectionTestUtils.setField(serverTimingFilter, "logSampleRate", 1.0);
+	}
+
+	@Test
+	void recordsPhasesIntoHeader() throws Exception {
+		//given 체인 안에서 lock 대기 2ms, db 1ms 기록
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/transaction/use");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		FilterChain chain = (req, res) -> {
+			RequestTiming.add(TimingPhase.LOCK_WAIT, 2_000_000L);
+			RequestTiming.add(TimingPhase.DB, 1_000_000L);
+			res.getWriter().write("{}");
+		};
+
+		//when
+		serverTimingFilter.doFilter(request, response, chain);
+
+		//then
+		String header = response.getHeader("Server-Timing");
+		assertTrue(header.startsWith("lock-wait;dur=2.000, lock-hold;dur=0.000, db;dur=1.000, commit;dur=0.000, ser;dur="), header);
+		assertTrue(header.contains("total;dur="));
+		assertEquals("{}", response.getContentAsString()); //본문은 그대로 전달
+		assertFalse(RequestTiming.current().isActive()); //요청이 끝나면 기록하지 않는다
+	}
+
+	@Test
+	void noRecordingOutsideRequest() {
+		//given
+		long before = RequestTiming.current().getNanos(TimingPhase.DB);
+		
+		//when 필터 밖에서 기록
+		RequestTiming.add(TimingPhase.DB, 1_000_000L);
+
+		//then
+		assertEquals(before, RequestTiming.current().getNanos(TimingPhase.DB));
+	}
+
+	@Test
+	void streamIsNotBuffered() throws Exception {
+		//given
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/account/stream");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		//when
+		serverTimingFilter.doFilter(request, response, new MockFilterChain());
+
+		//then
+		assertNull(response.getHeader("Server-Timing"));
+	}
+}